@@ -0,0 +1,161 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.carrot2.clustering.Document;
+import org.carrot2.clustering.FieldMapDocument;
+import org.carrot2.clustering.SampleDocumentData;
+import org.carrot2.examples.ExamplesData;
+
+/**
+ * Document corpora for benchmarks. The sample corpora ({@link
+ * SampleDocumentData#DOCUMENTS_DATA_MINING}, {@link SampleDocumentData#DOCUMENTS_DAWID} and the
+ * API examples' {@link ExamplesData}) are repeated cyclically to reach the requested document
+ * count. The synthetic corpus is generated from a Zipf-distributed vocabulary seeded with words
+ * from the sample corpora.
+ *
+ * <p>All corpora are in English, so benchmarks run for English only.
+ */
+public final class BenchmarkDocuments {
+  public static final String DATA_MINING = "data-mining";
+  public static final String DAWID = "dawid";
+  public static final String EXAMPLES = "examples";
+  public static final String SYNTHETIC = "synthetic";
+
+  private static final long SEED = 0xdeadbeefL;
+
+  private BenchmarkDocuments() {}
+
+  /** Returns <code>count</code> documents from the given corpus. */
+  public static List<Document> documents(String corpus, int count) {
+    switch (corpus) {
+      case DATA_MINING:
+        return repeat(SampleDocumentData.DOCUMENTS_DATA_MINING, count);
+      case DAWID:
+        return repeat(SampleDocumentData.DOCUMENTS_DAWID, count);
+      case EXAMPLES:
+        return repeat(ExamplesData.documentStream().collect(Collectors.toList()), count);
+      case SYNTHETIC:
+        return synthetic(count, SEED);
+      default:
+        throw new IllegalArgumentException("Unknown corpus: " + corpus);
+    }
+  }
+
+  private static List<Document> repeat(List<Document> source, int count) {
+    ArrayList<Document> documents = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      documents.add(source.get(i % source.size()));
+    }
+    return documents;
+  }
+
+  /**
+   * Generates <code>count</code> documents with a title and a snippet field. Words are drawn from a
+   * Zipf-like distribution so that the term statistics resemble those of search results: a few very
+   * frequent words, a long tail of rare ones and recurring multi-word phrases.
+   */
+  public static List<Document> synthetic(int count, long seed) {
+    Random rnd = new Random(seed);
+    String[] vocabulary = vocabulary(rnd, 20000);
+    double[] cumulative = zipf(vocabulary.length, 1.07);
+
+    ArrayList<Document> documents = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      FieldMapDocument doc = new FieldMapDocument();
+      doc.addField("title", sentence(rnd, vocabulary, cumulative, 4 + rnd.nextInt(8)));
+      doc.addField("snippet", sentence(rnd, vocabulary, cumulative, 20 + rnd.nextInt(30)));
+      documents.add(doc);
+    }
+    return documents;
+  }
+
+  private static String sentence(
+      Random rnd, String[] vocabulary, double[] cumulative, int wordCount) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < wordCount; i++) {
+      if (i > 0) {
+        int r = rnd.nextInt(20);
+        sb.append(r == 0 ? ". " : r == 1 ? ", " : " ");
+      }
+
+      String word = vocabulary[sample(rnd, cumulative)];
+      if (rnd.nextInt(10) == 0) {
+        word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+      }
+      sb.append(word);
+    }
+    return sb.toString();
+  }
+
+  private static int sample(Random rnd, double[] cumulative) {
+    double v = rnd.nextDouble() * cumulative[cumulative.length - 1];
+    int lo = 0;
+    int hi = cumulative.length - 1;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (cumulative[mid] < v) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private static double[] zipf(int size, double exponent) {
+    double[] cumulative = new double[size];
+    double sum = 0;
+    for (int i = 0; i < size; i++) {
+      sum += 1.0 / Math.pow(i + 1, exponent);
+      cumulative[i] = sum;
+    }
+    return cumulative;
+  }
+
+  /** Real words from the sample corpora first, then random pseudo-words for the long tail. */
+  private static String[] vocabulary(Random rnd, int size) {
+    LinkedHashSet<String> words = new LinkedHashSet<>();
+    for (List<Document> corpus :
+        List.of(SampleDocumentData.DOCUMENTS_DATA_MINING, SampleDocumentData.DOCUMENTS_DAWID)) {
+      for (Document doc : corpus) {
+        doc.visitFields(
+            (field, value) -> {
+              if (!"url".equals(field) && value != null) {
+                for (String word : value.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                  if (word.length() > 1) {
+                    words.add(word);
+                  }
+                }
+              }
+            });
+      }
+    }
+
+    final String letters = "abcdefghijklmnopqrstuvwxyz";
+    while (words.size() < size) {
+      int length = 3 + rnd.nextInt(8);
+      StringBuilder sb = new StringBuilder(length);
+      for (int i = 0; i < length; i++) {
+        sb.append(letters.charAt(rnd.nextInt(letters.length())));
+      }
+      words.add(sb.toString());
+    }
+
+    return words.toArray(new String[0]);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.carrot2.attrs.AliasMapper;
+import org.carrot2.clustering.Cluster;
+import org.carrot2.clustering.ClusteringAlgorithm;
+import org.carrot2.clustering.Document;
+import org.carrot2.clustering.kmeans.BisectingKMeansClusteringAlgorithm;
+import org.carrot2.clustering.lingo.LingoClusteringAlgorithm;
+import org.carrot2.clustering.stc.STCClusteringAlgorithm;
+import org.carrot2.language.LanguageComponents;
+import org.carrot2.math.matrix.MatrixFactorizationFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** End-to-end benchmarks of {@link ClusteringAlgorithm#cluster}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusteringAlgorithmBenchmark {
+  @State(Scope.Benchmark)
+  public static class Input {
+    @Param({"100", "1000", "10000", "50000"})
+    public int documents;
+
+    /** All corpora are in English (see {@link BenchmarkDocuments}). */
+    @Param({"English"})
+    public String language;
+
+    @Param({
+      BenchmarkDocuments.SYNTHETIC,
+      BenchmarkDocuments.DATA_MINING,
+      BenchmarkDocuments.EXAMPLES
+    })
+    public String corpus;
+
+    List<Document> docs;
+    LanguageComponents languageComponents;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      docs = BenchmarkDocuments.documents(corpus, documents);
+      languageComponents = LanguageComponents.loader().load().language(language);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Lingo {
+    /** Factorization factory, by its alias name (see {@link AliasMapper}). */
+    @Param({
+      "NonnegativeMatrixFactorizationEDFactory",
+      "NonnegativeMatrixFactorizationHALSFactory",
+      "NonnegativeMatrixFactorizationKLFactory",
+      "LocalNonnegativeMatrixFactorizationFactory",
+      "KMeansMatrixFactorizationFactory",
+      "PartialSingularValueDecompositionFactory",
+      "RandomizedSvdFactorizationFactory"
+    })
+    public String factorization;
+
+    LingoClusteringAlgorithm algorithm;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      algorithm = new LingoClusteringAlgorithm();
+      algorithm.matrixReducer.factorizationFactory =
+          (MatrixFactorizationFactory) AliasMapper.SPI_DEFAULTS.fromName(factorization);
+    }
+  }
+
+  @Benchmark
+  public List<Cluster<Document>> lingo(Input input, Lingo lingo) {
+    return lingo.algorithm.cluster(input.docs.stream(), input.languageComponents);
+  }
+
+  @Benchmark
+  public List<Cluster<Document>> stc(Input input) {
+    return new STCClusteringAlgorithm().cluster(input.docs.stream(), input.languageComponents);
+  }
+
+  @Benchmark
+  public List<Cluster<Document>> bisectingKMeans(Input input) {
+    return new BisectingKMeansClusteringAlgorithm()
+        .cluster(input.docs.stream(), input.languageComponents);
+  }
+}
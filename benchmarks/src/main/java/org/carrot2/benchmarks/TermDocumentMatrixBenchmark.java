@@ -0,0 +1,130 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.carrot2.attrs.AliasMapper;
+import org.carrot2.language.LanguageComponents;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseMatrixMultiplication;
+import org.carrot2.math.matrix.IterativeMatrixFactorizationFactory;
+import org.carrot2.math.matrix.MatrixFactorization;
+import org.carrot2.math.matrix.MatrixFactorizationFactory;
+import org.carrot2.math.matrix.MatrixUtils;
+import org.carrot2.math.matrix.RandomizedSvdFactorizationFactory;
+import org.carrot2.text.preprocessing.CompletePreprocessingPipeline;
+import org.carrot2.text.preprocessing.PreprocessingContext;
+import org.carrot2.text.vsm.TermDocumentMatrixBuilder;
+import org.carrot2.text.vsm.VectorSpaceModelContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link TermDocumentMatrixBuilder} and of matrix factorizations applied to the
+ * resulting term-document matrix (as done by Lingo's term-document matrix reducer).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TermDocumentMatrixBenchmark {
+  @Param({"100", "1000", "10000", "50000"})
+  public int documents;
+
+  /** The term-document matrix doesn't depend much on the language, so only English is used. */
+  @Param({"English"})
+  public String language;
+
+  @Param({BenchmarkDocuments.SYNTHETIC, BenchmarkDocuments.DATA_MINING})
+  public String corpus;
+
+  /** Factorization factory, by its alias name (see {@link AliasMapper}). */
+  @Param({
+    "NonnegativeMatrixFactorizationEDFactory",
+    "NonnegativeMatrixFactorizationHALSFactory",
+    "NonnegativeMatrixFactorizationKLFactory",
+    "LocalNonnegativeMatrixFactorizationFactory",
+    "KMeansMatrixFactorizationFactory",
+    "PartialSingularValueDecompositionFactory",
+    "RandomizedSvdFactorizationFactory"
+  })
+  public String factorization;
+
+  @Param({"DENSE", "SPARSE"})
+  public TermDocumentMatrixBuilder.MatrixStorage matrixStorage;
+
+  /** Maximum number of matrix multiplication threads. */
+  @Param({"1", "4"})
+  public int threads;
+
+  /** The number of base vectors to compute. */
+  @Param({"15"})
+  public int dimensions;
+
+  private PreprocessingContext preprocessingContext;
+  private TermDocumentMatrixBuilder matrixBuilder;
+  private MatrixFactorizationFactory factorizationFactory;
+  private DoubleMatrix2D termDocumentMatrix;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    LanguageComponents languageComponents =
+        LanguageComponents.loader().load().language(language);
+
+    preprocessingContext =
+        new CompletePreprocessingPipeline()
+            .preprocess(
+                BenchmarkDocuments.documents(corpus, documents).stream(), null, languageComponents);
+
+    matrixBuilder = new TermDocumentMatrixBuilder();
+    matrixBuilder.matrixStorage.set(matrixStorage);
+    VectorSpaceModelContext vsmContext = new VectorSpaceModelContext(preprocessingContext);
+    matrixBuilder.buildTermDocumentMatrix(vsmContext);
+    termDocumentMatrix = vsmContext.termDocumentMatrix;
+    MatrixUtils.normalizeColumnL2(termDocumentMatrix, null);
+
+    factorizationFactory =
+        (MatrixFactorizationFactory) AliasMapper.SPI_DEFAULTS.fromName(factorization);
+    if (factorizationFactory instanceof IterativeMatrixFactorizationFactory) {
+      ((IterativeMatrixFactorizationFactory) factorizationFactory)
+          .estimateIterationsNumber(dimensions, termDocumentMatrix);
+    } else if (factorizationFactory instanceof RandomizedSvdFactorizationFactory) {
+      ((RandomizedSvdFactorizationFactory) factorizationFactory).setK(dimensions);
+    }
+  }
+
+  @Benchmark
+  public VectorSpaceModelContext termDocumentMatrixBuilder() {
+    VectorSpaceModelContext vsmContext = new VectorSpaceModelContext(preprocessingContext);
+    matrixBuilder.buildTermDocumentMatrix(vsmContext);
+    matrixBuilder.buildTermPhraseMatrix(vsmContext);
+    return vsmContext;
+  }
+
+  @Benchmark
+  public MatrixFactorization factorize() {
+    return DenseMatrixMultiplication.withMaxThreads(
+        threads, () -> factorizationFactory.factorize(termDocumentMatrix));
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.carrot2.benchmarks.BenchmarkDocuments;
+import org.carrot2.clustering.Document;
+import org.carrot2.language.LanguageComponents;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of individual preprocessing stages of {@link CompletePreprocessingPipeline}. The input
+ * of each stage is prepared (by running all preceding stages) outside of the measured code.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreprocessingStagesBenchmark {
+  /** Consecutive preprocessing stages, in the order of execution. */
+  public enum Stage {
+    TOKENIZE,
+    NORMALIZE,
+    STEM,
+    MARK_STOP_WORDS,
+    EXTRACT_PHRASES,
+    FILTER_LABELS,
+    ASSIGN_DOCUMENTS
+  }
+
+  @State(Scope.Benchmark)
+  public static class Input {
+    @Param({"100", "1000", "10000", "50000"})
+    public int documents;
+
+    /** All corpora are in English (see {@link BenchmarkDocuments}). */
+    @Param({"English"})
+    public String language;
+
+    @Param({
+      BenchmarkDocuments.SYNTHETIC,
+      BenchmarkDocuments.DATA_MINING,
+      BenchmarkDocuments.EXAMPLES
+    })
+    public String corpus;
+
+    List<Document> docs;
+    LanguageComponents languageComponents;
+    CompletePreprocessingPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      docs = BenchmarkDocuments.documents(corpus, documents);
+      languageComponents = LanguageComponents.loader().load().language(language);
+      pipeline = new CompletePreprocessingPipeline();
+    }
+
+    /**
+     * Returns a new context with all stages up to (and excluding) <code>stage</code> applied, with
+     * the pipeline's default settings.
+     */
+    PreprocessingContext prepare(Stage stage) {
+      PreprocessingContext context = new PreprocessingContext(languageComponents);
+      for (Stage s : Stage.values()) {
+        if (s == stage) {
+          break;
+        }
+        run(s, context);
+      }
+      return context;
+    }
+
+    void run(Stage stage, PreprocessingContext context) {
+      switch (stage) {
+        case TOKENIZE:
+          pipeline.tokenizer.tokenize(context, docs.stream());
+          break;
+        case NORMALIZE:
+          pipeline.caseNormalizer.normalize(
+              context, pipeline.wordDfThreshold.get(), pipeline.caseNormalization.get());
+          break;
+        case STEM:
+          pipeline.stemming.stem(context, null);
+          break;
+        case MARK_STOP_WORDS:
+          pipeline.stopListMarker.mark(context);
+          break;
+        case EXTRACT_PHRASES:
+          new PhraseExtractor(pipeline.phraseDfThreshold.get(), pipeline.suffixSorting.get())
+              .extractPhrases(context);
+          break;
+        case FILTER_LABELS:
+          pipeline.labelFilters.process(context);
+          break;
+        case ASSIGN_DOCUMENTS:
+          pipeline.documentAssigner.assign(context);
+          break;
+        default:
+          throw new RuntimeException("Unreachable: " + stage);
+      }
+    }
+  }
+
+  /** Case normalization method, only varied for the stages it affects. */
+  @State(Scope.Benchmark)
+  public static class CaseNormalizationParam {
+    @Param({"HASHING", "SORTING"})
+    public CaseNormalization caseNormalization;
+  }
+
+  /** Suffix sorting algorithm, only varied for the stages it affects. */
+  @State(Scope.Benchmark)
+  public static class SuffixSortingParam {
+    @Param({"SA_IS", "MERGESORT"})
+    public PhraseExtractor.SuffixSorting suffixSorting;
+  }
+
+  /** Per-invocation state: a context prepared up to a given stage. */
+  public abstract static class StageInput {
+    PreprocessingContext context;
+
+    abstract Stage stage();
+
+    @Setup(Level.Invocation)
+    public void setup(Input input) {
+      context = input.prepare(stage());
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      context.close();
+      context = null;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BeforeTokenize extends StageInput {
+    @Override
+    Stage stage() {
+      return Stage.TOKENIZE;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BeforeNormalize extends StageInput {
+    @Override
+    Stage stage() {
+      return Stage.NORMALIZE;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BeforeStem extends StageInput {
+    @Override
+    Stage stage() {
+      return Stage.STEM;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BeforeMarkStopWords extends StageInput {
+    @Override
+    Stage stage() {
+      return Stage.MARK_STOP_WORDS;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BeforeExtractPhrases extends StageInput {
+    @Override
+    Stage stage() {
+      return Stage.EXTRACT_PHRASES;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BeforeFilterLabels extends StageInput {
+    @Override
+    Stage stage() {
+      return Stage.FILTER_LABELS;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BeforeAssignDocuments extends StageInput {
+    @Override
+    Stage stage() {
+      return Stage.ASSIGN_DOCUMENTS;
+    }
+  }
+
+  @Benchmark
+  public PreprocessingContext inputTokenizer(Input input, BeforeTokenize state) {
+    input.run(Stage.TOKENIZE, state.context);
+    return state.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext caseNormalizer(
+      Input input, BeforeNormalize state, CaseNormalizationParam param) {
+    input.pipeline.caseNormalizer.normalize(
+        state.context, input.pipeline.wordDfThreshold.get(), param.caseNormalization);
+    return state.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext languageModelStemmer(Input input, BeforeStem state) {
+    input.run(Stage.STEM, state.context);
+    return state.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext stopListMarker(Input input, BeforeMarkStopWords state) {
+    input.run(Stage.MARK_STOP_WORDS, state.context);
+    return state.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext suffixSorter(BeforeExtractPhrases state, SuffixSortingParam param) {
+    new SuffixSorter(param.suffixSorting).suffixSort(state.context);
+    return state.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext phraseExtractor(
+      Input input, BeforeExtractPhrases state, SuffixSortingParam param) {
+    new PhraseExtractor(input.pipeline.phraseDfThreshold.get(), param.suffixSorting)
+        .extractPhrases(state.context);
+    return state.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext labelFilterProcessor(Input input, BeforeFilterLabels state) {
+    input.run(Stage.FILTER_LABELS, state.context);
+    return state.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext documentAssigner(Input input, BeforeAssignDocuments state) {
+    input.run(Stage.ASSIGN_DOCUMENTS, state.context);
+    return state.context;
+  }
+
+  @Benchmark
+  public PreprocessingContext completePipeline(
+      Input input, CaseNormalizationParam caseNormalization, SuffixSortingParam suffixSorting) {
+    CompletePreprocessingPipeline pipeline = input.pipeline;
+    pipeline.caseNormalization.set(caseNormalization.caseNormalization);
+    pipeline.suffixSorting.set(suffixSorting.suffixSorting);
+    return pipeline.preprocess(input.docs.stream(), null, input.languageComponents);
+  }
+}
@@ -21,8 +21,10 @@ import org.carrot2.clustering.stc.STCClusteringAlgorithm;
 import org.carrot2.math.matrix.KMeansMatrixFactorizationFactory;
 import org.carrot2.math.matrix.LocalNonnegativeMatrixFactorizationFactory;
 import org.carrot2.math.matrix.NonnegativeMatrixFactorizationEDFactory;
+import org.carrot2.math.matrix.NonnegativeMatrixFactorizationHALSFactory;
 import org.carrot2.math.matrix.NonnegativeMatrixFactorizationKLFactory;
 import org.carrot2.math.matrix.PartialSingularValueDecompositionFactory;
+import org.carrot2.math.matrix.RandomizedSvdFactorizationFactory;
 import org.carrot2.text.preprocessing.BasicPreprocessingPipeline;
 import org.carrot2.text.preprocessing.CompletePreprocessingPipeline;
 import org.carrot2.text.preprocessing.DocumentAssigner;
@@ -100,6 +102,10 @@ public class ClassNameAliases implements AliasMapperFactory {
             "NonnegativeMatrixFactorizationEDFactory",
             NonnegativeMatrixFactorizationEDFactory.class,
             NonnegativeMatrixFactorizationEDFactory::new)
+        .alias(
+            "NonnegativeMatrixFactorizationHALSFactory",
+            NonnegativeMatrixFactorizationHALSFactory.class,
+            NonnegativeMatrixFactorizationHALSFactory::new)
         .alias(
             "NonnegativeMatrixFactorizationKLFactory",
             NonnegativeMatrixFactorizationKLFactory.class,
@@ -107,7 +113,11 @@ public class ClassNameAliases implements AliasMapperFactory {
         .alias(
             "PartialSingularValueDecompositionFactory",
             PartialSingularValueDecompositionFactory.class,
-            PartialSingularValueDecompositionFactory::new);
+            PartialSingularValueDecompositionFactory::new)
+        .alias(
+            "RandomizedSvdFactorizationFactory",
+            RandomizedSvdFactorizationFactory.class,
+            RandomizedSvdFactorizationFactory::new);
   }
 
   @Override
@@ -18,7 +18,6 @@ import com.carrotsearch.hppc.cursors.IntIntCursor;
 import com.carrotsearch.hppc.sorting.IndirectComparator;
 import com.carrotsearch.hppc.sorting.IndirectSort;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.carrot2.attrs.*;
 import org.carrot2.clustering.Cluster;
@@ -32,8 +31,10 @@ import org.carrot2.language.Tokenizer;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix1D;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix1D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseMatrixMultiplication;
 import org.carrot2.text.preprocessing.BasicPreprocessingPipeline;
 import org.carrot2.text.preprocessing.LabelFormatter;
 import org.carrot2.text.preprocessing.PreprocessingContext;
@@ -99,6 +100,20 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
           "useDimensionalityReduction",
           AttrBoolean.builder().label("Use dimensionality reduction").defaultValue(true));
 
+  /**
+   * Maximum number of threads used to multiply large dense matrices during term-document matrix
+   * reduction and k-means clustering. The default value of 1 disables
+   * multi-threaded multiplication. Clustering results do not depend on the number of threads.
+   */
+  public final AttrInteger matrixMultiplicationThreads =
+      attributes.register(
+          "matrixMultiplicationThreads",
+          AttrInteger.builder()
+              .label("Matrix multiplication threads")
+              .min(1)
+              .max(256)
+              .defaultValue(1));
+
   /** Term-document matrix builder for the algorithm. */
   public TermDocumentMatrixBuilder matrixBuilder;
 
@@ -145,11 +160,19 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
   @Override
   public <T extends Document> List<Cluster<T>> cluster(
       Stream<? extends T> docStream, LanguageComponents languageComponents) {
-    List<T> documents = docStream.collect(Collectors.toList());
+    return DenseMatrixMultiplication.withMaxThreads(
+        matrixMultiplicationThreads.get(), () -> doCluster(docStream, languageComponents));
+  }
+
+  private <T extends Document> List<Cluster<T>> doCluster(
+      Stream<? extends T> docStream, LanguageComponents languageComponents) {
+    // Filled in as the tokenizer pulls documents from the stream.
+    List<T> documents = new ArrayList<>();
 
     // Preprocessing of documents
     final PreprocessingContext preprocessingContext =
-        preprocessing.preprocess(documents.stream(), queryHint.get(), languageComponents);
+        preprocessing.preprocess(
+            docStream.sequential().peek(documents::add), queryHint.get(), languageComponents);
 
     // Add trivial AllLabels so that we can reuse the common TD matrix builder
     final int[] stemsMfow = preprocessingContext.allStems.mostFrequentOriginalWordIndex;
@@ -262,8 +285,19 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
     // so we need to calculate the centroid here once again based
     // on the cluster's documents.
     final DoubleMatrix1D centroid = new DenseDoubleMatrix1D(termDocumentMatrix.rows());
-    for (IntCursor d : documents) {
-      centroid.assign(termDocumentMatrix.viewColumn(d.value), Functions.PLUS);
+    if (termDocumentMatrix instanceof CompressedColumnDoubleMatrix2D) {
+      final CompressedColumnDoubleMatrix2D sparse =
+          (CompressedColumnDoubleMatrix2D) termDocumentMatrix;
+      for (IntCursor d : documents) {
+        for (int i = sparse.columnStart(d.value); i < sparse.columnEnd(d.value); i++) {
+          final int row = sparse.rowIndex(i);
+          centroid.setQuick(row, centroid.getQuick(row) + sparse.value(i));
+        }
+      }
+    } else {
+      for (IntCursor d : documents) {
+        centroid.assign(termDocumentMatrix.viewColumn(d.value), Functions.PLUS);
+      }
     }
 
     final int[] order =
@@ -298,7 +332,12 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
   private List<IntArrayList> split(
       int partitions, DoubleMatrix2D input, IntArrayList columns, int iterations) {
     // Prepare selected matrix
-    final DoubleMatrix2D selected = input.viewSelection(null, columns.toArray()).copy();
+    final DoubleMatrix2D selected;
+    if (input instanceof CompressedColumnDoubleMatrix2D) {
+      selected = ((CompressedColumnDoubleMatrix2D) input).copyColumns(columns.toArray());
+    } else {
+      selected = input.viewSelection(null, columns.toArray()).copy();
+    }
     final IntIntMap selectedToInput = new IntIntHashMap(selected.columns());
     for (int i = 0; i < columns.size(); i++) {
       selectedToInput.put(i, columns.get(i));
@@ -323,14 +362,18 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
     // Run a fixed number of K-means iterations
     for (int it = 0; it < iterations; it++) {
       // Update centroids
-      for (int i = 0; i < result.size(); i++) {
-        final IntArrayList cluster = result.get(i);
-        for (int k = 0; k < selected.rows(); k++) {
-          double sum = 0;
-          for (int j = 0; j < cluster.size(); j++) {
-            sum += selected.get(k, cluster.get(j));
+      if (selected instanceof CompressedColumnDoubleMatrix2D) {
+        updateCentroids((CompressedColumnDoubleMatrix2D) selected, result, centroids);
+      } else {
+        for (int i = 0; i < result.size(); i++) {
+          final IntArrayList cluster = result.get(i);
+          for (int k = 0; k < selected.rows(); k++) {
+            double sum = 0;
+            for (int j = 0; j < cluster.size(); j++) {
+              sum += selected.get(k, cluster.get(j));
+            }
+            centroids.setQuick(k, i, sum / cluster.size());
           }
-          centroids.setQuick(k, i, sum / cluster.size());
         }
       }
 
@@ -377,4 +420,28 @@ public class BisectingKMeansClusteringAlgorithm extends AttrComposite
 
     return result;
   }
+
+  /**
+   * Computes centroids of a sparse matrix's column clusters, visiting non-zero elements only.
+   * Elements are summed in the same order as in the dense case.
+   */
+  private static void updateCentroids(
+      CompressedColumnDoubleMatrix2D selected,
+      List<IntArrayList> clusters,
+      DoubleMatrix2D centroids) {
+    final double[] sums = new double[selected.rows()];
+    for (int i = 0; i < clusters.size(); i++) {
+      final IntArrayList cluster = clusters.get(i);
+      Arrays.fill(sums, 0);
+      for (int j = 0; j < cluster.size(); j++) {
+        final int column = cluster.get(j);
+        for (int p = selected.columnStart(column); p < selected.columnEnd(column); p++) {
+          sums[selected.rowIndex(p)] += selected.value(p);
+        }
+      }
+      for (int k = 0; k < sums.length; k++) {
+        centroids.setQuick(k, i, sums[k] / cluster.size());
+      }
+    }
+  }
 }
@@ -243,39 +243,38 @@ public class ClusterBuilder extends AttrComposite {
     final int[] clusterLabelFeatureIndex = context.clusterLabelFeatureIndex;
     final double[] clusterLabelScore = context.clusterLabelScore;
 
+    // Suitable for flat clustering
+    // A small subgroup contained within a bigger group
+    // will give small overlap ratio. Big ratios will
+    // be produced only for balanced group sizes.
     final double clusterMergingThreshold = this.clusterMergingThreshold.get();
-    final List<IntArrayList> mergedClusters =
-        GraphUtils.findCoherentSubgraphs(
-            clusterDocuments.length,
-            new GraphUtils.IArcPredicate() {
-              private BitSet temp = new BitSet();
-
-              public boolean isArcPresent(int clusterA, int clusterB) {
-                temp.clear();
-                int size;
-                BitSet setA = clusterDocuments[clusterA];
-                BitSet setB = clusterDocuments[clusterB];
-
-                // Suitable for flat clustering
-                // A small subgroup contained within a bigger group
-                // will give small overlap ratio. Big ratios will
-                // be produced only for balanced group sizes.
-                if (setA.cardinality() < setB.cardinality()) {
-                  // addAll == or
-                  // reiatinAll == and | intersect
-                  temp.or(setA);
-                  temp.intersect(setB);
-                  size = (int) setB.cardinality();
-                } else {
-                  temp.or(setB);
-                  temp.intersect(setA);
-                  size = (int) setA.cardinality();
-                }
-
-                return temp.cardinality() / (double) size >= clusterMergingThreshold;
-              }
-            },
-            true);
+    final GraphUtils.IOverlapPredicate overlapPredicate =
+        (cardinalityA, cardinalityB, intersection) ->
+            intersection / (double) Math.max(cardinalityA, cardinalityB) >= clusterMergingThreshold;
+
+    final List<IntArrayList> mergedClusters;
+    if (clusterMergingThreshold > 0) {
+      // Clusters with no documents in common are never merged, compare only those that overlap.
+      mergedClusters =
+          GraphUtils.findCoherentSubgraphs(
+              GraphUtils.findOverlapArcs(clusterDocuments, overlapPredicate), true);
+    } else {
+      final int[] cardinalities = new int[clusterDocuments.length];
+      for (int i = 0; i < cardinalities.length; i++) {
+        cardinalities[i] = (int) clusterDocuments[i].cardinality();
+      }
+
+      mergedClusters =
+          GraphUtils.findCoherentSubgraphs(
+              clusterDocuments.length,
+              (clusterA, clusterB) ->
+                  overlapPredicate.isArcPresent(
+                      cardinalities[clusterA],
+                      cardinalities[clusterB],
+                      (int) BitSet.intersectionCount(
+                          clusterDocuments[clusterA], clusterDocuments[clusterB])),
+              true);
+    }
 
     // For each merge group, choose the cluster with the highest score and
     // merge the rest to it
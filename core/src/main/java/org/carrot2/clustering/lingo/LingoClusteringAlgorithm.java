@@ -12,7 +12,6 @@ package org.carrot2.clustering.lingo;
 
 import com.carrotsearch.hppc.BitSet;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.attrs.AttrDouble;
@@ -27,6 +26,7 @@ import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.LexicalData;
 import org.carrot2.language.Stemmer;
 import org.carrot2.language.Tokenizer;
+import org.carrot2.math.mahout.matrix.impl.DenseMatrixMultiplication;
 import org.carrot2.text.preprocessing.CompletePreprocessingPipeline;
 import org.carrot2.text.preprocessing.LabelFormatter;
 import org.carrot2.text.preprocessing.PreprocessingContext;
@@ -68,6 +68,20 @@ public class LingoClusteringAlgorithm extends AttrComposite implements Clusterin
           "desiredClusterCount",
           AttrInteger.builder().label("Desired cluster count").min(2).max(100).defaultValue(30));
 
+  /**
+   * Maximum number of threads used to multiply large dense matrices during term-document matrix
+   * reduction and cluster label discovery. The default value of 1 disables
+   * multi-threaded multiplication. Clustering results do not depend on the number of threads.
+   */
+  public final AttrInteger matrixMultiplicationThreads =
+      attributes.register(
+          "matrixMultiplicationThreads",
+          AttrInteger.builder()
+              .label("Matrix multiplication threads")
+              .min(1)
+              .max(256)
+              .defaultValue(1));
+
   /** Preprocessing pipeline. */
   public CompletePreprocessingPipeline preprocessing;
 
@@ -141,11 +155,20 @@ public class LingoClusteringAlgorithm extends AttrComposite implements Clusterin
   @Override
   public <T extends Document> List<Cluster<T>> cluster(
       Stream<? extends T> docStream, LanguageComponents languageComponents) {
-    List<T> documents = docStream.collect(Collectors.toList());
+    return DenseMatrixMultiplication.withMaxThreads(
+        matrixMultiplicationThreads.get(), () -> doCluster(docStream, languageComponents));
+  }
+
+  private <T extends Document> List<Cluster<T>> doCluster(
+      Stream<? extends T> docStream, LanguageComponents languageComponents) {
+    // Collect documents as the preprocessing consumes them, so that the stream isn't buffered
+    // before tokenization starts.
+    List<T> documents = new ArrayList<>();
 
     // Preprocessing of documents
     final PreprocessingContext context =
-        preprocessing.preprocess(documents.stream(), queryHint.get(), languageComponents);
+        preprocessing.preprocess(
+            docStream.sequential().peek(documents::add), queryHint.get(), languageComponents);
 
     // Further processing only if there are words to process
     List<Cluster<T>> clusters = new ArrayList<>();
@@ -13,10 +13,11 @@ package org.carrot2.clustering.lingo;
 import com.carrotsearch.hppc.DoubleArrayList;
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntIntHashMap;
+import java.util.BitSet;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
 import org.carrot2.text.preprocessing.PreprocessingContext;
-import org.carrot2.util.Pair;
+import org.carrot2.util.PriorityQueue;
 
 /**
  * Assigns unique labels to each base vector using a greedy algorithm. For each base vector chooses
@@ -41,34 +42,38 @@ public class UniqueLabelAssigner extends AttrComposite implements LabelAssigner
 
     final IntArrayList clusterLabelFeatureIndex = new IntArrayList(desiredClusterCount);
     final DoubleArrayList clusterLabelScore = new DoubleArrayList(desiredClusterCount);
+
+    // Columns (base vectors) that have already been labelled, shared by both candidate queues.
+    final BitSet labelledColumns = new BitSet(desiredClusterCount);
+    final CandidateQueue stemCandidates = new CandidateQueue(stemCos, labelledColumns);
+    final CandidateQueue phraseCandidates =
+        phraseCos != null ? new CandidateQueue(phraseCos, labelledColumns) : null;
+
     for (int label = 0; label < desiredClusterCount; label++) {
-      final Pair<Integer, Integer> stemMax = max(stemCos);
-      final Pair<Integer, Integer> phraseMax = max(phraseCos);
+      final ColumnCandidates stemMax = stemCandidates.max();
+      final ColumnCandidates phraseMax = phraseCandidates != null ? phraseCandidates.max() : null;
 
       if (stemMax == null && phraseMax == null) {
         break;
       }
 
-      double stemScore = stemMax != null ? stemCos.getQuick(stemMax.objectA, stemMax.objectB) : -1;
-      double phraseScore =
-          phraseMax != null ? phraseCos.getQuick(phraseMax.objectA, phraseMax.objectB) : -1;
+      double stemScore = stemMax != null ? stemMax.value() : -1;
+      double phraseScore = phraseMax != null ? phraseMax.value() : -1;
 
       if (phraseScore > stemScore) {
-        phraseCos.viewRow(phraseMax.objectA).assign(0);
-        phraseCos.viewColumn(phraseMax.objectB).assign(0);
-        stemCos.viewColumn(phraseMax.objectB).assign(0);
+        final int phraseRow = phraseMax.row();
+        phraseCandidates.removeRow(phraseRow);
+        labelledColumns.set(phraseMax.column);
 
-        clusterLabelFeatureIndex.add(labelsFeatureIndex[phraseMax.objectA + firstPhraseIndex]);
+        clusterLabelFeatureIndex.add(labelsFeatureIndex[phraseRow + firstPhraseIndex]);
         clusterLabelScore.add(phraseScore);
       } else {
-        stemCos.viewRow(stemMax.objectA).assign(0);
-        stemCos.viewColumn(stemMax.objectB).assign(0);
-        if (phraseCos != null) {
-          phraseCos.viewColumn(stemMax.objectB).assign(0);
-        }
+        final int stemRow = stemMax.row();
+        stemCandidates.removeRow(stemRow);
+        labelledColumns.set(stemMax.column);
 
         clusterLabelFeatureIndex.add(
-            mostFrequentOriginalWordIndex[filteredRowToStemIndex.get(stemMax.objectA)]);
+            mostFrequentOriginalWordIndex[filteredRowToStemIndex.get(stemRow)]);
         clusterLabelScore.add(stemScore);
       }
     }
@@ -77,29 +82,151 @@ public class UniqueLabelAssigner extends AttrComposite implements LabelAssigner
     context.clusterLabelScore = clusterLabelScore.toArray();
   }
 
-  private Pair<Integer, Integer> max(DoubleMatrix2D matrix) {
-    if (matrix == null) {
-      return null;
+  /**
+   * Positive elements of one column of a similarity matrix, kept in a binary heap ordered by
+   * decreasing value and then by increasing row index.
+   */
+  private static final class ColumnCandidates {
+    final int column;
+    final int[] rows;
+    final double[] values;
+    int size;
+
+    ColumnCandidates(int column, int[] rows, double[] values) {
+      this.column = column;
+      this.rows = rows;
+      this.values = values;
+      this.size = rows.length;
+
+      for (int i = size / 2 - 1; i >= 0; i--) {
+        siftDown(i);
+      }
+    }
+
+    int row() {
+      return rows[0];
+    }
+
+    double value() {
+      return values[0];
     }
 
-    int row = 0;
-    int column = 0;
-    double value = 0;
-
-    for (int r = 0; r < matrix.rows(); r++) {
-      for (int c = 0; c < matrix.columns(); c++) {
-        final double currentValue = matrix.getQuick(r, c);
-        if (currentValue > value) {
-          value = currentValue;
-          row = r;
-          column = c;
+    void removeTop() {
+      size--;
+      rows[0] = rows[size];
+      values[0] = values[size];
+      siftDown(0);
+    }
+
+    private void siftDown(int i) {
+      while (true) {
+        final int left = 2 * i + 1;
+        if (left >= size) {
+          break;
         }
+
+        final int right = left + 1;
+        final int first = right < size && before(right, left) ? right : left;
+        if (!before(first, i)) {
+          break;
+        }
+
+        final int row = rows[i];
+        rows[i] = rows[first];
+        rows[first] = row;
+        final double value = values[i];
+        values[i] = values[first];
+        values[first] = value;
+        i = first;
       }
     }
 
-    if (value > 0) {
-      return new Pair<>(row, column);
-    } else {
+    private boolean before(int i, int j) {
+      return values[i] > values[j] || (values[i] == values[j] && rows[i] < rows[j]);
+    }
+  }
+
+  /**
+   * Returns the largest positive element of a similarity matrix, skipping removed rows and
+   * labelled columns. Ties are resolved in favor of the element that comes first in row-major
+   * order. Removed rows and columns are invalidated lazily: a column's candidate is replaced with
+   * the next one only when the column reaches the top of the queue.
+   */
+  private static final class CandidateQueue extends PriorityQueue<ColumnCandidates> {
+    private final BitSet removedRows = new BitSet();
+    private final BitSet labelledColumns;
+
+    CandidateQueue(DoubleMatrix2D matrix, BitSet labelledColumns) {
+      final int columns = matrix.columns();
+      this.labelledColumns = labelledColumns;
+      initialize(Math.max(1, columns));
+
+      final int[] counts = new int[columns];
+      for (int r = 0; r < matrix.rows(); r++) {
+        for (int c = 0; c < columns; c++) {
+          if (matrix.getQuick(r, c) > 0) {
+            counts[c]++;
+          }
+        }
+      }
+
+      final int[][] rows = new int[columns][];
+      final double[][] values = new double[columns][];
+      for (int c = 0; c < columns; c++) {
+        rows[c] = new int[counts[c]];
+        values[c] = new double[counts[c]];
+        counts[c] = 0;
+      }
+
+      for (int r = 0; r < matrix.rows(); r++) {
+        for (int c = 0; c < columns; c++) {
+          final double value = matrix.getQuick(r, c);
+          if (value > 0) {
+            rows[c][counts[c]] = r;
+            values[c][counts[c]] = value;
+            counts[c]++;
+          }
+        }
+      }
+
+      for (int c = 0; c < columns; c++) {
+        if (rows[c].length > 0) {
+          add(new ColumnCandidates(c, rows[c], values[c]));
+        }
+      }
+    }
+
+    @Override
+    protected boolean lessThan(ColumnCandidates a, ColumnCandidates b) {
+      if (a.value() != b.value()) {
+        return a.value() > b.value();
+      }
+      if (a.row() != b.row()) {
+        return a.row() < b.row();
+      }
+      return a.column < b.column;
+    }
+
+    void removeRow(int row) {
+      removedRows.set(row);
+    }
+
+    ColumnCandidates max() {
+      while (size() > 0) {
+        final ColumnCandidates top = top();
+        if (labelledColumns.get(top.column)) {
+          pop();
+        } else if (removedRows.get(top.row())) {
+          top.removeTop();
+          if (top.size == 0) {
+            pop();
+          } else {
+            updateTop();
+          }
+        } else {
+          return top;
+        }
+      }
       return null;
     }
   }
@@ -10,22 +10,23 @@
  */
 package org.carrot2.clustering.stc;
 
-import static org.carrot2.text.suffixtree.SuffixTree.NO_EDGE;
+import static org.carrot2.text.suffixtree.IntSuffixTree.NO_EDGE;
 
 import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntStack;
 import java.util.ArrayList;
-import org.carrot2.text.suffixtree.IntegerSequence;
-import org.carrot2.text.suffixtree.Sequence;
+import java.util.Arrays;
+import org.carrot2.text.preprocessing.SuffixSorter;
+import org.carrot2.text.suffixtree.IntSuffixTree;
 import org.carrot2.text.suffixtree.SuffixTree;
-import org.carrot2.text.suffixtree.SuffixTreeBuilder;
 
 /** A suffix tree dedicated to finding frequent phrases in documents. */
 final class GeneralizedSuffixTree {
   /**
-   * Builds an {@link Sequence} suitable for detection of frequently occurring phrases in many
-   * documents using a {@link SuffixTree}. Marks ends of phrases with unique symbols and stores the
-   * information about document boundaries.
+   * Builds an input sequence suitable for detection of frequently occurring phrases in many
+   * documents using an {@link IntSuffixTree}. Marks ends of phrases with unique symbols and stores
+   * the information about document boundaries.
    */
   static class SequenceBuilder {
     private int separator = -1;
@@ -39,7 +40,19 @@ final class GeneralizedSuffixTree {
     public IntStack stateOriginDocument = new IntStack();
 
     /** A suffix tree built from the input phrases. */
-    public SuffixTree stree;
+    public final IntSuffixTree stree;
+
+    public SequenceBuilder() {
+      this(new IntSuffixTree());
+    }
+
+    /**
+     * Creates a sequence builder which builds the suffix tree in <code>stree</code>, reusing its
+     * internal buffers.
+     */
+    public SequenceBuilder(IntSuffixTree stree) {
+      this.stree = stree;
+    }
 
     /** Callbacks for marking leaf states. */
     private final class LeafStateMarker
@@ -48,7 +61,8 @@ final class GeneralizedSuffixTree {
       private int markerIndex = 0;
 
       public void next(int pos) {
-        if (pos == documentMarkers.get(markerIndex)) {
+        // Empty documents add several markers at the same position.
+        while (markerIndex < documentMarkers.size() && pos == documentMarkers.get(markerIndex)) {
           currentDocument++;
           markerIndex++;
         }
@@ -81,12 +95,7 @@ final class GeneralizedSuffixTree {
       this.stateOriginDocument.clear();
 
       final LeafStateMarker marker = new LeafStateMarker();
-      final Sequence seq = new IntegerSequence(input.buffer, 0, input.elementsCount);
-      this.stree =
-          SuffixTreeBuilder.from(seq)
-              .withProgressCallback(marker)
-              .withStateCallback(marker)
-              .build();
+      stree.build(input.buffer, input.size(), marker, marker);
     }
   }
 
@@ -102,7 +111,7 @@ final class GeneralizedSuffixTree {
     private final ArrayList<BitSet> bsets = new ArrayList<BitSet>();
 
     /** Suffix tree on all the input. */
-    private final SuffixTree stree;
+    private final IntSuffixTree stree;
 
     /** Sequence builder with the input. */
     protected final SequenceBuilder sb;
@@ -161,6 +170,171 @@ final class GeneralizedSuffixTree {
   }
   ;
 
+  /**
+   * Walk over the internal nodes of the suffix tree of {@link SequenceBuilder#input} equivalent to
+   * {@link Visitor}, but without building the tree. Internal nodes of the suffix tree correspond to
+   * the LCP intervals of the input's suffix array, which are enumerated bottom-up (children before
+   * their parents). The path to each node is reported as index ranges of the input, one for each
+   * edge of the suffix tree, as {@link Visitor} does.
+   */
+  abstract static class SuffixArrayVisitor {
+    /** Path from the root (edges index ranges) of the currently visited interval. */
+    private final IntStack path = new IntStack();
+
+    /** Bitsets used to compute cardinality of each open interval. */
+    private final ArrayList<BitSet> bsets = new ArrayList<BitSet>();
+
+    /** Sequence builder with the input. */
+    protected final SequenceBuilder sb;
+
+    /** Minimum cardinality (inclusive) in an internal state to visit it. */
+    private int minCardinality;
+
+    public SuffixArrayVisitor(SequenceBuilder sb, int minCardinality) {
+      assert minCardinality > 1;
+
+      this.sb = sb;
+      this.minCardinality = minCardinality;
+    }
+
+    public void visit() {
+      final int[] input = Arrays.copyOf(sb.input.buffer, sb.input.size());
+      final int n = input.length;
+      if (n == 0) return;
+
+      // Document index of each position of the input.
+      final int[] documents = new int[n];
+      final IntStack documentMarkers = sb.documentMarkers;
+      for (int i = 0, document = 0, marker = 0; i < n; i++) {
+        while (marker < documentMarkers.size() && i == documentMarkers.get(marker)) {
+          document++;
+          marker++;
+        }
+        documents[i] = document;
+      }
+
+      final int[] suffixOrder = SuffixSorter.suffixArray(input);
+      final int[] lcp = SuffixSorter.calculateLcpKasai(input, suffixOrder);
+
+      // Intervals are numbered in the order they're opened. An interval's parent may be opened
+      // after the interval is closed, so the tree's shape is computed before walking it.
+      final IntArrayList depths = new IntArrayList();
+      final IntArrayList parents = new IntArrayList();
+      intervalTree(lcp, depths, parents);
+
+      // Stack of open intervals: common prefix length, left boundary and number, the root at the
+      // bottom.
+      final IntStack intervalLcp = new IntStack();
+      final IntStack intervalStart = new IntStack();
+      final IntStack intervalNumber = new IntStack();
+      intervalLcp.push(0);
+      intervalStart.push(0);
+      intervalNumber.push(0);
+      getBitSet(0).clear();
+
+      int nextNumber = 1;
+      for (int i = 1; i <= n; i++) {
+        final int commonPrefix = i < n ? lcp[i] : 0;
+
+        // The suffix at i - 1 (or the last interval closed below) is a child of the top interval.
+        BitSet child = getBitSet(intervalLcp.size());
+        child.clear();
+        child.set(documents[suffixOrder[i - 1]]);
+        int start = i - 1;
+
+        while (commonPrefix < intervalLcp.peek()) {
+          final int level = intervalLcp.size() - 1;
+          final BitSet me = getBitSet(level);
+          me.or(child);
+          start = intervalStart.peek();
+
+          final int card = (int) me.cardinality();
+          if (card >= minCardinality) {
+            edges(suffixOrder[start], intervalNumber.peek(), depths, parents);
+            visit(start, card, me, path);
+          }
+
+          intervalLcp.pop();
+          intervalStart.pop();
+          intervalNumber.pop();
+          child = me;
+        }
+
+        if (commonPrefix > intervalLcp.peek()) {
+          // The child's bitset is one level above the top, it becomes the new interval's bitset.
+          assert getBitSet(intervalLcp.size()) == child;
+          intervalLcp.push(commonPrefix);
+          intervalStart.push(start);
+          intervalNumber.push(nextNumber++);
+        } else {
+          getBitSet(intervalLcp.size() - 1).or(child);
+        }
+      }
+    }
+
+    /**
+     * Computes the common prefix length (depth) and the parent of each LCP interval, numbered in
+     * the order the intervals are opened. The root interval is number 0 and has no parent (-1).
+     */
+    private static void intervalTree(int[] lcp, IntArrayList depths, IntArrayList parents) {
+      final IntStack open = new IntStack();
+      depths.add(0);
+      parents.add(-1);
+      open.push(0);
+
+      for (int i = 1; i <= lcp.length; i++) {
+        final int commonPrefix = i < lcp.length ? lcp[i] : 0;
+        while (commonPrefix < depths.get(open.peek())) {
+          final int closed = open.pop();
+          // The parent is either the interval below or the one opened next.
+          parents.set(
+              closed, commonPrefix > depths.get(open.peek()) ? depths.size() : open.peek());
+        }
+
+        if (commonPrefix > depths.get(open.peek())) {
+          open.push(depths.size());
+          depths.add(commonPrefix);
+          parents.add(-1);
+        }
+      }
+    }
+
+    /**
+     * Sets {@link #path} to the index ranges of the suffix tree's edges leading to the interval
+     * with the given number, one edge for each of its ancestors.
+     */
+    private void edges(int suffix, int number, IntArrayList depths, IntArrayList parents) {
+      path.clear();
+      for (int p = parents.get(number); p >= 0; p = parents.get(p)) {
+        path.push(0, 0);
+      }
+
+      // Fill in the edges bottom-up, from the end of the path.
+      int end = suffix + depths.get(number);
+      int e = path.size();
+      for (int p = parents.get(number); p >= 0; p = parents.get(p)) {
+        final int from = suffix + depths.get(p);
+        path.buffer[--e] = end - 1;
+        path.buffer[--e] = from;
+        end = from;
+      }
+    }
+
+    /**
+     * Invoked for each LCP interval (suffix tree's internal node) with at least the minimum
+     * cardinality of documents.
+     *
+     * @param interval the interval's left boundary in the suffix array, unique for each visited
+     *     interval.
+     */
+    protected abstract void visit(int interval, int cardinality, BitSet documents, IntStack path);
+
+    private BitSet getBitSet(int level) {
+      while (bsets.size() <= level) bsets.add(new BitSet());
+      return bsets.get(level);
+    }
+  }
+
   /* */
   private GeneralizedSuffixTree() {}
 }
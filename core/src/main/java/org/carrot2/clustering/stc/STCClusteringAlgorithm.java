@@ -15,12 +15,14 @@ import com.carrotsearch.hppc.BitSetIterator;
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntStack;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.carrot2.attrs.AttrBoolean;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.attrs.AttrDouble;
+import org.carrot2.attrs.AttrEnum;
 import org.carrot2.attrs.AttrInteger;
 import org.carrot2.attrs.AttrObject;
 import org.carrot2.attrs.AttrString;
@@ -33,6 +35,8 @@ import org.carrot2.language.*;
 import org.carrot2.text.preprocessing.BasicPreprocessingPipeline;
 import org.carrot2.text.preprocessing.LabelFormatter;
 import org.carrot2.text.preprocessing.PreprocessingContext;
+import org.carrot2.text.suffixtree.IntSuffixTree;
+import org.carrot2.util.GraphUtils;
 
 /**
  * Suffix Tree Clustering (STC) algorithm. Pretty much as described in: <i>Oren Zamir, Oren Etzioni,
@@ -107,6 +111,18 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
               .max(1)
               .defaultValue(0.6));
 
+  /**
+   * Evaluate base cluster overlaps in parallel. When enabled, overlaps are computed in chunks of
+   * consecutive base clusters on the executor set with {@link #setMergingExecutor(Executor)}. The
+   * result is identical to sequential merging.
+   */
+  public AttrBoolean parallelMerging =
+      attributes.register(
+          "parallelMerging",
+          AttrBoolean.builder()
+              .label("Compute base cluster overlaps in parallel")
+              .defaultValue(false));
+
   /** Maximum cluster phrase overlap. */
   public AttrDouble maxPhraseOverlap =
       attributes.register(
@@ -200,6 +216,27 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
               .label("Merge all stem-equivalent phrases when discovering base clusters")
               .defaultValue(true));
 
+  /** Data structures available for discovering base clusters. */
+  public enum BaseClusterDiscovery {
+    /** Walk the internal states of a generalized suffix tree built from the input phrases. */
+    SUFFIX_TREE,
+
+    /** Enumerate LCP intervals of the input phrases' suffix array, no tree is built. */
+    SUFFIX_ARRAY;
+  }
+
+  /**
+   * Base cluster discovery method. Both methods find the same base clusters, but in a different
+   * order, so ties between equally scored phrases may be resolved differently. The suffix array
+   * requires much less memory than the suffix tree.
+   */
+  public final AttrEnum<BaseClusterDiscovery> baseClusterDiscovery =
+      attributes.register(
+          "baseClusterDiscovery",
+          AttrEnum.builder(BaseClusterDiscovery.class)
+              .label("Base cluster discovery method")
+              .defaultValue(BaseClusterDiscovery.SUFFIX_TREE));
+
   /** Preprocessing pipeline. */
   public BasicPreprocessingPipeline preprocessing;
 
@@ -212,6 +249,20 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
             .defaultValue(BasicPreprocessingPipeline::new));
   }
 
+  /** The number of consecutive base clusters compared as one chunk in parallel merging. */
+  private static final int BASE_CLUSTERS_PER_MERGING_CHUNK = 64;
+
+  /** Executor used for parallel merging. */
+  private Executor mergingExecutor = ForkJoinPool.commonPool();
+
+  /**
+   * Sets the executor used for computing base cluster overlaps when {@link #parallelMerging} is
+   * enabled. The default is {@link ForkJoinPool#commonPool()}.
+   */
+  public void setMergingExecutor(Executor executor) {
+    this.mergingExecutor = Objects.requireNonNull(executor);
+  }
+
   private LabelFormatter labelFormatter;
 
   /**
@@ -244,6 +295,9 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
    */
   private static final Predicate<PhraseCandidate> NOT_SELECTED = (p) -> !p.selected;
 
+  /** Suffix tree buffers, reused by subsequent calls to {@link #cluster}. */
+  private final IntSuffixTree suffixTree = new IntSuffixTree();
+
   private GeneralizedSuffixTree.SequenceBuilder sb;
   private PreprocessingContext context;
 
@@ -256,19 +310,22 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
   @Override
   public <T extends Document> List<Cluster<T>> cluster(
       Stream<? extends T> docStream, LanguageComponents languageComponents) {
-    List<T> documents = docStream.collect(Collectors.toList());
+    // Documents are added as the preprocessing consumes them.
+    List<T> documents = new ArrayList<>();
     List<Cluster<T>> clusters = new ArrayList<>();
 
     /*
      * Step 1. Preprocessing: tokenization, stop word marking and stemming (if available).
      */
-    context = preprocessing.preprocess(documents.stream(), queryHint.get(), languageComponents);
+    context =
+        preprocessing.preprocess(
+            docStream.sequential().peek(documents::add), queryHint.get(), languageComponents);
     labelFormatter = context.languageComponents.get(LabelFormatter.class);
 
     /*
      * Step 2: Create a generalized suffix tree from phrases in the input.
      */
-    sb = new GeneralizedSuffixTree.SequenceBuilder();
+    sb = new GeneralizedSuffixTree.SequenceBuilder(suffixTree);
 
     final int[] tokenIndex = context.allTokens.wordIndex;
     final short[] tokenType = context.allTokens.type;
@@ -291,7 +348,9 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
         sb.addPhrase(tokenIndex, s, phraseLength);
       }
     }
-    sb.buildSuffixTree();
+    if (baseClusterDiscovery.get() == BaseClusterDiscovery.SUFFIX_TREE) {
+      sb.buildSuffixTree();
+    }
 
     /*
      * Step 3: Find "base" clusters by looking up frequently recurring phrases in the
@@ -310,6 +369,11 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
      */
     postProcessing(documents, mergedClusters, clusters);
 
+    // Don't hold on to the input between calls, only the suffix tree buffers are reused.
+    context = null;
+    sb = null;
+    suffixTree.release();
+
     return SharedInfrastructure.reorderByWeightedScoreAndSize(clusters, this.scoreWeight.get());
   }
 
@@ -325,36 +389,27 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
      */
     final List<ClusterCandidate> candidates = new ArrayList<>();
 
-    // Walk the internal nodes of the suffix tree.
     final int minBaseClusterSize = this.minBaseClusterSize.get();
-    new GeneralizedSuffixTree.Visitor(sb, minBaseClusterSize) {
-      protected void visit(int state, int cardinality, BitSet documents, IntStack path) {
-        // Check minimum base cluster cardinality.
-        assert cardinality >= minBaseClusterSize;
-
-        /*
-         * Consider certain special cases of internal suffix tree nodes.
-         */
-        if (!checkAcceptablePhrase(path)) {
-          return;
-        }
-
-        // Calculate "effective phrase length", which is the number of non-stopwords.
-        final int effectivePhraseLen = effectivePhraseLength(path);
-        if (effectivePhraseLen == 0) {
-          return;
-        }
-
-        /*
-         * Calculate base cluster's score as a function of effective phrase's length.
-         * STC originally used a linear gradient, we modified it to penalize very long
-         * phrases (which usually correspond to duplicated snippets anyway).
-         */
-        final float score = baseClusterScore(effectivePhraseLen, cardinality);
-        candidates.add(
-            new ClusterCandidate(path.toArray(), (BitSet) documents.clone(), cardinality, score));
-      }
-    }.visit();
+    switch (baseClusterDiscovery.get()) {
+      case SUFFIX_TREE:
+        // Walk the internal nodes of the suffix tree.
+        new GeneralizedSuffixTree.Visitor(sb, minBaseClusterSize) {
+          protected void visit(int state, int cardinality, BitSet documents, IntStack path) {
+            addBaseClusterCandidate(candidates, cardinality, documents, path);
+          }
+        }.visit();
+        break;
+      case SUFFIX_ARRAY:
+        // Walk the LCP intervals of the suffix array (internal nodes of the implicit tree).
+        new GeneralizedSuffixTree.SuffixArrayVisitor(sb, minBaseClusterSize) {
+          protected void visit(int interval, int cardinality, BitSet documents, IntStack path) {
+            addBaseClusterCandidate(candidates, cardinality, documents, path);
+          }
+        }.visit();
+        break;
+      default:
+        throw new RuntimeException("Unreachable: " + baseClusterDiscovery.get());
+    }
 
     /*
      * Combine all phrases that are stem-equivalent into one candidate.
@@ -404,6 +459,38 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
     return candidates;
   }
 
+  /**
+   * Adds a base cluster candidate for a frequent phrase (an internal suffix tree node), if the
+   * phrase is acceptable.
+   */
+  private void addBaseClusterCandidate(
+      List<ClusterCandidate> candidates, int cardinality, BitSet documents, IntStack path) {
+    // Check minimum base cluster cardinality.
+    assert cardinality >= minBaseClusterSize.get();
+
+    /*
+     * Consider certain special cases of internal suffix tree nodes.
+     */
+    if (!checkAcceptablePhrase(path)) {
+      return;
+    }
+
+    // Calculate "effective phrase length", which is the number of non-stopwords.
+    final int effectivePhraseLen = effectivePhraseLength(path);
+    if (effectivePhraseLen == 0) {
+      return;
+    }
+
+    /*
+     * Calculate base cluster's score as a function of effective phrase's length.
+     * STC originally used a linear gradient, we modified it to penalize very long
+     * phrases (which usually correspond to duplicated snippets anyway).
+     */
+    final float score = baseClusterScore(effectivePhraseLen, cardinality);
+    candidates.add(
+        new ClusterCandidate(path.toArray(), (BitSet) documents.clone(), cardinality, score));
+  }
+
   /* */
   private void mergeStemEquivalentBaseClusters(
       SequenceBuilder sb, final List<ClusterCandidate> candidates) {
@@ -470,32 +557,27 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
   private ArrayList<ClusterCandidate> createMergedClusters(List<ClusterCandidate> baseClusters) {
     /*
      * Calculate overlap between base clusters first, saving adjacency lists for
-     * each base cluster.
+     * each base cluster. Only base clusters sharing documents are compared.
      */
+    final BitSet[] documents = new BitSet[baseClusters.size()];
+    for (int i = 0; i < documents.length; i++) {
+      documents[i] = baseClusters.get(i).documents;
+    }
 
-    // [i] - next neighbor or END, [i + 1] - neighbor cluster index.
-    final int END = -1;
-    final IntStack neighborList = new IntStack();
-    neighborList.push(END);
-    final int[] neighbors = new int[baseClusters.size()];
     final float m = mergeThreshold.get().floatValue();
-    for (int i = 0; i < baseClusters.size(); i++) {
-      for (int j = i + 1; j < baseClusters.size(); j++) {
-        final ClusterCandidate c1 = baseClusters.get(i);
-        final ClusterCandidate c2 = baseClusters.get(j);
-
-        final float a = c1.cardinality;
-        final float b = c2.cardinality;
-        final float c = BitSet.intersectionCount(c1.documents, c2.documents);
-
-        if (c / a > m && c / b > m) {
-          neighborList.push(neighbors[i], j);
-          neighbors[i] = neighborList.size() - 2;
-          neighborList.push(neighbors[j], i);
-          neighbors[j] = neighborList.size() - 2;
-        }
-      }
-    }
+    final GraphUtils.IOverlapPredicate overlapPredicate =
+        (cardinalityA, cardinalityB, intersection) -> {
+          final float a = cardinalityA;
+          final float b = cardinalityB;
+          final float c = intersection;
+          return c / a > m && c / b > m;
+        };
+    final int[][] neighbors =
+        GraphUtils.findOverlapArcs(
+            documents,
+            overlapPredicate,
+            parallelMerging.get() ? mergingExecutor : null,
+            BASE_CLUSTERS_PER_MERGING_CHUNK);
 
     /*
      * Find connected components in the similarity graph using Tarjan's algorithm
@@ -524,14 +606,15 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
         merged[c] = mergedIndex;
         mergeList.push(c);
 
-        for (int i = neighbors[c]; neighborList.get(i) != END; ) {
-          final int neighbor = neighborList.get(i + 1);
+        // Visit neighbors in descending order, merged cluster labels depend on it.
+        final int[] adjacent = neighbors[c];
+        for (int i = adjacent.length; --i >= 0; ) {
+          final int neighbor = adjacent[i];
           if (merged[neighbor] == NO_INDEX) {
             stack.push(neighbor);
           } else {
             assert merged[neighbor] == mergedIndex;
           }
-          i = neighborList.get(i);
         }
       }
       mergedIndex++;
@@ -992,7 +1075,7 @@ public final class STCClusteringAlgorithm extends AttrComposite implements Clust
 
         // If this word occurs in more than a given fraction of the input
         // collection don't count it.
-        final int docCount = context.allWords.tfByDocument[termIndex].length / 2;
+        final int docCount = context.allWords.tfByDocument.df(termIndex);
         if (docCount < lower || docCount > upper) {
           continue;
         }
@@ -0,0 +1,50 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.language;
+
+import org.carrot2.util.MutableCharArray;
+
+/** A {@link Stemmer} consulting a shared {@link StemCache} before delegating to another stemmer. */
+final class CachingStemmer implements Stemmer {
+  private final Stemmer delegate;
+  private final StemCache cache;
+
+  CachingStemmer(Stemmer delegate, StemCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public CharSequence stem(CharSequence word) {
+    // MutableCharArray and String hash codes are content-based and identical to StemCache's.
+    final int hash =
+        (word instanceof MutableCharArray || word instanceof String)
+            ? word.hashCode()
+            : StemCache.hash(word);
+
+    char[] stem = cache.get(word, hash);
+    if (stem == null) {
+      final CharSequence stemmed = delegate.stem(word);
+      stem = stemmed == null ? StemCache.NO_STEM : toCharArray(stemmed);
+      cache.put(word, hash, stem);
+    }
+
+    return stem == StemCache.NO_STEM ? null : new MutableCharArray(stem);
+  }
+
+  private static char[] toCharArray(CharSequence seq) {
+    final char[] chars = new char[seq.length()];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = seq.charAt(i);
+    }
+    return chars;
+  }
+}
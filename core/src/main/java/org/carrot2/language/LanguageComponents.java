@@ -13,6 +13,7 @@ package org.carrot2.language;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -49,6 +50,16 @@ public final class LanguageComponents {
     return new LanguageComponents(language, clonedSuppliers);
   }
 
+  /**
+   * Returns a copy of these components with each {@link Stemmer} wrapped in a layer that consults
+   * (and populates) the provided cache first. The cache is shared by all stemmer instances, so
+   * stems computed for one request are reused by subsequent requests.
+   */
+  public LanguageComponents withStemCache(StemCache cache) {
+    Objects.requireNonNull(cache);
+    return override(Stemmer.class, () -> new CachingStemmer(get(Stemmer.class), cache));
+  }
+
   public Set<Class<?>> components() {
     return components.keySet();
   }
@@ -17,19 +17,27 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Pattern;
+import org.carrot2.util.CharArraySet;
+import org.carrot2.util.PatternAutomaton;
 import org.carrot2.util.ResourceLookup;
 
 /**
- * {@link LexicalData} implemented on top of a hash set (stopwords) and a regular expression pattern
- * (stoplabels).
+ * {@link LexicalData} implemented on top of a character array hash set (stopwords) and a
+ * deterministic automaton compiled from regular expression patterns (stoplabels). Stopword lookups
+ * do not allocate memory. Stoplabel patterns not supported by {@link PatternAutomaton} are matched
+ * with a regular expression.
  */
 public final class LexicalDataImpl implements LexicalData {
-  private final HashSet<String> stopwords;
+  private final CharArraySet stopwords;
+  private final PatternAutomaton stoplabelAutomaton;
   private final Pattern stoplabelPattern;
 
   public LexicalDataImpl(HashSet<String> stopwords, Pattern stoplabelPattern) {
-    this.stopwords = stopwords;
-    this.stoplabelPattern = stoplabelPattern;
+    this(
+        stopwords,
+        stoplabelPattern == null
+            ? Collections.emptyList()
+            : Collections.singletonList(stoplabelPattern));
   }
 
   public LexicalDataImpl(ResourceLookup loader, String stopwordsResource, String stoplabelsResource)
@@ -37,12 +45,39 @@ public final class LexicalDataImpl implements LexicalData {
     this(loadStopwords(loader, stopwordsResource), loadStoplabels(loader, stoplabelsResource));
   }
 
+  private LexicalDataImpl(HashSet<String> stopwords, List<Pattern> stoplabels) {
+    this.stopwords = new CharArraySet(stopwords, false);
+
+    // Compile whatever we can into an automaton, match the remaining patterns with a regexp.
+    List<String> supported = new ArrayList<>();
+    List<Pattern> residual = new ArrayList<>();
+    for (Pattern p : stoplabels) {
+      if (p.flags() == 0 && PatternAutomaton.isSupported(p.pattern())) {
+        supported.add(p.pattern());
+      } else {
+        residual.add(p);
+      }
+    }
+
+    PatternAutomaton automaton = null;
+    if (!supported.isEmpty()) {
+      try {
+        automaton = PatternAutomaton.compile(supported);
+      } catch (IllegalArgumentException e) {
+        // Too many states, fall back to regular expressions.
+        supported.forEach(pattern -> residual.add(Pattern.compile(pattern)));
+      }
+    }
+    this.stoplabelAutomaton = automaton;
+    this.stoplabelPattern = union(residual);
+  }
+
   /*
    *
    */
   @Override
   public boolean ignoreWord(CharSequence word) {
-    return stopwords.contains(word.toString());
+    return stopwords.contains(word);
   }
 
   /*
@@ -50,20 +85,19 @@ public final class LexicalDataImpl implements LexicalData {
    */
   @Override
   public boolean ignoreLabel(CharSequence label) {
-    if (this.stoplabelPattern == null) return false;
+    if (stoplabelAutomaton != null && stoplabelAutomaton.matches(label)) return true;
+    if (stoplabelPattern == null) return false;
 
     return stoplabelPattern.matcher(label).matches();
   }
 
-  private static Pattern loadStoplabels(ResourceLookup loader, String stoplabelsResource)
+  private static List<Pattern> loadStoplabels(ResourceLookup loader, String stoplabelsResource)
       throws IOException {
-    List<Pattern> stoplabels;
     try (InputStream is = loader.open(stoplabelsResource);
         BufferedReader reader =
             new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-      stoplabels = compile(readLines(reader));
+      return compile(readLines(reader));
     }
-    return union(stoplabels);
   }
 
   private static HashSet<String> loadStopwords(ResourceLookup loader, String stopwordsResource)
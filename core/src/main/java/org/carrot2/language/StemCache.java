@@ -0,0 +1,291 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.language;
+
+import com.carrotsearch.hppc.BitMixer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, concurrent cache of {@link Stemmer} results shared across requests (and threads). The
+ * cache is split into independently locked segments; each segment keeps its entries in
+ * least-recently-used order and evicts the oldest ones when the entry count or the number of cached
+ * characters exceeds the segment's share of the limits.
+ *
+ * <p>Cache keys are the words passed to {@link Stemmer#stem(CharSequence)} (lowercased by the
+ * preprocessing pipeline); lookups compare characters directly, without allocating strings. A cache
+ * instance must not be shared between stemmers of different languages.
+ *
+ * @see LanguageComponents#withStemCache(StemCache)
+ */
+public final class StemCache {
+  /** A marker value for words for which the stemmer returned <code>null</code>. */
+  static final char[] NO_STEM = new char[0];
+
+  private static final int DEFAULT_SEGMENTS = 16;
+
+  private final Segment[] segments;
+  private final int segmentMask;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /** Creates a cache holding up to <code>maxEntries</code> words. */
+  public StemCache(int maxEntries) {
+    this(maxEntries, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a cache holding up to <code>maxEntries</code> words and up to <code>maxChars</code>
+   * characters of words and stems in total.
+   */
+  public StemCache(int maxEntries, long maxChars) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("Maximum number of entries must be positive.");
+    }
+    if (maxChars <= 0) {
+      throw new IllegalArgumentException("Maximum number of characters must be positive.");
+    }
+
+    int segmentCount = 1;
+    while (segmentCount < DEFAULT_SEGMENTS && segmentCount * 2 <= maxEntries) {
+      segmentCount *= 2;
+    }
+
+    this.segments = new Segment[segmentCount];
+    this.segmentMask = segmentCount - 1;
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(maxEntries / segmentCount, Math.max(1, maxChars / segmentCount));
+    }
+  }
+
+  /**
+   * Returns the cached stem of <code>word</code>, {@link #NO_STEM} if the stemmer could not
+   * determine the stem or <code>null</code> if the word is not in the cache.
+   */
+  char[] get(CharSequence word, int hash) {
+    final char[] stem = segment(hash).get(word, hash);
+    if (stem != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return stem;
+  }
+
+  /** Caches the stem of <code>word</code>, use {@link #NO_STEM} for <code>null</code> stems. */
+  void put(CharSequence word, int hash, char[] stem) {
+    final char[] key = new char[word.length()];
+    for (int i = 0; i < key.length; i++) {
+      key[i] = word.charAt(i);
+    }
+    evictions.add(segment(hash).put(key, hash, stem));
+  }
+
+  /** Returns the number of lookups that found a cached stem. */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /** Returns the number of lookups that did not find a cached stem. */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /** Returns the number of entries evicted to keep the cache within its limits. */
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  /** Returns the number of cached words. */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size;
+      }
+    }
+    return size;
+  }
+
+  /** Returns the number of characters (of both words and stems) held in the cache. */
+  public long chars() {
+    long chars = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        chars += segment.chars;
+      }
+    }
+    return chars;
+  }
+
+  /** Removes all cached entries. Statistics counters are not reset. */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /** Computes a hash of the provided word, identical to {@link String#hashCode()}. */
+  static int hash(CharSequence word) {
+    int h = 0;
+    for (int i = 0, max = word.length(); i < max; i++) {
+      h = 31 * h + word.charAt(i);
+    }
+    return h;
+  }
+
+  private Segment segment(int hash) {
+    return segments[BitMixer.mix32(hash) & segmentMask];
+  }
+
+  private static final class Entry {
+    final char[] key;
+    final int hash;
+    final char[] stem;
+
+    /** Next entry in the same hash bucket. */
+    Entry next;
+
+    /** Neighbors in the least-recently-used list. */
+    Entry before, after;
+
+    Entry(char[] key, int hash, char[] stem) {
+      this.key = key;
+      this.hash = hash;
+      this.stem = stem;
+    }
+
+    boolean keyEquals(CharSequence word, int hash) {
+      if (this.hash != hash || key.length != word.length()) {
+        return false;
+      }
+      for (int i = 0; i < key.length; i++) {
+        if (key[i] != word.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** A single hash table with its own lock and LRU list. */
+  private static final class Segment {
+    private final int maxEntries;
+    private final long maxChars;
+
+    private Entry[] buckets = new Entry[16];
+
+    /** The sentinel of a circular LRU list, the least recently used entry follows it. */
+    private final Entry head = new Entry(null, 0, null);
+
+    int size;
+    long chars;
+
+    Segment(int maxEntries, long maxChars) {
+      this.maxEntries = Math.max(1, maxEntries);
+      this.maxChars = maxChars;
+      head.before = head.after = head;
+    }
+
+    synchronized char[] get(CharSequence word, int hash) {
+      for (Entry e = buckets[bucket(hash, buckets.length)]; e != null; e = e.next) {
+        if (e.keyEquals(word, hash)) {
+          unlink(e);
+          linkLast(e);
+          return e.stem;
+        }
+      }
+      return null;
+    }
+
+    /** Adds an entry and returns the number of evicted entries. */
+    synchronized int put(char[] key, int hash, char[] stem) {
+      final int bucket = bucket(hash, buckets.length);
+      for (Entry e = buckets[bucket]; e != null; e = e.next) {
+        if (e.hash == hash && Arrays.equals(e.key, key)) {
+          // Another thread has already cached this word.
+          return 0;
+        }
+      }
+
+      final Entry entry = new Entry(key, hash, stem);
+      entry.next = buckets[bucket];
+      buckets[bucket] = entry;
+      linkLast(entry);
+      size++;
+      chars += key.length + stem.length;
+
+      int evicted = 0;
+      while (size > 1 && (size > maxEntries || chars > maxChars)) {
+        remove(head.after);
+        evicted++;
+      }
+
+      if (size > buckets.length * 3 / 4) {
+        rehash(buckets.length * 2);
+      }
+      return evicted;
+    }
+
+    void clear() {
+      buckets = new Entry[16];
+      head.before = head.after = head;
+      size = 0;
+      chars = 0;
+    }
+
+    private void remove(Entry entry) {
+      unlink(entry);
+      final int bucket = bucket(entry.hash, buckets.length);
+      if (buckets[bucket] == entry) {
+        buckets[bucket] = entry.next;
+      } else {
+        Entry e = buckets[bucket];
+        while (e.next != entry) {
+          e = e.next;
+        }
+        e.next = entry.next;
+      }
+      size--;
+      chars -= entry.key.length + entry.stem.length;
+    }
+
+    private void rehash(int newSize) {
+      final Entry[] newBuckets = new Entry[newSize];
+      for (Entry e = head.after; e != head; e = e.after) {
+        final int bucket = bucket(e.hash, newSize);
+        e.next = newBuckets[bucket];
+        newBuckets[bucket] = e;
+      }
+      buckets = newBuckets;
+    }
+
+    private void unlink(Entry e) {
+      e.before.after = e.after;
+      e.after.before = e.before;
+    }
+
+    private void linkLast(Entry e) {
+      e.before = head.before;
+      e.after = head;
+      head.before.after = e;
+      head.before = e;
+    }
+
+    private static int bucket(int hash, int length) {
+      return (hash ^ (hash >>> 16)) & (length - 1);
+    }
+  }
+}
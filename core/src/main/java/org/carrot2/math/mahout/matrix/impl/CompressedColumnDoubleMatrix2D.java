@@ -0,0 +1,589 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+import java.util.Arrays;
+import org.carrot2.math.mahout.function.DoubleFunction;
+import org.carrot2.math.mahout.function.Functions;
+import org.carrot2.math.mahout.function.IntDoubleProcedure;
+import org.carrot2.math.mahout.function.IntIntDoubleFunction;
+import org.carrot2.math.mahout.function.IntProcedure;
+import org.carrot2.math.mahout.function.Mult;
+import org.carrot2.math.mahout.map.AbstractIntDoubleMap;
+import org.carrot2.math.mahout.matrix.DoubleMatrix1D;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+
+/**
+ * A sparse matrix in the compressed sparse column format. Non-zero elements of each column are
+ * kept in order of their row index, columns are packed one after another into two parallel arrays
+ * of row indexes and values. Positions of column <code>c</code> elements in these arrays range
+ * from {@link #columnStart(int)} (inclusive) to {@link #columnEnd(int)} (exclusive).
+ *
+ * <p>Random access to an element takes logarithmic time in the number of non-zero elements of its
+ * column, inserting a new non-zero element takes linear time in the number of all non-zero
+ * elements. Multiplication by a dense matrix ({@link #zMult(DoubleMatrix2D, DoubleMatrix2D,
+ * double, double, boolean, boolean)}) and traversal of non-zero elements take time linear in the
+ * number of non-zero elements.
+ *
+ * <p>Views of this matrix (row, column, dice, part and selection views) are sparse views sharing
+ * the storage of this matrix. They address cells by <code>int</code> row-major keys, so matrices
+ * with more than {@link Integer#MAX_VALUE} cells (<code>rows * columns</code>) are rejected.
+ */
+public final class CompressedColumnDoubleMatrix2D extends DoubleMatrix2D {
+  /*
+   * The elements of the matrix.
+   */
+  final Elements elements;
+
+  public CompressedColumnDoubleMatrix2D(int rows, int columns) {
+    this(rows, columns, new int[columns + 1], new int[0], new double[0]);
+  }
+
+  /**
+   * Creates a matrix with the provided structure. The arrays are not copied.
+   *
+   * @param columnPointers <code>columns + 1</code> positions in <code>rowIndexes</code> and <code>
+   *     values</code>: elements of column <code>c</code> occupy positions from <code>
+   *     columnPointers[c]</code> (inclusive) to <code>columnPointers[c + 1]</code> (exclusive).
+   * @param rowIndexes row index of each element, increasing within each column.
+   * @param values value of each element.
+   */
+  public CompressedColumnDoubleMatrix2D(
+      int rows, int columns, int[] columnPointers, int[] rowIndexes, double[] values) {
+    if ((long) rows * columns > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "Matrix too large for int cell keys: " + rows + " x " + columns);
+    }
+    setUp(rows, columns);
+    if (columnPointers.length != columns + 1
+        || columnPointers[0] != 0
+        || rowIndexes.length < columnPointers[columns]
+        || values.length < columnPointers[columns]) {
+      throw new IllegalArgumentException("Inconsistent compressed column structure.");
+    }
+    this.elements = new Elements(rows, columns, columnPointers, rowIndexes, values);
+  }
+
+  private CompressedColumnDoubleMatrix2D(int rows, int columns, Elements elements) {
+    setUp(rows, columns);
+    this.elements = elements;
+  }
+
+  /** @return The position of the first element of the given column. */
+  public int columnStart(int column) {
+    return elements.columnPointers[column];
+  }
+
+  /** @return The position following the last element of the given column. */
+  public int columnEnd(int column) {
+    return elements.columnPointers[column + 1];
+  }
+
+  /** @return The row index of the element at the given position. */
+  public int rowIndex(int position) {
+    return elements.rowIndexes[position];
+  }
+
+  /** @return The value of the element at the given position. */
+  public double value(int position) {
+    return elements.values[position];
+  }
+
+  /** Sets the value of the element at the given position. */
+  public void setValue(int position, double value) {
+    elements.values[position] = value;
+  }
+
+  /** @return A new matrix with copies of the given columns of this matrix, in the given order. */
+  public CompressedColumnDoubleMatrix2D copyColumns(int[] columnIndexes) {
+    checkColumnIndexes(columnIndexes);
+
+    final int[] columnPointers = new int[columnIndexes.length + 1];
+    for (int i = 0; i < columnIndexes.length; i++) {
+      columnPointers[i + 1] = columnPointers[i] + elements.size(columnIndexes[i]);
+    }
+
+    final int[] rowIndexes = new int[columnPointers[columnIndexes.length]];
+    final double[] values = new double[rowIndexes.length];
+    for (int i = 0; i < columnIndexes.length; i++) {
+      final int start = columnStart(columnIndexes[i]);
+      final int length = columnPointers[i + 1] - columnPointers[i];
+      System.arraycopy(elements.rowIndexes, start, rowIndexes, columnPointers[i], length);
+      System.arraycopy(elements.values, start, values, columnPointers[i], length);
+    }
+
+    return new CompressedColumnDoubleMatrix2D(
+        rows, columnIndexes.length, columnPointers, rowIndexes, values);
+  }
+
+  @Override
+  public DoubleMatrix2D assign(double value) {
+    // overriden for performance only
+    if (value == 0) {
+      this.elements.clear();
+    } else {
+      super.assign(value);
+    }
+    return this;
+  }
+
+  @Override
+  public void assign(DoubleFunction function) {
+    if (function instanceof Mult && ((Mult) function).getMultiplicator() == 0) {
+      this.elements.clear();
+    } else if (function.apply(0) == 0) {
+      // Zero cells stay zero, only stored elements need to be transformed.
+      this.elements.assign(function);
+      this.elements.removeZeros();
+    } else {
+      super.assign(function);
+    }
+  }
+
+  @Override
+  public DoubleMatrix2D assign(DoubleMatrix2D source) {
+    // overriden for performance only
+    if (source instanceof CompressedColumnDoubleMatrix2D) {
+      CompressedColumnDoubleMatrix2D other = (CompressedColumnDoubleMatrix2D) source;
+      if (other != this) {
+        checkShape(other);
+        this.elements.assign(other.elements);
+      }
+      return this;
+    }
+    return super.assign(source);
+  }
+
+  @Override
+  public int cardinality() {
+    return this.elements.size();
+  }
+
+  @Override
+  public DoubleMatrix2D copy() {
+    return new CompressedColumnDoubleMatrix2D(rows, columns, (Elements) elements.clone());
+  }
+
+  @Override
+  public void ensureCapacity(int minCapacity) {
+    this.elements.ensureCapacity(minCapacity);
+  }
+
+  @Override
+  public void forEachNonZero(IntIntDoubleFunction function) {
+    final int[] columnPointers = elements.columnPointers;
+    final int[] rowIndexes = elements.rowIndexes;
+    final double[] values = elements.values;
+
+    boolean zeros = false;
+    for (int column = 0; column < columns; column++) {
+      for (int i = columnPointers[column], max = columnPointers[column + 1]; i < max; i++) {
+        final double value = values[i];
+        final double r = function.apply(rowIndexes[i], column, value);
+        if (r != value) {
+          values[i] = r;
+          zeros |= (r == 0);
+        }
+      }
+    }
+
+    if (zeros) {
+      elements.removeZeros();
+    }
+  }
+
+  @Override
+  public double getQuick(int row, int column) {
+    return elements.get(row, column);
+  }
+
+  @Override
+  protected boolean haveSharedCellsRaw(DoubleMatrix2D other) {
+    if (other instanceof SelectedSparseDoubleMatrix2D) {
+      SelectedSparseDoubleMatrix2D otherMatrix = (SelectedSparseDoubleMatrix2D) other;
+      return this.elements == otherMatrix.elements;
+    }
+    if (other instanceof CompressedColumnDoubleMatrix2D) {
+      CompressedColumnDoubleMatrix2D otherMatrix = (CompressedColumnDoubleMatrix2D) other;
+      return this.elements == otherMatrix.elements;
+    }
+    return false;
+  }
+
+  @Override
+  public DoubleMatrix2D like(int rows, int columns) {
+    return new CompressedColumnDoubleMatrix2D(rows, columns);
+  }
+
+  @Override
+  public DoubleMatrix1D like1D(int size) {
+    return new SparseDoubleMatrix1D(size);
+  }
+
+  @Override
+  protected DoubleMatrix1D like1D(int size, int offset, int stride) {
+    return new SparseDoubleMatrix1D(size, this.elements, offset, stride);
+  }
+
+  @Override
+  public void setQuick(int row, int column, double value) {
+    if (value == 0) {
+      this.elements.remove(row, column);
+    } else {
+      this.elements.put(row, column, value);
+    }
+  }
+
+  /**
+   * All views of this matrix are selection views over the shared storage, so that all instances of
+   * this class can assume they are not a view.
+   */
+  @Override
+  protected DoubleMatrix2D view() {
+    final int[] rowOffsets = new int[rows];
+    for (int i = 0; i < rows; i++) {
+      rowOffsets[i] = i * columns;
+    }
+    final int[] columnOffsets = new int[columns];
+    for (int i = 0; i < columns; i++) {
+      columnOffsets[i] = i;
+    }
+    return new SelectedSparseDoubleMatrix2D(this.elements, rowOffsets, columnOffsets, 0);
+  }
+
+  @Override
+  protected DoubleMatrix2D viewSelectionLike(int[] rowOffsets, int[] columnOffsets) {
+    return new SelectedSparseDoubleMatrix2D(this.elements, rowOffsets, columnOffsets, 0);
+  }
+
+  @Override
+  public DoubleMatrix1D zMult(
+      DoubleMatrix1D y, DoubleMatrix1D z, double alpha, double beta, boolean transposeA) {
+    int m = rows;
+    int n = columns;
+    if (transposeA) {
+      m = columns;
+      n = rows;
+    }
+
+    boolean ignore = z == null;
+    if (ignore) {
+      z = new DenseDoubleMatrix1D(m);
+    }
+
+    if (n != y.size() || m > z.size()) {
+      throw new IllegalArgumentException("Incompatible args");
+    }
+
+    if (!ignore) {
+      z.assign(Functions.mult(beta));
+    }
+
+    final int[] columnPointers = elements.columnPointers;
+    final int[] rowIndexes = elements.rowIndexes;
+    final double[] values = elements.values;
+    for (int column = 0; column < columns; column++) {
+      final int start = columnPointers[column];
+      final int end = columnPointers[column + 1];
+      if (transposeA) {
+        double s = 0;
+        for (int i = start; i < end; i++) {
+          s += values[i] * y.getQuick(rowIndexes[i]);
+        }
+        z.setQuick(column, z.getQuick(column) + alpha * s);
+      } else {
+        final double yValue = alpha * y.getQuick(column);
+        for (int i = start; i < end; i++) {
+          final int row = rowIndexes[i];
+          z.setQuick(row, z.getQuick(row) + values[i] * yValue);
+        }
+      }
+    }
+    return z;
+  }
+
+  @Override
+  public DoubleMatrix2D zMult(
+      DoubleMatrix2D B,
+      DoubleMatrix2D C,
+      double alpha,
+      double beta,
+      boolean transposeA,
+      boolean transposeB) {
+    if (transposeB) {
+      B = B.viewDice();
+    }
+    int m = rows;
+    int n = columns;
+    if (transposeA) {
+      m = columns;
+      n = rows;
+    }
+    int p = B.columns;
+    boolean ignore = C == null;
+    if (C == null) {
+      C = new DenseDoubleMatrix2D(m, p);
+    }
+
+    if (B.rows != n) {
+      throw new IllegalArgumentException("Matrix2D inner dimensions must agree");
+    }
+    if (C.rows != m || C.columns != p) {
+      throw new IllegalArgumentException("Incompatible result matrix");
+    }
+    if (this == C || B == C) {
+      throw new IllegalArgumentException("Matrices must not be identical");
+    }
+
+    if (!ignore) {
+      C.assign(Functions.mult(beta));
+    }
+
+    final int[] columnPointers = elements.columnPointers;
+    final int[] rowIndexes = elements.rowIndexes;
+    final double[] values = elements.values;
+    if (transposeA) {
+      // Row c of the result is a combination of B's rows selected by column c of this matrix.
+      final double[] sums = new double[p];
+      for (int column = 0; column < columns; column++) {
+        final int start = columnPointers[column];
+        final int end = columnPointers[column + 1];
+        if (start == end) {
+          continue;
+        }
+
+        Arrays.fill(sums, 0);
+        for (int i = start; i < end; i++) {
+          final double value = values[i];
+          final int row = rowIndexes[i];
+          for (int k = 0; k < p; k++) {
+            sums[k] += value * B.getQuick(row, k);
+          }
+        }
+        for (int k = 0; k < p; k++) {
+          C.setQuick(column, k, C.getQuick(column, k) + alpha * sums[k]);
+        }
+      }
+    } else {
+      // Each element (r, c) of this matrix adds row c of B to row r of the result.
+      for (int column = 0; column < columns; column++) {
+        for (int i = columnPointers[column], max = columnPointers[column + 1]; i < max; i++) {
+          final double value = alpha * values[i];
+          final int row = rowIndexes[i];
+          for (int k = 0; k < p; k++) {
+            C.setQuick(row, k, C.getQuick(row, k) + value * B.getQuick(column, k));
+          }
+        }
+      }
+    }
+
+    return C;
+  }
+
+  /**
+   * Compressed column storage. Keys of this map are row-major cell indexes (<code>
+   * row * columns + column</code>), as in {@link SparseDoubleMatrix2D}, so that sparse row, column
+   * and selection views can address cells of this storage.
+   */
+  static final class Elements extends AbstractIntDoubleMap {
+    private final int rows;
+    private final int columns;
+
+    int[] columnPointers;
+    int[] rowIndexes;
+    double[] values;
+
+    Elements(int rows, int columns, int[] columnPointers, int[] rowIndexes, double[] values) {
+      this.rows = rows;
+      this.columns = columns;
+      this.columnPointers = columnPointers;
+      this.rowIndexes = rowIndexes;
+      this.values = values;
+    }
+
+    /** @return The number of stored elements in the given column. */
+    int size(int column) {
+      return columnPointers[column + 1] - columnPointers[column];
+    }
+
+    /**
+     * @return The position of the given element or <code>-(insertion point) - 1</code> if the
+     *     element is not stored.
+     */
+    private int find(int row, int column) {
+      return Arrays.binarySearch(
+          rowIndexes, columnPointers[column], columnPointers[column + 1], row);
+    }
+
+    double get(int row, int column) {
+      final int i = find(row, column);
+      return i >= 0 ? values[i] : 0;
+    }
+
+    boolean put(int row, int column, double value) {
+      int i = find(row, column);
+      if (i >= 0) {
+        values[i] = value;
+        return false;
+      }
+
+      i = -i - 1;
+      final int size = size();
+      ensureCapacity(size + 1);
+      System.arraycopy(rowIndexes, i, rowIndexes, i + 1, size - i);
+      System.arraycopy(values, i, values, i + 1, size - i);
+      rowIndexes[i] = row;
+      values[i] = value;
+      for (int c = column + 1; c <= columns; c++) {
+        columnPointers[c]++;
+      }
+      return true;
+    }
+
+    boolean remove(int row, int column) {
+      final int i = find(row, column);
+      if (i < 0) {
+        return false;
+      }
+
+      final int size = size();
+      System.arraycopy(rowIndexes, i + 1, rowIndexes, i, size - i - 1);
+      System.arraycopy(values, i + 1, values, i, size - i - 1);
+      for (int c = column + 1; c <= columns; c++) {
+        columnPointers[c]--;
+      }
+      return true;
+    }
+
+    /** Removes elements with zero values. */
+    void removeZeros() {
+      int to = 0;
+      int from = 0;
+      for (int c = 0; c < columns; c++) {
+        final int max = columnPointers[c + 1];
+        columnPointers[c] = to;
+        for (; from < max; from++) {
+          if (values[from] != 0) {
+            rowIndexes[to] = rowIndexes[from];
+            values[to] = values[from];
+            to++;
+          }
+        }
+      }
+      columnPointers[columns] = to;
+    }
+
+    @Override
+    public double get(int key) {
+      return get(key / columns, key % columns);
+    }
+
+    @Override
+    public boolean put(int key, double value) {
+      return put(key / columns, key % columns, value);
+    }
+
+    @Override
+    public boolean removeKey(int key) {
+      return remove(key / columns, key % columns);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+      return find(key / columns, key % columns) >= 0;
+    }
+
+    @Override
+    public void assign(DoubleFunction function) {
+      for (int i = 0, max = size(); i < max; i++) {
+        values[i] = function.apply(values[i]);
+      }
+    }
+
+    @Override
+    public void assign(AbstractIntDoubleMap other) {
+      if (!(other instanceof Elements)
+          || ((Elements) other).rows != rows
+          || ((Elements) other).columns != columns) {
+        super.assign(other);
+        return;
+      }
+
+      final Elements source = (Elements) other;
+      this.columnPointers = source.columnPointers.clone();
+      this.rowIndexes = Arrays.copyOf(source.rowIndexes, source.size());
+      this.values = Arrays.copyOf(source.values, source.size());
+    }
+
+    @Override
+    public void clear() {
+      Arrays.fill(columnPointers, 0);
+    }
+
+    @Override
+    public Object clone() {
+      Elements copy = (Elements) super.clone();
+      copy.columnPointers = copy.columnPointers.clone();
+      copy.rowIndexes = Arrays.copyOf(copy.rowIndexes, size());
+      copy.values = Arrays.copyOf(copy.values, size());
+      return copy;
+    }
+
+    @Override
+    public void ensureCapacity(int minCapacity) {
+      if (rowIndexes.length < minCapacity) {
+        final int capacity = Math.max(minCapacity, rowIndexes.length + (rowIndexes.length >> 1));
+        rowIndexes = Arrays.copyOf(rowIndexes, capacity);
+        values = Arrays.copyOf(values, capacity);
+      }
+    }
+
+    @Override
+    public boolean forEachKey(IntProcedure procedure) {
+      for (int c = 0; c < columns; c++) {
+        for (int i = columnPointers[c], max = columnPointers[c + 1]; i < max; i++) {
+          if (!procedure.apply(rowIndexes[i] * columns + c)) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean forEachPair(IntDoubleProcedure procedure) {
+      for (int c = 0; c < columns; c++) {
+        for (int i = columnPointers[c], max = columnPointers[c + 1]; i < max; i++) {
+          if (!procedure.apply(rowIndexes[i] * columns + c, values[i])) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+
+    @Override
+    public int size() {
+      return columnPointers[columns];
+    }
+
+    @Override
+    public void trimToSize() {
+      rowIndexes = Arrays.copyOf(rowIndexes, size());
+      values = Arrays.copyOf(values, size());
+    }
+  }
+}
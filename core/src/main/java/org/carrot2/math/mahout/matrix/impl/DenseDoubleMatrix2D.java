@@ -388,7 +388,7 @@ public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
     if (transposeA) {
       return viewDice().zMult(B, C, alpha, beta, false, transposeB);
     }
-    if (B instanceof SparseDoubleMatrix2D) {
+    if (B instanceof SparseDoubleMatrix2D || B instanceof CompressedColumnDoubleMatrix2D) {
       // exploit quick sparse mult
       // A*B = (B' * A')'
       if (C == null) {
@@ -430,90 +430,7 @@ public final class DenseDoubleMatrix2D extends DoubleMatrix2D {
       throw new IllegalStateException();
     }
 
-    int cA = this.columnStride;
-    int cB = BB.columnStride;
-    int cC = CC.columnStride;
-
-    int rA = this.rowStride;
-    int rB = BB.rowStride;
-    int rC = CC.rowStride;
-
-    /*
-    A is blocked to hide memory latency
-        xxxxxxx B
-        xxxxxxx
-        xxxxxxx
-    A
-    xxx     xxxxxxx C
-    xxx     xxxxxxx
-    ---     -------
-    xxx     xxxxxxx
-    xxx     xxxxxxx
-    ---     -------
-    xxx     xxxxxxx
-    */
-    int blockSize = 30000; // * 8 == Level 2 cache in bytes
-    // if (n+p == 0) return C;
-    // int m_optimal = (BLOCK_SIZE - n*p) / (n+p);
-    int mOptimal = (blockSize - n) / (n + 1);
-    if (mOptimal <= 0) {
-      mOptimal = 1;
-    }
-    int blocks = m / mOptimal;
-    if (m % mOptimal != 0) {
-      blocks++;
-    }
-    int rr = 0;
-    while (--blocks >= 0) {
-      int jB = BB.index(0, 0);
-      int indexA = index(rr, 0);
-      int jC = CC.index(rr, 0);
-      rr += mOptimal;
-      if (blocks == 0) {
-        mOptimal += m - rr;
-      }
-
-      for (int j = p; --j >= 0; ) {
-        int iA = indexA;
-        int iC = jC;
-        for (int i = mOptimal; --i >= 0; ) {
-          int kA = iA;
-          int kB = jB;
-
-          /*
-          // not unrolled:
-          for (int k = n; --k >= 0; ) {
-            //s += getQuick(i,k) * B.getQuick(k,j);
-            s += AElems[kA] * BElems[kB];
-            kB += rB;
-            kA += cA;
-          }
-          */
-
-          // loop unrolled
-          kA -= cA;
-          kB -= rB;
-
-          double s = 0;
-          for (int k = n % 4; --k >= 0; ) {
-            s += AElems[kA += cA] * BElems[kB += rB];
-          }
-          for (int k = n / 4; --k >= 0; ) {
-            s +=
-                AElems[kA += cA] * BElems[kB += rB]
-                    + AElems[kA += cA] * BElems[kB += rB]
-                    + AElems[kA += cA] * BElems[kB += rB]
-                    + AElems[kA += cA] * BElems[kB += rB];
-          }
-
-          CElems[iC] = alpha * s + beta * CElems[iC];
-          iA += rA;
-          iC += rC;
-        }
-        jB += cB;
-        jC += cC;
-      }
-    }
+    DenseMatrixMultiplication.multiply(this, BB, CC, alpha, beta);
     return C;
   }
 
@@ -0,0 +1,307 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.mahout.matrix.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Cache-blocked multiplication of dense matrices, used by {@link
+ * DenseDoubleMatrix2D#zMult(org.carrot2.math.mahout.matrix.DoubleMatrix2D,
+ * org.carrot2.math.mahout.matrix.DoubleMatrix2D, double, double, boolean, boolean)}.
+ *
+ * <p>Rows of <code>A</code> and columns of <code>B</code> are packed into contiguous panels that
+ * fit in the processor's cache and the result is computed in 2x2 blocks. Large multiplications are
+ * split into bands of rows computed in parallel in the {@link ForkJoinPool#commonPool()}, up to
+ * the number of threads set with {@link #withMaxThreads(int, Supplier)}. Each element of the result
+ * is computed by one thread, with the same order of floating point operations regardless of
+ * blocking and the number of threads, so results are always identical.
+ */
+public final class DenseMatrixMultiplication {
+  /** Multiplications with fewer multiply-add operations are never split across threads. */
+  static final long PARALLEL_THRESHOLD = 1L << 20;
+
+  /** The maximum number of elements in a packed panel of rows or columns (128kB). */
+  private static final int PANEL_SIZE = 16 * 1024;
+
+  private static final ThreadLocal<Integer> MAX_THREADS = ThreadLocal.withInitial(() -> 1);
+
+  private DenseMatrixMultiplication() {}
+
+  /**
+   * Runs the provided task with matrix multiplications started by the current thread using up to
+   * <code>maxThreads</code> threads. Multiplications run in the calling thread only by default.
+   */
+  public static <T> T withMaxThreads(int maxThreads, Supplier<T> task) {
+    if (maxThreads < 1) {
+      throw new IllegalArgumentException("The number of threads must be at least 1: " + maxThreads);
+    }
+
+    final Integer previous = MAX_THREADS.get();
+    MAX_THREADS.set(maxThreads);
+    try {
+      return task.get();
+    } finally {
+      MAX_THREADS.set(previous);
+    }
+  }
+
+  /** @return The maximum number of threads of multiplications started by the current thread. */
+  public static int maxThreads() {
+    return MAX_THREADS.get();
+  }
+
+  /** Computes <code>C = alpha * A * B + beta * C</code>. */
+  static void multiply(
+      DenseDoubleMatrix2D A,
+      DenseDoubleMatrix2D B,
+      DenseDoubleMatrix2D C,
+      double alpha,
+      double beta) {
+    final int m = A.rows;
+    final int n = A.columns;
+    final int p = B.columns;
+    if (m == 0 || p == 0) {
+      return;
+    }
+
+    // Columns of B must be contiguous, pack them unless B is a transposed view.
+    final double[] b;
+    final int bZero;
+    final int bColumnStride;
+    if (B.rowStride == 1 || n <= 1) {
+      b = B.elements;
+      bZero = B.index(0, 0);
+      bColumnStride = B.columnStride;
+    } else {
+      b = new double[n * p];
+      for (int k = 0, index = B.index(0, 0); k < n; k++, index += B.rowStride) {
+        for (int j = 0, from = index; j < p; j++, from += B.columnStride) {
+          b[j * n + k] = B.elements[from];
+        }
+      }
+      bZero = 0;
+      bColumnStride = n;
+    }
+
+    final Band band = new Band(A, b, bZero, bColumnStride, C, alpha, beta, 0, m);
+    final int threads = Math.min(maxThreads(), ForkJoinPool.getCommonPoolParallelism() + 1);
+    if (threads <= 1 || (long) m * n * p < PARALLEL_THRESHOLD || m < 2 * threads) {
+      band.compute();
+      return;
+    }
+
+    // Split rows into even-sized bands, so that 2x2 blocks are not broken.
+    final List<Band> bands = new ArrayList<>(threads);
+    final int rows = ((m + threads - 1) / threads + 1) & ~1;
+    for (int from = 0; from < m; from += rows) {
+      final int to = Math.min(m, from + rows);
+      bands.add(new Band(A, b, bZero, bColumnStride, C, alpha, beta, from, to));
+    }
+    ForkJoinTask.invokeAll(bands);
+  }
+
+  /** Computes a band of consecutive rows of the result. */
+  @SuppressWarnings("serial")
+  private static final class Band extends RecursiveAction {
+    private final DenseDoubleMatrix2D A;
+    private final double[] b;
+    private final int bZero;
+    private final int bColumnStride;
+    private final DenseDoubleMatrix2D C;
+    private final double alpha;
+    private final double beta;
+    private final int fromRow;
+    private final int toRow;
+
+    Band(
+        DenseDoubleMatrix2D A,
+        double[] b,
+        int bZero,
+        int bColumnStride,
+        DenseDoubleMatrix2D C,
+        double alpha,
+        double beta,
+        int fromRow,
+        int toRow) {
+      this.A = A;
+      this.b = b;
+      this.bZero = bZero;
+      this.bColumnStride = bColumnStride;
+      this.C = C;
+      this.alpha = alpha;
+      this.beta = beta;
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+    }
+
+    @Override
+    protected void compute() {
+      final int n = A.columns;
+      final int p = C.columns;
+      final int blockRows = Math.max(2, (PANEL_SIZE / Math.max(1, n)) & ~1);
+      final int blockColumns = Math.max(2, (PANEL_SIZE / Math.max(1, n)) & ~1);
+
+      // Rows of A must be contiguous, pack them unless A is not a view.
+      final boolean packA = A.columnStride != 1 && n > 1;
+      final double[] a = packA ? new double[Math.min(blockRows, toRow - fromRow) * n] : A.elements;
+
+      final double[] c = C.elements;
+      final int cRowStride = C.rowStride;
+      final int cColumnStride = C.columnStride;
+
+      for (int i0 = fromRow; i0 < toRow; i0 += blockRows) {
+        final int i1 = Math.min(toRow, i0 + blockRows);
+        final int aZero;
+        final int aRowStride;
+        if (packA) {
+          for (int i = i0, to = 0; i < i1; i++) {
+            for (int k = 0, from = A.index(i, 0); k < n; k++, from += A.columnStride) {
+              a[to++] = A.elements[from];
+            }
+          }
+          aZero = 0;
+          aRowStride = n;
+        } else {
+          aZero = A.index(i0, 0);
+          aRowStride = A.rowStride;
+        }
+
+        for (int j0 = 0; j0 < p; j0 += blockColumns) {
+          final int j1 = Math.min(p, j0 + blockColumns);
+
+          int i = i0;
+          for (; i + 1 < i1; i += 2) {
+            final int a0 = aZero + (i - i0) * aRowStride;
+            final int a1 = a0 + aRowStride;
+            final int c0 = C.index(i, 0);
+            final int c1 = c0 + cRowStride;
+
+            int j = j0;
+            for (; j + 1 < j1; j += 2) {
+              final int b0 = bZero + j * bColumnStride;
+              dot2x2(
+                  a,
+                  a0,
+                  a1,
+                  b,
+                  b0,
+                  b0 + bColumnStride,
+                  n,
+                  c,
+                  c0 + j * cColumnStride,
+                  c1 + j * cColumnStride,
+                  cColumnStride);
+            }
+            if (j < j1) {
+              final int b0 = bZero + j * bColumnStride;
+              update(c, c0 + j * cColumnStride, dot(a, a0, b, b0, n));
+              update(c, c1 + j * cColumnStride, dot(a, a1, b, b0, n));
+            }
+          }
+          if (i < i1) {
+            final int a0 = aZero + (i - i0) * aRowStride;
+            final int c0 = C.index(i, 0);
+            for (int j = j0; j < j1; j++) {
+              update(c, c0 + j * cColumnStride, dot(a, a0, b, bZero + j * bColumnStride, n));
+            }
+          }
+        }
+      }
+    }
+
+    private void update(double[] c, int index, double s) {
+      c[index] = alpha * s + beta * c[index];
+    }
+
+    /**
+     * Computes a 2x2 block of the result: rows starting at <code>a0</code> and <code>a1</code>
+     * times columns starting at <code>b0</code> and <code>b1</code>. The sums are accumulated in
+     * the same order as in {@link #dot(double[], int, double[], int, int)}.
+     */
+    private void dot2x2(
+        double[] a,
+        int a0,
+        int a1,
+        double[] b,
+        int b0,
+        int b1,
+        int n,
+        double[] c,
+        int c0,
+        int c1,
+        int cColumnStride) {
+      double s00 = 0;
+      double s01 = 0;
+      double s10 = 0;
+      double s11 = 0;
+
+      int k = 0;
+      for (final int max = n % 4; k < max; k++) {
+        s00 += a[a0 + k] * b[b0 + k];
+        s01 += a[a0 + k] * b[b1 + k];
+        s10 += a[a1 + k] * b[b0 + k];
+        s11 += a[a1 + k] * b[b1 + k];
+      }
+      for (; k < n; k += 4) {
+        s00 +=
+            a[a0 + k] * b[b0 + k]
+                + a[a0 + k + 1] * b[b0 + k + 1]
+                + a[a0 + k + 2] * b[b0 + k + 2]
+                + a[a0 + k + 3] * b[b0 + k + 3];
+        s01 +=
+            a[a0 + k] * b[b1 + k]
+                + a[a0 + k + 1] * b[b1 + k + 1]
+                + a[a0 + k + 2] * b[b1 + k + 2]
+                + a[a0 + k + 3] * b[b1 + k + 3];
+        s10 +=
+            a[a1 + k] * b[b0 + k]
+                + a[a1 + k + 1] * b[b0 + k + 1]
+                + a[a1 + k + 2] * b[b0 + k + 2]
+                + a[a1 + k + 3] * b[b0 + k + 3];
+        s11 +=
+            a[a1 + k] * b[b1 + k]
+                + a[a1 + k + 1] * b[b1 + k + 1]
+                + a[a1 + k + 2] * b[b1 + k + 2]
+                + a[a1 + k + 3] * b[b1 + k + 3];
+      }
+
+      update(c, c0, s00);
+      update(c, c0 + cColumnStride, s01);
+      update(c, c1, s10);
+      update(c, c1 + cColumnStride, s11);
+    }
+
+    /**
+     * Computes the dot product of a row of A and a column of B, adding the first <code>n % 4
+     * </code> products one by one and the remaining products in groups of four.
+     */
+    private static double dot(double[] a, int a0, double[] b, int b0, int n) {
+      double s = 0;
+      int k = 0;
+      for (final int max = n % 4; k < max; k++) {
+        s += a[a0 + k] * b[b0 + k];
+      }
+      for (; k < n; k += 4) {
+        s +=
+            a[a0 + k] * b[b0 + k]
+                + a[a0 + k + 1] * b[b0 + k + 1]
+                + a[a0 + k + 2] * b[b0 + k + 2]
+                + a[a0 + k + 3] * b[b0 + k + 3];
+      }
+      return s;
+    }
+  }
+}
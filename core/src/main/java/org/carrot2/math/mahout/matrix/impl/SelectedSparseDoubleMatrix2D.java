@@ -94,6 +94,10 @@ final class SelectedSparseDoubleMatrix2D extends DoubleMatrix2D {
       SparseDoubleMatrix2D otherMatrix = (SparseDoubleMatrix2D) other;
       return this.elements == otherMatrix.elements;
     }
+    if (other instanceof CompressedColumnDoubleMatrix2D) {
+      CompressedColumnDoubleMatrix2D otherMatrix = (CompressedColumnDoubleMatrix2D) other;
+      return this.elements == otherMatrix.elements;
+    }
     return false;
   }
 
@@ -10,9 +10,13 @@
  */
 package org.carrot2.math.matrix;
 
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.sorting.IndirectComparator;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 
 /** Base functionality for {@link IterativeMatrixFactorization}s. */
 abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
@@ -29,14 +33,21 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
 
   /**
    * If the percentage decrease in approximation error becomes smaller than <code>stopThreshold
-   * </code>, the algorithm will stop. Note: calculation of approximation error is quite costly.
-   * Setting the threshold to -1 turns off approximation error calculation and hence makes the
-   * algorithm do the maximum number of iterations.
+   * </code>, the algorithm will stop. Setting the threshold to -1 turns off approximation error
+   * calculation and hence makes the algorithm do the maximum number of iterations.
    */
   protected double stopThreshold;
 
   protected static double DEFAULT_STOP_THRESHOLD = -1.0;
 
+  /**
+   * If <code>true</code>, <code>stopThreshold</code> is relative to the largest percentage decrease
+   * in approximation error observed so far rather than absolute.
+   */
+  protected boolean adaptiveStop;
+
+  protected static final boolean DEFAULT_ADAPTIVE_STOP = false;
+
   /** Seeding strategy */
   protected SeedingStrategy seedingStrategy;
 
@@ -53,6 +64,12 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
   /** Approximation errors during subsequent iterations */
   protected double[] approximationErrors;
 
+  /** The largest percentage decrease in approximation error observed so far */
+  private double peakErrorDecrease;
+
+  /** Squared Frobenius norm of A, computed on first use */
+  private double squaredNormA = Double.NaN;
+
   /** Iteration counter */
   protected int iterationsCompleted;
 
@@ -66,6 +83,7 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
     this.k = DEFAULT_K;
     this.maxIterations = DEFAULT_MAX_ITERATIONS;
     this.stopThreshold = DEFAULT_STOP_THRESHOLD;
+    this.adaptiveStop = DEFAULT_ADAPTIVE_STOP;
     this.seedingStrategy = DEFAULT_SEEDING_STRATEGY;
     this.ordered = DEFAULT_ORDERED;
     this.approximationErrors = null;
@@ -88,28 +106,114 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
   }
 
   /**
+   * Computes the approximation error from scratch, see {@link #updateApproximationError(
+   * DoubleMatrix2D, DoubleMatrix2D, DoubleMatrix2D)}.
+   *
    * @return true if the decrease in the approximation error is smaller than the <code>stopThreshold
    *     </code>
    */
   protected boolean updateApproximationError() {
+    final DoubleMatrix2D AV =
+        A.zMult(V, new DenseDoubleMatrix2D(A.rows(), V.columns()), 1, 0, false, false);
+    final DoubleMatrix2D UtU =
+        U.zMult(U, new DenseDoubleMatrix2D(U.columns(), U.columns()), 1, 0, true, false);
+    final DoubleMatrix2D VtV =
+        V.zMult(V, new DenseDoubleMatrix2D(V.columns(), V.columns()), 1, 0, true, false);
+    return updateApproximationError(AV, UtU, VtV);
+  }
+
+  /**
+   * Updates the approximation error <code>||A - UV'||</code> using the trace identity <code>
+   * ||A||^2 - 2 tr(U'AV) + tr((U'U)(V'V))</code>, so that the full <code>UV'</code> product is
+   * never materialized. Factorizations which already have the products at hand should pass them
+   * here.
+   *
+   * @param AV the product <code>A * V</code> for the current V
+   * @param UtU the product <code>U' * U</code> for the current U
+   * @param VtV the product <code>V' * V</code> for the current V
+   * @return true if the decrease in the approximation error is smaller than the <code>stopThreshold
+   *     </code>
+   */
+  protected boolean updateApproximationError(
+      DoubleMatrix2D AV, DoubleMatrix2D UtU, DoubleMatrix2D VtV) {
     if (approximationErrors == null) {
       approximationErrors = new double[maxIterations + 1];
     }
 
-    // Approximation error
-    double newApproximationError =
-        MatrixUtils.frobeniusNorm(U.zMult(V, null, 1, 0, false, true).assign(A, Functions.MINUS));
+    if (Double.isNaN(squaredNormA)) {
+      final double[] sum = new double[1];
+      A.forEachNonZero(
+          (row, column, value) -> {
+            sum[0] += value * value;
+            return value;
+          });
+      squaredNormA = sum[0];
+    }
+
+    // Approximation error, UtU and VtV are symmetric, so tr((U'U)(V'V)) is their inner product.
+    final double squaredError =
+        squaredNormA
+            - 2 * U.aggregate(AV, Functions.PLUS, Functions.MULT)
+            + UtU.aggregate(VtV, Functions.PLUS, Functions.MULT);
+    final double newApproximationError = Math.sqrt(Math.max(0, squaredError));
     approximationErrors[iterationsCompleted] = newApproximationError;
 
-    if ((approximationError - newApproximationError) / approximationError < stopThreshold) {
-      approximationError = newApproximationError;
-      return true;
+    final double decrease = (approximationError - newApproximationError) / approximationError;
+    approximationError = newApproximationError;
+
+    // The first iteration mostly rescales the seed matrices, don't take it as the reference.
+    if (iterationsCompleted > 1) {
+      peakErrorDecrease = Math.max(peakErrorDecrease, decrease);
+    }
+
+    if (adaptiveStop) {
+      // Don't stop before a reference decrease has been observed.
+      return peakErrorDecrease > 0 && decrease < stopThreshold * peakErrorDecrease;
     } else {
-      approximationError = newApproximationError;
-      return false;
+      return decrease < stopThreshold;
     }
   }
 
+  /**
+   * Computes <code>(A(r, c) + eps) / (U(r, :) * V(c, :)' + eps)</code> for the non-zero elements
+   * of column <code>c</code> of A at positions from <code>start</code> to <code>end</code>.
+   */
+  protected void sampledRatios(
+      CompressedColumnDoubleMatrix2D A, int start, int end, int c, double eps, double[] ratios) {
+    for (int p = start; p < end; p++) {
+      final int r = A.rowIndex(p);
+      double uv = 0;
+      for (int j = 0; j < k; j++) {
+        uv += U.getQuick(r, j) * V.getQuick(c, j);
+      }
+      ratios[p - start] = (A.value(p) + eps) / (uv + eps);
+    }
+  }
+
+  /** Returns A in compressed sparse column layout, copying it if necessary. */
+  protected static CompressedColumnDoubleMatrix2D compressedColumns(DoubleMatrix2D A) {
+    if (A instanceof CompressedColumnDoubleMatrix2D) {
+      return (CompressedColumnDoubleMatrix2D) A;
+    }
+
+    final int[] columnPointers = new int[A.columns() + 1];
+    final IntArrayList rowIndexes = new IntArrayList();
+    final DoubleArrayList values = new DoubleArrayList();
+    for (int c = 0; c < A.columns(); c++) {
+      for (int r = 0; r < A.rows(); r++) {
+        final double value = A.getQuick(r, c);
+        if (value != 0) {
+          rowIndexes.add(r);
+          values.add(value);
+        }
+      }
+      columnPointers[c + 1] = rowIndexes.size();
+    }
+
+    return new CompressedColumnDoubleMatrix2D(
+        A.rows(), A.columns(), columnPointers, rowIndexes.toArray(), values.toArray());
+  }
+
   /** Orders U and V matrices according to the 'activity' of base vectors. */
   protected void order() {
     DoubleMatrix2D VT = V.viewDice();
@@ -157,14 +261,30 @@ abstract class IterativeMatrixFactorizationBase extends MatrixFactorizationBase
    * Sets the algorithms <code>stopThreshold</code>. If the percentage decrease in approximation
    * error becomes smaller than <code>stopThreshold</code>, the algorithm will stop.
    *
-   * <p>Note: calculation of approximation error is quite costly. Setting the threshold to -1 turns
-   * off calculation of the approximation error and hence makes the algorithm do the maximum allowed
-   * number of iterations.
+   * <p>Setting the threshold to -1 turns off calculation of the approximation error and hence makes
+   * the algorithm do the maximum allowed number of iterations.
    */
   public void setStopThreshold(double stopThreshold) {
     this.stopThreshold = stopThreshold;
   }
 
+  /**
+   * Returns <code>true</code> if <code>stopThreshold</code> is relative to the largest decrease in
+   * approximation error observed so far.
+   */
+  public boolean isAdaptiveStop() {
+    return adaptiveStop;
+  }
+
+  /**
+   * Set to <code>true</code> to make <code>stopThreshold</code> relative to the largest percentage
+   * decrease in approximation error observed so far. The algorithm then stops once the error
+   * decreases much slower than it did at its fastest, regardless of the scale of the input.
+   */
+  public void setAdaptiveStop(boolean adaptiveStop) {
+    this.adaptiveStop = adaptiveStop;
+  }
+
   /** */
   public double getApproximationError() {
     return approximationError;
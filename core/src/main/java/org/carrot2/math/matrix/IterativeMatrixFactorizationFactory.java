@@ -48,7 +48,13 @@ public abstract class IterativeMatrixFactorizationFactory extends AttrComposite
   protected double stopThreshold;
 
   /** The default stop threshold */
-  protected static final double DEFAULT_STOP_THRESHOLD = -1;
+  protected static final double DEFAULT_STOP_THRESHOLD = 0.01;
+
+  /** Whether the stop threshold is relative to the largest observed error decrease */
+  protected boolean adaptiveStop;
+
+  /** The default adaptive stop setting */
+  protected static final boolean DEFAULT_ADAPTIVE_STOP = true;
 
   /** Matrix seeding strategy factory */
   protected SeedingStrategyFactory seedingFactory;
@@ -66,6 +72,7 @@ public abstract class IterativeMatrixFactorizationFactory extends AttrComposite
     this.k = DEFAULT_K;
     this.maxIterations = DEFAULT_MAX_ITERATIONS;
     this.stopThreshold = DEFAULT_STOP_THRESHOLD;
+    this.adaptiveStop = DEFAULT_ADAPTIVE_STOP;
     this.seedingFactory = DEFAULT_SEEDING_FACTORY;
     this.ordered = DEFAULT_ORDERED;
   }
@@ -109,6 +116,22 @@ public abstract class IterativeMatrixFactorizationFactory extends AttrComposite
     this.stopThreshold = stopThreshold;
   }
 
+  /**
+   * Returns <code>true</code> if the stop threshold is relative to the largest observed decrease in
+   * approximation error.
+   */
+  public boolean isAdaptiveStop() {
+    return adaptiveStop;
+  }
+
+  /**
+   * Set to <code>true</code> to make the stop threshold relative to the largest observed decrease
+   * in approximation error.
+   */
+  public void setAdaptiveStop(boolean adaptiveStop) {
+    this.adaptiveStop = adaptiveStop;
+  }
+
   /** Returns the {@link SeedingStrategyFactory} used by this factory. */
   public SeedingStrategyFactory getSeedingFactory() {
     return seedingFactory;
@@ -227,6 +250,30 @@ public abstract class IterativeMatrixFactorizationFactory extends AttrComposite
             FactorizationQuality.HIGH),
         new double[] {-0.005, 0, 20});
 
+    /* NMF-HALS, Random seeding, level 1 */
+    allKnownCoefficients.put(
+        Arrays.asList(
+            NonnegativeMatrixFactorizationHALSFactory.class,
+            RandomSeedingStrategyFactory.class,
+            FactorizationQuality.LOW),
+        new double[] {-0.0083, 0.1667, 4.0000});
+
+    /* NMF-HALS, Random seeding, level 2 */
+    allKnownCoefficients.put(
+        Arrays.asList(
+            NonnegativeMatrixFactorizationHALSFactory.class,
+            RandomSeedingStrategyFactory.class,
+            FactorizationQuality.MEDIUM),
+        new double[] {-0.00875, 0.3, 6.0});
+
+    /* NMF-HALS, Random seeding, level 3 */
+    allKnownCoefficients.put(
+        Arrays.asList(
+            NonnegativeMatrixFactorizationHALSFactory.class,
+            RandomSeedingStrategyFactory.class,
+            FactorizationQuality.HIGH),
+        new double[] {-0.0093, 0.4111, 8.6778});
+
     /* LNMF, Random seeding, level 1 */
     allKnownCoefficients.put(
         Arrays.asList(
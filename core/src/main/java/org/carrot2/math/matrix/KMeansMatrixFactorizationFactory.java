@@ -22,6 +22,7 @@ public class KMeansMatrixFactorizationFactory extends IterativeMatrixFactorizati
     factorization.setK(k);
     factorization.setMaxIterations(maxIterations);
     factorization.setStopThreshold(stopThreshold);
+    factorization.setAdaptiveStop(adaptiveStop);
 
     factorization.compute();
 
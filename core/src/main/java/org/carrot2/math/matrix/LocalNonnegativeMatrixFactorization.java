@@ -10,10 +10,9 @@
  */
 package org.carrot2.math.matrix;
 
-import org.carrot2.math.mahout.function.DoubleDoubleFunction;
-import org.carrot2.math.mahout.function.DoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 
 /**
@@ -52,25 +51,25 @@ public class LocalNonnegativeMatrixFactorization extends IterativeMatrixFactoriz
     // end
     //
 
+    int m = A.rows();
+    int n = A.columns();
     double eps = 1e-9;
 
     // Seed U and V with initial values
-    U = new DenseDoubleMatrix2D(A.rows(), k);
-    V = new DenseDoubleMatrix2D(A.columns(), k);
+    U = new DenseDoubleMatrix2D(m, k);
+    V = new DenseDoubleMatrix2D(n, k);
     seedingStrategy.seed(A, U, V);
 
-    // Temporary matrices
-    DoubleMatrix2D Aeps = A.copy();
-    Aeps.assign(Functions.plus(eps));
-    DoubleMatrix2D UV = new DenseDoubleMatrix2D(A.rows(), A.columns());
-    DoubleMatrix2D VT = new DenseDoubleMatrix2D(A.columns(), k);
-    DoubleMatrix2D UT = new DenseDoubleMatrix2D(A.rows(), k);
-    double[] work = new double[U.columns()];
+    // (A + eps) ./ (UV' + eps) is evaluated only at the non-zero elements of A, as in
+    // NonnegativeMatrixFactorizationKL. The omitted ratios at the zero elements of A contribute
+    // at most n * eps to an updated U(r, j) and sqrt(m * eps) to an updated V(c, j), because of
+    // the square root. Columns of A with no non-zero elements get zero rows in V.
+    final CompressedColumnDoubleMatrix2D Acsc = compressedColumns(A);
 
-    // Colt functions
-    DoubleDoubleFunction invDiv = Functions.swapArgs(Functions.DIV);
-    DoubleDoubleFunction sqrtMult = Functions.chain(Functions.SQRT, Functions.MULT);
-    DoubleFunction plusEps = Functions.plus(eps);
+    // Temporary matrices
+    DoubleMatrix2D UT = new DenseDoubleMatrix2D(m, k);
+    double[] ratios = new double[m];
+    double[] work = new double[k];
 
     if (stopThreshold >= 0) {
       updateApproximationError();
@@ -78,17 +77,36 @@ public class LocalNonnegativeMatrixFactorization extends IterativeMatrixFactoriz
 
     for (int i = 0; i < maxIterations; i++) {
       // Update V
-      U.zMult(V, UV, 1, 0, false, true); // UV <- U*V'
-      UV.assign(plusEps); // UV <- UV + eps
-      UV.assign(Aeps, invDiv); // UV <- Aeps ./ UV
-      UV.zMult(U, VT, 1, 0, true, false); // VT <- UV' * U
-      V.assign(VT, sqrtMult); // V <- sqrt(V .* VT)
+      for (int c = 0; c < n; c++) {
+        final int start = Acsc.columnStart(c);
+        final int end = Acsc.columnEnd(c);
+        sampledRatios(Acsc, start, end, c, eps, ratios); // ratios <- Aeps(:, c) ./ (U*V(c, :)')
+        for (int j = 0; j < k; j++) {
+          double sum = 0;
+          for (int p = start; p < end; p++) {
+            sum += ratios[p - start] * U.getQuick(Acsc.rowIndex(p), j);
+          }
+          work[j] = sum;
+        }
+        for (int j = 0; j < k; j++) {
+          V.setQuick(c, j, Math.sqrt(V.getQuick(c, j) * work[j])); // V <- sqrt(V .* (ratios' * U))
+        }
+      }
 
       // Update U
-      U.zMult(V, UV, 1, 0, false, true); // UV <- U*V'
-      UV.assign(plusEps); // UV <- UV + eps
-      UV.assign(Aeps, invDiv); // UV <- Aeps ./ UV
-      UV.zMult(V, UT, 1, 0, false, false); // UT <- UV * V
+      UT.assign(0);
+      for (int c = 0; c < n; c++) {
+        final int start = Acsc.columnStart(c);
+        final int end = Acsc.columnEnd(c);
+        sampledRatios(Acsc, start, end, c, eps, ratios); // ratios <- Aeps(:, c) ./ (U*V(c, :)')
+        for (int p = start; p < end; p++) {
+          final int r = Acsc.rowIndex(p);
+          final double ratio = ratios[p - start];
+          for (int j = 0; j < k; j++) {
+            UT.setQuick(r, j, UT.getQuick(r, j) + ratio * V.getQuick(c, j)); // UT <- ratios * V
+          }
+        }
+      }
       U.assign(UT, Functions.MULT); // U <- U .* UT
 
       MatrixUtils.normalizeColumnL1(U, work);
@@ -18,11 +18,20 @@ import org.carrot2.math.mahout.matrix.*;
  */
 public class LocalNonnegativeMatrixFactorizationFactory
     extends IterativeMatrixFactorizationFactory {
+  /**
+   * Local NMF doesn't minimize the Euclidean approximation error the stop threshold is checked
+   * against (the error may grow between iterations), so by default all iterations are run.
+   */
+  public LocalNonnegativeMatrixFactorizationFactory() {
+    this.stopThreshold = -1;
+  }
+
   public MatrixFactorization factorize(DoubleMatrix2D A) {
     LocalNonnegativeMatrixFactorization factorization = new LocalNonnegativeMatrixFactorization(A);
     factorization.setK(k);
     factorization.setMaxIterations(maxIterations);
     factorization.setStopThreshold(stopThreshold);
+    factorization.setAdaptiveStop(adaptiveStop);
     factorization.setSeedingStrategy(createSeedingStrategy());
     factorization.setOrdered(ordered);
     factorization.compute();
@@ -17,6 +17,7 @@ import org.carrot2.math.mahout.function.DoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.function.IntIntDoubleFunction;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
 
 /** A set of <code>DoubleMatrix2D</code> shorthands and utility methods. */
 public class MatrixUtils {
@@ -32,6 +33,10 @@ public class MatrixUtils {
    * @return A with length-normalized columns (for convenience only)
    */
   public static DoubleMatrix2D normalizeColumnL2(DoubleMatrix2D A, double[] work) {
+    if (A instanceof CompressedColumnDoubleMatrix2D) {
+      return normalizeColumnL2((CompressedColumnDoubleMatrix2D) A, work);
+    }
+
     work = prepareWork(A, work);
 
     // Calculate the L2 norm for each column
@@ -52,6 +57,34 @@ public class MatrixUtils {
     return A;
   }
 
+  /**
+   * Normalizes column vectors of a compressed column matrix, visiting non-zero elements only. The
+   * norms are accumulated in the same (row) order as for dense matrices, so the results are
+   * identical.
+   */
+  private static DoubleMatrix2D normalizeColumnL2(CompressedColumnDoubleMatrix2D A, double[] work) {
+    work = prepareWork(A, work);
+
+    for (int c = 0; c < A.columns(); c++) {
+      final int start = A.columnStart(c);
+      final int end = A.columnEnd(c);
+
+      double sum = 0;
+      for (int i = start; i < end; i++) {
+        sum += A.value(i) * A.value(i);
+      }
+      work[c] = Math.sqrt(sum);
+
+      if (work[c] != 0) {
+        for (int i = start; i < end; i++) {
+          A.setValue(i, A.value(i) / work[c]);
+        }
+      }
+    }
+
+    return A;
+  }
+
   /**
    * Normalizes column vectors of a sparse matrix <code>A</code> so that their L2 norm (Euclidean
    * distance) is equal to 1.0.
@@ -10,7 +10,7 @@
  */
 package org.carrot2.math.matrix;
 
-import org.carrot2.math.mahout.function.DoubleFunction;
+import org.carrot2.math.mahout.function.DoubleDoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
@@ -56,39 +56,39 @@ public class NonnegativeMatrixFactorizationED extends IterativeMatrixFactorizati
     seedingStrategy.seed(A, U, V);
 
     // Temporary matrices
-    DoubleMatrix2D T = new DenseDoubleMatrix2D(k, k);
+    DoubleMatrix2D UtU = new DenseDoubleMatrix2D(k, k);
+    DoubleMatrix2D VtV = new DenseDoubleMatrix2D(k, k);
     DoubleMatrix2D UT1 = new DenseDoubleMatrix2D(A.rows(), k);
     DoubleMatrix2D UT2 = new DenseDoubleMatrix2D(A.rows(), k);
     DoubleMatrix2D VT1 = new DenseDoubleMatrix2D(A.columns(), k);
     DoubleMatrix2D VT2 = new DenseDoubleMatrix2D(A.columns(), k);
-    DoubleFunction plusEps = Functions.plus(eps);
+    DoubleDoubleFunction epsRatio =
+        (denominator, numerator) -> (numerator + eps) / (denominator + eps);
 
     if (stopThreshold >= 0) {
       updateApproximationError();
     }
 
+    U.zMult(U, UtU, 1, 0, true, false); // UtU <- U'U
     for (int i = 0; i < maxIterations; i++) {
       // Update V
-      U.zMult(U, T, 1, 0, true, false); // T <- U'U
       A.zMult(U, VT1, 1, 0, true, false); // VT1 <- A'U
-      V.zMult(T, VT2, 1, 0, false, false); // VT2 <- VT
-      VT1.assign(plusEps);
-      VT2.assign(plusEps);
-      VT1.assign(VT2, Functions.DIV); // VT1 <- VT1 ./ VT2
-      V.assign(VT1, Functions.MULT); // V <- V .* VT1
+      V.zMult(UtU, VT2, 1, 0, false, false); // VT2 <- V * UtU
+      VT2.assign(VT1, epsRatio); // VT2 <- (VT1 + eps) ./ (VT2 + eps)
+      V.assign(VT2, Functions.MULT); // V <- V .* VT2
 
       // Update U
-      V.zMult(V, T, 1, 0, true, false); // T <- V'V
+      V.zMult(V, VtV, 1, 0, true, false); // VtV <- V'V
       A.zMult(V, UT1, 1, 0, false, false); // UT1 <- AV
-      U.zMult(T, UT2, 1, 0, false, false); // UT2 <- UT
-      UT1.assign(plusEps);
-      UT2.assign(plusEps);
-      UT1.assign(UT2, Functions.DIV); // UT1 <- UT1 ./ UT2
-      U.assign(UT1, Functions.MULT); // U <- U .* UT1
+      U.zMult(VtV, UT2, 1, 0, false, false); // UT2 <- U * VtV
+      UT2.assign(UT1, epsRatio); // UT2 <- (UT1 + eps) ./ (UT2 + eps)
+      U.assign(UT2, Functions.MULT); // U <- U .* UT2
+      U.zMult(U, UtU, 1, 0, true, false); // UtU <- U'U
 
       iterationsCompleted++;
       if (stopThreshold >= 0) {
-        if (updateApproximationError()) {
+        // UT1, UtU and VtV hold the products for the current U and V.
+        if (updateApproximationError(UT1, UtU, VtV)) {
           break;
         }
       }
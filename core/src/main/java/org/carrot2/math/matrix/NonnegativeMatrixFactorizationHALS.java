@@ -0,0 +1,128 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+
+/**
+ * Performs matrix factorization using the Non-negative Matrix Factorization algorithm with
+ * minimization of Euclidean Distance between A and UV' and Hierarchical Alternating Least Squares
+ * (column-wise coordinate descent) updating. Each iteration solves the non-negative least squares
+ * problem for every column of V and then U exactly, which typically reaches the approximation error
+ * of the multiplicative updates in a fraction of iterations.
+ */
+public class NonnegativeMatrixFactorizationHALS extends IterativeMatrixFactorizationBase {
+  /**
+   * Creates the NonnegativeMatrixFactorizationHALS object for matrix A. Before accessing results,
+   * perform computations by calling the {@link #compute()} method.
+   *
+   * @param A matrix to be factorized
+   */
+  public NonnegativeMatrixFactorizationHALS(DoubleMatrix2D A) {
+    super(A);
+  }
+
+  public void compute() {
+    // Prototype Matlab code for the NMF-HALS
+    //
+    // function [U, V, C] = nmf-hals(A)
+    // [m, n] = size(A);
+    // k = 2; % the desired number of base vectors
+    // maxiter = 50; % the number of iterations
+    // eps = 1e-9; % machine epsilon
+    //
+    // U = rand(m, k); % initialise U randomly
+    // V = rand(n, k); % initialise V randomly
+    //
+    // for iter = 1:maxiter
+    // P = A'*U; Q = U'*U;
+    // for j = 1:k
+    // V(:, j) = max(eps, V(:, j) + (P(:, j) - V*Q(:, j)) / Q(j, j)); % update V
+    // end
+    // P = A*V; Q = V'*V;
+    // for j = 1:k
+    // U(:, j) = max(eps, U(:, j) + (P(:, j) - U*Q(:, j)) / Q(j, j)); % update U
+    // end
+    // C(1, iter) = norm((A-U*V'), 'fro'); % approximation quality
+    // end
+
+    double eps = 1e-9;
+
+    // Seed U and V with initial values
+    U = new DenseDoubleMatrix2D(A.rows(), k);
+    V = new DenseDoubleMatrix2D(A.columns(), k);
+    seedingStrategy.seed(A, U, V);
+
+    // Temporary matrices
+    DoubleMatrix2D UtU = new DenseDoubleMatrix2D(k, k);
+    DoubleMatrix2D VtV = new DenseDoubleMatrix2D(k, k);
+    DoubleMatrix2D AV = new DenseDoubleMatrix2D(A.rows(), k);
+    DoubleMatrix2D AtU = new DenseDoubleMatrix2D(A.columns(), k);
+
+    if (stopThreshold >= 0) {
+      updateApproximationError();
+    }
+
+    U.zMult(U, UtU, 1, 0, true, false); // UtU <- U'U
+    for (int i = 0; i < maxIterations; i++) {
+      // Update V
+      A.zMult(U, AtU, 1, 0, true, false); // AtU <- A'U
+      updateColumns(V, AtU, UtU, eps);
+
+      // Update U
+      V.zMult(V, VtV, 1, 0, true, false); // VtV <- V'V
+      A.zMult(V, AV, 1, 0, false, false); // AV <- AV
+      updateColumns(U, AV, VtV, eps);
+      U.zMult(U, UtU, 1, 0, true, false); // UtU <- U'U
+
+      iterationsCompleted++;
+      if (stopThreshold >= 0) {
+        // AV, UtU and VtV hold the products for the current U and V.
+        if (updateApproximationError(AV, UtU, VtV)) {
+          break;
+        }
+      }
+    }
+
+    if (ordered) {
+      order();
+    }
+  }
+
+  /**
+   * Updates columns of X one by one, so that each update takes into account the columns updated
+   * before: <code>X(:, j) = max(eps, X(:, j) + (P(:, j) - X * Q(:, j)) / Q(j, j))</code>.
+   */
+  private static void updateColumns(
+      DoubleMatrix2D X, DoubleMatrix2D P, DoubleMatrix2D Q, double eps) {
+    final int rows = X.rows();
+    final int k = X.columns();
+    for (int j = 0; j < k; j++) {
+      final double qjj = Q.getQuick(j, j);
+      if (qjj <= 0) {
+        continue;
+      }
+
+      for (int r = 0; r < rows; r++) {
+        double gradient = P.getQuick(r, j);
+        for (int l = 0; l < k; l++) {
+          gradient -= X.getQuick(r, l) * Q.getQuick(l, j);
+        }
+        X.setQuick(r, j, Math.max(eps, X.getQuick(r, j) + gradient / qjj));
+      }
+    }
+  }
+
+  public String toString() {
+    return "NMF-HALS-" + seedingStrategy.toString();
+  }
+}
@@ -10,10 +10,9 @@
  */
 package org.carrot2.math.matrix;
 
-import org.carrot2.math.mahout.function.DoubleDoubleFunction;
-import org.carrot2.math.mahout.function.DoubleFunction;
 import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 
 /**
@@ -60,42 +59,79 @@ public class NonnegativeMatrixFactorizationKL extends IterativeMatrixFactorizati
     V = new DenseDoubleMatrix2D(n, k);
     seedingStrategy.seed(A, U, V);
 
+    // (A + eps) ./ (UV' + eps) is evaluated only at the non-zero elements of A. At the zero
+    // elements the ratio is eps ./ (UV' + eps) and it is omitted: its contribution to V(c, j) is
+    // V(c, j) * sum_r(U(r, j) * eps / (UV'(r, c) + eps)) <= m * eps, as V(c, j) * U(r, j) <=
+    // UV'(r, c). Likewise for U(r, j) (<= n * eps). This makes the cost of an iteration
+    // proportional to nnz(A) rather than to the size of A.
+    final CompressedColumnDoubleMatrix2D Acsc = compressedColumns(A);
+
     // Temporary matrices
-    DoubleMatrix2D Aeps = A.copy();
-    Aeps.assign(Functions.plus(eps));
-    DoubleMatrix2D UV = new DenseDoubleMatrix2D(m, n);
-    DoubleMatrix2D VT = new DenseDoubleMatrix2D(n, k);
     DoubleMatrix2D UT = new DenseDoubleMatrix2D(m, k);
-    double[] work = new double[U.columns()];
+    double[] ratios = new double[m];
+    double[] work = new double[k];
 
-    // Colt functions
-    DoubleDoubleFunction invDiv = Functions.swapArgs(Functions.DIV);
-    DoubleFunction plusEps = Functions.plus(eps);
+    // Products for the approximation error, only allocated when it's tracked
+    final boolean trackError = stopThreshold >= 0;
+    final DoubleMatrix2D AV = trackError ? new DenseDoubleMatrix2D(m, k) : null;
+    final DoubleMatrix2D UtU = trackError ? new DenseDoubleMatrix2D(k, k) : null;
+    final DoubleMatrix2D VtV = trackError ? new DenseDoubleMatrix2D(k, k) : null;
 
-    if (stopThreshold >= 0) {
+    if (trackError) {
       updateApproximationError();
     }
 
     for (int i = 0; i < maxIterations; i++) {
       // Update V
-      U.zMult(V, UV, 1, 0, false, true); // UV <- U*V'
-      UV.assign(plusEps); // UV <- UV + eps
-      UV.assign(Aeps, invDiv); // UV <- Aeps ./ UV
-      UV.zMult(U, VT, 1, 0, true, false); // VT <- UV' * U
-      V.assign(VT, Functions.MULT); // V <- V .* VT
+      for (int c = 0; c < n; c++) {
+        final int start = Acsc.columnStart(c);
+        final int end = Acsc.columnEnd(c);
+        sampledRatios(Acsc, start, end, c, eps, ratios); // ratios <- Aeps(:, c) ./ (U*V(c, :)')
+        for (int j = 0; j < k; j++) {
+          double sum = 0;
+          for (int p = start; p < end; p++) {
+            sum += ratios[p - start] * U.getQuick(Acsc.rowIndex(p), j);
+          }
+          work[j] = sum;
+        }
+        for (int j = 0; j < k; j++) {
+          V.setQuick(c, j, V.getQuick(c, j) * work[j]); // V <- V .* (ratios' * U)
+        }
+      }
 
       // Update U
-      U.zMult(V, UV, 1, 0, false, true); // UV <- U*V'
-      UV.assign(plusEps); // UV <- UV + eps
-      UV.assign(Aeps, invDiv); // UV <- Aeps ./ UV
-      UV.zMult(V, UT, 1, 0, false, false); // UT <- UV * V
+      UT.assign(0);
+      if (trackError) {
+        AV.assign(0);
+      }
+      for (int c = 0; c < n; c++) {
+        final int start = Acsc.columnStart(c);
+        final int end = Acsc.columnEnd(c);
+        sampledRatios(Acsc, start, end, c, eps, ratios); // ratios <- Aeps(:, c) ./ (U*V(c, :)')
+        for (int p = start; p < end; p++) {
+          final int r = Acsc.rowIndex(p);
+          final double ratio = ratios[p - start];
+          for (int j = 0; j < k; j++) {
+            UT.setQuick(r, j, UT.getQuick(r, j) + ratio * V.getQuick(c, j)); // UT <- ratios * V
+          }
+          if (trackError) {
+            final double value = Acsc.value(p);
+            for (int j = 0; j < k; j++) {
+              AV.setQuick(r, j, AV.getQuick(r, j) + value * V.getQuick(c, j)); // AV <- A * V
+            }
+          }
+        }
+      }
       U.assign(UT, Functions.MULT); // U <- U .* UT
 
       MatrixUtils.normalizeColumnL1(U, work);
 
       iterationsCompleted++;
-      if (stopThreshold >= 0) {
-        if (updateApproximationError()) {
+      if (trackError) {
+        // V is not changed by the U update, so AV is the product for the current V.
+        U.zMult(U, UtU, 1, 0, true, false); // UtU <- U'U
+        V.zMult(V, VtV, 1, 0, true, false); // VtV <- V'V
+        if (updateApproximationError(AV, UtU, VtV)) {
           break;
         }
       }
@@ -17,11 +17,20 @@ import org.carrot2.math.mahout.matrix.*;
  * Kullback-Leibler divergence between A and UV' and multiplicative updating.
  */
 public class NonnegativeMatrixFactorizationKLFactory extends IterativeMatrixFactorizationFactory {
+  /**
+   * The KL updates minimize the divergence between A and UV', not the Euclidean error the stop
+   * threshold is compared against, so by default all iterations are run.
+   */
+  public NonnegativeMatrixFactorizationKLFactory() {
+    this.stopThreshold = -1;
+  }
+
   public MatrixFactorization factorize(DoubleMatrix2D A) {
     NonnegativeMatrixFactorizationKL factorization = new NonnegativeMatrixFactorizationKL(A);
     factorization.setK(k);
     factorization.setMaxIterations(maxIterations);
     factorization.setStopThreshold(stopThreshold);
+    factorization.setAdaptiveStop(adaptiveStop);
     factorization.setSeedingStrategy(createSeedingStrategy());
     factorization.setOrdered(ordered);
 
@@ -0,0 +1,200 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.carrot2.math.mahout.DenseMatrix;
+import org.carrot2.math.mahout.Matrix;
+import org.carrot2.math.mahout.SingularValueDecomposition;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+
+/**
+ * Performs matrix factorization using a randomized truncated Singular Value Decomposition.
+ *
+ * <p>A random projection of the input matrix (refined with power iterations) yields an orthonormal
+ * basis <code>Q</code> approximating the range of <code>A</code>. The small matrix <code>
+ * Q'A</code> is then decomposed exactly. The input matrix is only used in matrix products, so
+ * sparse matrices are never converted to dense ones. See: N. Halko, P. G. Martinsson, J. A. Tropp,
+ * Finding structure with randomness: Probabilistic algorithms for constructing approximate matrix
+ * decompositions. SIAM Review, 53(2), 2011, pp. 217-288.
+ */
+public class RandomizedSingularValueDecomposition extends MatrixFactorizationBase
+    implements MatrixFactorization {
+  /** The desired number of base vectors */
+  protected int k;
+
+  /** The number of additional random samples of the range of the input matrix */
+  protected int oversampling;
+
+  /** The number of power iterations */
+  protected int powerIterations;
+
+  /** Random number generator seed */
+  protected long seed;
+
+  /** Singular values */
+  private double[] S;
+
+  /**
+   * Computes a randomized truncated SVD of a matrix. Before accessing results, perform
+   * computations by calling the {@link #compute()} method.
+   *
+   * @param A matrix to be factorized
+   */
+  public RandomizedSingularValueDecomposition(DoubleMatrix2D A) {
+    super(A);
+  }
+
+  public void compute() {
+    final int m = A.rows();
+    final int n = A.columns();
+    final int maxRank = Math.min(m, n);
+    final int k = this.k > 0 ? Math.min(this.k, maxRank) : maxRank;
+    final int l = Math.min(k + oversampling, maxRank);
+
+    // Sample the range of A.
+    final Random random = new Random(seed);
+    final DoubleMatrix2D omega = new DenseDoubleMatrix2D(n, l);
+    for (int r = 0; r < n; r++) {
+      for (int c = 0; c < l; c++) {
+        omega.setQuick(r, c, random.nextGaussian());
+      }
+    }
+    DoubleMatrix2D Q = orthonormalize(A.zMult(omega, null, 1, 0, false, false));
+
+    // Power iterations improve the approximation when singular values decay slowly. Each
+    // intermediate product is orthonormalized to avoid loss of precision.
+    final DoubleMatrix2D Z = new DenseDoubleMatrix2D(n, l);
+    for (int i = 0; i < powerIterations; i++) {
+      final DoubleMatrix2D W = orthonormalize(A.zMult(Q, Z, 1, 0, true, false));
+      Q = orthonormalize(A.zMult(W, null, 1, 0, false, false));
+    }
+
+    // Decompose B' = (Q'A)' = A'Q = Ub * S * Vb', so that A ~ Q * B = (Q * Vb) * S * Ub'.
+    final DoubleMatrix2D Bt = A.zMult(Q, Z, 1, 0, true, false);
+    final SingularValueDecomposition svd = new SingularValueDecomposition(toMatrix(Bt));
+    final DoubleMatrix2D Ub = toColtMatrix(svd.getU(), k);
+    final DoubleMatrix2D Vb = toColtMatrix(svd.getV(), k);
+
+    U = Q.zMult(Vb, null, 1, 0, false, false);
+    V = Ub;
+    S = Arrays.copyOf(svd.getSingularValues(), k);
+  }
+
+  /**
+   * Returns a matrix with orthonormal columns spanning the same space as columns of the input
+   * matrix, computed with the modified Gram-Schmidt process with re-orthogonalization. Columns
+   * linearly dependent on the previous ones are replaced with zeros.
+   */
+  static DoubleMatrix2D orthonormalize(DoubleMatrix2D Y) {
+    final int rows = Y.rows();
+    final int columns = Y.columns();
+    final double[][] q = new double[columns][];
+    for (int c = 0; c < columns; c++) {
+      final double[] v = Y.viewColumn(c).toArray();
+      final double norm = norm(v);
+
+      for (int pass = 0; pass < 2; pass++) {
+        for (int j = 0; j < c; j++) {
+          final double[] qj = q[j];
+          double r = 0;
+          for (int i = 0; i < rows; i++) {
+            r += qj[i] * v[i];
+          }
+          for (int i = 0; i < rows; i++) {
+            v[i] -= r * qj[i];
+          }
+        }
+      }
+
+      final double residual = norm(v);
+      if (residual > norm * 1e-10) {
+        for (int i = 0; i < rows; i++) {
+          v[i] /= residual;
+        }
+      } else {
+        Arrays.fill(v, 0);
+      }
+      q[c] = v;
+    }
+
+    final DoubleMatrix2D Q = new DenseDoubleMatrix2D(rows, columns);
+    for (int c = 0; c < columns; c++) {
+      for (int r = 0; r < rows; r++) {
+        Q.setQuick(r, c, q[c][r]);
+      }
+    }
+    return Q;
+  }
+
+  private static double norm(double[] v) {
+    double sum = 0;
+    for (double value : v) {
+      sum += value * value;
+    }
+    return Math.sqrt(sum);
+  }
+
+  private static Matrix toMatrix(DoubleMatrix2D m) {
+    return new DenseMatrix(m.toArray());
+  }
+
+  /** Returns the first <code>columns</code> columns of the provided matrix. */
+  private static DenseDoubleMatrix2D toColtMatrix(Matrix m, int columns) {
+    DenseDoubleMatrix2D result = new DenseDoubleMatrix2D(m.rowSize(), columns);
+    for (int r = 0; r < result.rows(); r++) {
+      for (int c = 0; c < result.columns(); c++) {
+        result.setQuick(r, c, m.getQuick(r, c));
+      }
+    }
+    return result;
+  }
+
+  public String toString() {
+    return "RSVD";
+  }
+
+  /** Returns singular values of the matrix. */
+  public double[] getSingularValues() {
+    return S;
+  }
+
+  /**
+   * Sets the number of base vectors <i>k </i>.
+   *
+   * @param k the number of base vectors
+   */
+  public void setK(int k) {
+    this.k = k;
+  }
+
+  /** Returns the number of base vectors <i>k </i>. */
+  public int getK() {
+    return k;
+  }
+
+  /** Sets the number of additional random samples of the range of the input matrix. */
+  public void setOversampling(int oversampling) {
+    this.oversampling = oversampling;
+  }
+
+  /** Sets the number of power iterations. */
+  public void setPowerIterations(int powerIterations) {
+    this.powerIterations = powerIterations;
+  }
+
+  /** Sets the seed of the random projection. */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import org.carrot2.attrs.AttrComposite;
+import org.carrot2.attrs.AttrInteger;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+
+/**
+ * Performs matrix factorization using a randomized truncated Singular Value Decomposition (see
+ * {@link RandomizedSingularValueDecomposition}). Compared to {@link
+ * PartialSingularValueDecompositionFactory}, only the requested number of base vectors is
+ * computed, which is much faster for large matrices.
+ */
+public class RandomizedSvdFactorizationFactory extends AttrComposite
+    implements MatrixFactorizationFactory {
+  /**
+   * Oversampling. The number of random samples of the input matrix's range computed in addition to
+   * the requested number of base vectors. Larger values improve accuracy at the cost of time.
+   */
+  public final AttrInteger oversampling =
+      attributes.register(
+          "oversampling",
+          AttrInteger.builder().label("Oversampling").min(0).max(100).defaultValue(10));
+
+  /**
+   * Power iterations. The number of refinements of the range approximation. Improves accuracy when
+   * singular values of the input matrix decay slowly, as is typical for term-document matrices.
+   */
+  public final AttrInteger powerIterations =
+      attributes.register(
+          "powerIterations",
+          AttrInteger.builder().label("Power iterations").min(0).max(10).defaultValue(2));
+
+  /** The desired number of base vectors */
+  protected int k;
+
+  /** The default desired number of base vectors */
+  protected static final int DEFAULT_K = -1;
+
+  /** Random projection seed, fixed so that results are repeatable. */
+  protected static final long DEFAULT_SEED = 0;
+
+  /**
+   * Creates the factory that creates factorizations that compute the maximum number of base
+   * vectors.
+   */
+  public RandomizedSvdFactorizationFactory() {
+    this.k = DEFAULT_K;
+  }
+
+  public MatrixFactorization factorize(DoubleMatrix2D A) {
+    RandomizedSingularValueDecomposition randomizedSingularValueDecomposition =
+        new RandomizedSingularValueDecomposition(A);
+
+    randomizedSingularValueDecomposition.setK(k);
+    randomizedSingularValueDecomposition.setOversampling(oversampling.get());
+    randomizedSingularValueDecomposition.setPowerIterations(powerIterations.get());
+    randomizedSingularValueDecomposition.setSeed(DEFAULT_SEED);
+    randomizedSingularValueDecomposition.compute();
+
+    return randomizedSingularValueDecomposition;
+  }
+
+  /**
+   * Sets the number of base vectors <i>k </i>.
+   *
+   * @param k the number of base vectors
+   */
+  public void setK(int k) {
+    this.k = k;
+  }
+
+  /** Returns the number of base vectors <i>k </i>. */
+  public int getK() {
+    return k;
+  }
+}
@@ -10,7 +10,11 @@
  */
 package org.carrot2.text.preprocessing;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
+import org.carrot2.attrs.AttrBoolean;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.attrs.AttrInteger;
 import org.carrot2.clustering.Document;
@@ -41,6 +45,38 @@ public class BasicPreprocessingPipeline extends AttrComposite implements Context
               .label("Word document frequency threshold")
               .defaultValue(1));
 
+  /**
+   * Reuse pooled preprocessing buffers. When enabled, temporary token buffers and the token image
+   * intern table are taken from a pool of {@link PreprocessingArena}s shared by all threads and
+   * recycled across invocations, which reduces allocations when many requests are processed.
+   */
+  public final AttrBoolean reuseBuffers =
+      attributes.register(
+          "reuseBuffers",
+          AttrBoolean.builder()
+              .label("Reuse pooled preprocessing buffers")
+              .defaultValue(false));
+
+  /**
+   * Tokenize input documents in parallel. When enabled, documents are split into chunks of {@link
+   * #tokenizationChunkSize} consecutive documents, tokenized on the executor set with {@link
+   * #setTokenizationExecutor(Executor)} and merged in document order. The result is identical to
+   * sequential tokenization.
+   */
+  public final AttrBoolean parallelTokenization =
+      attributes.register(
+          "parallelTokenization",
+          AttrBoolean.builder().label("Tokenize documents in parallel").defaultValue(false));
+
+  /** The number of consecutive documents tokenized as one chunk in parallel tokenization. */
+  public final AttrInteger tokenizationChunkSize =
+      attributes.register(
+          "tokenizationChunkSize",
+          AttrInteger.builder()
+              .min(1)
+              .label("Documents per parallel tokenization chunk")
+              .defaultValue(1000));
+
   /** Case normalizer used by the algorithm. */
   protected final CaseNormalizer caseNormalizer = new CaseNormalizer();
 
@@ -53,14 +89,29 @@ public class BasicPreprocessingPipeline extends AttrComposite implements Context
   /** Tokenizer used by the algorithm. */
   protected final InputTokenizer tokenizer = new InputTokenizer();
 
+  /** Executor used for parallel tokenization. */
+  private Executor tokenizationExecutor = ForkJoinPool.commonPool();
+
+  /**
+   * Sets the executor used for tokenization when {@link #parallelTokenization} is enabled. The
+   * default is {@link ForkJoinPool#commonPool()}.
+   */
+  public void setTokenizationExecutor(Executor executor) {
+    this.tokenizationExecutor = Objects.requireNonNull(executor);
+  }
+
   /**
    * Performs preprocessing on the provided list of documents. Results can be obtained from the
    * returned {@link PreprocessingContext}.
    */
   public PreprocessingContext preprocess(
       Stream<? extends Document> documents, String query, LanguageComponents langModel) {
-    try (PreprocessingContext context = new PreprocessingContext(langModel)) {
-      tokenizer.tokenize(context, documents);
+    try (PreprocessingContext context = new PreprocessingContext(langModel, reuseBuffers.get())) {
+      if (parallelTokenization.get()) {
+        tokenizer.tokenize(context, documents, tokenizationExecutor, tokenizationChunkSize.get());
+      } else {
+        tokenizer.tokenize(context, documents);
+      }
       caseNormalizer.normalize(context, wordDfThreshold.get());
       stemming.stem(context, query);
       stopListMarker.mark(context);
@@ -0,0 +1,25 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+/**
+ * Token grouping algorithms available to {@link CaseNormalizer}. Both produce identical results.
+ */
+public enum CaseNormalization {
+  /** Comparison-based merge sort of all token images with a case-normalizing comparator. */
+  SORTING,
+
+  /**
+   * A single pass over all tokens grouping them with case-sensitive and case-insensitive hash
+   * tables; only the distinct words are sorted.
+   */
+  HASHING;
+}
@@ -19,6 +19,7 @@ import org.carrot2.language.Tokenizer;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllTokens;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllWords;
 import org.carrot2.util.CharArrayComparators;
+import org.carrot2.util.MutableCharArray;
 
 /**
  * Performs case normalization and calculates a number of frequency statistics for words. The aim of
@@ -37,10 +38,21 @@ import org.carrot2.util.CharArrayComparators;
  * </ul>
  *
  * <p>This class requires that {@link InputTokenizer} be invoked first.
+ *
+ * @see CaseNormalization
  */
 final class CaseNormalizer {
   /** Performs normalization and saves the results to the <code>context</code>. */
   public void normalize(PreprocessingContext context, int dfThreshold) {
+    normalize(context, dfThreshold, CaseNormalization.SORTING);
+  }
+
+  /**
+   * Performs normalization using the provided token grouping algorithm and saves the results to
+   * the <code>context</code>.
+   */
+  public void normalize(
+      PreprocessingContext context, int dfThreshold, CaseNormalization caseNormalization) {
     // Local references to already existing arrays
     final char[][] tokenImages = context.allTokens.image;
     final short[] tokenTypesArray = context.allTokens.type;
@@ -48,18 +60,35 @@ final class CaseNormalizer {
     final byte[] tokensFieldIndex = context.allTokens.fieldIndex;
     final int tokenCount = tokenImages.length;
 
-    // Sort token images
-    final int[] tokenImagesOrder =
-        IndirectSort.mergesort(
-            tokenImages,
-            0,
-            tokenImages.length,
-            CharArrayComparators.NORMALIZING_CHAR_ARRAY_COMPARATOR);
+    // Order token images so that identical images and their case variants are adjacent. With
+    // hashing, each token's case-sensitive variant and case-insensitive word are known up front.
+    final int[] tokenImagesOrder;
+    final int[] tokenVariants;
+    final int[] tokenWords;
+    switch (caseNormalization) {
+      case SORTING:
+        tokenImagesOrder =
+            IndirectSort.mergesort(
+                tokenImages,
+                0,
+                tokenImages.length,
+                CharArrayComparators.NORMALIZING_CHAR_ARRAY_COMPARATOR);
+        tokenVariants = null;
+        tokenWords = null;
+        break;
+      case HASHING:
+        tokenVariants = new int[tokenCount];
+        tokenWords = new int[tokenCount];
+        tokenImagesOrder = new TokenGrouping(tokenImages).order(tokenVariants, tokenWords);
+        break;
+      default:
+        throw new RuntimeException("Unreachable: " + caseNormalization);
+    }
 
     // Create holders for new arrays
     final List<char[]> normalizedWordImages = new ArrayList<>();
     final IntArrayList normalizedWordTf = new IntArrayList();
-    final List<int[]> wordTfByDocumentList = new ArrayList<>();
+    final TfByDocument.Builder wordTfByDocument = TfByDocument.builder();
     final ByteArrayList fieldIndexList = new ByteArrayList();
     final ShortArrayList types = new ShortArrayList();
 
@@ -109,7 +138,9 @@ final class CaseNormalizer {
 
       // Now check if image case is changing
       final boolean sameCase =
-          CharArrayComparators.FAST_CHAR_ARRAY_COMPARATOR.compare(image, nextImage) == 0;
+          tokenVariants != null
+              ? tokenVariants[tokenImagesOrder[i]] == tokenVariants[tokenImagesOrder[i + 1]]
+              : CharArrayComparators.FAST_CHAR_ARRAY_COMPARATOR.compare(image, nextImage) == 0;
       if (sameCase) {
         // Case has not changed, just increase counters
         tf++;
@@ -127,8 +158,11 @@ final class CaseNormalizer {
       }
 
       final boolean sameImage =
-          CharArrayComparators.CASE_INSENSITIVE_CHAR_ARRAY_COMPARATOR.compare(image, nextImage)
-              == 0;
+          tokenWords != null
+              ? tokenWords[tokenImagesOrder[i]] == tokenWords[tokenImagesOrder[i + 1]]
+              : CharArrayComparators.CASE_INSENSITIVE_CHAR_ARRAY_COMPARATOR.compare(
+                      image, nextImage)
+                  == 0;
 
       // Check if token image has changed
       if (sameImage) {
@@ -147,7 +181,7 @@ final class CaseNormalizer {
           final int[] sparseEncoding = SparseArray.toSparseEncoding(wordDocuments);
           final int df = (sparseEncoding.length >> 1);
           if (df >= dfThreshold) {
-            wordTfByDocumentList.add(sparseEncoding);
+            wordTfByDocument.addRow(sparseEncoding);
 
             // Add the word to the word list
             normalizedWordImages.add(tokenImages[maxTfVariantIndex]);
@@ -181,8 +215,7 @@ final class CaseNormalizer {
 
     context.allWords.image = normalizedWordImages.toArray(new char[normalizedWordImages.size()][]);
     context.allWords.tf = normalizedWordTf.toArray();
-    context.allWords.tfByDocument =
-        wordTfByDocumentList.toArray(new int[wordTfByDocumentList.size()][]);
+    context.allWords.tfByDocument = wordTfByDocument.build();
     context.allWords.fieldIndices = fieldIndexList.toArray();
     context.allWords.type = types.toArray();
   }
@@ -207,4 +240,223 @@ final class CaseNormalizer {
         || tokenType == Tokenizer.TT_FULL_URL
         || (tokenType & Tokenizer.TF_SEPARATOR_SENTENCE) != 0;
   }
+
+  /**
+   * Groups tokens with identical images (variants) and case-insensitively identical images (words)
+   * using open-addressing hash tables. Case folding is applied once per distinct variant and only
+   * distinct words are sorted, so that the resulting order of tokens is identical to that produced
+   * by a stable sort with {@link CharArrayComparators#NORMALIZING_CHAR_ARRAY_COMPARATOR}.
+   */
+  private static final class TokenGrouping {
+    private final char[][] tokenImages;
+
+    /* Variants: distinct (case-sensitive) token images. */
+    private int[] variantSlots;
+    private char[][] variantImage;
+    private int[] variantHash;
+    private int[] variantWord;
+    private int[] variantTokenCount;
+    private int[] variantNextInWord;
+    private int variantCount;
+
+    /* Words: distinct case-insensitive token images. */
+    private int[] wordSlots;
+    private int[] wordHash;
+    private int[] wordFirstVariant;
+    private char[][] wordImage;
+    private int wordCount;
+
+    TokenGrouping(char[][] tokenImages) {
+      this.tokenImages = tokenImages;
+
+      variantSlots = new int[32];
+      variantImage = new char[16][];
+      variantHash = new int[16];
+      variantWord = new int[16];
+      variantTokenCount = new int[16];
+      variantNextInWord = new int[16];
+
+      wordSlots = new int[32];
+      wordHash = new int[16];
+      wordFirstVariant = new int[16];
+      wordImage = new char[16][];
+    }
+
+    /**
+     * Returns the order of tokens and fills in the variant and word index of each token (<code>-1
+     * </code> for <code>null</code> images).
+     */
+    int[] order(int[] tokenVariants, int[] tokenWords) {
+      final int tokenCount = tokenImages.length;
+      int nullTokens = 0;
+      for (int i = 0; i < tokenCount; i++) {
+        final char[] image = tokenImages[i];
+        if (image == null) {
+          tokenVariants[i] = -1;
+          tokenWords[i] = -1;
+          nullTokens++;
+        } else {
+          final int variant = variantOf(image);
+          variantTokenCount[variant]++;
+          tokenVariants[i] = variant;
+          tokenWords[i] = variantWord[variant];
+        }
+      }
+
+      // Order distinct words, then variants within each word, exactly as the comparator would.
+      final int[] wordOrder =
+          IndirectSort.mergesort(
+              wordImage, 0, wordCount, CharArrayComparators.NORMALIZING_CHAR_ARRAY_COMPARATOR);
+
+      final int[] variantOffset = new int[variantCount];
+      final IntArrayList wordVariants = new IntArrayList();
+      int offset = 0;
+      for (int word : wordOrder) {
+        wordVariants.clear();
+        for (int v = wordFirstVariant[word]; v >= 0; v = variantNextInWord[v]) {
+          wordVariants.add(v);
+        }
+
+        final int[] variants = wordVariants.buffer;
+        if (wordVariants.size() > 1) {
+          final char[][] images = new char[wordVariants.size()][];
+          for (int v = 0; v < images.length; v++) {
+            images[v] = variantImage[variants[v]];
+          }
+          final int[] order =
+              IndirectSort.mergesort(
+                  images, 0, images.length, CharArrayComparators.NORMALIZING_CHAR_ARRAY_COMPARATOR);
+          for (int v : order) {
+            variantOffset[variants[v]] = offset;
+            offset += variantTokenCount[variants[v]];
+          }
+        } else {
+          variantOffset[variants[0]] = offset;
+          offset += variantTokenCount[variants[0]];
+        }
+      }
+
+      // Lay out tokens in their original order within each variant; null images go last.
+      final int[] order = new int[tokenCount];
+      int nullOffset = tokenCount - nullTokens;
+      for (int i = 0; i < tokenCount; i++) {
+        final int variant = tokenVariants[i];
+        if (variant < 0) {
+          order[nullOffset++] = i;
+        } else {
+          order[variantOffset[variant]++] = i;
+        }
+      }
+      return order;
+    }
+
+    private int variantOf(char[] image) {
+      final int hash = MutableCharArray.hashCode(image, 0, image.length);
+      final int mask = variantSlots.length - 1;
+      int slot = BitMixer.mix32(hash) & mask;
+      for (int existing; (existing = variantSlots[slot] - 1) >= 0; slot = (slot + 1) & mask) {
+        final char[] existingImage = variantImage[existing];
+        if (existingImage == image
+            || (variantHash[existing] == hash && Arrays.equals(existingImage, image))) {
+          return existing;
+        }
+      }
+
+      final int variant = variantCount++;
+      if (variant == variantImage.length) {
+        final int newSize = variant * 2;
+        variantImage = Arrays.copyOf(variantImage, newSize);
+        variantHash = Arrays.copyOf(variantHash, newSize);
+        variantWord = Arrays.copyOf(variantWord, newSize);
+        variantTokenCount = Arrays.copyOf(variantTokenCount, newSize);
+        variantNextInWord = Arrays.copyOf(variantNextInWord, newSize);
+      }
+
+      final int word = wordOf(image);
+      variantImage[variant] = image;
+      variantHash[variant] = hash;
+      variantWord[variant] = word;
+      variantNextInWord[variant] = wordFirstVariant[word];
+      wordFirstVariant[word] = variant;
+
+      variantSlots[slot] = variant + 1;
+      if (variantCount * 2 > variantSlots.length) {
+        variantSlots = rehash(variantHash, variantCount, variantSlots.length * 2);
+      }
+      return variant;
+    }
+
+    private int wordOf(char[] image) {
+      final int hash = caseInsensitiveHash(image);
+      final int mask = wordSlots.length - 1;
+      int slot = BitMixer.mix32(hash) & mask;
+      for (int existing; (existing = wordSlots[slot] - 1) >= 0; slot = (slot + 1) & mask) {
+        if (wordHash[existing] == hash && caseInsensitiveEquals(wordImage[existing], image)) {
+          return existing;
+        }
+      }
+
+      final int word = wordCount++;
+      if (word == wordImage.length) {
+        final int newSize = word * 2;
+        wordImage = Arrays.copyOf(wordImage, newSize);
+        wordHash = Arrays.copyOf(wordHash, newSize);
+        wordFirstVariant = Arrays.copyOf(wordFirstVariant, newSize);
+      }
+      wordImage[word] = image;
+      wordHash[word] = hash;
+      wordFirstVariant[word] = -1;
+
+      wordSlots[slot] = word + 1;
+      if (wordCount * 2 > wordSlots.length) {
+        wordSlots = rehash(wordHash, wordCount, wordSlots.length * 2);
+      }
+      return word;
+    }
+
+    private static int[] rehash(int[] hashes, int count, int newSlotCount) {
+      final int[] slots = new int[newSlotCount];
+      final int mask = newSlotCount - 1;
+      for (int i = 0; i < count; i++) {
+        int slot = BitMixer.mix32(hashes[i]) & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = i + 1;
+      }
+      return slots;
+    }
+
+    /** A hash consistent with {@link #caseInsensitiveEquals(char[], char[])}. */
+    private static int caseInsensitiveHash(char[] image) {
+      int h = image.length;
+      for (int i = 0; i < image.length; ) {
+        final int chr = Character.codePointAt(image, i);
+        h = 31 * h + Character.toLowerCase(chr);
+        i += Character.charCount(chr);
+      }
+      return h;
+    }
+
+    /**
+     * Case-insensitive equality, identical to {@link
+     * CharArrayComparators#NORMALIZING_CHAR_ARRAY_COMPARATOR} returning zero in its
+     * case-insensitive pass.
+     */
+    private static boolean caseInsensitiveEquals(char[] a1, char[] a2) {
+      if (a1.length != a2.length) {
+        return false;
+      }
+
+      for (int i = 0; i < a1.length; ) {
+        final int chr1 = Character.codePointAt(a1, i);
+        final int chr2 = Character.codePointAt(a2, i);
+        if (Character.toLowerCase(chr1) != Character.toLowerCase(chr2)) {
+          return false;
+        }
+        i += Character.charCount(chr1);
+      }
+      return true;
+    }
+  }
 }
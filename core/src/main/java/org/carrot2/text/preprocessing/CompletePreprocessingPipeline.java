@@ -10,8 +10,13 @@
  */
 package org.carrot2.text.preprocessing;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
+import org.carrot2.attrs.AttrBoolean;
 import org.carrot2.attrs.AttrComposite;
+import org.carrot2.attrs.AttrEnum;
 import org.carrot2.attrs.AttrInteger;
 import org.carrot2.attrs.AttrObject;
 import org.carrot2.clustering.Document;
@@ -58,6 +63,60 @@ public class CompletePreprocessingPipeline extends AttrComposite implements Cont
               .label("Phrase document frequency threshold")
               .defaultValue(1));
 
+  /**
+   * Token grouping algorithm used for case normalization. Both algorithms produce identical words,
+   * <code>HASHING</code> avoids sorting all token images.
+   */
+  public final AttrEnum<CaseNormalization> caseNormalization =
+      attributes.register(
+          "caseNormalization",
+          AttrEnum.builder(CaseNormalization.class)
+              .label("Case normalization algorithm")
+              .defaultValue(CaseNormalization.HASHING));
+
+  /**
+   * Suffix sorting algorithm used for frequent phrase discovery. Both algorithms produce identical
+   * phrases, <code>SA_IS</code> runs in time linear with the number of input tokens.
+   */
+  public final AttrEnum<PhraseExtractor.SuffixSorting> suffixSorting =
+      attributes.register(
+          "suffixSorting",
+          AttrEnum.builder(PhraseExtractor.SuffixSorting.class)
+              .label("Suffix sorting algorithm")
+              .defaultValue(PhraseExtractor.SuffixSorting.SA_IS));
+
+  /**
+   * Reuse pooled preprocessing buffers. When enabled, temporary token buffers and the token image
+   * intern table are taken from a pool of {@link PreprocessingArena}s shared by all threads and
+   * recycled across invocations, which reduces allocations when many requests are processed.
+   */
+  public final AttrBoolean reuseBuffers =
+      attributes.register(
+          "reuseBuffers",
+          AttrBoolean.builder()
+              .label("Reuse pooled preprocessing buffers")
+              .defaultValue(false));
+
+  /**
+   * Tokenize input documents in parallel. When enabled, documents are split into chunks of {@link
+   * #tokenizationChunkSize} consecutive documents, tokenized on the executor set with {@link
+   * #setTokenizationExecutor(Executor)} and merged in document order. The result is identical to
+   * sequential tokenization.
+   */
+  public final AttrBoolean parallelTokenization =
+      attributes.register(
+          "parallelTokenization",
+          AttrBoolean.builder().label("Tokenize documents in parallel").defaultValue(false));
+
+  /** The number of consecutive documents tokenized as one chunk in parallel tokenization. */
+  public final AttrInteger tokenizationChunkSize =
+      attributes.register(
+          "tokenizationChunkSize",
+          AttrInteger.builder()
+              .min(1)
+              .label("Documents per parallel tokenization chunk")
+              .defaultValue(1000));
+
   /** Label filtering is a composite of individual filters. */
   public LabelFilterProcessor labelFilters = new LabelFilterProcessor();
 
@@ -94,14 +153,29 @@ public class CompletePreprocessingPipeline extends AttrComposite implements Cont
   /** Tokenizer used by the algorithm. */
   protected final InputTokenizer tokenizer = new InputTokenizer();
 
+  /** Executor used for parallel tokenization. */
+  private Executor tokenizationExecutor = ForkJoinPool.commonPool();
+
+  /**
+   * Sets the executor used for tokenization when {@link #parallelTokenization} is enabled. The
+   * default is {@link ForkJoinPool#commonPool()}.
+   */
+  public void setTokenizationExecutor(Executor executor) {
+    this.tokenizationExecutor = Objects.requireNonNull(executor);
+  }
+
   public PreprocessingContext preprocess(
       Stream<? extends Document> documents, String query, LanguageComponents langModel) {
-    try (PreprocessingContext context = new PreprocessingContext(langModel)) {
-      tokenizer.tokenize(context, documents);
-      caseNormalizer.normalize(context, wordDfThreshold.get());
+    try (PreprocessingContext context = new PreprocessingContext(langModel, reuseBuffers.get())) {
+      if (parallelTokenization.get()) {
+        tokenizer.tokenize(context, documents, tokenizationExecutor, tokenizationChunkSize.get());
+      } else {
+        tokenizer.tokenize(context, documents);
+      }
+      caseNormalizer.normalize(context, wordDfThreshold.get(), caseNormalization.get());
       stemming.stem(context, query);
       stopListMarker.mark(context);
-      new PhraseExtractor(phraseDfThreshold.get()).extractPhrases(context);
+      new PhraseExtractor(phraseDfThreshold.get(), suffixSorting.get()).extractPhrases(context);
       labelFilters.process(context);
       documentAssigner.assign(context);
       return context;
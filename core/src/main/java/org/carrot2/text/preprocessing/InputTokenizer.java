@@ -18,8 +18,14 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 import org.carrot2.clustering.Document;
+import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.Tokenizer;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllFields;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllTokens;
@@ -38,6 +44,9 @@ import org.carrot2.util.StringUtils;
  *   <li>{@link AllTokens#fieldIndex}
  *   <li>{@link AllTokens#type}
  * </ul>
+ *
+ * <p>Documents can be tokenized sequentially or in parallel, in chunks of consecutive documents,
+ * on an {@link Executor}. Both modes produce identical results.
  */
 final class InputTokenizer {
   /** Token images. */
@@ -66,14 +75,168 @@ final class InputTokenizer {
     }
   }
 
+  /**
+   * A chunk of consecutive documents tokenized independently, with its own {@link Tokenizer} and
+   * token image intern table.
+   */
+  private static final class TokenizedChunk {
+    /** Index of the first document of this chunk in the input stream. */
+    final int firstDocument;
+
+    /** Tokenization results, with document indexes relative to {@link #firstDocument}. */
+    final PreprocessingContext context;
+
+    /** Indexes of token images in {@link #uniqueImages}, <code>-1</code> for separators. */
+    final int[] imageIndices;
+
+    /** Unique token images of this chunk, in the order of first appearance. */
+    final char[][] uniqueImages;
+
+    TokenizedChunk(
+        int firstDocument,
+        ArrayList<Document> documents,
+        LanguageComponents languageComponents,
+        Tokenizer tokenizer) {
+      this.firstDocument = firstDocument;
+      this.context = new PreprocessingContext(languageComponents);
+      try {
+        new InputTokenizer().tokenize(context, documents.stream(), tokenizer);
+      } finally {
+        context.close();
+      }
+
+      final char[][] images = context.allTokens.image;
+      final IdentityHashMap<char[], Integer> indices = new IdentityHashMap<>();
+      final ArrayList<char[]> unique = new ArrayList<>();
+      this.imageIndices = new int[images.length];
+      for (int i = 0; i < images.length; i++) {
+        final char[] image = images[i];
+        if (image == null) {
+          imageIndices[i] = -1;
+        } else {
+          Integer index = indices.get(image);
+          if (index == null) {
+            index = unique.size();
+            indices.put(image, index);
+            unique.add(image);
+          }
+          imageIndices[i] = index;
+        }
+      }
+      this.uniqueImages = unique.toArray(new char[unique.size()][]);
+    }
+  }
+
   /** Performs tokenization and saves the results to the <code>context</code>. */
   public void tokenize(PreprocessingContext context, Stream<? extends Document> docStream) {
-    images = new ArrayList<>();
-    tokenTypes = new ShortArrayList();
-    documentIndices = new IntArrayList();
-    fieldIndices = new ByteArrayList();
+    tokenize(context, docStream, context.languageComponents.get(Tokenizer.class));
+  }
+
+  /**
+   * Performs tokenization in chunks of <code>documentsPerChunk</code> consecutive documents
+   * submitted to the <code>executor</code> and saves the results to the <code>context</code>. Each
+   * chunk is processed with a separate {@link Tokenizer} and a local intern table, chunks are then
+   * merged in document order. The result is identical to that of {@link
+   * #tokenize(PreprocessingContext, Stream)}.
+   */
+  public void tokenize(
+      PreprocessingContext context,
+      Stream<? extends Document> docStream,
+      Executor executor,
+      int documentsPerChunk) {
+    if (documentsPerChunk <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + documentsPerChunk);
+    }
+
+    final ArrayList<CompletableFuture<TokenizedChunk>> chunks = new ArrayList<>();
+    final Iterator<? extends Document> i = docStream.iterator();
+    int documentCount = 0;
+    while (i.hasNext()) {
+      final ArrayList<Document> documents = new ArrayList<>(documentsPerChunk);
+      while (documents.size() < documentsPerChunk && i.hasNext()) {
+        documents.add(i.next());
+      }
+
+      if (documentCount == 0 && !i.hasNext()) {
+        // A single chunk, no point in delegating to the executor.
+        tokenize(context, documents.stream());
+        return;
+      }
+
+      final int firstDocument = documentCount;
+      final LanguageComponents languageComponents = context.languageComponents;
+      final Tokenizer tokenizer = languageComponents.get(Tokenizer.class);
+      chunks.add(
+          CompletableFuture.supplyAsync(
+              () -> new TokenizedChunk(firstDocument, documents, languageComponents, tokenizer),
+              executor));
+      documentCount += documents.size();
+    }
+
+    if (chunks.isEmpty()) {
+      tokenize(context, Stream.empty());
+      return;
+    }
+
+    initBuffers(context);
+    final MutableCharArray wrapper = new MutableCharArray(CharArrayUtils.EMPTY_ARRAY);
+    final HashMap<String, Integer> fieldIndexes = new HashMap<>();
+    for (CompletableFuture<TokenizedChunk> future : chunks) {
+      final TokenizedChunk chunk;
+      try {
+        chunk = future.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+
+      final String[] chunkFields = chunk.context.allFields.name;
+      final byte[] fieldMapping = new byte[chunkFields.length];
+      for (int f = 0; f < chunkFields.length; f++) {
+        final int fieldIndex =
+            fieldIndexes.computeIfAbsent(chunkFields[f], (k) -> fieldIndexes.size());
+        if (fieldIndex > Byte.MAX_VALUE) {
+          throw new RuntimeException("Too many fields (>" + fieldIndex + ")");
+        }
+        fieldMapping[f] = (byte) fieldIndex;
+      }
+
+      final char[][] chunkImages = chunk.uniqueImages;
+      final char[][] imageMapping = new char[chunkImages.length][];
+      for (int u = 0; u < chunkImages.length; u++) {
+        wrapper.reset(chunkImages[u]);
+        imageMapping[u] = context.intern(wrapper);
+      }
+
+      if (chunk.firstDocument > 0) {
+        addDocumentSeparator();
+      }
+
+      final AllTokens tokens = chunk.context.allTokens;
+      final int[] imageIndices = chunk.imageIndices;
+      // Omit the chunk's terminator.
+      for (int t = 0, max = tokens.image.length - 1; t < max; t++) {
+        final int documentIndex = tokens.documentIndex[t];
+        final byte fieldIndex = tokens.fieldIndex[t];
+        final int imageIndex = imageIndices[t];
+        add(
+            documentIndex >= 0 ? documentIndex + chunk.firstDocument : documentIndex,
+            fieldIndex >= 0 ? fieldMapping[fieldIndex] : fieldIndex,
+            imageIndex >= 0 ? imageMapping[imageIndex] : null,
+            tokens.type[t]);
+      }
+    }
+
+    addTerminator();
+    saveResults(context, documentCount, fieldIndexes);
+  }
+
+  private void tokenize(
+      PreprocessingContext context, Stream<? extends Document> docStream, Tokenizer ts) {
+    initBuffers(context);
 
-    final Tokenizer ts = context.languageComponents.get(Tokenizer.class);
     final MutableCharArray wrapper = new MutableCharArray(CharArrayUtils.EMPTY_ARRAY);
 
     HashMap<String, Integer> fieldIndexes = new HashMap<>();
@@ -127,19 +290,39 @@ final class InputTokenizer {
         });
 
     addTerminator();
+    saveResults(context, docCount.value, fieldIndexes);
+  }
+
+  private void initBuffers(PreprocessingContext context) {
+    final PreprocessingArena arena = context.arena;
+    if (arena != null) {
+      arena.clearTokenBuffers();
+      images = arena.images;
+      tokenTypes = arena.tokenTypes;
+      documentIndices = arena.documentIndices;
+      fieldIndices = arena.fieldIndices;
+    } else {
+      images = new ArrayList<>();
+      tokenTypes = new ShortArrayList();
+      documentIndices = new IntArrayList();
+      fieldIndices = new ByteArrayList();
+    }
+  }
 
+  private void saveResults(
+      PreprocessingContext context, int documentCount, HashMap<String, Integer> fieldIndexes) {
     String[] fieldNames = new String[fieldIndexes.size()];
     fieldIndexes.forEach((field, index) -> fieldNames[index] = field);
 
     // Save results in the PreprocessingContext
-    context.documentCount = docCount.value;
+    context.documentCount = documentCount;
     context.allTokens.documentIndex = documentIndices.toArray();
     context.allTokens.fieldIndex = fieldIndices.toArray();
     context.allTokens.image = images.toArray(new char[images.size()][]);
     context.allTokens.type = tokenTypes.toArray();
     context.allFields.name = fieldNames;
 
-    // Clean up
+    // Clean up (arena buffers are cleared when the arena is released)
     images = null;
     fieldIndices = null;
     tokenTypes = null;
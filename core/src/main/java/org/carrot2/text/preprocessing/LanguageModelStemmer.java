@@ -12,6 +12,7 @@ package org.carrot2.text.preprocessing;
 
 import com.carrotsearch.hppc.ByteArrayList;
 import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntHashMap;
 import com.carrotsearch.hppc.sorting.IndirectSort;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -86,7 +87,7 @@ final class LanguageModelStemmer {
 
     // Local array references
     final int[] wordTfArray = context.allWords.tf;
-    final int[][] wordTfByDocumentArray = context.allWords.tfByDocument;
+    final TfByDocument wordTfByDocument = context.allWords.tfByDocument;
     final byte[] wordsFieldIndices = context.allWords.fieldIndices;
     final short[] wordsType = context.allWords.type;
 
@@ -99,7 +100,7 @@ final class LanguageModelStemmer {
       context.allStems.image = new char[0][];
       context.allStems.mostFrequentOriginalWordIndex = new int[0];
       context.allStems.tf = new int[0];
-      context.allStems.tfByDocument = new int[0][];
+      context.allStems.tfByDocument = TfByDocument.EMPTY;
       context.allStems.fieldIndices = new byte[0];
 
       context.allWords.stemIndex = new int[context.allWords.image.length];
@@ -110,7 +111,7 @@ final class LanguageModelStemmer {
     final ArrayList<char[]> stemImages = new ArrayList<>(allWordsCount);
     final IntArrayList stemTf = new IntArrayList(allWordsCount);
     final IntArrayList stemMostFrequentWordIndexes = new IntArrayList(allWordsCount);
-    final ArrayList<int[]> stemTfByDocumentList = new ArrayList<>(allWordsCount);
+    final TfByDocument.Builder stemTfByDocument = TfByDocument.builder(allWordsCount);
     final ByteArrayList fieldIndexList = new ByteArrayList();
 
     // Counters
@@ -119,10 +120,11 @@ final class LanguageModelStemmer {
     int mostFrequentWordIndex = stemImagesOrder[0];
     int stemIndex = 0;
 
-    // A list of document-term-frequency pairs, by document, for all words with identical stems.
-    final ArrayList<int[]> stemTfsByDocument = new ArrayList<>();
+    // Indices of all words with identical stems, their tfByDocument rows are merged.
+    final IntArrayList stemWords = new IntArrayList();
+    final IntIntHashMap mergeBuffer = new IntIntHashMap();
 
-    stemTfsByDocument.add(wordTfByDocumentArray[stemImagesOrder[0]]);
+    stemWords.add(stemImagesOrder[0]);
     byte fieldIndices = 0;
     fieldIndices |= wordsFieldIndices[0];
 
@@ -148,7 +150,7 @@ final class LanguageModelStemmer {
 
       if (sameStem) {
         totalTf += wordTfArray[nextInOrderIndex];
-        stemTfsByDocument.add(wordTfByDocumentArray[nextInOrderIndex]);
+        stemWords.add(nextInOrderIndex);
         fieldIndices |= wordsFieldIndices[nextInOrderIndex];
         if (mostFrequentWordFrequency < wordTfArray[nextInOrderIndex]) {
           mostFrequentWordFrequency = wordTfArray[nextInOrderIndex];
@@ -158,7 +160,7 @@ final class LanguageModelStemmer {
         stemImages.add(stem);
         stemTf.add(totalTf);
         stemMostFrequentWordIndexes.add(mostFrequentWordIndex);
-        storeTfByDocument(stemTfByDocumentList, stemTfsByDocument);
+        storeTfByDocument(stemTfByDocument, wordTfByDocument, stemWords, mergeBuffer);
         fieldIndexList.add(fieldIndices);
 
         stemIndex++;
@@ -168,8 +170,8 @@ final class LanguageModelStemmer {
         fieldIndices = 0;
         fieldIndices |= wordsFieldIndices[nextInOrderIndex];
 
-        stemTfsByDocument.clear();
-        stemTfsByDocument.add(wordTfByDocumentArray[nextInOrderIndex]);
+        stemWords.clear();
+        stemWords.add(nextInOrderIndex);
 
         buffer.reset(wordStemImages[nextInOrderIndex]);
         inQuery = queryStems.contains(buffer);
@@ -181,7 +183,7 @@ final class LanguageModelStemmer {
     stemTf.add(totalTf);
     stemMostFrequentWordIndexes.add(mostFrequentWordIndex);
     stemIndexesArray[stemImagesOrder[stemImagesOrder.length - 1]] = stemIndex;
-    storeTfByDocument(stemTfByDocumentList, stemTfsByDocument);
+    storeTfByDocument(stemTfByDocument, wordTfByDocument, stemWords, mergeBuffer);
     fieldIndexList.add(fieldIndices);
     if (inQuery) {
       wordsType[stemImagesOrder[stemImagesOrder.length - 1]] |= Tokenizer.TF_QUERY_WORD;
@@ -191,24 +193,35 @@ final class LanguageModelStemmer {
     context.allStems.image = stemImages.toArray(new char[stemImages.size()][]);
     context.allStems.mostFrequentOriginalWordIndex = stemMostFrequentWordIndexes.toArray();
     context.allStems.tf = stemTf.toArray();
-    context.allStems.tfByDocument =
-        stemTfByDocumentList.toArray(new int[stemTfByDocumentList.size()][]);
+    context.allStems.tfByDocument = stemTfByDocument.build();
     context.allStems.fieldIndices = fieldIndexList.toArray();
 
     // References in allWords
     context.allWords.stemIndex = stemIndexesArray;
   }
 
-  /** */
-  private void storeTfByDocument(ArrayList<int[]> target, ArrayList<int[]> source) {
-    assert source.size() > 0 : "Empty source document list?";
-
-    if (source.size() == 1) {
-      // Just copy the reference over if a single list is available.
-      target.add(source.get(0));
+  /** Appends a row with the merged tfByDocument of all the provided words. */
+  private void storeTfByDocument(
+      TfByDocument.Builder target,
+      TfByDocument wordTfByDocument,
+      IntArrayList words,
+      IntIntHashMap mergeBuffer) {
+    assert words.size() > 0 : "Empty source document list?";
+
+    if (words.size() == 1) {
+      // Just copy the row over if a single word is available.
+      target.addRow(wordTfByDocument, words.get(0));
     } else {
-      // Merge sparse representations if more than one.
-      target.add(SparseArray.mergeSparseArrays(source));
+      // Merge rows if more than one.
+      mergeBuffer.clear();
+      for (int i = 0; i < words.size(); i++) {
+        final int word = words.get(i);
+        for (int j = wordTfByDocument.start(word), max = wordTfByDocument.end(word); j < max; j++) {
+          final int tf = wordTfByDocument.tf(j);
+          mergeBuffer.putOrAdd(wordTfByDocument.document(j), tf, tf);
+        }
+      }
+      target.addRow(mergeBuffer);
     }
   }
 
@@ -18,7 +18,6 @@ import java.util.Collections;
 import java.util.List;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllPhrases;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllTokens;
-import org.carrot2.util.IntMapUtils;
 
 /**
  * Extracts frequent phrases from the provided document. A frequent phrase is a sequence of words
@@ -47,16 +46,30 @@ public class PhraseExtractor {
   /** Internal maximum phrase length, we may want to make it an attribute at some point */
   static final int MAX_PHRASE_LENGTH = 8;
 
+  /** Suffix sorting algorithms available to the phrase extractor. */
+  public enum SuffixSorting {
+    /** Comparison-based merge sort of suffixes, O(n log n) comparisons of up to O(n) each. */
+    MERGESORT,
+
+    /** Linear-time SA-IS suffix array construction with Kasai's LCP computation. */
+    SA_IS;
+  }
+
   /**
    * Suffix sorter to be used by this phrase extractor. When the suffix sorter gets some attributes,
    * we'll need to make this field public.
    */
-  private SuffixSorter suffixSorter = new SuffixSorter();
+  private final SuffixSorter suffixSorter;
 
   private final int dfThreshold;
 
   PhraseExtractor(int dfThreshold) {
+    this(dfThreshold, SuffixSorting.SA_IS);
+  }
+
+  PhraseExtractor(int dfThreshold, SuffixSorting suffixSorting) {
     this.dfThreshold = dfThreshold;
+    this.suffixSorter = new SuffixSorter(suffixSorting);
   }
 
   /** Performs phrase extraction and saves the results to the provided <code>context</code>. */
@@ -75,7 +88,7 @@ public class PhraseExtractor {
 
     List<int[]> phraseWordIndexes = new ArrayList<>();
     IntArrayList phraseTf = new IntArrayList();
-    List<int[]> phraseTfByDocumentList = new ArrayList<>();
+    TfByDocument.Builder phrasesTfByDocument = TfByDocument.builder();
 
     if (rcs.size() > 0) {
       // Determine most frequent originals and create the final phrase
@@ -107,7 +120,7 @@ public class PhraseExtractor {
           }
           phraseWordIndexes.add(wordIndexes);
           phraseTf.add(totalPhraseTf);
-          phraseTfByDocumentList.add(IntMapUtils.flatten(phraseTfByDocument));
+          phrasesTfByDocument.addRow(phraseTfByDocument);
 
           totalPhraseTf = nextSubstring.frequency;
           mostFrequentOriginal = nextSubstring;
@@ -124,14 +137,13 @@ public class PhraseExtractor {
       }
       phraseWordIndexes.add(wordIndexes);
       phraseTf.add(totalPhraseTf);
-      phraseTfByDocumentList.add(IntMapUtils.flatten(phraseTfByDocument));
+      phrasesTfByDocument.addRow(phraseTfByDocument);
     }
 
     // Store the results to allPhrases
     context.allPhrases.wordIndices = phraseWordIndexes.toArray(new int[phraseWordIndexes.size()][]);
     context.allPhrases.tf = phraseTf.toArray();
-    context.allPhrases.tfByDocument =
-        phraseTfByDocumentList.toArray(new int[phraseTfByDocumentList.size()][]);
+    context.allPhrases.tfByDocument = phrasesTfByDocument.build();
   }
 
   /** Discovers Right Complete Substrings in the given LCP Suffix Array. */
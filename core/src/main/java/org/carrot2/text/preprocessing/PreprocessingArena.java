@@ -0,0 +1,186 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import com.carrotsearch.hppc.BitMixer;
+import com.carrotsearch.hppc.ByteArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.ShortArrayList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.carrot2.util.MutableCharArray;
+
+/**
+ * Reusable storage for temporary preprocessing data structures. An arena is acquired by a {@link
+ * PreprocessingContext} for the duration of preprocessing (until the context is closed) and then
+ * returned to a small pool shared by all threads, from which subsequent preprocessing calls take
+ * it. The pool retains at most as many idle arenas as there are processors, so the memory held
+ * between calls doesn't grow with the number of threads that run preprocessing.
+ *
+ * <p>The arena holds:
+ *
+ * <ul>
+ *   <li>token buffers used by {@link InputTokenizer}; these are cleared, not reallocated, between
+ *       calls so growing them does not produce garbage for each request,
+ *   <li>the token image intern table. Each unique token image is stored once, as the <code>
+ *       char[]</code> handed out to tokens, and found through an open-addressing hash of entry
+ *       indices. Interned images are retained across calls (they are immutable), so tokens that
+ *       reappear in subsequent requests are not allocated again. When the table is cleared, its
+ *       index arrays are reused.
+ * </ul>
+ *
+ * <p>Data structures saved in a {@link PreprocessingContext} are never owned by the arena, so
+ * contexts remain valid after the arena is reused.
+ */
+public final class PreprocessingArena {
+  /** Token buffers larger than this are released instead of being retained for reuse. */
+  private static final int MAX_RETAINED_TOKENS = 1 << 20;
+
+  /** The intern table is cleared at acquisition time if it holds more than this many characters. */
+  private static final int MAX_RETAINED_INTERNED_CHARS = 1 << 20;
+
+  /** The maximum number of idle arenas retained in the pool. */
+  static final int MAX_IDLE_ARENAS = Runtime.getRuntime().availableProcessors();
+
+  /** Idle arenas, most recently released last. */
+  private static final ArrayDeque<PreprocessingArena> IDLE = new ArrayDeque<>();
+
+  /* Token buffers for InputTokenizer. */
+  ArrayList<char[]> images = new ArrayList<>();
+  ShortArrayList tokenTypes = new ShortArrayList();
+  IntArrayList documentIndices = new IntArrayList();
+  ByteArrayList fieldIndices = new ByteArrayList();
+
+  /* Intern table: interned[i] is the image of entry i, hashes[i] its mixed hash. */
+  private char[][] interned = new char[256][];
+  private int[] hashes = new int[256];
+  private int internedCount;
+  private int internedChars;
+
+  /** Open-addressing hash of (entry index + 1), zero marks an empty slot. */
+  private int[] slots = new int[512];
+
+  private int mask = slots.length - 1;
+
+  /** Takes an idle arena from the pool or creates a new one if the pool is empty. */
+  static PreprocessingArena acquire() {
+    PreprocessingArena arena;
+    synchronized (IDLE) {
+      arena = IDLE.pollLast();
+    }
+
+    if (arena == null) {
+      arena = new PreprocessingArena();
+    } else if (arena.internedChars > MAX_RETAINED_INTERNED_CHARS) {
+      arena.clearInternTable();
+    }
+    return arena;
+  }
+
+  /** Returns the arena to the pool, releasing oversized buffers. */
+  void release() {
+    if (images.size() > MAX_RETAINED_TOKENS) {
+      images = new ArrayList<>();
+      tokenTypes = new ShortArrayList();
+      documentIndices = new IntArrayList();
+      fieldIndices = new ByteArrayList();
+    } else {
+      clearTokenBuffers();
+    }
+
+    synchronized (IDLE) {
+      if (IDLE.size() < MAX_IDLE_ARENAS) {
+        IDLE.addLast(this);
+      }
+    }
+  }
+
+  /** Returns the number of idle arenas currently held in the pool. */
+  static int idleArenas() {
+    synchronized (IDLE) {
+      return IDLE.size();
+    }
+  }
+
+  void clearTokenBuffers() {
+    images.clear();
+    tokenTypes.clear();
+    documentIndices.clear();
+    fieldIndices.clear();
+  }
+
+  /** Returns the number of unique token images currently held in the intern table. */
+  public int internedImages() {
+    return internedCount;
+  }
+
+  /** Returns the number of characters currently held in the intern table. */
+  public int internedChars() {
+    return internedChars;
+  }
+
+  /** @see PreprocessingContext#intern(MutableCharArray) */
+  char[] intern(MutableCharArray chs) {
+    final char[] buffer = chs.getBuffer();
+    final int start = chs.getStart();
+    final int length = chs.length();
+    final int hash = BitMixer.mix32(chs.hashCode());
+
+    int slot = hash & mask;
+    for (int existing; (existing = slots[slot] - 1) >= 0; slot = (slot + 1) & mask) {
+      final char[] image = interned[existing];
+      if (hashes[existing] == hash
+          && image.length == length
+          && Arrays.equals(image, 0, length, buffer, start, start + length)) {
+        return image;
+      }
+    }
+
+    final int index = internedCount++;
+    if (index == interned.length) {
+      final int newSize = interned.length * 2;
+      hashes = Arrays.copyOf(hashes, newSize);
+      interned = Arrays.copyOf(interned, newSize);
+    }
+
+    final char[] tokenImage = Arrays.copyOfRange(buffer, start, start + length);
+    hashes[index] = hash;
+    interned[index] = tokenImage;
+    internedChars += length;
+
+    slots[slot] = index + 1;
+    if (internedCount * 2 > slots.length) {
+      rehash(slots.length * 2);
+    }
+
+    return tokenImage;
+  }
+
+  private void rehash(int newSlotCount) {
+    slots = new int[newSlotCount];
+    mask = newSlotCount - 1;
+    for (int i = 0; i < internedCount; i++) {
+      int slot = hashes[i] & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = i + 1;
+    }
+  }
+
+  private void clearInternTable() {
+    Arrays.fill(interned, 0, internedCount, null);
+    Arrays.fill(slots, 0);
+    internedCount = 0;
+    internedChars = 0;
+  }
+}
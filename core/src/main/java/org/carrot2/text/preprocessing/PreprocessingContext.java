@@ -41,14 +41,35 @@ public final class PreprocessingContext implements Closeable {
    * Token interning cache. Token images are interned to save memory and allow reference
    * comparisons.
    */
-  private ObjectHashSet<MutableCharArray> tokenCache = new ObjectHashSet<>();
+  private ObjectHashSet<MutableCharArray> tokenCache;
+
+  /**
+   * Reusable temporary storage, if this context was created with one. The arena is held until the
+   * context is closed.
+   */
+  PreprocessingArena arena;
 
   /**
    * Creates a preprocessing context for the provided <code>documents</code> and with the provided
    * <code>languageModel</code>.
    */
   public PreprocessingContext(LanguageComponents languageComponents) {
+    this(languageComponents, false);
+  }
+
+  /**
+   * Creates a preprocessing context for the provided <code>documents</code> and with the provided
+   * <code>languageModel</code>. If <code>reuseArena</code> is <code>true</code>, temporary data
+   * structures are taken from (and returned to, on {@link #close()}) a pooled {@link
+   * PreprocessingArena}.
+   */
+  public PreprocessingContext(LanguageComponents languageComponents, boolean reuseArena) {
     this.languageComponents = languageComponents;
+    if (reuseArena) {
+      this.arena = PreprocessingArena.acquire();
+    } else {
+      this.tokenCache = new ObjectHashSet<>();
+    }
   }
 
   /**
@@ -284,17 +305,16 @@ public final class PreprocessingContext implements Closeable {
     public int[] tf;
 
     /**
-     * Term Frequency of the word for each document. The length of this array is equal to the number
-     * of documents this word appeared in (Document Frequency) multiplied by 2. Elements at even
-     * indices contain document indices pointing to documents, elements at odd indices contain the
-     * frequency of the word in the document. For example, an array with 4 values: <code>
-     * [2, 15, 138, 7]</code> means that the word appeared 15 times in document at index 2 and 7
-     * times in document at index 138.
+     * Term Frequency of the word for each document. Row <code>i</code> of this table contains
+     * (document index, frequency) entries for word <code>i</code>; the number of entries in a row
+     * is equal to the number of documents the word appeared in (Document Frequency). For example, a
+     * row with entries <code>2 =&gt; 15</code> and <code>138 =&gt; 7</code> means that the word
+     * appeared 15 times in document at index 2 and 7 times in document at index 138.
      *
-     * <p>This array is produced by {@link CaseNormalizer}. The order of documents in this array is
+     * <p>This table is produced by {@link CaseNormalizer}. The order of documents in each row is
      * not defined.
      */
-    public int[][] tfByDocument;
+    public TfByDocument tfByDocument;
 
     /**
      * A pointer to the {@link AllStems} arrays for this word.
@@ -344,7 +364,7 @@ public final class PreprocessingContext implements Closeable {
             image[i] == null ? "<null>" : new String(image[i]),
             type[i],
             tf[i],
-            SparseArray.sparseToString(tfByDocument[i]));
+            tfByDocument.toString(i));
 
         t.append(Arrays.toString(toFieldIndexes(fieldIndices[i])).replace(" ", ""));
 
@@ -397,13 +417,13 @@ public final class PreprocessingContext implements Closeable {
     public int[] tf;
 
     /**
-     * Term frequency of the stem for each document. For the encoding of this array, see {@link
+     * Term frequency of the stem for each document. For the layout of this table, see {@link
      * AllWords#tfByDocument}.
      *
-     * <p>This array is produced by {@link LanguageModelStemmer}. The order of documents in this
-     * array is not defined.
+     * <p>This table is produced by {@link LanguageModelStemmer}. The order of documents in each row
+     * is not defined.
      */
-    public int[][] tfByDocument;
+    public TfByDocument tfByDocument;
 
     /**
      * A bit-packed index of all fields in which this word appears at least once. Indexes
@@ -442,7 +462,7 @@ public final class PreprocessingContext implements Closeable {
             mostFrequentOriginalWordIndex[i],
             new String(allWords.image[mostFrequentOriginalWordIndex[i]]),
             tf[i],
-            SparseArray.sparseToString(tfByDocument[i]),
+            tfByDocument.toString(i),
             Arrays.toString(toFieldIndexes(fieldIndices[i])).replace(" ", ""));
         t.nextRow();
       }
@@ -479,13 +499,13 @@ public final class PreprocessingContext implements Closeable {
     public int[] tf;
 
     /**
-     * Term frequency of the phrase for each document. The encoding of this array is similar to
-     * {@link AllWords#tfByDocument}: consecutive pairs of: document index, frequency.
+     * Term frequency of the phrase for each document. The layout of this table is the same as in
+     * {@link AllWords#tfByDocument}: one row of (document index, frequency) entries per phrase.
      *
-     * <p>This array is produced by {@link PhraseExtractor}. The order of documents in this array is
+     * <p>This table is produced by {@link PhraseExtractor}. The order of documents in each row is
      * not defined.
      */
-    public int[][] tfByDocument;
+    public TfByDocument tfByDocument;
 
     /** For debugging purposes. */
     @Override
@@ -511,7 +531,7 @@ public final class PreprocessingContext implements Closeable {
             Arrays.toString(wordIndices[i]).replace(" ", ""),
             getPhrase(i),
             tf[i],
-            SparseArray.sparseToString(tfByDocument[i]));
+            tfByDocument.toString(i));
         t.nextRow();
       }
 
@@ -699,10 +719,18 @@ public final class PreprocessingContext implements Closeable {
    */
   public void close() {
     this.tokenCache = null;
+    if (arena != null) {
+      arena.release();
+      arena = null;
+    }
   }
 
   /** Return a unique char buffer representing a given character sequence. */
   public char[] intern(MutableCharArray chs) {
+    if (arena != null) {
+      return arena.intern(chs);
+    }
+
     int index = tokenCache.indexOf(chs);
     if (tokenCache.indexExists(index)) {
       return tokenCache.indexGet(index).getBuffer();
@@ -109,20 +109,6 @@ public final class SparseArray {
     return unique;
   }
 
-  /** Merge data from one or more sparse arrays. */
-  public static int[] mergeSparseArrays(Iterable<int[]> source) {
-    final IntIntHashMap m = new IntIntHashMap();
-    for (int[] list : source) {
-      final int max = list.length;
-      for (int i = 0; i < max; i += 2) {
-        final int v = list[i + 1];
-        m.putOrAdd(list[i], v, v);
-      }
-    }
-
-    return hashToKeyValuePairs(m);
-  }
-
   /** Convert an int-int compact mapping array to a string. */
   public static String sparseToString(int[] intIntArray) {
     StringBuilder b = new StringBuilder();
@@ -12,11 +12,15 @@ package org.carrot2.text.preprocessing;
 
 import com.carrotsearch.hppc.sorting.IndirectComparator;
 import com.carrotsearch.hppc.sorting.IndirectSort;
+import java.util.Arrays;
+import org.carrot2.text.preprocessing.PhraseExtractor.SuffixSorting;
 
 /**
- * A simple suffix sorting utility based on the generic sorting routines from {@link IndirectSort}.
+ * A suffix sorting utility. Suffixes can be sorted with the generic sorting routines from {@link
+ * IndirectSort} or with the linear-time SA-IS algorithm; both produce identical suffix and LCP
+ * arrays.
  */
-final class SuffixSorter {
+public final class SuffixSorter {
   /** An int comparator that enables suffix sorting. */
   private static class SuffixComparator implements IndirectComparator {
     private int[] suffixData;
@@ -44,6 +48,16 @@ final class SuffixSorter {
     }
   }
 
+  private final SuffixSorting algorithm;
+
+  SuffixSorter() {
+    this(SuffixSorting.SA_IS);
+  }
+
+  SuffixSorter(SuffixSorting algorithm) {
+    this.algorithm = algorithm;
+  }
+
   /** Performs suffix sorting and saves the results to the <code>context</code>. */
   void suffixSort(PreprocessingContext context) {
     /*
@@ -62,12 +76,22 @@ final class SuffixSorter {
       }
     }
 
-    // Create suffix order
-    int[] suffixOrder = IndirectSort.mergesort(0, intCodes.length, new SuffixComparator(intCodes));
-    context.allTokens.suffixOrder = suffixOrder;
-
-    // Add LCPs
-    context.allTokens.lcp = calculateLcp(intCodes, suffixOrder);
+    // Create suffix order and add LCPs
+    final int[] suffixOrder;
+    switch (algorithm) {
+      case MERGESORT:
+        suffixOrder = IndirectSort.mergesort(0, intCodes.length, new SuffixComparator(intCodes));
+        context.allTokens.suffixOrder = suffixOrder;
+        context.allTokens.lcp = calculateLcp(intCodes, suffixOrder);
+        break;
+      case SA_IS:
+        suffixOrder = suffixArray(intCodes);
+        context.allTokens.suffixOrder = suffixOrder;
+        context.allTokens.lcp = calculateLcpKasai(intCodes, suffixOrder);
+        break;
+      default:
+        throw new RuntimeException("Unreachable: " + algorithm);
+    }
   }
 
   /** Calculates the Longest Common Prefix values for each token. */
@@ -86,4 +110,194 @@ final class SuffixSorter {
 
     return lcpArray;
   }
+
+  /**
+   * Calculates the Longest Common Prefix values in linear time using Kasai et al.'s algorithm.
+   * <code>lcp[i]</code> is the length of the common prefix of suffixes <code>suffixOrder[i - 1]
+   * </code> and <code>suffixOrder[i]</code>, <code>lcp[0]</code> is zero.
+   */
+  public static int[] calculateLcpKasai(int[] intCodes, int[] suffixOrder) {
+    final int n = intCodes.length;
+    final int[] rank = new int[n];
+    for (int i = 0; i < n; i++) {
+      rank[suffixOrder[i]] = i;
+    }
+
+    final int[] lcpArray = new int[n];
+    int lcp = 0;
+    for (int i = 0; i < n; i++) {
+      final int r = rank[i];
+      if (r > 0) {
+        final int j = suffixOrder[r - 1];
+        while (i + lcp < n && j + lcp < n && intCodes[i + lcp] == intCodes[j + lcp]) {
+          lcp++;
+        }
+        lcpArray[r] = lcp;
+        if (lcp > 0) {
+          lcp--;
+        }
+      } else {
+        lcp = 0;
+      }
+    }
+    return lcpArray;
+  }
+
+  /**
+   * Builds the suffix array of <code>intCodes</code> in the order used by the comparison-based
+   * sort (descending by code, so separators sort last). The codes are remapped to a dense alphabet
+   * <code>[0, upper]</code> in which ascending order corresponds to the descending order of the
+   * input and the suffix array is built with SA-IS.
+   */
+  public static int[] suffixArray(int[] intCodes) {
+    int max = -1;
+    int min = 0;
+    for (int code : intCodes) {
+      max = Math.max(max, code);
+      min = Math.min(min, code);
+    }
+
+    final int[] remapped = new int[intCodes.length];
+    for (int i = 0; i < intCodes.length; i++) {
+      remapped[i] = max - intCodes[i];
+    }
+
+    return sais(remapped, max - min);
+  }
+
+  /**
+   * SA-IS suffix array construction (Nong, Zhang and Chan, "Two Efficient Algorithms for Linear
+   * Time Suffix Array Construction"). Symbols of <code>s</code> must be within <code>[0, upper]
+   * </code>.
+   */
+  static int[] sais(int[] s, int upper) {
+    final int n = s.length;
+    if (n == 0) {
+      return new int[0];
+    }
+    if (n == 1) {
+      return new int[] {0};
+    }
+    if (n == 2) {
+      return s[0] < s[1] ? new int[] {0, 1} : new int[] {1, 0};
+    }
+
+    // Classify suffixes into S-type (true) and L-type (false).
+    final boolean[] ls = new boolean[n];
+    for (int i = n - 2; i >= 0; i--) {
+      ls[i] = (s[i] == s[i + 1]) ? ls[i + 1] : (s[i] < s[i + 1]);
+    }
+
+    // Bucket boundaries: sumL[c] is the start of c's bucket, sumS[c] the start of its S-part.
+    final int[] sumL = new int[upper + 1];
+    final int[] sumS = new int[upper + 1];
+    for (int i = 0; i < n; i++) {
+      if (!ls[i]) {
+        sumS[s[i]]++;
+      } else if (s[i] + 1 <= upper) {
+        sumL[s[i] + 1]++;
+      }
+    }
+    for (int i = 0; i <= upper; i++) {
+      sumS[i] += sumL[i];
+      if (i < upper) {
+        sumL[i + 1] += sumS[i];
+      }
+    }
+
+    final int[] lmsMap = new int[n + 1];
+    Arrays.fill(lmsMap, -1);
+    int m = 0;
+    for (int i = 1; i < n; i++) {
+      if (!ls[i - 1] && ls[i]) {
+        lmsMap[i] = m++;
+      }
+    }
+    final int[] lms = new int[m];
+    for (int i = 1, j = 0; i < n; i++) {
+      if (!ls[i - 1] && ls[i]) {
+        lms[j++] = i;
+      }
+    }
+
+    final int[] sa = new int[n];
+    final int[] buf = new int[upper + 1];
+    induce(s, ls, sa, buf, sumL, sumS, lms, m);
+
+    if (m > 0) {
+      // Sort LMS substrings by their names, recursively if names are not unique.
+      final int[] sortedLms = new int[m];
+      for (int i = 0, j = 0; i < n; i++) {
+        if (lmsMap[sa[i]] != -1) {
+          sortedLms[j++] = sa[i];
+        }
+      }
+
+      final int[] recS = new int[m];
+      int recUpper = 0;
+      recS[lmsMap[sortedLms[0]]] = 0;
+      for (int i = 1; i < m; i++) {
+        int l = sortedLms[i - 1];
+        int r = sortedLms[i];
+        final int endL = (lmsMap[l] + 1 < m) ? lms[lmsMap[l] + 1] : n;
+        final int endR = (lmsMap[r] + 1 < m) ? lms[lmsMap[r] + 1] : n;
+        boolean same = true;
+        if (endL - l != endR - r) {
+          same = false;
+        } else {
+          while (l < endL && s[l] == s[r]) {
+            l++;
+            r++;
+          }
+          if (l == n || s[l] != s[r]) {
+            same = false;
+          }
+        }
+        if (!same) {
+          recUpper++;
+        }
+        recS[lmsMap[sortedLms[i]]] = recUpper;
+      }
+
+      final int[] recSa = sais(recS, recUpper);
+      for (int i = 0; i < m; i++) {
+        sortedLms[i] = lms[recSa[i]];
+      }
+      induce(s, ls, sa, buf, sumL, sumS, sortedLms, m);
+    }
+
+    return sa;
+  }
+
+  /** Induced sorting of L- and S-type suffixes from the given (sorted) LMS suffixes. */
+  private static void induce(
+      int[] s, boolean[] ls, int[] sa, int[] buf, int[] sumL, int[] sumS, int[] lms, int m) {
+    final int n = s.length;
+    Arrays.fill(sa, -1);
+
+    System.arraycopy(sumS, 0, buf, 0, buf.length);
+    for (int i = 0; i < m; i++) {
+      final int d = lms[i];
+      if (d != n) {
+        sa[buf[s[d]]++] = d;
+      }
+    }
+
+    System.arraycopy(sumL, 0, buf, 0, buf.length);
+    sa[buf[s[n - 1]]++] = n - 1;
+    for (int i = 0; i < n; i++) {
+      final int v = sa[i];
+      if (v >= 1 && !ls[v - 1]) {
+        sa[buf[s[v - 1]]++] = v - 1;
+      }
+    }
+
+    System.arraycopy(sumL, 0, buf, 0, buf.length);
+    for (int i = n - 1; i >= 0; i--) {
+      final int v = sa[i];
+      if (v >= 1 && ls[v - 1]) {
+        sa[--buf[s[v - 1] + 1]] = v - 1;
+      }
+    }
+  }
 }
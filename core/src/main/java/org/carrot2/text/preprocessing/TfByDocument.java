@@ -0,0 +1,209 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.carrotsearch.hppc.cursors.IntIntCursor;
+import java.util.Arrays;
+
+/**
+ * Term frequencies by document for a set of features (words, stems or phrases), stored in a
+ * compressed sparse row layout. Entries of all rows are packed into two parallel arrays: document
+ * indices and term frequencies. Entries of row <code>i</code> occupy positions from {@link
+ * #start(int)} (inclusive) to {@link #end(int)} (exclusive) of these arrays. The order of documents
+ * within a row is not defined.
+ *
+ * <p>A typical iteration over a single row looks like this:
+ *
+ * <pre>
+ * for (int j = tfByDocument.start(row), max = tfByDocument.end(row); j &lt; max; j++) {
+ *   int document = tfByDocument.document(j);
+ *   int tf = tfByDocument.tf(j);
+ * }
+ * </pre>
+ */
+public final class TfByDocument {
+  /** An empty instance (no rows). */
+  public static final TfByDocument EMPTY = new TfByDocument(new int[1], new int[0], new int[0]);
+
+  /** Row start offsets, the last element is the total number of entries. */
+  private final int[] offsets;
+
+  /** Document index of each entry. */
+  private final int[] documents;
+
+  /** Term frequency of each entry. */
+  private final int[] tfs;
+
+  private TfByDocument(int[] offsets, int[] documents, int[] tfs) {
+    assert documents.length == tfs.length;
+    assert offsets[offsets.length - 1] == documents.length;
+    this.offsets = offsets;
+    this.documents = documents;
+    this.tfs = tfs;
+  }
+
+  /** @return The number of rows. */
+  public int size() {
+    return offsets.length - 1;
+  }
+
+  /** @return The number of documents in the given row (document frequency). */
+  public int df(int row) {
+    return offsets[row + 1] - offsets[row];
+  }
+
+  /** @return The first entry position of the given row. */
+  public int start(int row) {
+    return offsets[row];
+  }
+
+  /** @return The entry position following the last entry of the given row. */
+  public int end(int row) {
+    return offsets[row + 1];
+  }
+
+  /** @return The document index of the entry at the given position. */
+  public int document(int position) {
+    return documents[position];
+  }
+
+  /** @return The term frequency of the entry at the given position. */
+  public int tf(int position) {
+    return tfs[position];
+  }
+
+  /**
+   * @return A copy of the given row in sparse array encoding: consecutive pairs of document index
+   *     and frequency (see {@link SparseArray}).
+   */
+  public int[] get(int row) {
+    final int start = offsets[row];
+    final int[] result = new int[(offsets[row + 1] - start) * 2];
+    for (int i = 0, j = start; i < result.length; i += 2, j++) {
+      result[i] = documents[j];
+      result[i + 1] = tfs[j];
+    }
+    return result;
+  }
+
+  /** @return A string representation of the given row, for debugging purposes. */
+  public String toString(int row) {
+    return SparseArray.sparseToString(get(row));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TfByDocument other = (TfByDocument) o;
+    return Arrays.equals(offsets, other.offsets)
+        && Arrays.equals(documents, other.documents)
+        && Arrays.equals(tfs, other.tfs);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * Arrays.hashCode(offsets) + Arrays.hashCode(documents)) + Arrays.hashCode(tfs);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder("[");
+    for (int row = 0; row < size(); row++) {
+      if (row > 0) {
+        b.append(", ");
+      }
+      b.append(Arrays.toString(get(row)));
+    }
+    return b.append("]").toString();
+  }
+
+  /** @return A new builder of row data. */
+  public static Builder builder() {
+    return new Builder(16);
+  }
+
+  /** @return A new builder of row data with buffers presized for the given number of rows. */
+  public static Builder builder(int expectedRows) {
+    return new Builder(expectedRows);
+  }
+
+  /**
+   * Accumulates rows of {@link TfByDocument}. Entries are appended with {@link #add(int, int)} or
+   * one of the <code>addRow</code> methods. {@link #endRow()} closes the current row.
+   */
+  public static final class Builder {
+    private final IntArrayList offsets;
+    private final IntArrayList documents;
+    private final IntArrayList tfs;
+
+    private Builder(int expectedRows) {
+      offsets = new IntArrayList(expectedRows + 1);
+      documents = new IntArrayList(expectedRows * 2);
+      tfs = new IntArrayList(expectedRows * 2);
+      offsets.add(0);
+    }
+
+    /** Appends a single entry to the current row. */
+    public Builder add(int document, int tf) {
+      documents.add(document);
+      tfs.add(tf);
+      return this;
+    }
+
+    /** Closes the current row. */
+    public Builder endRow() {
+      offsets.add(documents.size());
+      return this;
+    }
+
+    /** Adds a complete row from its sparse array encoding: pairs of document index, frequency. */
+    public Builder addRow(int[] sparseEncoding) {
+      for (int i = 0; i < sparseEncoding.length; i += 2) {
+        add(sparseEncoding[i], sparseEncoding[i + 1]);
+      }
+      return endRow();
+    }
+
+    /** Adds a complete row from a map of document indices to frequencies. */
+    public Builder addRow(IntIntHashMap tfByDocument) {
+      for (IntIntCursor c : tfByDocument) {
+        add(c.key, c.value);
+      }
+      return endRow();
+    }
+
+    /** Adds a complete row, copied from a row of another instance. */
+    public Builder addRow(TfByDocument source, int row) {
+      final int start = source.offsets[row];
+      final int length = source.offsets[row + 1] - start;
+      documents.add(source.documents, start, length);
+      tfs.add(source.tfs, start, length);
+      return endRow();
+    }
+
+    /** @return The number of completed rows. */
+    public int size() {
+      return offsets.size() - 1;
+    }
+
+    public TfByDocument build() {
+      assert offsets.get(offsets.size() - 1) == documents.size() : "Unterminated row.";
+      return new TfByDocument(offsets.toArray(), documents.toArray(), tfs.toArray());
+    }
+  }
+}
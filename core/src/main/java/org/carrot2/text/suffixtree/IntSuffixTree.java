@@ -0,0 +1,475 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.suffixtree;
+
+import com.carrotsearch.hppc.BitMixer;
+import java.util.Arrays;
+
+/**
+ * A suffix tree built with Esko Ukkonen's algorithm, specialized for input sequences stored in an
+ * <code>int[]</code> array. Compared to {@link SuffixTree}, there is no hashing of (state, symbol)
+ * pairs and no virtual dispatch on input access: each state keeps a linked list of its outgoing
+ * edges and only states with many outgoing edges are additionally indexed in a compact,
+ * open-addressing hash table. States and edges are stored in flat <code>int[]</code> arrays which
+ * are retained between calls to {@link #build}, so a single instance can be reused to build many
+ * trees (one at a time).
+ *
+ * <p>State and edge identifiers, as well as traversal methods, follow the contract of {@link
+ * SuffixTree}. Outgoing edges of a state are listed in reverse order of their creation.
+ *
+ * @see "E. Ukkonen, On-line construction of suffix trees, Algorithmica, 1995, volume 14, number 3,
+ *     pages 249-260."
+ */
+public final class IntSuffixTree {
+  /** Marker for the state's last edge. */
+  public static final int NO_EDGE = -1;
+
+  /** A constant to represent invalid suffix link from a state. */
+  private static final int NO_SUFFIX_LINK = Integer.MIN_VALUE;
+
+  /** Head state's identifier. Never has indexed edges, so it also marks empty hash slots. */
+  private static final int HEAD_STATE = 0;
+
+  /** Root state's identifier (constant). */
+  private static final int ROOT_STATE = 1;
+
+  /** The default transition from head to the root, the first edge in {@link #edges}. */
+  private static final int ROOT_TRANSITION = 0;
+
+  /** Number of integers per single edge: target state, start, end, next sibling edge. */
+  private static final int EDGE_SLOTS = 4;
+
+  /** Number of integers per hash table entry: source state, symbol, edge. */
+  private static final int HASH_SLOTS = 3;
+
+  /** States with this many outgoing edges (or more) have their edges indexed in {@link #hash}. */
+  private static final int INDEXED_STATE_DEGREE = 8;
+
+  /** Arrays are reallocated if their capacity exceeds the required size by this factor. */
+  private static final int SHRINK_FACTOR = 4;
+
+  /** The input sequence of integers. */
+  private int[] input;
+
+  /** The length of {@link #input}. */
+  private int inputSize;
+
+  /** Suffix link of each state (used at build time only). */
+  private int[] suffixLinks = new int[0];
+
+  /** The first outgoing edge of each state or {@link #NO_EDGE}. */
+  private int[] firstEdges = new int[0];
+
+  /** The number of outgoing edges of each state. */
+  private int[] degrees = new int[0];
+
+  /** The number of states (including the head state). */
+  private int stateCount;
+
+  /**
+   * Edges, {@link #EDGE_SLOTS} integers each: the target state, start and end index of the edge's
+   * label (1-based, inclusive) and the next edge from the same state (or {@link #NO_EDGE}).
+   */
+  private int[] edges = new int[0];
+
+  /** The number of used integers in {@link #edges}. */
+  private int edgesSize;
+
+  /**
+   * Open-addressing hash table of (state, first symbol) to edge mappings for states with at least
+   * {@link #INDEXED_STATE_DEGREE} outgoing edges, {@link #HASH_SLOTS} integers per entry.
+   */
+  private int[] hash = new int[0];
+
+  /** The number of entries in {@link #hash}. */
+  private int hashSize;
+
+  /** Variables used during tree construction. See Ukkonen's algorithm for details. */
+  private int s, k, i;
+
+  private boolean endPoint;
+
+  /** State callback or <code>null</code>. */
+  private SuffixTree.IStateCallback newStateCallback;
+
+  /**
+   * Builds a suffix tree for the first <code>length</code> elements of <code>input</code>,
+   * discarding the tree built previously. The input array is not copied and must not be modified
+   * while the tree is in use.
+   */
+  public IntSuffixTree build(
+      int[] input,
+      int length,
+      SuffixTree.IStateCallback newStateCallback,
+      SuffixTree.IProgressCallback progressCallback) {
+    this.input = input;
+    this.inputSize = length;
+    this.newStateCallback = newStateCallback;
+
+    // A tree over n symbols has at most 2n + 1 states and 2n edges (plus the head and its edge).
+    final int maxStates = 2 * length + 2;
+    if (firstEdges.length < maxStates || firstEdges.length > SHRINK_FACTOR * maxStates) {
+      suffixLinks = new int[maxStates];
+      firstEdges = new int[maxStates];
+      degrees = new int[maxStates];
+    }
+
+    final int maxEdgesSize = (2 * length + 1) * EDGE_SLOTS;
+    if (edges.length < maxEdgesSize || edges.length > SHRINK_FACTOR * maxEdgesSize) {
+      edges = new int[maxEdgesSize];
+    }
+
+    final int minHashSize = 16 * HASH_SLOTS;
+    if (hash.length < minHashSize || hash.length > SHRINK_FACTOR * maxEdgesSize) {
+      hash = new int[minHashSize];
+    } else {
+      Arrays.fill(hash, HEAD_STATE);
+    }
+    hashSize = 0;
+    stateCount = 0;
+    edgesSize = 0;
+
+    // Prepare initial conditions.
+    final int head = createState();
+    final int root = createState();
+    assert head == HEAD_STATE && root == ROOT_STATE;
+    suffixLinks[root] = head;
+    addEdge(root, 0, 0);
+
+    // Build the tree.
+    s = root;
+    for (k = i = 1; i <= inputSize; i++) {
+      if (progressCallback != null) progressCallback.next(i - 1);
+      update();
+      canonize(s, k, i);
+    }
+
+    this.newStateCallback = null;
+    return this;
+  }
+
+  /**
+   * Discards the tree and drops the reference to the input sequence, so that an idle instance keeps
+   * no data of the previous input. The allocated arrays are cleared, but kept for reuse by the next
+   * call to {@link #build}.
+   */
+  public void release() {
+    Arrays.fill(suffixLinks, 0, stateCount, 0);
+    Arrays.fill(firstEdges, 0, stateCount, 0);
+    Arrays.fill(degrees, 0, stateCount, 0);
+    Arrays.fill(edges, 0, edgesSize, 0);
+    Arrays.fill(hash, 0);
+    stateCount = 0;
+    edgesSize = 0;
+    hashSize = 0;
+    s = k = i = 0;
+    endPoint = false;
+
+    this.input = null;
+    this.inputSize = 0;
+  }
+
+  /** Update subroutine of the suffix tree building algorithm. */
+  private void update() {
+    int oldr = ROOT_STATE;
+    while (true) {
+      int r = testAndSplit(i - 1, i);
+      if (endPoint) break;
+
+      createTransition(r, i, inputSize, createNewState(i));
+      if (oldr != ROOT_STATE) suffixLinks[oldr] = r;
+      oldr = r;
+
+      canonize(suffixLinks[s], k, i - 1);
+    }
+
+    if (oldr != ROOT_STATE) suffixLinks[oldr] = s;
+  }
+
+  /** Test and split subroutine of the suffix tree building algorithm. */
+  private int testAndSplit(int p, int ti) {
+    if (k <= p) {
+      final int g = findTransition(s, k);
+      assert g >= 0;
+
+      final int gs = edges[g];
+      final int gk = edges[g + 1];
+      final int gj = edges[g + 2];
+
+      if (input[ti - 1] == input[gk + p - k]) {
+        endPoint = true;
+        return s;
+      } else {
+        // The edge keeps its first symbol, so it stays at the same place in the parent's list.
+        final int r = createNewState(gk + p - k);
+        edges[g] = r;
+        edges[g + 2] = gk + p - k;
+        createTransition(r, gk + p - k + 1, gj, gs);
+        endPoint = false;
+        return r;
+      }
+    } else {
+      endPoint = findTransition(s, ti) >= 0;
+      return s;
+    }
+  }
+
+  /** Canonization subroutine of the suffix tree building algorithm. */
+  private void canonize(int s, int k, int p) {
+    if (p >= k) {
+      int g = findTransition(s, k);
+      int d;
+      while (g >= 0 && (d = edges[g + 2] - edges[g + 1]) <= p - k) {
+        k = k + d + 1;
+        s = edges[g];
+        if (k <= p) g = findTransition(s, k);
+      }
+    }
+
+    this.s = s;
+    this.k = k;
+  }
+
+  /** Add a new state to the tree, calling external callback if requested. */
+  private int createNewState(int position) {
+    final int state = createState();
+    if (newStateCallback != null) {
+      newStateCallback.newState(state, position);
+    }
+    return state;
+  }
+
+  /** Adds a new state without any edges. */
+  private int createState() {
+    final int state = stateCount++;
+    suffixLinks[state] = NO_SUFFIX_LINK;
+    firstEdges[state] = NO_EDGE;
+    degrees[state] = 0;
+    return state;
+  }
+
+  /**
+   * Create a transition from state <code>s</code> to state <code>ts</code>, labeled with symbols
+   * between <code>k</code> and <code>p</code> (1-based, inclusive).
+   */
+  private void createTransition(int s, int k, int p, int ts) {
+    assert k > 0 && p > 0;
+
+    final int edge = addEdge(ts, k, p);
+    edges[edge + 3] = firstEdges[s];
+    firstEdges[s] = edge;
+
+    final int degree = ++degrees[s];
+    if (degree == INDEXED_STATE_DEGREE) {
+      for (int e = edge; e != NO_EDGE; e = edges[e + 3]) {
+        index(s, input[edges[e + 1] - 1], e);
+      }
+    } else if (degree > INDEXED_STATE_DEGREE) {
+      index(s, input[k - 1], edge);
+    }
+  }
+
+  /** Adds an edge to state <code>ts</code>, not linked to any state's list of edges. */
+  private int addEdge(int ts, int k, int p) {
+    final int edge = edgesSize;
+    edges[edge] = ts;
+    edges[edge + 1] = k;
+    edges[edge + 2] = p;
+    edges[edge + 3] = NO_EDGE;
+    edgesSize += EDGE_SLOTS;
+    return edge;
+  }
+
+  /** Adds an entry to the hash table of indexed edges. */
+  private void index(int state, int symbol, int edge) {
+    if ((hashSize + 1) * HASH_SLOTS * 2 > hash.length) {
+      final int[] previous = hash;
+      hash = new int[previous.length * 2];
+      hashSize = 0;
+      for (int slot = 0; slot < previous.length; slot += HASH_SLOTS) {
+        if (previous[slot] != HEAD_STATE) {
+          index(previous[slot], previous[slot + 1], previous[slot + 2]);
+        }
+      }
+    }
+
+    final int mask = hash.length / HASH_SLOTS - 1;
+    int slot = hash(state, symbol) & mask;
+    while (hash[slot * HASH_SLOTS] != HEAD_STATE) {
+      slot = (slot + 1) & mask;
+    }
+    hash[slot * HASH_SLOTS] = state;
+    hash[slot * HASH_SLOTS + 1] = symbol;
+    hash[slot * HASH_SLOTS + 2] = edge;
+    hashSize++;
+  }
+
+  private static int hash(int state, int symbol) {
+    return BitMixer.mix32(state * 0x9e3779b9 + symbol);
+  }
+
+  /**
+   * Find a transition from state <code>s</code>, labeled with symbol at index <code>k - 1</code> in
+   * the input sequence.
+   */
+  private int findTransition(int s, int k) {
+    return s == HEAD_STATE ? ROOT_TRANSITION : findEdge(s, input[k - 1]);
+  }
+
+  /**
+   * Find a transition from state <code>state</code>, labeled with a given symbol. {@link #NO_EDGE}
+   * is returned if there is no such edge.
+   */
+  public int findEdge(int state, int symbol) {
+    if (degrees[state] >= INDEXED_STATE_DEGREE) {
+      final int mask = hash.length / HASH_SLOTS - 1;
+      for (int slot = hash(state, symbol) & mask; ; slot = (slot + 1) & mask) {
+        final int slotState = hash[slot * HASH_SLOTS];
+        if (slotState == HEAD_STATE) {
+          return NO_EDGE;
+        }
+        if (slotState == state && hash[slot * HASH_SLOTS + 1] == symbol) {
+          return hash[slot * HASH_SLOTS + 2];
+        }
+      }
+    }
+
+    for (int edge = firstEdges[state]; edge != NO_EDGE; edge = edges[edge + 3]) {
+      if (input[edges[edge + 1] - 1] == symbol) {
+        return edge;
+      }
+    }
+    return NO_EDGE;
+  }
+
+  /** @return Return the number of transitions (edges) in the tree. */
+  public int getTransitionsCount() {
+    return edgesSize / EDGE_SLOTS - 1;
+  }
+
+  /** @return Return the number of states in the tree. */
+  public int getStatesCount() {
+    return stateCount - 1;
+  }
+
+  /**
+   * @return Returns the number of bytes allocated for the tree's internal arrays (excluding the
+   *     input sequence). The arrays are reused by subsequent calls to {@link #build}.
+   */
+  public long getAllocatedBytes() {
+    final long ints =
+        (long) suffixLinks.length + firstEdges.length + degrees.length + edges.length + hash.length;
+    return 4L * ints;
+  }
+
+  /**
+   * @return Returns the number of bytes of the tree's internal arrays occupied by states, edges and
+   *     indexed edges of the current tree.
+   */
+  public long getUsedBytes() {
+    return 4L * (3L * stateCount + edgesSize) + 4L * hashSize * HASH_SLOTS;
+  }
+
+  /**
+   * @return <code>true</code> if this suffix tree has a path from the root state to a leaf state
+   *     corresponding to a given sequence of objects. This indicates the input sequence had a
+   *     suffix identical to <code>sequence</code>.
+   */
+  public boolean containsSuffix(Sequence seq) {
+    int state = ROOT_STATE;
+    int i = 0;
+    while (true) {
+      // Find an edge leaving the current state marked with symbol sequence[i].
+      final int edge = findEdge(state, seq.objectAt(i));
+      if (edge < 0) {
+        // Different characters on explicit state.
+        return false;
+      }
+
+      // Follow the edge, checking symbols on the way.
+      int j = getStartIndex(edge);
+      final int m = getEndIndex(edge) + 1;
+      for (; i < seq.size() && j < m; j++, i++) {
+        if (seq.objectAt(i) != input[j]) {
+          // Different characters on implicit state.
+          return false;
+        }
+      }
+
+      if (i == seq.size()) {
+        // End of input sequence must be aligned with the tree's leaf state.
+        return j == inputSize;
+      }
+
+      // Follow to the child state.
+      state = getToState(edge);
+    }
+  }
+
+  /** Walks the states and edges of the suffix tree, depth-first. */
+  public void visit(final SuffixTree.IVisitor visitor) {
+    visitState(ROOT_STATE, visitor);
+  }
+
+  /** Start visiting from a given state. */
+  public void visitState(final int state, final SuffixTree.IVisitor visitor) {
+    if (visitor.pre(state)) {
+      for (int edge = firstEdge(state); edge != NO_EDGE; edge = nextEdge(edge)) {
+        final int toState = getToState(edge);
+        if (visitor.edge(state, toState, getStartIndex(edge), getEndIndex(edge))) {
+          visitState(toState, visitor);
+        }
+      }
+      visitor.post(state);
+    }
+  }
+
+  /** For procedural traversals (not visitors). */
+  public int getRootState() {
+    return ROOT_STATE;
+  }
+
+  /** Check if <code>state</code> is a leaf (has no outgoing edges). */
+  public boolean isLeaf(int state) {
+    return firstEdges[state] == NO_EDGE;
+  }
+
+  /**
+   * Returns the index of the first edge from a given state or {@link #NO_EDGE} if a given state has
+   * no edges. Does not perform any sanity check on the input state.
+   */
+  public int firstEdge(int state) {
+    return firstEdges[state];
+  }
+
+  /**
+   * Returns the index of the next edge (sibling) or {@link #NO_EDGE} if <code>edge</code> is the
+   * last edge in its state.
+   */
+  public int nextEdge(int edge) {
+    return edges[edge + 3];
+  }
+
+  /** Returns the target state for a given edge. */
+  public int getToState(int edge) {
+    return edges[edge];
+  }
+
+  /** Returns the edge label's start index (inclusive). */
+  public int getStartIndex(int edge) {
+    return edges[edge + 1] - 1;
+  }
+
+  /** Returns the edge label's end index (inclusive). */
+  public int getEndIndex(int edge) {
+    return edges[edge + 2] - 1;
+  }
+}
@@ -18,16 +18,19 @@ import java.util.Arrays;
 import java.util.function.IntToDoubleFunction;
 import org.carrot2.attrs.AttrComposite;
 import org.carrot2.attrs.AttrDouble;
+import org.carrot2.attrs.AttrEnum;
 import org.carrot2.attrs.AttrInteger;
 import org.carrot2.attrs.AttrObject;
 import org.carrot2.attrs.AttrStringArray;
 import org.carrot2.language.TokenTypeUtils;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.SparseDoubleMatrix2D;
 import org.carrot2.math.matrix.MatrixUtils;
 import org.carrot2.text.preprocessing.PreprocessingContext;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllFields;
+import org.carrot2.text.preprocessing.TfByDocument;
 
 /** Builds a term document matrix based on the provided {@link PreprocessingContext}. */
 public class TermDocumentMatrixBuilder extends AttrComposite {
@@ -54,7 +57,8 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
 
   /**
    * Maximum term-document matrix size. Determines the maximum number of the term-document matrix
-   * elements. The larger the size, the more accurate, time- and memory-consuming clustering.
+   * elements. The larger the size, the more accurate, time- and memory-consuming clustering. For
+   * {@link MatrixStorage#SPARSE} matrices, this is the maximum number of non-zero elements.
    */
   public final AttrInteger maximumMatrixSize =
       attributes.register(
@@ -88,6 +92,29 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
               .max(1)
               .defaultValue(0.9));
 
+  /** Storage of the term-document matrix elements. */
+  public enum MatrixStorage {
+    /** All matrix elements are stored, including zeros. */
+    DENSE,
+    /**
+     * Only non-zero elements are stored, in a {@link CompressedColumnDoubleMatrix2D}. For the same
+     * number of stored elements, more terms can be included in the matrix.
+     */
+    SPARSE;
+  }
+
+  /**
+   * Term-document matrix storage. Sparse storage reduces the memory footprint of the matrix and
+   * the time of its normalization and multiplication, as term-document matrices typically contain
+   * few non-zero elements.
+   */
+  public final AttrEnum<MatrixStorage> matrixStorage =
+      attributes.register(
+          "matrixStorage",
+          AttrEnum.builder(MatrixStorage.class)
+              .label("Term-document matrix storage")
+              .defaultValue(MatrixStorage.DENSE));
+
   /** Term weighting. The method for calculating weight of words in the term-document matrices. */
   public TermWeighting termWeighting;
 
@@ -109,7 +136,7 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
 
     final int documentCount = preprocessingContext.documentCount;
     final int[] stemsTf = preprocessingContext.allStems.tf;
-    final int[][] stemsTfByDocument = preprocessingContext.allStems.tfByDocument;
+    final TfByDocument stemsTfByDocument = preprocessingContext.allStems.tfByDocument;
     final byte[] stemsFieldIndices = preprocessingContext.allStems.fieldIndices;
 
     if (documentCount == 0) {
@@ -152,13 +179,19 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
       final int stemIndex = stemsToInclude[i];
       double weight =
           termWeighting.calculateTermWeight(
-              stemsTf[stemIndex], stemsTfByDocument[stemIndex].length / 2, documentCount);
+              stemsTf[stemIndex], stemsTfByDocument.df(stemIndex), documentCount);
       stemsWeight[i] = weight * fieldIndexToBoost.applyAsDouble(stemsFieldIndices[stemIndex]);
     }
     final int[] stemWeightOrder =
         IndirectSort.mergesort(
             0, stemsWeight.length, new IndirectComparator.DescendingDoubleComparator(stemsWeight));
 
+    if (matrixStorage.get() == MatrixStorage.SPARSE) {
+      buildSparseTermDocumentMatrix(
+          vsmContext, stemsToInclude, stemWeightOrder, fieldIndexToBoost, termWeighting);
+      return;
+    }
+
     // Calculate the number of terms we can include to fulfill the max matrix size
     final int maxRows = maximumMatrixSize.get() / documentCount;
     final DoubleMatrix2D tdMatrix =
@@ -166,17 +199,18 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
 
     for (int i = 0; i < stemWeightOrder.length && i < maxRows; i++) {
       final int stemIndex = stemsToInclude[stemWeightOrder[i]];
-      final int[] tfByDocument = stemsTfByDocument[stemIndex];
-      final int df = tfByDocument.length / 2;
+      final int df = stemsTfByDocument.df(stemIndex);
       final byte fieldIndices = stemsFieldIndices[stemIndex];
 
       double fieldWeight = fieldIndexToBoost.applyAsDouble(fieldIndices);
-      for (int j = 0; j < df; j++) {
+      for (int j = stemsTfByDocument.start(stemIndex), max = stemsTfByDocument.end(stemIndex);
+          j < max;
+          j++) {
         double weight =
-            termWeighting.calculateTermWeight(tfByDocument[j * 2 + 1], df, documentCount);
+            termWeighting.calculateTermWeight(stemsTfByDocument.tf(j), df, documentCount);
 
         weight *= fieldWeight;
-        tdMatrix.set(i, tfByDocument[j * 2], weight);
+        tdMatrix.set(i, stemsTfByDocument.document(j), weight);
       }
     }
 
@@ -191,6 +225,91 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
     vsmContext.stemToRowIndex = stemToRowIndex;
   }
 
+  /**
+   * Builds a {@link CompressedColumnDoubleMatrix2D} term-document matrix with rows of stems in the
+   * provided order. Stems are included as long as the total number of non-zero elements does not
+   * exceed {@link #maximumMatrixSize} and the number of cells does not exceed {@link
+   * Integer#MAX_VALUE} (a limit of {@link CompressedColumnDoubleMatrix2D}).
+   */
+  private void buildSparseTermDocumentMatrix(
+      VectorSpaceModelContext vsmContext,
+      int[] stemsToInclude,
+      int[] stemWeightOrder,
+      IntToDoubleFunction fieldIndexToBoost,
+      TermWeighting termWeighting) {
+    final PreprocessingContext preprocessingContext = vsmContext.preprocessingContext;
+    final int documentCount = preprocessingContext.documentCount;
+    final TfByDocument stemsTfByDocument = preprocessingContext.allStems.tfByDocument;
+    final byte[] stemsFieldIndices = preprocessingContext.allStems.fieldIndices;
+
+    // Calculate the number of terms we can include to fulfill the max number of elements
+    final int maxElements = maximumMatrixSize.get();
+    final int maxRows = documentCount == 0 ? Integer.MAX_VALUE : Integer.MAX_VALUE / documentCount;
+    int rows = 0;
+    int elements = 0;
+    while (rows < stemWeightOrder.length && rows < maxRows) {
+      final int df = stemsTfByDocument.df(stemsToInclude[stemWeightOrder[rows]]);
+      if (elements + df > maxElements) {
+        break;
+      }
+      elements += df;
+      rows++;
+    }
+
+    // Compute row-major weights and the number of non-zero elements in each column
+    final int[] rowDocuments = new int[elements];
+    final double[] rowWeights = new double[elements];
+    final int[] columnPointers = new int[documentCount + 1];
+    final int[] rowPointers = new int[rows + 1];
+    int nonZero = 0;
+    for (int i = 0; i < rows; i++) {
+      final int stemIndex = stemsToInclude[stemWeightOrder[i]];
+      final int df = stemsTfByDocument.df(stemIndex);
+
+      double fieldWeight = fieldIndexToBoost.applyAsDouble(stemsFieldIndices[stemIndex]);
+      for (int j = stemsTfByDocument.start(stemIndex), max = stemsTfByDocument.end(stemIndex);
+          j < max;
+          j++) {
+        double weight =
+            termWeighting.calculateTermWeight(stemsTfByDocument.tf(j), df, documentCount);
+
+        weight *= fieldWeight;
+        if (weight != 0) {
+          final int document = stemsTfByDocument.document(j);
+          rowDocuments[nonZero] = document;
+          rowWeights[nonZero] = weight;
+          columnPointers[document + 1]++;
+          nonZero++;
+        }
+      }
+      rowPointers[i + 1] = nonZero;
+    }
+
+    // Transpose into compressed columns, row indexes end up sorted within each column
+    for (int c = 0; c < documentCount; c++) {
+      columnPointers[c + 1] += columnPointers[c];
+    }
+    final int[] next = Arrays.copyOf(columnPointers, documentCount);
+    final int[] rowIndexes = new int[nonZero];
+    final double[] values = new double[nonZero];
+    for (int i = 0; i < rows; i++) {
+      for (int j = rowPointers[i]; j < rowPointers[i + 1]; j++) {
+        final int position = next[rowDocuments[j]]++;
+        rowIndexes[position] = i;
+        values[position] = rowWeights[j];
+      }
+    }
+
+    final IntIntHashMap stemToRowIndex = new IntIntHashMap();
+    for (int i = 0; i < rows; i++) {
+      stemToRowIndex.put(stemsToInclude[stemWeightOrder[i]], i);
+    }
+
+    vsmContext.termDocumentMatrix =
+        new CompressedColumnDoubleMatrix2D(rows, documentCount, columnPointers, rowIndexes, values);
+    vsmContext.stemToRowIndex = stemToRowIndex;
+  }
+
   /**
    * Builds a term-phrase matrix in the same space as the main term-document matrix. If the
    * processing context contains no phrases, {@link VectorSpaceModelContext#termPhraseMatrix} will
@@ -228,7 +347,7 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
     final int[][] phrasesWordIndices = context.allPhrases.wordIndices;
     final int wordCount = wordsStemIndex.length;
 
-    final int[][] stemsTfByDocument = context.allStems.tfByDocument;
+    final TfByDocument stemsTfByDocument = context.allStems.tfByDocument;
     int documentCount = context.documentCount;
     final BitSet requiredStemIndices = new BitSet(labelsFeatureIndex.length);
 
@@ -267,12 +386,12 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
   private void addStemIndex(
       final int[] wordsStemIndex,
       int documentCount,
-      int[][] stemsTfByDocument,
+      TfByDocument stemsTfByDocument,
       final BitSet requiredStemIndices,
       final int featureIndex,
       double maxWordDf) {
     final int stemIndex = wordsStemIndex[featureIndex];
-    final int df = stemsTfByDocument[stemIndex].length / 2;
+    final int df = stemsTfByDocument.df(stemIndex);
     if (((double) df / documentCount) <= maxWordDf) {
       requiredStemIndices.set(stemIndex);
     }
@@ -295,7 +414,7 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
     final PreprocessingContext preprocessingContext = vsmContext.preprocessingContext;
     final int[] wordsStemIndex = preprocessingContext.allWords.stemIndex;
     final int[] stemsTf = preprocessingContext.allStems.tf;
-    final int[][] stemsTfByDocument = preprocessingContext.allStems.tfByDocument;
+    final TfByDocument stemsTfByDocument = preprocessingContext.allStems.tfByDocument;
     final int[][] phrasesWordIndices = preprocessingContext.allPhrases.wordIndices;
     final int documentCount = preprocessingContext.documentCount;
     final int wordCount = wordsStemIndex.length;
@@ -317,7 +436,7 @@ public class TermDocumentMatrixBuilder extends AttrComposite {
 
           double weight =
               termWeighting.calculateTermWeight(
-                  stemsTf[stemIndex], stemsTfByDocument[stemIndex].length / 2, documentCount);
+                  stemsTf[stemIndex], stemsTfByDocument.df(stemIndex), documentCount);
 
           phraseMatrix.setQuick(rowIndex, i, weight);
         }
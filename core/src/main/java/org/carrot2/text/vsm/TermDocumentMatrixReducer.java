@@ -19,6 +19,7 @@ import org.carrot2.math.matrix.MatrixFactorization;
 import org.carrot2.math.matrix.MatrixFactorizationFactory;
 import org.carrot2.math.matrix.MatrixUtils;
 import org.carrot2.math.matrix.NonnegativeMatrixFactorizationEDFactory;
+import org.carrot2.math.matrix.RandomizedSvdFactorizationFactory;
 
 /** Reduces the dimensionality of a term-document matrix using a matrix factorization algorithm. */
 public class TermDocumentMatrixReducer extends AttrComposite {
@@ -47,20 +48,49 @@ public class TermDocumentMatrixReducer extends AttrComposite {
       return;
     }
 
-    if (factorizationFactory instanceof IterativeMatrixFactorizationFactory) {
-      ((IterativeMatrixFactorizationFactory) factorizationFactory)
-          .estimateIterationsNumber(dimensions, vsmContext.termDocumentMatrix);
-    }
-
     MatrixUtils.normalizeColumnL2(vsmContext.termDocumentMatrix, null);
     final MatrixFactorization factorization =
-        factorizationFactory.factorize(vsmContext.termDocumentMatrix);
+        factorize(vsmContext.termDocumentMatrix, dimensions);
     context.baseMatrix = factorization.getU();
     context.coefficientMatrix = factorization.getV();
     context.baseMatrix = trim(factorizationFactory, factorization.getU(), dimensions);
     context.coefficientMatrix = trim(factorizationFactory, factorization.getV(), dimensions);
   }
 
+  /**
+   * Factorizes the matrix with the factory's number of base vectors (and iterations) adjusted to
+   * the requested dimensions. The factory's settings are restored afterwards, so that they don't
+   * carry over to subsequent reductions.
+   */
+  private MatrixFactorization factorize(DoubleMatrix2D termDocumentMatrix, int dimensions) {
+    if (factorizationFactory instanceof IterativeMatrixFactorizationFactory) {
+      IterativeMatrixFactorizationFactory factory =
+          (IterativeMatrixFactorizationFactory) factorizationFactory;
+      final int k = factory.getK();
+      final int maxIterations = factory.getMaxIterations();
+      try {
+        factory.estimateIterationsNumber(dimensions, termDocumentMatrix);
+        return factory.factorize(termDocumentMatrix);
+      } finally {
+        factory.setK(k);
+        factory.setMaxIterations(maxIterations);
+      }
+    } else if (factorizationFactory instanceof RandomizedSvdFactorizationFactory) {
+      RandomizedSvdFactorizationFactory factory =
+          (RandomizedSvdFactorizationFactory) factorizationFactory;
+      final int k = factory.getK();
+      try {
+        // Compute only the base vectors that will be used.
+        factory.setK(dimensions);
+        return factory.factorize(termDocumentMatrix);
+      } finally {
+        factory.setK(k);
+      }
+    } else {
+      return factorizationFactory.factorize(termDocumentMatrix);
+    }
+  }
+
   private final DoubleMatrix2D trim(
       MatrixFactorizationFactory factorizationFactory, DoubleMatrix2D matrix, int dimensions) {
     if (!(factorizationFactory instanceof IterativeMatrixFactorizationFactory)
@@ -0,0 +1,142 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.util;
+
+import com.carrotsearch.hppc.BitMixer;
+import java.util.Collection;
+
+/**
+ * An immutable set of character sequences, stored in an open-addressing hash table of <code>char[]
+ * </code> keys. Lookups work directly on character buffers (and {@link MutableCharArray}s) and do
+ * not allocate any memory.
+ *
+ * <p>If the set ignores case, both keys and looked up sequences are folded to lower case character
+ * by character, with {@link Character#toLowerCase(char)}.
+ */
+public final class CharArraySet {
+  /** Hash table slots, <code>null</code> marks an empty slot. */
+  private final char[][] keys;
+
+  /** Hash table slot mask (the number of slots minus one). */
+  private final int mask;
+
+  /** The number of unique keys in the set. */
+  private final int size;
+
+  /** Fold characters to lower case. */
+  private final boolean ignoreCase;
+
+  public CharArraySet(Collection<? extends CharSequence> words, boolean ignoreCase) {
+    this.ignoreCase = ignoreCase;
+
+    // Keep the load factor at or below 0.5.
+    int slots = 4;
+    while (slots < words.size() * 2) {
+      slots <<= 1;
+    }
+    this.keys = new char[slots][];
+    this.mask = slots - 1;
+
+    int size = 0;
+    for (CharSequence word : words) {
+      final char[] key = new char[word.length()];
+      for (int i = 0; i < key.length; i++) {
+        key[i] = fold(word.charAt(i));
+      }
+
+      int slot = hash(key, 0, key.length) & mask;
+      while (keys[slot] != null && !equals(keys[slot], key, 0, key.length)) {
+        slot = (slot + 1) & mask;
+      }
+      if (keys[slot] == null) {
+        keys[slot] = key;
+        size++;
+      }
+    }
+    this.size = size;
+  }
+
+  /** @return Returns the number of unique keys in this set. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return Returns <code>true</code> if this set contains the sequence of <code>length</code>
+   *     characters in <code>buffer</code>, starting at <code>start</code>.
+   */
+  public boolean contains(char[] buffer, int start, int length) {
+    int slot = hash(buffer, start, length) & mask;
+    char[] key;
+    while ((key = keys[slot]) != null) {
+      if (equals(key, buffer, start, length)) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  /** @return Returns <code>true</code> if this set contains the given character sequence. */
+  public boolean contains(CharSequence seq) {
+    if (seq instanceof MutableCharArray) {
+      final MutableCharArray array = (MutableCharArray) seq;
+      return contains(array.getBuffer(), array.getStart(), array.length());
+    }
+
+    final int length = seq.length();
+    int h = 0;
+    for (int i = 0; i < length; i++) {
+      h = 31 * h + fold(seq.charAt(i));
+    }
+
+    int slot = BitMixer.mix32(h) & mask;
+    char[] key;
+    outer:
+    while ((key = keys[slot]) != null) {
+      slot = (slot + 1) & mask;
+      if (key.length != length) {
+        continue;
+      }
+      for (int i = 0; i < length; i++) {
+        if (key[i] != fold(seq.charAt(i))) {
+          continue outer;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private char fold(char chr) {
+    return ignoreCase ? Character.toLowerCase(chr) : chr;
+  }
+
+  private int hash(char[] buffer, int start, int length) {
+    int h = 0;
+    for (int i = start, end = start + length; i < end; i++) {
+      h = 31 * h + fold(buffer[i]);
+    }
+    return BitMixer.mix32(h);
+  }
+
+  private boolean equals(char[] key, char[] buffer, int start, int length) {
+    if (key.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (key[i] != fold(buffer[start + i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -10,10 +10,15 @@
  */
 package org.carrot2.util;
 
+import com.carrotsearch.hppc.BitSet;
 import com.carrotsearch.hppc.IntArrayDeque;
 import com.carrotsearch.hppc.IntArrayList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /** Various utilities for processing graphs. */
 public class GraphUtils {
@@ -67,6 +72,247 @@ public class GraphUtils {
     return clusterGroups;
   }
 
+  /**
+   * Finds coherent subgraphs of an undirected graph given by its adjacency lists. The result is
+   * identical to that of {@link #findCoherentSubgraphs(int, IArcPredicate, boolean)} invoked with
+   * a predicate consistent with the adjacency lists.
+   *
+   * @param neighbors adjacency lists of each vertex, each sorted in ascending order
+   * @param pruneOneNodeSubrgaphs if <code>true</code>, one-node subgraphs will not be included in
+   *     the result
+   * @return a list of {@link IntArrayList}s containing vertices of the coherent subgraphs
+   * @see #findOverlapArcs(BitSet[], IOverlapPredicate)
+   */
+  public static List<IntArrayList> findCoherentSubgraphs(
+      int[][] neighbors, boolean pruneOneNodeSubrgaphs) {
+    final int vertexCount = neighbors.length;
+    final boolean[] nodesChecked = new boolean[vertexCount];
+    final List<IntArrayList> clusterGroups = new ArrayList<>();
+    final IntArrayDeque nodeQueue = new IntArrayDeque();
+
+    for (int i = 0; i < vertexCount; i++) {
+      if (!nodesChecked[i]) {
+        nodeQueue.clear();
+        nodeQueue.addLast(i);
+        nodesChecked[i] = true;
+        IntArrayList clusterGroup = new IntArrayList();
+
+        while (!nodeQueue.isEmpty()) {
+          int node = nodeQueue.removeFirst();
+          clusterGroup.add(node);
+
+          // Neighbors are visited in the same (ascending) order as in the predicate-based search.
+          for (int j : neighbors[node]) {
+            if (!nodesChecked[j]) {
+              nodeQueue.addLast(j);
+              nodesChecked[j] = true;
+            }
+          }
+        }
+
+        if (clusterGroup.size() > 1 || !pruneOneNodeSubrgaphs) {
+          clusterGroups.add(clusterGroup);
+        }
+      }
+    }
+
+    return clusterGroups;
+  }
+
+  /**
+   * Computes adjacency lists of an undirected graph in which vertices are sets and arcs connect
+   * sets accepted by the overlap predicate. The predicate is evaluated only for pairs of sets with
+   * at least one common element, so it must reject all pairs of disjoint sets.
+   *
+   * <p>Intersection sizes are computed either from an inverted (element to sets) index or by
+   * pairwise bit set intersection, whichever is estimated to be cheaper. No temporary bit sets are
+   * allocated and set cardinalities are computed only once.
+   *
+   * @param sets vertices of the graph
+   * @param predicate the overlap predicate
+   * @return adjacency lists of each vertex, each sorted in ascending order
+   */
+  public static int[][] findOverlapArcs(BitSet[] sets, IOverlapPredicate predicate) {
+    return findOverlapArcs(sets, predicate, null, Math.max(1, sets.length));
+  }
+
+  /**
+   * Computes adjacency lists of an undirected graph in which vertices are sets, evaluating the
+   * overlap predicate in chunks of <code>setsPerChunk</code> consecutive sets submitted to the
+   * <code>executor</code>. The predicate must be thread-safe. The result is identical to that of
+   * {@link #findOverlapArcs(BitSet[], IOverlapPredicate)}.
+   *
+   * @param sets vertices of the graph
+   * @param predicate the overlap predicate
+   * @param executor the executor to evaluate chunks on, <code>null</code> to evaluate all chunks in
+   *     the calling thread
+   * @param setsPerChunk the number of consecutive sets in one chunk
+   * @return adjacency lists of each vertex, each sorted in ascending order
+   */
+  public static int[][] findOverlapArcs(
+      BitSet[] sets, IOverlapPredicate predicate, Executor executor, int setsPerChunk) {
+    if (setsPerChunk <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + setsPerChunk);
+    }
+
+    final OverlapIndex index = new OverlapIndex(sets, predicate);
+    final int vertexCount = sets.length;
+    final int[][] forwardArcs = new int[vertexCount][];
+    if (executor == null || vertexCount <= setsPerChunk) {
+      index.forwardArcs(0, vertexCount, forwardArcs);
+    } else {
+      final ArrayList<CompletableFuture<Void>> chunks = new ArrayList<>();
+      for (int from = 0; from < vertexCount; from += setsPerChunk) {
+        final int chunkFrom = from;
+        final int chunkTo = Math.min(vertexCount, from + setsPerChunk);
+        chunks.add(
+            CompletableFuture.runAsync(
+                () -> index.forwardArcs(chunkFrom, chunkTo, forwardArcs), executor));
+      }
+
+      try {
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture[chunks.size()])).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    // Arcs to vertices with lower indices are always added first, so the lists are sorted.
+    final int[] degree = new int[vertexCount];
+    for (int i = 0; i < vertexCount; i++) {
+      degree[i] += forwardArcs[i].length;
+      for (int j : forwardArcs[i]) {
+        degree[j]++;
+      }
+    }
+
+    final int[][] neighbors = new int[vertexCount][];
+    for (int i = 0; i < vertexCount; i++) {
+      neighbors[i] = new int[degree[i]];
+      degree[i] = 0;
+    }
+
+    for (int i = 0; i < vertexCount; i++) {
+      for (int j : forwardArcs[i]) {
+        neighbors[i][degree[i]++] = j;
+        neighbors[j][degree[j]++] = i;
+      }
+    }
+    return neighbors;
+  }
+
+  /**
+   * Cached cardinalities and the inverted (element to sets) index used to compute arcs between
+   * overlapping sets. Read-only once created.
+   */
+  private static final class OverlapIndex {
+    private final BitSet[] sets;
+    private final IOverlapPredicate predicate;
+    private final int[] cardinalities;
+
+    /** Start offsets of posting lists in {@link #postings}, indexed by element. */
+    private final int[] postingStart;
+
+    /** Ascending lists of sets containing each element, <code>null</code> if not used. */
+    private final int[] postings;
+
+    OverlapIndex(BitSet[] sets, IOverlapPredicate predicate) {
+      this.sets = sets;
+      this.predicate = predicate;
+
+      final int vertexCount = sets.length;
+      this.cardinalities = new int[vertexCount];
+      int maxElement = -1;
+      for (int i = 0; i < vertexCount; i++) {
+        cardinalities[i] = (int) sets[i].cardinality();
+        maxElement = Math.max(maxElement, (int) sets[i].length() - 1);
+      }
+
+      this.postingStart = new int[maxElement + 2];
+      for (BitSet set : sets) {
+        for (int e = set.nextSetBit(0); e >= 0; e = set.nextSetBit(e + 1)) {
+          postingStart[e + 1]++;
+        }
+      }
+
+      long invertedCost = 0;
+      for (int e = 0; e <= maxElement; e++) {
+        final long postings = postingStart[e + 1];
+        invertedCost += postings * (postings - 1) / 2;
+        postingStart[e + 1] += postingStart[e];
+      }
+
+      final long words = (maxElement + 64) / 64;
+      final long pairwiseCost = (long) vertexCount * (vertexCount - 1) / 2 * words;
+      if (invertedCost <= pairwiseCost) {
+        this.postings = new int[postingStart[maxElement + 1]];
+        final int[] next = Arrays.copyOf(postingStart, maxElement + 1);
+        for (int i = 0; i < vertexCount; i++) {
+          final BitSet set = sets[i];
+          for (int e = set.nextSetBit(0); e >= 0; e = set.nextSetBit(e + 1)) {
+            postings[next[e]++] = i;
+          }
+        }
+      } else {
+        this.postings = null;
+      }
+    }
+
+    /**
+     * Stores the ascending lists of vertices <code>j &gt; i</code> connected to each vertex <code>i
+     * </code> in the <code>[from, to)</code> range.
+     */
+    void forwardArcs(int from, int to, int[][] forwardArcs) {
+      final IntArrayList arcs = new IntArrayList();
+      if (postings != null) {
+        final int[] intersections = new int[sets.length];
+        final IntArrayList touched = new IntArrayList();
+        for (int i = from; i < to; i++) {
+          final BitSet set = sets[i];
+          for (int e = set.nextSetBit(0); e >= 0; e = set.nextSetBit(e + 1)) {
+            // Posting lists are sorted, sets following i have greater indices.
+            final int end = postingStart[e + 1];
+            for (int p = Arrays.binarySearch(postings, postingStart[e], end, i) + 1; p < end; p++) {
+              final int j = postings[p];
+              if (intersections[j]++ == 0) {
+                touched.add(j);
+              }
+            }
+          }
+
+          final int[] candidates = touched.toArray();
+          Arrays.sort(candidates);
+          for (int j : candidates) {
+            if (predicate.isArcPresent(cardinalities[i], cardinalities[j], intersections[j])) {
+              arcs.add(j);
+            }
+            intersections[j] = 0;
+          }
+          touched.clear();
+
+          forwardArcs[i] = arcs.toArray();
+          arcs.clear();
+        }
+      } else {
+        for (int i = from; i < to; i++) {
+          for (int j = i + 1; j < sets.length; j++) {
+            final int intersection = (int) BitSet.intersectionCount(sets[i], sets[j]);
+            if (intersection > 0
+                && predicate.isArcPresent(cardinalities[i], cardinalities[j], intersection)) {
+              arcs.add(j);
+            }
+          }
+
+          forwardArcs[i] = arcs.toArray();
+          arcs.clear();
+        }
+      }
+    }
+  }
+
   /** A predicate defining arcs of an undirected graph. */
   public static interface IArcPredicate {
     /**
@@ -75,4 +321,13 @@ public class GraphUtils {
      */
     public boolean isArcPresent(int vertexA, int vertexB);
   }
+
+  /** A predicate defining arcs of an undirected graph whose vertices are sets. */
+  public static interface IOverlapPredicate {
+    /**
+     * Returns <code>true</code> if there is an arc connecting two sets with the given cardinalities
+     * and the given (non-zero) size of their intersection.
+     */
+    public boolean isArcPresent(int cardinalityA, int cardinalityB, int intersection);
+  }
 }
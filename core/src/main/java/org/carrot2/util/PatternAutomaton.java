@@ -0,0 +1,479 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.util;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A deterministic finite automaton matching the union of a number of regular expressions. The
+ * automaton is an equivalent of <code>Pattern.compile("(p1)|(p2)|...").matcher(s).matches()
+ * </code>, but matching is linear in the input's length, regardless of the number or complexity
+ * of the patterns, and it requires no intermediate objects.
+ *
+ * <p>Only a subset of {@link java.util.regex.Pattern} syntax is supported: literal characters,
+ * escaped non-alphanumeric characters, <code>.</code>, <code>\d</code>, groups (capturing and
+ * <code>(?:...)</code>), alternatives, greedy or lazy quantifiers <code>?</code>, <code>*</code>,
+ * <code>+</code> and the inline <code>(?i)</code> and <code>(?-i)</code> flags. Use {@link
+ * #isSupported(String)} to check whether a pattern can be compiled.
+ */
+public final class PatternAutomaton {
+  /** No transition (dead state). */
+  private static final int NO_STATE = -1;
+
+  /** The default maximum number of deterministic states. */
+  public static final int DEFAULT_MAX_STATES = 10000;
+
+  /**
+   * Code points with their own symbol class, sorted. All other code points belong to class zero
+   * (any character other than a line terminator).
+   */
+  private final int[] symbols;
+
+  /** The number of symbol classes (columns of {@link #transitions}). */
+  private final int classes;
+
+  /** Transition table, <code>transitions[state * classes + symbolClass]</code>. */
+  private final int[] transitions;
+
+  /** Accepting states. */
+  private final boolean[] accepting;
+
+  private PatternAutomaton(int[] symbols, int[] transitions, boolean[] accepting) {
+    this.symbols = symbols;
+    this.classes = symbols.length + 1;
+    this.transitions = transitions;
+    this.accepting = accepting;
+  }
+
+  /** @return Returns <code>true</code> if the entire input matches any of the patterns. */
+  public boolean matches(CharSequence input) {
+    int state = 0;
+    for (int i = 0, length = input.length(); i < length; ) {
+      final int codePoint = Character.codePointAt(input, i);
+      i += Character.charCount(codePoint);
+
+      final int symbol = Arrays.binarySearch(symbols, codePoint);
+      state = transitions[state * classes + (symbol >= 0 ? symbol + 1 : 0)];
+      if (state == NO_STATE) {
+        return false;
+      }
+    }
+    return accepting[state];
+  }
+
+  /** @return Returns the number of deterministic states of this automaton. */
+  public int getStatesCount() {
+    return accepting.length;
+  }
+
+  /** @return Returns <code>true</code> if the pattern can be compiled into an automaton. */
+  public static boolean isSupported(String pattern) {
+    try {
+      new Parser(new Nfa(), pattern).parse();
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /** Compiles the given patterns with at most {@link #DEFAULT_MAX_STATES} states. */
+  public static PatternAutomaton compile(List<String> patterns) {
+    return compile(patterns, DEFAULT_MAX_STATES);
+  }
+
+  /**
+   * Compiles the union of the given patterns into a deterministic automaton.
+   *
+   * @throws IllegalArgumentException If any of the patterns is not supported or if the automaton
+   *     would have more than <code>maxStates</code> states.
+   */
+  public static PatternAutomaton compile(List<String> patterns, int maxStates) {
+    final Nfa nfa = new Nfa();
+    final int start = nfa.newState();
+    final int accept = nfa.newState();
+    for (String pattern : patterns) {
+      final int[] fragment = new Parser(nfa, pattern).parse();
+      nfa.epsilon(start, fragment[0]);
+      nfa.epsilon(fragment[1], accept);
+    }
+    return determinize(nfa, start, accept, maxStates);
+  }
+
+  /** Subset construction over symbol classes. */
+  private static PatternAutomaton determinize(Nfa nfa, int start, int accept, int maxStates) {
+    final int[] symbols = nfa.symbols();
+    final int classes = symbols.length + 1;
+
+    final HashMap<BitSet, Integer> stateIds = new HashMap<>();
+    final ArrayList<BitSet> states = new ArrayList<>();
+
+    final BitSet initial = new BitSet();
+    initial.set(start);
+    nfa.closure(initial);
+    stateIds.put(initial, 0);
+    states.add(initial);
+
+    // States are numbered (and processed) in the order of discovery, rows are appended in order.
+    final IntArrayList transitions = new IntArrayList();
+    final ArrayList<Nfa.Transition> outgoing = new ArrayList<>();
+    for (int state = 0; state < states.size(); state++) {
+      outgoing.clear();
+      final BitSet nfaStates = states.get(state);
+      for (int i = nfaStates.nextSetBit(0); i >= 0; i = nfaStates.nextSetBit(i + 1)) {
+        final Nfa.Transition t = nfa.transitions.get(i);
+        if (t != null) {
+          outgoing.add(t);
+        }
+      }
+
+      for (int symbolClass = 0; symbolClass < classes; symbolClass++) {
+        final BitSet next = new BitSet();
+        for (Nfa.Transition t : outgoing) {
+          if (symbolClass == 0 ? t.matchesOther() : t.matches(symbols[symbolClass - 1])) {
+            next.set(t.target);
+          }
+        }
+
+        int target = NO_STATE;
+        if (!next.isEmpty()) {
+          nfa.closure(next);
+          Integer id = stateIds.get(next);
+          if (id == null) {
+            if (states.size() >= maxStates) {
+              throw new IllegalArgumentException(
+                  "The automaton would have more than " + maxStates + " states.");
+            }
+            id = states.size();
+            stateIds.put(next, id);
+            states.add(next);
+          }
+          target = id;
+        }
+        transitions.add(target);
+      }
+    }
+
+    final boolean[] accepting = new boolean[states.size()];
+    for (int i = 0; i < accepting.length; i++) {
+      accepting[i] = states.get(i).get(accept);
+    }
+
+    assert transitions.size() == states.size() * classes;
+    return new PatternAutomaton(symbols, transitions.toArray(), accepting);
+  }
+
+  /** A non-deterministic automaton with epsilon transitions (Thompson's construction). */
+  private static final class Nfa {
+    /** Kinds of symbol transitions. */
+    private enum Kind {
+      /** One of the given code points. */
+      CODE_POINTS,
+      /** Any character other than a line terminator. */
+      ANY,
+      /** An ASCII digit. */
+      DIGIT;
+    }
+
+    private static final class Transition {
+      final Kind kind;
+      final int[] codePoints;
+      final int target;
+
+      Transition(Kind kind, int[] codePoints, int target) {
+        this.kind = kind;
+        this.codePoints = codePoints;
+        this.target = target;
+      }
+
+      boolean matches(int codePoint) {
+        switch (kind) {
+          case CODE_POINTS:
+            for (int cp : codePoints) {
+              if (cp == codePoint) return true;
+            }
+            return false;
+          case ANY:
+            return !isLineTerminator(codePoint);
+          case DIGIT:
+            return codePoint >= '0' && codePoint <= '9';
+          default:
+            throw new RuntimeException("Unreachable: " + kind);
+        }
+      }
+
+      /** Whether this transition matches code points without their own symbol class. */
+      boolean matchesOther() {
+        return kind == Kind.ANY;
+      }
+    }
+
+    /** At most one symbol transition per state. */
+    final ArrayList<Transition> transitions = new ArrayList<>();
+
+    /** Epsilon transitions of each state. */
+    final ArrayList<List<Integer>> epsilons = new ArrayList<>();
+
+    int newState() {
+      transitions.add(null);
+      epsilons.add(new ArrayList<>());
+      return transitions.size() - 1;
+    }
+
+    void epsilon(int from, int to) {
+      epsilons.get(from).add(to);
+    }
+
+    void transition(int from, Kind kind, int[] codePoints, int to) {
+      assert transitions.get(from) == null;
+      transitions.set(from, new Transition(kind, codePoints, to));
+    }
+
+    /** Code points (and line terminators, digits) that need their own symbol class. */
+    int[] symbols() {
+      final TreeSet<Integer> symbols = new TreeSet<>();
+      for (Transition t : transitions) {
+        if (t == null) continue;
+        switch (t.kind) {
+          case CODE_POINTS:
+            for (int cp : t.codePoints) symbols.add(cp);
+            break;
+          case ANY:
+            for (int cp : LINE_TERMINATORS) symbols.add(cp);
+            break;
+          case DIGIT:
+            for (int cp = '0'; cp <= '9'; cp++) symbols.add(cp);
+            break;
+          default:
+            throw new RuntimeException("Unreachable: " + t.kind);
+        }
+      }
+      return symbols.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Adds the epsilon closure of a set of states to the set. */
+    void closure(BitSet states) {
+      final IntArrayList queue = new IntArrayList();
+      for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
+        queue.add(i);
+      }
+      while (queue.size() > 0) {
+        for (int next : epsilons.get(queue.remove(queue.size() - 1))) {
+          if (!states.get(next)) {
+            states.set(next);
+            queue.add(next);
+          }
+        }
+      }
+    }
+  }
+
+  /** Line terminators, as defined by {@link java.util.regex.Pattern}. */
+  private static final int[] LINE_TERMINATORS = {'\n', '\r', '\u0085', '\u2028', '\u2029'};
+
+  private static boolean isLineTerminator(int codePoint) {
+    for (int cp : LINE_TERMINATORS) {
+      if (cp == codePoint) return true;
+    }
+    return false;
+  }
+
+  /**
+   * A recursive descent parser of the supported pattern syntax, emitting NFA fragments: pairs of
+   * start and end states.
+   */
+  private static final class Parser {
+    private final Nfa nfa;
+    private final String pattern;
+    private int pos;
+
+    /** Case-insensitive (US-ASCII only) matching, scoped to the enclosing group. */
+    private boolean caseInsensitive;
+
+    Parser(Nfa nfa, String pattern) {
+      this.nfa = nfa;
+      this.pattern = pattern;
+    }
+
+    int[] parse() {
+      final int[] fragment = alternatives();
+      if (pos < pattern.length()) {
+        throw unsupported();
+      }
+      return fragment;
+    }
+
+    private int[] alternatives() {
+      final int start = nfa.newState();
+      final int end = nfa.newState();
+      while (true) {
+        final int[] alternative = sequence();
+        nfa.epsilon(start, alternative[0]);
+        nfa.epsilon(alternative[1], end);
+        if (!consume('|')) {
+          return new int[] {start, end};
+        }
+      }
+    }
+
+    private int[] sequence() {
+      final int start = nfa.newState();
+      int end = start;
+      while (pos < pattern.length() && peek() != '|' && peek() != ')') {
+        final int[] term = quantified();
+        if (term != null) {
+          nfa.epsilon(end, term[0]);
+          end = term[1];
+        }
+      }
+      return new int[] {start, end};
+    }
+
+    private int[] quantified() {
+      int[] atom = atom();
+      if (atom == null) {
+        return null;
+      }
+
+      while (pos < pattern.length()) {
+        final char quantifier = peek();
+        if (quantifier != '?' && quantifier != '*' && quantifier != '+') {
+          break;
+        }
+        pos++;
+        if (consume('+')) {
+          // Possessive quantifiers change the matched language.
+          throw unsupported();
+        }
+        // Lazy quantifiers match the same language.
+        consume('?');
+
+        final int start = nfa.newState();
+        final int end = nfa.newState();
+        nfa.epsilon(start, atom[0]);
+        nfa.epsilon(atom[1], end);
+        if (quantifier != '+') {
+          nfa.epsilon(start, end);
+        }
+        if (quantifier != '?') {
+          nfa.epsilon(atom[1], atom[0]);
+        }
+        atom = new int[] {start, end};
+      }
+      return atom;
+    }
+
+    /** @return Returns an atom's fragment or <code>null</code> for inline flags. */
+    private int[] atom() {
+      final int codePoint = pattern.codePointAt(pos);
+      pos += Character.charCount(codePoint);
+      switch (codePoint) {
+        case '(':
+          return group();
+        case '.':
+          return symbol(Nfa.Kind.ANY, null);
+        case '\\':
+          return escape();
+        case '[':
+        case ']':
+        case '{':
+        case '}':
+        case '^':
+        case '$':
+        case '?':
+        case '*':
+        case '+':
+          throw unsupported();
+        default:
+          return literal(codePoint);
+      }
+    }
+
+    private int[] group() {
+      final boolean enclosingCaseInsensitive = caseInsensitive;
+      if (consume('?')) {
+        // Inline flags: (?i), (?-i), (?i:...) and the non-capturing group (?:...).
+        final boolean negate = consume('-');
+        if (consume('i')) {
+          caseInsensitive = !negate;
+          if (consume(')')) {
+            return null;
+          }
+        } else if (negate) {
+          throw unsupported();
+        }
+        if (!consume(':')) {
+          throw unsupported();
+        }
+      }
+
+      final int[] fragment = alternatives();
+      if (!consume(')')) {
+        throw unsupported();
+      }
+      caseInsensitive = enclosingCaseInsensitive;
+      return fragment;
+    }
+
+    private int[] escape() {
+      if (pos >= pattern.length()) {
+        throw unsupported();
+      }
+      final int codePoint = pattern.codePointAt(pos);
+      pos += Character.charCount(codePoint);
+      if (codePoint == 'd') {
+        return symbol(Nfa.Kind.DIGIT, null);
+      }
+      if (Character.isLetterOrDigit(codePoint)) {
+        throw unsupported();
+      }
+      return literal(codePoint);
+    }
+
+    private int[] literal(int codePoint) {
+      if (caseInsensitive && codePoint < 0x80 && Character.isLetter(codePoint)) {
+        return symbol(
+            Nfa.Kind.CODE_POINTS,
+            new int[] {Character.toLowerCase(codePoint), Character.toUpperCase(codePoint)});
+      }
+      return symbol(Nfa.Kind.CODE_POINTS, new int[] {codePoint});
+    }
+
+    private int[] symbol(Nfa.Kind kind, int[] codePoints) {
+      final int start = nfa.newState();
+      final int end = nfa.newState();
+      nfa.transition(start, kind, codePoints, end);
+      return new int[] {start, end};
+    }
+
+    private char peek() {
+      return pattern.charAt(pos);
+    }
+
+    private boolean consume(char chr) {
+      if (pos < pattern.length() && pattern.charAt(pos) == chr) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private IllegalArgumentException unsupported() {
+      return new IllegalArgumentException(
+          "Unsupported pattern syntax at position " + pos + ": " + pattern);
+    }
+  }
+}
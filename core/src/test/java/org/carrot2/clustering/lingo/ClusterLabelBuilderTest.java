@@ -10,10 +10,16 @@
  */
 package org.carrot2.clustering.lingo;
 
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntHashMap;
 import java.util.stream.Stream;
 import org.assertj.core.api.Assertions;
 import org.carrot2.clustering.Document;
 import org.carrot2.clustering.TestDocument;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.carrot2.text.preprocessing.PreprocessingContext;
 import org.carrot2.text.vsm.TermDocumentMatrixReducer;
 import org.carrot2.text.vsm.TfTermWeighting;
 import org.junit.Before;
@@ -116,6 +122,155 @@ public class ClusterLabelBuilderTest extends LingoProcessingComponentTestBase {
     }
   }
 
+  @Test
+  public void testUniqueLabelAssigner() {
+    clusterBuilder.labelAssigner = new UniqueLabelAssigner();
+    clusterBuilder.phraseLabelBoost.set(0.5);
+    desiredClusterCountBase = 15;
+
+    buildLingoModel(
+        Stream.of(
+            new TestDocument("aa bb", "aa bb"),
+            new TestDocument("cc", "cc"),
+            new TestDocument("cc", "cc"),
+            new TestDocument("aa bb", "aa bb"),
+            new TestDocument("dd", "dd"),
+            new TestDocument("dd", "dd"),
+            new TestDocument("ee ff", "ee ff"),
+            new TestDocument("ee ff", "ee ff")));
+
+    clusterBuilder.buildLabels(lingoContext, new TfTermWeighting());
+    Assertions.assertThat(lingoContext.clusterLabelFeatureIndex)
+        .as("clusterLabelFeatureIndex")
+        .doesNotHaveDuplicates();
+  }
+
+  @Test
+  public void testUniqueLabelAssignerMatchesFullScan() {
+    buildLingoModel(Stream.of(new TestDocument("aa bb", "aa bb"), new TestDocument("cc", "cc")));
+    final PreprocessingContext preprocessingContext = lingoContext.preprocessingContext;
+
+    for (int iter = iterations(10, 100); iter > 0; iter--) {
+      final int columns = randomIntBetween(1, 15);
+      final int stems = randomIntBetween(0, 30);
+      final int phrases = randomIntBetween(0, 30);
+
+      // Stem labels are encoded as non-negative, phrase labels as negative feature indices.
+      final IntIntHashMap filteredRowToStemIndex = new IntIntHashMap();
+      final int[] mostFrequentOriginalWordIndex = new int[stems];
+      for (int i = 0; i < stems; i++) {
+        filteredRowToStemIndex.put(i, stems - i - 1);
+        mostFrequentOriginalWordIndex[i] = i;
+      }
+      final int[] featureIndex = new int[phrases];
+      for (int i = 0; i < phrases; i++) {
+        featureIndex[i] = -i - 1;
+      }
+      preprocessingContext.allStems.mostFrequentOriginalWordIndex = mostFrequentOriginalWordIndex;
+      preprocessingContext.allLabels.featureIndex = featureIndex;
+      preprocessingContext.allLabels.firstPhraseIndex = 0;
+
+      final DoubleMatrix2D stemCos = randomCosines(stems, columns);
+      final DoubleMatrix2D phraseCos = randomBoolean() ? randomCosines(phrases, columns) : null;
+
+      new UniqueLabelAssigner()
+          .assignLabels(lingoContext, stemCos, filteredRowToStemIndex, phraseCos);
+      final int[] actualFeatureIndex = lingoContext.clusterLabelFeatureIndex;
+      final double[] actualScores = lingoContext.clusterLabelScore;
+
+      assignUniqueLabelsByFullScan(
+          lingoContext,
+          stemCos.copy(),
+          filteredRowToStemIndex,
+          phraseCos != null ? phraseCos.copy() : null);
+      Assertions.assertThat(actualFeatureIndex).isEqualTo(lingoContext.clusterLabelFeatureIndex);
+      Assertions.assertThat(actualScores).isEqualTo(lingoContext.clusterLabelScore);
+    }
+  }
+
+  /** Returns a random similarity matrix with many zeros and ties. */
+  private DoubleMatrix2D randomCosines(int rows, int columns) {
+    final DoubleMatrix2D matrix = new DenseDoubleMatrix2D(rows, columns);
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < columns; c++) {
+        matrix.setQuick(r, c, randomIntBetween(-2, 4) / 4d);
+      }
+    }
+    return matrix;
+  }
+
+  /**
+   * The reference implementation of {@link UniqueLabelAssigner}, which scans the full similarity
+   * matrices for each label and zeroes rows and columns of the labels it picks.
+   */
+  private static void assignUniqueLabelsByFullScan(
+      LingoProcessingContext context,
+      DoubleMatrix2D stemCos,
+      IntIntHashMap filteredRowToStemIndex,
+      DoubleMatrix2D phraseCos) {
+    final PreprocessingContext preprocessingContext = context.preprocessingContext;
+    final int firstPhraseIndex = preprocessingContext.allLabels.firstPhraseIndex;
+    final int[] labelsFeatureIndex = preprocessingContext.allLabels.featureIndex;
+    final int[] mostFrequentOriginalWordIndex =
+        preprocessingContext.allStems.mostFrequentOriginalWordIndex;
+    final int desiredClusterCount = stemCos.columns();
+
+    final IntArrayList clusterLabelFeatureIndex = new IntArrayList(desiredClusterCount);
+    final DoubleArrayList clusterLabelScore = new DoubleArrayList(desiredClusterCount);
+    for (int label = 0; label < desiredClusterCount; label++) {
+      final int[] stemMax = max(stemCos);
+      final int[] phraseMax = max(phraseCos);
+
+      if (stemMax == null && phraseMax == null) {
+        break;
+      }
+
+      double stemScore = stemMax != null ? stemCos.getQuick(stemMax[0], stemMax[1]) : -1;
+      double phraseScore = phraseMax != null ? phraseCos.getQuick(phraseMax[0], phraseMax[1]) : -1;
+
+      if (phraseScore > stemScore) {
+        phraseCos.viewRow(phraseMax[0]).assign(0);
+        phraseCos.viewColumn(phraseMax[1]).assign(0);
+        stemCos.viewColumn(phraseMax[1]).assign(0);
+
+        clusterLabelFeatureIndex.add(labelsFeatureIndex[phraseMax[0] + firstPhraseIndex]);
+        clusterLabelScore.add(phraseScore);
+      } else {
+        stemCos.viewRow(stemMax[0]).assign(0);
+        stemCos.viewColumn(stemMax[1]).assign(0);
+        if (phraseCos != null) {
+          phraseCos.viewColumn(stemMax[1]).assign(0);
+        }
+
+        clusterLabelFeatureIndex.add(
+            mostFrequentOriginalWordIndex[filteredRowToStemIndex.get(stemMax[0])]);
+        clusterLabelScore.add(stemScore);
+      }
+    }
+
+    context.clusterLabelFeatureIndex = clusterLabelFeatureIndex.toArray();
+    context.clusterLabelScore = clusterLabelScore.toArray();
+  }
+
+  /** Returns the (row, column) of the first largest positive element in row-major order. */
+  private static int[] max(DoubleMatrix2D matrix) {
+    if (matrix == null) {
+      return null;
+    }
+
+    int[] max = null;
+    double value = 0;
+    for (int r = 0; r < matrix.rows(); r++) {
+      for (int c = 0; c < matrix.columns(); c++) {
+        if (matrix.getQuick(r, c) > value) {
+          value = matrix.getQuick(r, c);
+          max = new int[] {r, c};
+        }
+      }
+    }
+    return max;
+  }
+
   private static class OneLabelFeatureScorer implements FeatureScorer {
     private int labelIndex;
     private double score;
@@ -18,6 +18,8 @@ import org.carrot2.AwaitsFix;
 import org.carrot2.clustering.*;
 import org.carrot2.clustering.Cluster;
 import org.carrot2.clustering.Document;
+import org.carrot2.math.matrix.IterativeMatrixFactorizationFactory;
+import org.carrot2.math.matrix.RandomizedSvdFactorizationFactory;
 import org.junit.Test;
 
 public class LingoClusteringAlgorithmTest
@@ -76,6 +78,32 @@ public class LingoClusteringAlgorithmTest
         .containsOnly("program");
   }
 
+  @Test
+  public void testFactorizationSettingsRestoredAfterClustering() {
+    LingoClusteringAlgorithm algorithm = algorithm();
+    IterativeMatrixFactorizationFactory factory =
+        (IterativeMatrixFactorizationFactory) algorithm.matrixReducer.factorizationFactory;
+    int k = factory.getK();
+    int maxIterations = factory.getMaxIterations();
+
+    algorithm.cluster(
+        SampleDocumentData.DOCUMENTS_DATA_MINING.stream(),
+        CachedLangComponents.loadCached("English"));
+
+    // Settings estimated for the clustered documents must not carry over to the next call.
+    Assertions.assertThat(factory.getK()).isEqualTo(k);
+    Assertions.assertThat(factory.getMaxIterations()).isEqualTo(maxIterations);
+
+    RandomizedSvdFactorizationFactory svd = new RandomizedSvdFactorizationFactory();
+    algorithm.matrixReducer.factorizationFactory = svd;
+    k = svd.getK();
+
+    algorithm.cluster(
+        SampleDocumentData.DOCUMENTS_DATA_MINING.stream(),
+        CachedLangComponents.loadCached("English"));
+    Assertions.assertThat(svd.getK()).isEqualTo(k);
+  }
+
   // TODO: CARROT-1195 (clustering not deterministic)
   @AwaitsFix("https://issues.carrot2.org/browse/CARROT-1195")
   @Override
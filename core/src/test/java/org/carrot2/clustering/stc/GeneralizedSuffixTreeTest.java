@@ -18,16 +18,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import org.carrot2.TestBase;
 import org.carrot2.clustering.stc.GeneralizedSuffixTree.SequenceBuilder;
-import org.carrot2.text.suffixtree.SuffixTree;
+import org.carrot2.text.suffixtree.IntSuffixTree;
 import org.junit.Test;
 
 /**
- * Tests running GST-functionality on top of a {@link SuffixTree}. This is for demonstration
- * purposes mostly.
+ * Tests running GST-functionality on top of an {@link IntSuffixTree} and of the suffix array. This
+ * is for demonstration purposes mostly.
  */
 public class GeneralizedSuffixTreeTest extends TestBase {
   static class TestGST extends GeneralizedSuffixTree.Visitor {
     public final ArrayList<String> nodes = new ArrayList<>();
+    public final ArrayList<String> edges = new ArrayList<>();
 
     public TestGST(SequenceBuilder sb) {
       super(sb, 2);
@@ -39,9 +40,38 @@ public class GeneralizedSuffixTreeTest extends TestBase {
         for (int j = edges.get(i); j <= edges.get(i + 1); j++) b.append(sb.input.get(j) + " ");
 
       nodes.add(b.toString() + "[" + card + "]");
+      this.edges.add(edgesWithDocuments(sb, bset, edges));
     }
   }
 
+  static class TestSuffixArrayGST extends GeneralizedSuffixTree.SuffixArrayVisitor {
+    public final ArrayList<String> nodes = new ArrayList<>();
+    public final ArrayList<String> edges = new ArrayList<>();
+
+    public TestSuffixArrayGST(SequenceBuilder sb) {
+      super(sb, 2);
+    }
+
+    protected void visit(int interval, int card, BitSet bset, IntStack path) {
+      final StringBuilder b = new StringBuilder();
+      for (int i = 0; i < path.size(); i += 2)
+        for (int j = path.get(i); j <= path.get(i + 1); j++) b.append(sb.input.get(j) + " ");
+
+      nodes.add(b.toString() + "[" + card + "]");
+      edges.add(edgesWithDocuments(sb, bset, path));
+    }
+  }
+
+  /** Formats a node's edges, separated with a bar, and its documents. */
+  private static String edgesWithDocuments(SequenceBuilder sb, BitSet documents, IntStack edges) {
+    final StringBuilder b = new StringBuilder();
+    for (int i = 0; i < edges.size(); i += 2) {
+      if (i > 0) b.append("| ");
+      for (int j = edges.get(i); j <= edges.get(i + 1); j++) b.append(sb.input.get(j) + " ");
+    }
+    return b.toString() + documents;
+  }
+
   @Test
   public void testMultiphraseGST() {
     final SequenceBuilder sb = new SequenceBuilder();
@@ -53,17 +83,11 @@ public class GeneralizedSuffixTreeTest extends TestBase {
     sb.addPhrase(4, 2, 3, 5);
     sb.endDocument();
 
-    sb.buildSuffixTree();
-
-    TestGST gst = new TestGST(sb);
-    gst.visit();
-
-    Collections.sort(gst.nodes);
-    assertArrayEquals(
+    assertNodes(
+        sb,
         new Object[] {
           "1 2 3 [2]", "2 3 [3]", "3 [3]", "4 [2]",
-        },
-        gst.nodes.toArray());
+        });
   }
 
   /** */
@@ -79,17 +103,31 @@ public class GeneralizedSuffixTreeTest extends TestBase {
     sb.addPhrase(4, 2, 3, 5);
     sb.endDocument();
 
-    sb.buildSuffixTree();
+    assertNodes(
+        sb,
+        new Object[] {
+          "0 1 2 3 [2]", "1 2 3 [3]", "2 3 [4]", "3 [4]", "4 [2]",
+        });
+  }
 
-    TestGST gst = new TestGST(sb);
-    gst.visit();
+  /** Empty documents must not shift the document numbers of those that follow. */
+  @Test
+  public void testEmptyDocumentsGST() {
+    final SequenceBuilder sb = new SequenceBuilder();
+    sb.addPhrase(0, 1);
+    sb.endDocument();
+    sb.endDocument();
+    sb.endDocument();
+    sb.addPhrase(0, 1);
+    sb.endDocument();
+    sb.addPhrase(2, 1);
+    sb.endDocument();
 
-    Collections.sort(gst.nodes);
-    assertArrayEquals(
+    assertNodes(
+        sb,
         new Object[] {
-          "0 1 2 3 [2]", "1 2 3 [3]", "2 3 [4]", "3 [4]", "4 [2]",
-        },
-        gst.nodes.toArray());
+          "0 1 [2]", "1 [3]",
+        });
   }
 
   /** */
@@ -98,9 +136,55 @@ public class GeneralizedSuffixTreeTest extends TestBase {
     final SequenceBuilder sb = new SequenceBuilder();
     sb.endDocument();
 
+    assertNodes(sb, new Object[0]);
+  }
+
+  @Test
+  public void testSuffixArrayVisitorEquivalence() {
+    for (int round = 0; round < 100; round++) {
+      final SequenceBuilder sb = new SequenceBuilder();
+      final int alphabet = randomIntBetween(1, 5);
+      for (int doc = randomIntBetween(1, 10); doc > 0; doc--) {
+        for (int phrase = randomIntBetween(0, 4); phrase > 0; phrase--) {
+          final int[] terms = new int[randomIntBetween(1, 8)];
+          for (int i = 0; i < terms.length; i++) {
+            terms[i] = randomIntBetween(0, alphabet - 1);
+          }
+          sb.addPhrase(terms);
+        }
+        sb.endDocument();
+      }
+
+      sb.buildSuffixTree();
+      TestGST gst = new TestGST(sb);
+      gst.visit();
+      Collections.sort(gst.nodes);
+
+      TestSuffixArrayGST sa = new TestSuffixArrayGST(sb);
+      sa.visit();
+      Collections.sort(sa.nodes);
+
+      assertEquals(gst.nodes, sa.nodes);
+
+      // Paths are split into the same edges and nodes have the same documents.
+      Collections.sort(gst.edges);
+      Collections.sort(sa.edges);
+      assertEquals(gst.edges, sa.edges);
+    }
+  }
+
+  /** Checks both the suffix tree and the suffix array visitor report the expected nodes. */
+  private static void assertNodes(SequenceBuilder sb, Object[] expected) {
     sb.buildSuffixTree();
 
     TestGST gst = new TestGST(sb);
     gst.visit();
+    Collections.sort(gst.nodes);
+    assertArrayEquals(expected, gst.nodes.toArray());
+
+    TestSuffixArrayGST sa = new TestSuffixArrayGST(sb);
+    sa.visit();
+    Collections.sort(sa.nodes);
+    assertArrayEquals(expected, sa.nodes.toArray());
   }
 }
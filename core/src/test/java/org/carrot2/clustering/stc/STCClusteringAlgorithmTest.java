@@ -11,7 +11,9 @@
 package org.carrot2.clustering.stc;
 
 import java.io.InputStream;
+import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -22,6 +24,8 @@ import org.assertj.core.api.Assertions;
 import org.carrot2.clustering.*;
 import org.carrot2.clustering.Cluster;
 import org.carrot2.clustering.Document;
+import org.carrot2.text.suffixtree.IntSuffixTree;
+import org.carrot2.text.suffixtree.IntSuffixTreeTest;
 import org.junit.Test;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -59,6 +63,85 @@ public class STCClusteringAlgorithmTest
     Assertions.assertThat(clusters.size()).isEqualTo(9);
   }
 
+  @Test
+  public void testParallelMergingMatchesSequential() {
+    for (List<Document> documents :
+        Arrays.asList(
+            SampleDocumentData.DOCUMENTS_DATA_MINING, SampleDocumentData.DOCUMENTS_DAWID)) {
+      STCClusteringAlgorithm algorithm = algorithm();
+      List<Cluster<Document>> expected = clusterAndCheck(algorithm, documents);
+
+      algorithm.parallelMerging.set(true);
+      Assertions.assertThat(clusterAndCheck(algorithm, documents))
+          .containsExactlyInAnyOrderElementsOf(expected);
+    }
+  }
+
+  // Instances are pooled between requests, an idle instance must not retain the previous input.
+  @Test
+  public void testIdleInstanceKeepsNoInputData() throws Exception {
+    STCClusteringAlgorithm algorithm = algorithm();
+    List<Cluster<Document>> expected =
+        clusterAndCheck(algorithm, SampleDocumentData.DOCUMENTS_DATA_MINING);
+
+    for (String name : Arrays.asList("sb", "context")) {
+      Field field = STCClusteringAlgorithm.class.getDeclaredField(name);
+      field.setAccessible(true);
+      Assertions.assertThat(field.get(algorithm)).as(name).isNull();
+    }
+
+    Field suffixTree = STCClusteringAlgorithm.class.getDeclaredField("suffixTree");
+    suffixTree.setAccessible(true);
+    IntSuffixTreeTest.assertReleased((IntSuffixTree) suffixTree.get(algorithm));
+
+    // The released buffers are reused by the next call.
+    Assertions.assertThat(clusterAndCheck(algorithm, SampleDocumentData.DOCUMENTS_DATA_MINING))
+        .containsExactlyInAnyOrderElementsOf(expected);
+  }
+
+  @Test
+  public void testSuffixArrayDiscoveryMatchesSuffixTree() {
+    for (List<Document> documents :
+        Arrays.asList(
+            SampleDocumentData.DOCUMENTS_DATA_MINING, SampleDocumentData.DOCUMENTS_DAWID)) {
+      // The suffix array visits phrases in a different order, so base clusters with equal scores
+      // come in a different order too. Don't cut the lists of base and final clusters and don't
+      // pick one of stem-equivalent phrases with equal cardinality, so that the choice among ties
+      // doesn't change the returned clusters. Labels with equal coverage may come in any order.
+      STCClusteringAlgorithm algorithm = algorithm();
+      algorithm.maxBaseClusters.set(Integer.MAX_VALUE);
+      algorithm.maxClusters.set(Integer.MAX_VALUE);
+      algorithm.mergeStemEquivalentBaseClusters.set(false);
+      List<Cluster<Document>> expected = clusterAndCheck(algorithm, documents);
+      expected.forEach(cluster -> Collections.sort(cluster.getLabels()));
+
+      algorithm.baseClusterDiscovery.set(STCClusteringAlgorithm.BaseClusterDiscovery.SUFFIX_ARRAY);
+      List<Cluster<Document>> clusters = clusterAndCheck(algorithm, documents);
+      clusters.forEach(cluster -> Collections.sort(cluster.getLabels()));
+      Assertions.assertThat(clusters).containsExactlyInAnyOrderElementsOf(expected);
+    }
+  }
+
+  /**
+   * Clusters the documents and checks the clusters are labeled and hold input documents. Clusters
+   * with equal sort keys may come in any order, so callers compare the results ignoring order.
+   */
+  private List<Cluster<Document>> clusterAndCheck(
+      STCClusteringAlgorithm algorithm, List<Document> documents) {
+    List<Cluster<Document>> clusters =
+        algorithm.cluster(documents.stream(), CachedLangComponents.loadCached("English"));
+    Assertions.assertThat(clusters)
+        .isNotEmpty()
+        .hasSizeLessThanOrEqualTo(algorithm.maxClusters.get());
+
+    for (Cluster<Document> cluster : clusters) {
+      Assertions.assertThat(cluster.getLabels()).isNotEmpty();
+      Assertions.assertThat(cluster.getDocuments()).isNotEmpty();
+      Assertions.assertThat(documents).containsAll(cluster.getDocuments());
+    }
+    return clusters;
+  }
+
   @Test
   public void testComputeIntersection() {
     int[] t1;
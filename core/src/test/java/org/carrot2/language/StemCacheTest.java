@@ -0,0 +1,169 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.language;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.clustering.CachedLangComponents;
+import org.carrot2.clustering.SampleDocumentData;
+import org.carrot2.util.MutableCharArray;
+import org.junit.Test;
+
+public class StemCacheTest extends TestBase {
+  @Test
+  public void testCachedStemsIdenticalToStemmer() {
+    LanguageComponents english = CachedLangComponents.loadCached("English");
+    StemCache cache = new StemCache(100_000);
+    LanguageComponents cached = english.withStemCache(cache);
+
+    List<String> words = words();
+    for (int round = 0; round < 2; round++) {
+      Stemmer stemmer = english.get(Stemmer.class);
+      Stemmer cachedStemmer = cached.get(Stemmer.class);
+      for (String word : words) {
+        CharSequence expected = stemmer.stem(new MutableCharArray(word));
+        CharSequence actual = cachedStemmer.stem(new MutableCharArray(word));
+        Assertions.assertThat(toString(actual)).as(word).isEqualTo(toString(expected));
+      }
+    }
+
+    Assertions.assertThat(cache.misses()).isEqualTo(cache.size());
+    Assertions.assertThat(cache.hits()).isEqualTo(2L * words.size() - cache.size());
+    Assertions.assertThat(cache.evictions()).isZero();
+  }
+
+  @Test
+  public void testNullStemsAreCached() {
+    AtomicInteger calls = new AtomicInteger();
+    LanguageComponents components =
+        CachedLangComponents.loadCached("English")
+            .override(
+                Stemmer.class,
+                () ->
+                    (word) -> {
+                      calls.incrementAndGet();
+                      return word.length() > 3 ? word.subSequence(0, 3) : null;
+                    })
+            .withStemCache(new StemCache(10));
+
+    Stemmer stemmer = components.get(Stemmer.class);
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertThat(stemmer.stem("abc")).isNull();
+      Assertions.assertThat(toString(stemmer.stem("abcd"))).isEqualTo("abc");
+      Assertions.assertThat(toString(stemmer.stem(new StringBuilder("abcd")))).isEqualTo("abc");
+    }
+    Assertions.assertThat(calls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testEntryLimit() {
+    StemCache cache = new StemCache(64);
+    Stemmer stemmer = new CachingStemmer((word) -> word, cache);
+    for (int i = 0; i < 10_000; i++) {
+      stemmer.stem("word" + i);
+    }
+
+    Assertions.assertThat(cache.size()).isLessThanOrEqualTo(64);
+    Assertions.assertThat(cache.evictions()).isEqualTo(10_000L - cache.size());
+
+    cache.clear();
+    Assertions.assertThat(cache.size()).isZero();
+    Assertions.assertThat(cache.chars()).isZero();
+  }
+
+  @Test
+  public void testCharLimit() {
+    StemCache cache = new StemCache(Integer.MAX_VALUE, 1000);
+    Stemmer stemmer = new CachingStemmer((word) -> word, cache);
+    for (int i = 0; i < 10_000; i++) {
+      stemmer.stem("word" + i);
+    }
+
+    Assertions.assertThat(cache.chars()).isLessThanOrEqualTo(1000);
+    Assertions.assertThat(cache.evictions()).isPositive();
+  }
+
+  @Test
+  public void testRecentlyUsedEntriesRetained() {
+    StemCache cache = new StemCache(1);
+    Stemmer stemmer = new CachingStemmer((word) -> word, cache);
+    stemmer.stem("first");
+    stemmer.stem("second");
+    stemmer.stem("second");
+
+    Assertions.assertThat(cache.size()).isEqualTo(1);
+    Assertions.assertThat(cache.hits()).isEqualTo(1);
+    Assertions.assertThat(cache.evictions()).isEqualTo(1);
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    LanguageComponents english = CachedLangComponents.loadCached("English");
+    LanguageComponents cached = english.withStemCache(new StemCache(randomIntBetween(10, 1000)));
+    List<String> words = words();
+
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> errors = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  Stemmer stemmer = english.get(Stemmer.class);
+                  Stemmer cachedStemmer = cached.get(Stemmer.class);
+                  for (int round = 0; round < 5; round++) {
+                    for (String word : words) {
+                      Assertions.assertThat(toString(cachedStemmer.stem(word)))
+                          .isEqualTo(toString(stemmer.stem(word)));
+                    }
+                  }
+                } catch (Throwable e) {
+                  synchronized (errors) {
+                    errors.add(e);
+                  }
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assertions.assertThat(errors).isEmpty();
+  }
+
+  private static String toString(CharSequence seq) {
+    return seq == null ? null : seq.toString();
+  }
+
+  private static List<String> words() {
+    List<String> words = new ArrayList<>();
+    SampleDocumentData.DOCUMENTS_DATA_MINING.forEach(
+        doc ->
+            doc.visitFields(
+                (field, value) -> {
+                  if (value == null) {
+                    return;
+                  }
+                  for (String word : value.toLowerCase(Locale.ROOT).split("[^\\p{L}]+")) {
+                    if (!word.isEmpty()) {
+                      words.add(word);
+                    }
+                  }
+                }));
+    return words;
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.carrot2.TestBase;
+import org.carrot2.math.mahout.function.DoubleFunction;
+import org.carrot2.math.mahout.function.Functions;
+import org.carrot2.math.mahout.matrix.DoubleMatrix1D;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix1D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.junit.Test;
+
+/** Test cases for {@link CompressedColumnDoubleMatrix2D}. */
+public class CompressedColumnDoubleMatrix2DTest extends TestBase {
+  private final double[][] values =
+      new double[][] {
+        {0.00, 0.00, 0.56, 0.56, 0.00},
+        {0.49, 0.71, 0.00, 0.00, 0.00},
+        {0.00, 0.00, 0.00, 0.00, 0.00},
+        {0.72, 0.00, 0.00, 0.00, 1.00}
+      };
+
+  @Test
+  public void testStructure() {
+    final CompressedColumnDoubleMatrix2D matrix =
+        new CompressedColumnDoubleMatrix2D(
+            4,
+            5,
+            new int[] {0, 2, 3, 4, 5, 6},
+            new int[] {1, 3, 1, 0, 0, 3},
+            new double[] {0.49, 0.72, 0.71, 0.56, 0.56, 1.00});
+
+    MatrixAssertions.assertThat(matrix).isEquivalentTo(values);
+    assertThat(matrix.cardinality()).isEqualTo(6);
+    assertThat(matrix.columnStart(1)).isEqualTo(2);
+    assertThat(matrix.columnEnd(1)).isEqualTo(3);
+    assertThat(matrix.rowIndex(2)).isEqualTo(1);
+    assertThat(matrix.value(2)).isEqualTo(0.71);
+  }
+
+  @Test
+  public void testInconsistentStructure() {
+    assertThatThrownBy(
+            () ->
+                new CompressedColumnDoubleMatrix2D(
+                    4, 2, new int[] {0, 2}, new int[] {0, 1}, new double[] {1, 1}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testTooManyCells() {
+    assertThatThrownBy(() -> new CompressedColumnDoubleMatrix2D(100_000, 100_000))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testAssignFunction() {
+    for (DoubleFunction function :
+        new DoubleFunction[] {
+          Functions.mult(2),
+          Functions.mult(0),
+          Functions.SQRT,
+          Functions.plus(1),
+          value -> value < 0.6 ? 0 : value
+        }) {
+      final DoubleMatrix2D matrix = sparse();
+      final DoubleMatrix2D expected = new DenseDoubleMatrix2D(values);
+      matrix.assign(function);
+      expected.assign(function);
+      MatrixAssertions.assertThat(matrix).isEquivalentTo(expected);
+      assertThat(matrix.cardinality()).isEqualTo(expected.cardinality());
+    }
+  }
+
+  @Test
+  public void testSetQuick() {
+    final DoubleMatrix2D matrix = sparse();
+    MatrixAssertions.assertThat(matrix).isEquivalentTo(values);
+    assertThat(matrix.cardinality()).isEqualTo(6);
+
+    matrix.setQuick(2, 2, 3);
+    matrix.setQuick(0, 0, 2);
+    matrix.setQuick(1, 1, 0);
+    matrix.setQuick(3, 4, 4);
+
+    final DoubleMatrix2D expected = new DenseDoubleMatrix2D(values);
+    expected.setQuick(2, 2, 3);
+    expected.setQuick(0, 0, 2);
+    expected.setQuick(1, 1, 0);
+    expected.setQuick(3, 4, 4);
+    MatrixAssertions.assertThat(matrix).isEquivalentTo(expected);
+    assertThat(matrix.cardinality()).isEqualTo(7);
+  }
+
+  @Test
+  public void testCopy() {
+    final DoubleMatrix2D matrix = sparse();
+    final DoubleMatrix2D copy = matrix.copy();
+    copy.setQuick(0, 2, 0);
+    copy.setQuick(2, 0, 1);
+
+    MatrixAssertions.assertThat(matrix).isEquivalentTo(values);
+    assertThat(copy.get(0, 2)).isEqualTo(0);
+    assertThat(copy.get(2, 0)).isEqualTo(1);
+  }
+
+  @Test
+  public void testViews() {
+    final DoubleMatrix2D matrix = sparse();
+    final DoubleMatrix2D dense = new DenseDoubleMatrix2D(values);
+
+    MatrixAssertions.assertThat(matrix.viewDice()).isEquivalentTo(dense.viewDice());
+    MatrixAssertions.assertThat(matrix.viewPart(1, 1, 3, 3))
+        .isEquivalentTo(dense.viewPart(1, 1, 3, 3));
+    MatrixAssertions.assertThat(matrix.viewSelection(new int[] {3, 0}, new int[] {4, 2, 0}))
+        .isEquivalentTo(dense.viewSelection(new int[] {3, 0}, new int[] {4, 2, 0}));
+    MatrixAssertions.assertThat(matrix.viewColumn(0)).isEquivalentTo(dense.viewColumn(0));
+    MatrixAssertions.assertThat(matrix.viewRow(3)).isEquivalentTo(dense.viewRow(3));
+
+    // Views share the storage with the matrix.
+    matrix.viewDice().setQuick(4, 2, 5);
+    assertThat(matrix.get(2, 4)).isEqualTo(5);
+  }
+
+  @Test
+  public void testCopyColumns() {
+    final DoubleMatrix2D columns = sparse().copyColumns(new int[] {4, 0, 0});
+    MatrixAssertions.assertThat(columns)
+        .isEquivalentTo(new DenseDoubleMatrix2D(values).viewSelection(null, new int[] {4, 0, 0}));
+  }
+
+  @Test
+  public void testForEachNonZero() {
+    final DoubleMatrix2D matrix = sparse();
+    matrix.forEachNonZero((row, column, value) -> row == 1 ? 0 : value * 2);
+
+    final DoubleMatrix2D expected = new DenseDoubleMatrix2D(values);
+    expected.forEachNonZero((row, column, value) -> row == 1 ? 0 : value * 2);
+    MatrixAssertions.assertThat(matrix).isEquivalentTo(expected);
+    assertThat(matrix.cardinality()).isEqualTo(4);
+  }
+
+  @Test
+  public void testZMult() {
+    final DoubleMatrix2D matrix = sparse();
+    final DoubleMatrix2D dense = new DenseDoubleMatrix2D(values);
+    final DoubleMatrix2D B =
+        new DenseDoubleMatrix2D(
+            new double[][] {
+              {0.3, 0.1, 0.2},
+              {0.7, 0.5, 0.6},
+              {0.1, 0.9, 0.4},
+              {0.8, 0.2, 0.3},
+              {0.4, 0.6, 0.5}
+            });
+
+    MatrixAssertions.assertThat(matrix.zMult(B, null, 2, 0, false, false))
+        .isEquivalentTo(dense.zMult(B, null, 2, 0, false, false), 1e-12);
+    MatrixAssertions.assertThat(matrix.zMult(B.viewPart(0, 0, 4, 3), null, 1, 0, true, false))
+        .isEquivalentTo(dense.zMult(B.viewPart(0, 0, 4, 3), null, 1, 0, true, false), 1e-12);
+
+    // Dense by sparse multiplication.
+    final DoubleMatrix2D C = new DenseDoubleMatrix2D(3, 4).assign(1);
+    final DoubleMatrix2D expectedC = C.copy();
+    B.zMult(matrix, C, 1, 0.5, true, true);
+    B.zMult(dense, expectedC, 1, 0.5, true, true);
+    MatrixAssertions.assertThat(C).isEquivalentTo(expectedC, 1e-12);
+
+    // Matrix-vector multiplication.
+    final DoubleMatrix1D y = new DenseDoubleMatrix1D(new double[] {1, 2, 3, 4, 5});
+    MatrixAssertions.assertThat(matrix.zMult(y, null, 1, 0, false))
+        .isEquivalentTo(dense.zMult(y, null, 1, 0, false), 1e-12);
+  }
+
+  @Test
+  public void testNormalizeColumnL2() {
+    final DoubleMatrix2D matrix = sparse();
+    final DoubleMatrix2D dense = new DenseDoubleMatrix2D(values);
+    final double[] work = new double[matrix.columns()];
+    final double[] expectedWork = new double[dense.columns()];
+
+    MatrixUtils.normalizeColumnL2(matrix, work);
+    MatrixUtils.normalizeColumnL2(dense, expectedWork);
+
+    MatrixAssertions.assertThat(matrix).isEquivalentTo(dense);
+    assertThat(work).isEqualTo(expectedWork);
+  }
+
+  private CompressedColumnDoubleMatrix2D sparse() {
+    final CompressedColumnDoubleMatrix2D matrix =
+        new CompressedColumnDoubleMatrix2D(values.length, values[0].length);
+    matrix.assign(values);
+    return matrix;
+  }
+}
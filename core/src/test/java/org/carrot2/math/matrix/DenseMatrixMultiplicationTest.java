@@ -0,0 +1,95 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.math.matrix;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.carrot2.TestBase;
+import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.DenseMatrixMultiplication;
+import org.junit.Test;
+
+/** Test cases for {@link DenseMatrixMultiplication}. */
+public class DenseMatrixMultiplicationTest extends TestBase {
+  @Test
+  public void testMultiplication() {
+    for (int i = 0; i < 100; i++) {
+      final int m = randomIntBetween(1, 20);
+      final int n = randomIntBetween(0, 20);
+      final int p = randomIntBetween(1, 20);
+      final boolean transposeA = randomBoolean();
+      final boolean transposeB = randomBoolean();
+
+      final DoubleMatrix2D A = transposeA ? randomMatrix(n, m) : randomMatrix(m, n);
+      final DoubleMatrix2D B = transposeB ? randomMatrix(p, n) : randomMatrix(n, p);
+      final DoubleMatrix2D C = randomMatrix(m, p);
+      final double alpha = randomDouble();
+      final double beta = randomDouble();
+
+      final double[][] expected = C.toArray();
+      final DoubleMatrix2D a = transposeA ? A.viewDice() : A;
+      final DoubleMatrix2D b = transposeB ? B.viewDice() : B;
+      for (int r = 0; r < m; r++) {
+        for (int c = 0; c < p; c++) {
+          double s = 0;
+          for (int k = 0; k < n; k++) {
+            s += a.get(r, k) * b.get(k, c);
+          }
+          expected[r][c] = alpha * s + beta * expected[r][c];
+        }
+      }
+
+      A.zMult(B, C, alpha, beta, transposeA, transposeB);
+      MatrixAssertions.assertThat(C).isEquivalentTo(expected, 1e-9);
+    }
+  }
+
+  @Test
+  public void testThreadsDoNotChangeResults() {
+    final DoubleMatrix2D A = randomMatrix(randomIntBetween(100, 150), 128);
+    final DoubleMatrix2D B = randomMatrix(randomIntBetween(100, 150), 128);
+
+    final DoubleMatrix2D expected = A.zMult(B, null, 1, 0, false, true);
+    final DoubleMatrix2D actual =
+        DenseMatrixMultiplication.withMaxThreads(
+            randomIntBetween(2, 8), () -> A.zMult(B, null, 1, 0, false, true));
+
+    assertThat(actual.toArray()).isEqualTo(expected.toArray());
+  }
+
+  @Test
+  public void testMaxThreadsRestored() {
+    final int maxThreads =
+        DenseMatrixMultiplication.withMaxThreads(
+            4,
+            () -> {
+              assertThat(DenseMatrixMultiplication.maxThreads()).isEqualTo(4);
+              return DenseMatrixMultiplication.withMaxThreads(
+                  2, DenseMatrixMultiplication::maxThreads);
+            });
+
+    assertThat(maxThreads).isEqualTo(2);
+    assertThat(DenseMatrixMultiplication.maxThreads()).isEqualTo(1);
+    assertThatThrownBy(() -> DenseMatrixMultiplication.withMaxThreads(0, () -> null))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static DoubleMatrix2D randomMatrix(int rows, int columns) {
+    final DoubleMatrix2D matrix = new DenseDoubleMatrix2D(rows, columns);
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < columns; c++) {
+        matrix.setQuick(r, c, randomDouble());
+      }
+    }
+    return matrix;
+  }
+}
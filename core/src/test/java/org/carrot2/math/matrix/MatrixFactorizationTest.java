@@ -11,7 +11,10 @@
 package org.carrot2.math.matrix;
 
 import org.carrot2.TestBase;
+import org.carrot2.math.mahout.function.DoubleDoubleFunction;
+import org.carrot2.math.mahout.function.Functions;
 import org.carrot2.math.mahout.matrix.DoubleMatrix2D;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
 import org.carrot2.math.mahout.matrix.impl.DenseDoubleMatrix2D;
 import org.junit.Test;
 
@@ -74,6 +77,47 @@ public class MatrixFactorizationTest extends TestBase {
     org.junit.Assert.assertArrayEquals(expectedS, factorization.getSingularValues(), DELTA);
   }
 
+  @Test
+  public void testRandomizedSVD() {
+    PartialSingularValueDecompositionFactory exactFactory =
+        new PartialSingularValueDecompositionFactory();
+    exactFactory.setK(K);
+    PartialSingularValueDecomposition exact =
+        (PartialSingularValueDecomposition) exactFactory.factorize(A);
+
+    final DoubleMatrix2D sparse = new CompressedColumnDoubleMatrix2D(A.rows(), A.columns());
+    sparse.assign(A);
+
+    final DoubleMatrix2D expected =
+        reconstruct(exact.getU(), exact.getSingularValues(), exact.getV());
+
+    RandomizedSvdFactorizationFactory factory = new RandomizedSvdFactorizationFactory();
+    factory.setK(K);
+    for (DoubleMatrix2D input : new DoubleMatrix2D[] {A, sparse}) {
+      RandomizedSingularValueDecomposition factorization =
+          (RandomizedSingularValueDecomposition) factory.factorize(input);
+
+      org.junit.Assert.assertArrayEquals(
+          exact.getSingularValues(), factorization.getSingularValues(), DELTA);
+
+      // Singular vectors are defined up to a sign, compare rank-k reconstructions instead.
+      MatrixAssertions.assertThat(
+              reconstruct(
+                  factorization.getU(), factorization.getSingularValues(), factorization.getV()))
+          .isEquivalentTo(expected, DELTA);
+    }
+  }
+
+  private static DoubleMatrix2D reconstruct(DoubleMatrix2D U, double[] s, DoubleMatrix2D V) {
+    final DoubleMatrix2D US = U.copy();
+    for (int c = 0; c < US.columns(); c++) {
+      for (int r = 0; r < US.rows(); r++) {
+        US.setQuick(r, c, US.getQuick(r, c) * s[c]);
+      }
+    }
+    return US.zMult(V, new DenseDoubleMatrix2D(US.rows(), V.rows()), 1, 0, false, true);
+  }
+
   @Test
   public void testUnorderedNMFED() {
     DoubleMatrix2D expectedU =
@@ -104,6 +148,36 @@ public class MatrixFactorizationTest extends TestBase {
     checkIterative(expectedU, expectedV, factory);
   }
 
+  @Test
+  public void testUnorderedNMFHALS() {
+    DoubleMatrix2D expectedU =
+        new DenseDoubleMatrix2D(
+            new double[][] {
+              {1e-9, 0.98045},
+              {1.2575, 1e-9},
+              {1.2575, 1e-9},
+              {0.74699, 1e-9},
+              {1e-9, 0.85771}
+            });
+
+    DoubleMatrix2D expectedV =
+        new DenseDoubleMatrix2D(
+            new double[][] {
+              {0.47579, 1e-9},
+              {0.47995, 1e-9},
+              {1e-9, 0.74307},
+              {1e-9, 0.74307},
+              {0.20078, 1e-9},
+              {0.47995, 1e-9},
+              {1e-9, 0.57777}
+            });
+
+    final NonnegativeMatrixFactorizationHALSFactory factory =
+        new NonnegativeMatrixFactorizationHALSFactory();
+    factory.setOrdered(false);
+    checkIterative(expectedU, expectedV, factory);
+  }
+
   @Test
   public void testKMeans() {
     DoubleMatrix2D expectedU =
@@ -187,6 +261,113 @@ public class MatrixFactorizationTest extends TestBase {
     checkIterative(expectedU, expectedV, new NonnegativeMatrixFactorizationKLFactory());
   }
 
+  @Test
+  public void testNMFKLMatchesDenseUpdates() {
+    checkMatchesDenseUpdates(false);
+  }
+
+  @Test
+  public void testLNMFMatchesDenseUpdates() {
+    checkMatchesDenseUpdates(true);
+  }
+
+  private void checkMatchesDenseUpdates(boolean local) {
+    for (int iter = iterations(5, 20); iter > 0; iter--) {
+      final int rows = randomIntBetween(2, 40);
+      final int columns = randomIntBetween(2, 40);
+      final int k = randomIntBetween(1, Math.min(5, Math.min(rows, columns)));
+      final int seed = randomInt();
+      final double density = 0.05 + 0.45 * randomDouble();
+
+      final DoubleMatrix2D A = new DenseDoubleMatrix2D(rows, columns);
+      for (int r = 0; r < rows; r++) {
+        for (int c = 0; c < columns; c++) {
+          if (randomDouble() < density) {
+            A.setQuick(r, c, randomDouble());
+          }
+        }
+      }
+
+      // The sparse updates omit eps / (UV' + eps) at the zero elements of A. Its contribution to
+      // an element of the updated factors is bounded by rows * eps (V) or columns * eps (U), so a
+      // single update gives the same approximation UV' up to eps-order terms. LNMF takes the
+      // square root of the V update, which turns the bound into sqrt(rows * eps) per element.
+      final double delta = local ? k * Math.sqrt(rows * 1e-9) : 1e-6;
+      MatrixAssertions.assertThat(sparse(A, k, 1, seed, local))
+          .as("UV' after one update")
+          .isEquivalentTo(dense(A, k, 1, seed, local), delta);
+
+      // Multiplicative updates amplify small differences over many iterations, so the factors
+      // may drift apart, but the quality of the approximation stays the same within 1%.
+      final int iterations = randomIntBetween(2, MAX_ITERATIONS);
+      final double sparseError =
+          MatrixUtils.frobeniusNorm(
+              sparse(A, k, iterations, seed, local).assign(A, Functions.MINUS));
+      final double denseError =
+          MatrixUtils.frobeniusNorm(
+              dense(A, k, iterations, seed, local).assign(A, Functions.MINUS));
+      org.junit.Assert.assertEquals(denseError, sparseError, Math.max(denseError * 1e-2, 1e-6));
+    }
+  }
+
+  /**
+   * Returns the approximation UV' computed by {@link NonnegativeMatrixFactorizationKL} or, if
+   * <code>local</code> is <code>true</code>, {@link LocalNonnegativeMatrixFactorization}.
+   */
+  private static DoubleMatrix2D sparse(
+      DoubleMatrix2D A, int k, int iterations, int seed, boolean local) {
+    final IterativeMatrixFactorizationBase factorization =
+        local
+            ? new LocalNonnegativeMatrixFactorization(A)
+            : new NonnegativeMatrixFactorizationKL(A);
+    factorization.setK(k);
+    factorization.setMaxIterations(iterations);
+    factorization.setSeedingStrategy(new RandomSeedingStrategy(seed));
+    factorization.setOrdered(false);
+    factorization.compute();
+    return factorization.getU().zMult(factorization.getV(), null, 1, 0, false, true);
+  }
+
+  /**
+   * Returns the approximation UV' computed by the dense reference implementation of NMF-KL (or
+   * LNMF, if <code>local</code> is <code>true</code>), with eps added at every element of A.
+   */
+  private static DoubleMatrix2D dense(
+      DoubleMatrix2D A, int k, int iterations, int seed, boolean local) {
+    final double eps = 1e-9;
+    final DoubleMatrix2D U = new DenseDoubleMatrix2D(A.rows(), k);
+    final DoubleMatrix2D V = new DenseDoubleMatrix2D(A.columns(), k);
+    new RandomSeedingStrategy(seed).seed(A, U, V);
+
+    final DoubleMatrix2D Aeps = A.copy();
+    Aeps.assign(Functions.plus(eps));
+    final DoubleMatrix2D UV = new DenseDoubleMatrix2D(A.rows(), A.columns());
+    final DoubleMatrix2D VT = new DenseDoubleMatrix2D(A.columns(), k);
+    final DoubleMatrix2D UT = new DenseDoubleMatrix2D(A.rows(), k);
+    final double[] work = new double[k];
+    final DoubleDoubleFunction invDiv = Functions.swapArgs(Functions.DIV);
+    final DoubleDoubleFunction updateV =
+        local ? Functions.chain(Functions.SQRT, Functions.MULT) : Functions.MULT;
+
+    for (int i = 0; i < iterations; i++) {
+      U.zMult(V, UV, 1, 0, false, true);
+      UV.assign(Functions.plus(eps));
+      UV.assign(Aeps, invDiv);
+      UV.zMult(U, VT, 1, 0, true, false);
+      V.assign(VT, updateV);
+
+      U.zMult(V, UV, 1, 0, false, true);
+      UV.assign(Functions.plus(eps));
+      UV.assign(Aeps, invDiv);
+      UV.zMult(V, UT, 1, 0, false, false);
+      U.assign(UT, Functions.MULT);
+
+      MatrixUtils.normalizeColumnL1(U, work);
+    }
+
+    return U.zMult(V, null, 1, 0, false, true);
+  }
+
   @Test
   public void testLNMF() {
     DoubleMatrix2D expectedU =
@@ -214,6 +395,75 @@ public class MatrixFactorizationTest extends TestBase {
     checkIterative(expectedU, expectedV, new LocalNonnegativeMatrixFactorizationFactory());
   }
 
+  @Test
+  public void testCompressedColumnInput() {
+    final DoubleMatrix2D sparse = new CompressedColumnDoubleMatrix2D(A.rows(), A.columns());
+    sparse.assign(A);
+
+    for (IterativeMatrixFactorizationFactory factory :
+        new IterativeMatrixFactorizationFactory[] {
+          new NonnegativeMatrixFactorizationEDFactory(),
+          new NonnegativeMatrixFactorizationHALSFactory(),
+          new NonnegativeMatrixFactorizationKLFactory(),
+          new LocalNonnegativeMatrixFactorizationFactory(),
+          new KMeansMatrixFactorizationFactory()
+        }) {
+      factory.setK(K);
+      factory.setMaxIterations(MAX_ITERATIONS);
+      factory.setStopThreshold(STOP_THRESHOLD);
+      factory.setSeedingFactory(ConstantSeedingStrategyFactory.INSTANCE);
+
+      final MatrixFactorization expected = factory.factorize(A);
+      check(expected.getU(), expected.getV(), factory.factorize(sparse));
+    }
+  }
+
+  @Test
+  public void testApproximationError() {
+    for (IterativeMatrixFactorizationFactory factory :
+        new IterativeMatrixFactorizationFactory[] {
+          new NonnegativeMatrixFactorizationEDFactory(),
+          new NonnegativeMatrixFactorizationHALSFactory(),
+          new NonnegativeMatrixFactorizationKLFactory(),
+          new LocalNonnegativeMatrixFactorizationFactory()
+        }) {
+      factory.setK(K);
+      factory.setMaxIterations(randomIntBetween(1, MAX_ITERATIONS));
+      factory.setStopThreshold(STOP_THRESHOLD);
+      factory.setSeedingFactory(ConstantSeedingStrategyFactory.INSTANCE);
+
+      final IterativeMatrixFactorization factorization =
+          (IterativeMatrixFactorization) factory.factorize(A);
+      final DoubleMatrix2D difference =
+          factorization
+              .getU()
+              .zMult(factorization.getV(), null, 1, 0, false, true)
+              .assign(A, Functions.MINUS);
+      org.junit.Assert.assertEquals(
+          MatrixUtils.frobeniusNorm(difference), factorization.getApproximationError(), 1e-9);
+    }
+  }
+
+  @Test
+  public void testAdaptiveStop() {
+    final NonnegativeMatrixFactorizationEDFactory factory =
+        new NonnegativeMatrixFactorizationEDFactory();
+    factory.setK(K);
+    factory.setMaxIterations(MAX_ITERATIONS);
+    factory.setSeedingFactory(ConstantSeedingStrategyFactory.INSTANCE);
+
+    factory.setStopThreshold(STOP_THRESHOLD);
+    final IterativeMatrixFactorization full = (IterativeMatrixFactorization) factory.factorize(A);
+
+    factory.setStopThreshold(0.01);
+    factory.setAdaptiveStop(true);
+    final IterativeMatrixFactorization adaptive =
+        (IterativeMatrixFactorization) factory.factorize(A);
+    org.junit.Assert.assertTrue(adaptive.getIterationsCompleted() < full.getIterationsCompleted());
+    org.junit.Assert.assertEquals(
+        full.getApproximationError(), adaptive.getApproximationError(), DELTA * 10);
+  }
+
   private MatrixFactorization checkIterative(
       DoubleMatrix2D expectedU,
       DoubleMatrix2D expectedV,
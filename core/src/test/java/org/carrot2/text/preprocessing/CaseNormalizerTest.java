@@ -245,4 +245,81 @@ public class CaseNormalizerTest extends TestBase {
         .withExactDocumentTfs(new int[][] {{1, 1}, {2, 2}});
     Assertions.assertThat(ctx.allWords.image.length).isEqualTo(3);
   }
+
+  @Test
+  public void testHashingIdenticalToSorting() {
+    final String[] letters = {
+      "a", "A", "b", "B", "i", "I", "\u00df", "\u0130", "\u0131", "\u03a3", "\u03c3", "\u03c2",
+      "\u00e9", "\u00c9", "\ud801\udc00", "\ud801\udc28"
+    };
+    final short[] types = {
+      Tokenizer.TT_TERM,
+      Tokenizer.TT_NUMERIC,
+      Tokenizer.TT_PUNCTUATION,
+      Tokenizer.TT_PUNCTUATION | Tokenizer.TF_SEPARATOR_SENTENCE,
+      Tokenizer.TT_FULL_URL
+    };
+
+    for (int iteration = 0; iteration < 100; iteration++) {
+      final String[] vocabulary = new String[randomIntBetween(1, 30)];
+      for (int i = 0; i < vocabulary.length; i++) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = randomIntBetween(1, 3); j > 0; j--) {
+          sb.append(randomFrom(letters));
+        }
+        vocabulary[i] = sb.toString();
+      }
+
+      final int tokenCount = randomIntBetween(1, rarely() ? 3000 : 100);
+      final char[][] images = new char[tokenCount][];
+      final short[] tokenTypes = new short[tokenCount];
+      final int[] documentIndices = new int[tokenCount];
+      final byte[] fieldIndices = new byte[tokenCount];
+      int document = 0;
+      for (int i = 0; i < tokenCount - 1; i++) {
+        if (randomIntBetween(0, 7) == 0) {
+          tokenTypes[i] = Tokenizer.TF_SEPARATOR_DOCUMENT;
+          documentIndices[i] = -1;
+          fieldIndices[i] = -1;
+          document++;
+        } else {
+          images[i] = randomFrom(vocabulary).toCharArray();
+          tokenTypes[i] =
+              randomBoolean() ? Tokenizer.TT_TERM : types[randomIntBetween(0, types.length - 1)];
+          documentIndices[i] = document;
+          fieldIndices[i] = (byte) randomIntBetween(0, 2);
+        }
+      }
+      tokenTypes[tokenCount - 1] = Tokenizer.TF_TERMINATOR;
+      documentIndices[tokenCount - 1] = -1;
+      fieldIndices[tokenCount - 1] = -1;
+
+      final int dfThreshold = randomIntBetween(1, 3);
+      PreprocessingContext[] contexts = new PreprocessingContext[2];
+      for (CaseNormalization caseNormalization : CaseNormalization.values()) {
+        PreprocessingContext context =
+            new PreprocessingContext(CachedLangComponents.loadCached("English"));
+        context.documentCount = document + 1;
+        context.allFields.name = new String[] {"a", "b", "c"};
+        context.allTokens.image = images;
+        context.allTokens.type = tokenTypes;
+        context.allTokens.documentIndex = documentIndices;
+        context.allTokens.fieldIndex = fieldIndices;
+        new CaseNormalizer().normalize(context, dfThreshold, caseNormalization);
+        contexts[caseNormalization.ordinal()] = context;
+      }
+
+      final PreprocessingContext expected = contexts[CaseNormalization.SORTING.ordinal()];
+      final PreprocessingContext actual = contexts[CaseNormalization.HASHING.ordinal()];
+      Assertions.assertThat(actual.allTokens.wordIndex)
+          .containsExactly(expected.allTokens.wordIndex);
+      Assertions.assertThat(actual.allWords.image).containsExactly(expected.allWords.image);
+      Assertions.assertThat(actual.allWords.tf).containsExactly(expected.allWords.tf);
+      Assertions.assertThat(actual.allWords.fieldIndices)
+          .containsExactly(expected.allWords.fieldIndices);
+      Assertions.assertThat(actual.allWords.type).containsExactly(expected.allWords.type);
+      Assertions.assertThat(actual.allWords.tfByDocument)
+          .isEqualTo(expected.allWords.tfByDocument);
+    }
+  }
 }
@@ -0,0 +1,150 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.clustering.CachedLangComponents;
+import org.carrot2.clustering.Document;
+import org.carrot2.clustering.SampleDocumentData;
+import org.carrot2.language.LanguageComponents;
+import org.carrot2.util.MutableCharArray;
+import org.junit.Test;
+
+/** Test cases for {@link PreprocessingArena}. */
+public class PreprocessingArenaTest extends TestBase {
+  private final LanguageComponents english = CachedLangComponents.loadCached("English");
+
+  @Test
+  public void testIdenticalResultsWithArena() {
+    CompletePreprocessingPipeline regular = new CompletePreprocessingPipeline();
+    CompletePreprocessingPipeline withArena = new CompletePreprocessingPipeline();
+    withArena.reuseBuffers.set(true);
+
+    for (List<Document> documents :
+        List.of(
+            SampleDocumentData.DOCUMENTS_DATA_MINING,
+            SampleDocumentData.DOCUMENTS_DAWID,
+            SampleDocumentData.DOCUMENTS_DATA_MINING.subList(0, 10))) {
+      PreprocessingContext expected = regular.preprocess(documents.stream(), "data", english);
+      PreprocessingContext actual = withArena.preprocess(documents.stream(), "data", english);
+      Assertions.assertThat(dump(actual)).isEqualTo(dump(expected));
+    }
+  }
+
+  @Test
+  public void testContextValidAfterArenaReuse() {
+    BasicPreprocessingPipeline pipeline = new BasicPreprocessingPipeline();
+    pipeline.reuseBuffers.set(true);
+
+    PreprocessingContext first =
+        pipeline.preprocess(SampleDocumentData.DOCUMENTS_DATA_MINING.stream(), null, english);
+    String firstDump = dump(first);
+
+    pipeline.preprocess(SampleDocumentData.DOCUMENTS_DAWID.stream(), null, english);
+    Assertions.assertThat(dump(first)).isEqualTo(firstDump);
+  }
+
+  @Test
+  public void testInternedImagesRetainedAcrossCalls() {
+    PreprocessingContext first = new PreprocessingContext(english, true);
+    char[] image = first.intern(new MutableCharArray("mining"));
+    Assertions.assertThat(first.intern(new MutableCharArray("mining"))).isSameAs(image);
+    first.close();
+
+    PreprocessingContext second = new PreprocessingContext(english, true);
+    Assertions.assertThat(second.intern(new MutableCharArray("mining"))).isSameAs(image);
+    Assertions.assertThat(second.intern(new MutableCharArray("Mining"))).isNotSameAs(image);
+    second.close();
+  }
+
+  @Test
+  public void testInternTableGrowth() {
+    PreprocessingArena arena = new PreprocessingArena();
+    int images = randomIntBetween(1000, 5000);
+    int chars = 0;
+    char[][] interned = new char[images][];
+    for (int i = 0; i < images; i++) {
+      String image = "t" + i;
+      interned[i] = arena.intern(new MutableCharArray(image));
+      chars += image.length();
+    }
+
+    Assertions.assertThat(arena.internedImages()).isEqualTo(images);
+    Assertions.assertThat(arena.internedChars()).isEqualTo(chars);
+    for (int i = 0; i < images; i++) {
+      Assertions.assertThat(arena.intern(new MutableCharArray("t" + i))).isSameAs(interned[i]);
+    }
+    Assertions.assertThat(arena.internedImages()).isEqualTo(images);
+  }
+
+  @Test
+  public void testNestedContextsDoNotShareArena() {
+    PreprocessingContext outer = new PreprocessingContext(english, true);
+    PreprocessingContext inner = new PreprocessingContext(english, true);
+    try {
+      Assertions.assertThat(outer.arena).isNotNull();
+      Assertions.assertThat(inner.arena).isNotNull().isNotSameAs(outer.arena);
+      Assertions.assertThat(new String(inner.intern(new MutableCharArray("data"))))
+          .isEqualTo("data");
+    } finally {
+      inner.close();
+      outer.close();
+    }
+  }
+
+  @Test
+  public void testIdleArenasBounded() {
+    List<PreprocessingContext> contexts = new ArrayList<>();
+    for (int i = 0; i < PreprocessingArena.MAX_IDLE_ARENAS + 2; i++) {
+      contexts.add(new PreprocessingContext(english, true));
+    }
+    contexts.forEach(PreprocessingContext::close);
+
+    Assertions.assertThat(PreprocessingArena.idleArenas())
+        .isEqualTo(PreprocessingArena.MAX_IDLE_ARENAS);
+  }
+
+  /**
+   * Returns the context's dump without the first line (which contains the object's hash code).
+   * Document frequency rows are sorted by document first: they are collected in hash maps, so their
+   * order varies from run to run.
+   */
+  static String dump(PreprocessingContext context) {
+    context.allWords.tfByDocument = sortedRows(context.allWords.tfByDocument);
+    context.allStems.tfByDocument = sortedRows(context.allStems.tfByDocument);
+    context.allPhrases.tfByDocument = sortedRows(context.allPhrases.tfByDocument);
+    String dump = context.toString();
+    return dump.substring(dump.indexOf('\n') + 1);
+  }
+
+  private static TfByDocument sortedRows(TfByDocument tfByDocument) {
+    if (tfByDocument == null) {
+      return null;
+    }
+    TfByDocument.Builder builder = TfByDocument.builder(tfByDocument.size());
+    for (int row = 0; row < tfByDocument.size(); row++) {
+      long[] entries = new long[tfByDocument.df(row)];
+      for (int i = 0, j = tfByDocument.start(row); i < entries.length; i++, j++) {
+        entries[i] = ((long) tfByDocument.document(j) << 32) | tfByDocument.tf(j);
+      }
+      Arrays.sort(entries);
+      for (long entry : entries) {
+        builder.add((int) (entry >>> 32), (int) entry);
+      }
+      builder.endRow();
+    }
+    return builder.build();
+  }
+}
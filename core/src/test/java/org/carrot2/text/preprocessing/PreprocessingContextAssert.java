@@ -18,7 +18,6 @@ import org.carrot2.language.TokenTypeUtils;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllPhrases;
 import org.carrot2.text.preprocessing.PreprocessingContext.AllTokens;
 import org.carrot2.util.CharArrayComparators;
-import org.carrot2.util.IntMapUtils;
 import org.carrot2.util.ObjectUtils;
 
 /** Fest-style assertions on the content of {@link PreprocessingContext}. */
@@ -43,7 +42,7 @@ public class PreprocessingContextAssert {
     }
 
     public PreprocessingContextPhraseAssert withDocumentTf(int documentIndex, int expectedTf) {
-      int[] byDocTf = context.allPhrases.tfByDocument[phraseIndex];
+      int[] byDocTf = context.allPhrases.tfByDocument.get(phraseIndex);
       for (int i = 0; i < byDocTf.length; i += 2) {
         if (byDocTf[i] == documentIndex) {
           Assertions.assertThat(expectedTf).isEqualTo(byDocTf[i + 1]);
@@ -71,7 +70,7 @@ public class PreprocessingContextAssert {
         withDocumentTf(docTf[0], docTf[1]);
       }
 
-      Assertions.assertThat(context.allPhrases.tfByDocument[phraseIndex].length / 2)
+      Assertions.assertThat(context.allPhrases.tfByDocument.df(phraseIndex))
           .describedAs(
               "tfByDocument array size for phrase: '"
                   + context.allPhrases.getPhrase(phraseIndex)
@@ -243,7 +242,7 @@ public class PreprocessingContextAssert {
     }
 
     public StemAssert withDocumentTf(int documentIndex, int expectedTf) {
-      int[] byDocTf = context.allStems.tfByDocument[stemIndex];
+      int[] byDocTf = context.allStems.tfByDocument.get(stemIndex);
       for (int i = 0; i < byDocTf.length; i += 2) {
         if (byDocTf[i] == documentIndex) {
           Assertions.assertThat(expectedTf).isEqualTo(byDocTf[i + 1]);
@@ -267,7 +266,7 @@ public class PreprocessingContextAssert {
         withDocumentTf(docTf[0], docTf[1]);
       }
 
-      Assertions.assertThat(context.allStems.tfByDocument[stemIndex].length / 2)
+      Assertions.assertThat(context.allStems.tfByDocument.df(stemIndex))
           .describedAs("tfByDocument array size for stem: '" + stemImage + "'")
           .isEqualTo(docTfPairs.length);
 
@@ -324,7 +323,7 @@ public class PreprocessingContextAssert {
     }
 
     public WordAssert withDocumentTf(int documentIndex, int expectedTf) {
-      int[] byDocTf = context.allWords.tfByDocument[wordIndex];
+      int[] byDocTf = context.allWords.tfByDocument.get(wordIndex);
       for (int i = 0; i < byDocTf.length; i += 2) {
         if (byDocTf[i] == documentIndex) {
           Assertions.assertThat(expectedTf).isEqualTo(byDocTf[i + 1]);
@@ -348,7 +347,7 @@ public class PreprocessingContextAssert {
         withDocumentTf(docTf[0], docTf[1]);
       }
 
-      Assertions.assertThat(context.allWords.tfByDocument[wordIndex].length / 2)
+      Assertions.assertThat(context.allWords.tfByDocument.df(wordIndex))
           .describedAs("tfByDocument array size for word: '" + wordImage + "'")
           .isEqualTo(docTfPairs.length);
 
@@ -534,14 +533,15 @@ public class PreprocessingContextAssert {
           .as("Phrase: " + allPhrases.getPhrase(index))
           .isEqualTo(realTf);
 
-      // Phrase extractor does not sort the byDocumentTf, so we need to addAllFromFlattened
-      // to a map and then flatten with sorting.
-      Assertions.assertThat(
-              IntMapUtils.flattenSortedByKey(
-                  IntMapUtils.addAllFromFlattened(
-                      new IntIntHashMap(), allPhrases.tfByDocument[index])))
+      // Phrase extractor does not sort the byDocumentTf, so we compare them as maps.
+      IntIntHashMap tfByDocuments = new IntIntHashMap();
+      int[] pairs = allPhrases.tfByDocument.get(index);
+      for (int i = 0; i < pairs.length; i += 2) {
+        tfByDocuments.putOrAdd(pairs[i], pairs[i + 1], pairs[i + 1]);
+      }
+      Assertions.assertThat(tfByDocuments)
           .as("Phrase: " + allPhrases.getPhrase(index))
-          .isEqualTo(IntMapUtils.flattenSortedByKey(realTfByDocuments));
+          .isEqualTo(realTfByDocuments);
     }
   }
 
@@ -22,9 +22,6 @@ import org.junit.Test;
 
 /** Test cases for {@link SuffixSorter}. */
 public class SuffixSorterTest extends TestBase {
-  /** Suffix sorter under tests */
-  private SuffixSorter suffixSorter;
-
   /** Other preprocessing components required for the test */
   private InputTokenizer tokenizer;
 
@@ -34,7 +31,6 @@ public class SuffixSorterTest extends TestBase {
   public void setUpPreprocessingComponents() {
     tokenizer = new InputTokenizer();
     caseNormalizer = new CaseNormalizer();
-    suffixSorter = new SuffixSorter();
   }
 
   @Test
@@ -113,13 +109,54 @@ public class SuffixSorterTest extends TestBase {
 
     tokenizer.tokenize(context, documents);
     caseNormalizer.normalize(context, 1);
-    suffixSorter.suffixSort(context);
-
-    Assertions.assertThat(context.allTokens.suffixOrder)
-        .as("allTokens.suffixOrder")
-        .containsExactly(expectedSuffixOrder);
-    Assertions.assertThat(context.allTokens.lcp)
-        .as("allTokens.lcp")
-        .containsExactly(expectedLcpArray);
+
+    for (PhraseExtractor.SuffixSorting algorithm : PhraseExtractor.SuffixSorting.values()) {
+      new SuffixSorter(algorithm).suffixSort(context);
+
+      Assertions.assertThat(context.allTokens.suffixOrder)
+          .as("allTokens.suffixOrder (" + algorithm + ")")
+          .containsExactly(expectedSuffixOrder);
+      Assertions.assertThat(context.allTokens.lcp)
+          .as("allTokens.lcp (" + algorithm + ")")
+          .containsExactly(expectedLcpArray);
+    }
+  }
+
+  @Test
+  public void testSaIsEquivalentToMergesort() {
+    for (int iter = iterations(100, 1000); iter >= 0; iter--) {
+      final int length = randomIntBetween(1, 500);
+      final int alphabet = randomIntBetween(1, 20);
+      final int[] wordIndex = new int[length];
+      for (int i = 0; i < length; i++) {
+        wordIndex[i] =
+            (i == length - 1 || randomIntBetween(0, 10) == 0)
+                ? -1
+                : randomIntBetween(0, alphabet - 1);
+      }
+
+      // Make some inputs repetitive.
+      if (randomBoolean()) {
+        final int period = randomIntBetween(1, 5);
+        for (int i = period; i < length - 1; i++) {
+          if (wordIndex[i] >= 0 && wordIndex[i - period] >= 0) {
+            wordIndex[i] = wordIndex[i - period];
+          }
+        }
+      }
+
+      PreprocessingContext context =
+          new PreprocessingContext(
+              CachedLangComponents.loadCached(TestsLanguageComponentsFactoryVariant2.NAME));
+      context.allTokens.wordIndex = wordIndex;
+
+      new SuffixSorter(PhraseExtractor.SuffixSorting.MERGESORT).suffixSort(context);
+      int[] expectedSuffixOrder = context.allTokens.suffixOrder;
+      int[] expectedLcp = context.allTokens.lcp;
+
+      new SuffixSorter(PhraseExtractor.SuffixSorting.SA_IS).suffixSort(context);
+      Assertions.assertThat(context.allTokens.suffixOrder).containsExactly(expectedSuffixOrder);
+      Assertions.assertThat(context.allTokens.lcp).containsExactly(expectedLcp);
+    }
   }
 }
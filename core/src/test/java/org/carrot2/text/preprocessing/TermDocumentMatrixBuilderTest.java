@@ -18,6 +18,7 @@ import org.carrot2.clustering.CachedLangComponents;
 import org.carrot2.clustering.Document;
 import org.carrot2.clustering.TestDocument;
 import org.carrot2.language.TestsLanguageComponentsFactoryVariant2;
+import org.carrot2.math.mahout.matrix.impl.CompressedColumnDoubleMatrix2D;
 import org.carrot2.math.matrix.MatrixAssertions;
 import org.carrot2.text.vsm.TermDocumentMatrixBuilder;
 import org.carrot2.text.vsm.VectorSpaceModelContext;
@@ -117,6 +118,76 @@ public class TermDocumentMatrixBuilderTest extends TermDocumentMatrixBuilderTest
     check(documents, expectedTdMatrixElements, expectedTdMatrixStemIndices);
   }
 
+  @Test
+  public void testSparseSingleWords() {
+    Stream<TestDocument> documents =
+        Stream.of("aa . bb", "bb . cc", "aa . cc . cc").map(v -> new TestDocument("", v));
+
+    int[] expectedTdMatrixStemIndices = {2, 0, 1};
+
+    double[][] expectedTdMatrixElements = {
+      {0, 1, 2},
+      {1, 0, 1},
+      {1, 1, 0}
+    };
+
+    matrixBuilder.matrixStorage.set(TermDocumentMatrixBuilder.MatrixStorage.SPARSE);
+    check(documents, expectedTdMatrixElements, expectedTdMatrixStemIndices);
+    Assertions.assertThat(vsmContext.termDocumentMatrix)
+        .isInstanceOf(CompressedColumnDoubleMatrix2D.class);
+  }
+
+  @Test
+  public void testSparseMatrixSizeLimit() {
+    Stream<TestDocument> documents =
+        Stream.of("aa . aa", "bb . bb . bb", "cc . cc . cc . cc").map(v -> new TestDocument("", v));
+
+    preprocessingPipeline.documentAssigner.minClusterSize.set(1);
+
+    int[] expectedTdMatrixStemIndices = {2, 1};
+    double[][] expectedTdMatrixElements = {
+      {0, 0, 4},
+      {0, 3, 0}
+    };
+
+    // The limit is the number of non-zero elements for sparse matrices. Skip preconditions.
+    matrixBuilder.matrixStorage.set(TermDocumentMatrixBuilder.MatrixStorage.SPARSE);
+    AttrAccess.forceSet(matrixBuilder.maximumMatrixSize, 2);
+    check(documents, expectedTdMatrixElements, expectedTdMatrixStemIndices);
+  }
+
+  @Test
+  public void testSparseMatrixCellLimit() {
+    // More stems than fit in Integer.MAX_VALUE cells with the document count set below.
+    final int documentCount = 1_000_000;
+    final int maxRows = Integer.MAX_VALUE / documentCount;
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < maxRows + 100; i++) {
+      for (int v = i; v >= 0; v = v / 26 - 1) {
+        content.append((char) ('a' + v % 26));
+      }
+      // The test stemmer drops the last two characters.
+      content.append("zz . ");
+    }
+
+    preprocessingPipeline.documentAssigner.minClusterSize.set(1);
+    PreprocessingContext context =
+        preprocessingPipeline.preprocess(
+            Stream.of(new TestDocument("", content.toString())),
+            null,
+            CachedLangComponents.loadCached(TestsLanguageComponentsFactoryVariant2.NAME));
+    Assertions.assertThat(context.allStems.image.length).isGreaterThan(maxRows);
+
+    // Pretend there are many more (empty) documents, as with a raised matrix size limit.
+    context.documentCount = documentCount;
+    matrixBuilder.matrixStorage.set(TermDocumentMatrixBuilder.MatrixStorage.SPARSE);
+    vsmContext = new VectorSpaceModelContext(context);
+    matrixBuilder.buildTermDocumentMatrix(vsmContext);
+
+    Assertions.assertThat(vsmContext.termDocumentMatrix.rows()).isEqualTo(maxRows);
+    Assertions.assertThat(vsmContext.termDocumentMatrix.columns()).isEqualTo(documentCount);
+  }
+
   @Test
   public void testTitleWordBoost() {
     Stream<TestDocument> documents =
@@ -151,20 +222,15 @@ public class TermDocumentMatrixBuilderTest extends TermDocumentMatrixBuilderTest
 
     // The preprocessing pipeline will produce increasing indices in tfByDocument,
     // so to reproduce the bug, we need to perturb them, e.g. reverse.
-    final int[][] tfByDocument = context.allStems.tfByDocument;
-    for (int s = 0; s < tfByDocument.length; s++) {
-      final int[] stemTfByDocument = tfByDocument[s];
-      for (int i = 0; i < stemTfByDocument.length / 4; i++) {
-        int t = stemTfByDocument[i * 2];
-        stemTfByDocument[i * 2] = stemTfByDocument[(stemTfByDocument.length / 2 - i - 1) * 2];
-        stemTfByDocument[(stemTfByDocument.length / 2 - i - 1) * 2] = t;
-
-        t = stemTfByDocument[i * 2 + 1];
-        stemTfByDocument[i * 2 + 1] =
-            stemTfByDocument[(stemTfByDocument.length / 2 - i - 1) * 2 + 1];
-        stemTfByDocument[(stemTfByDocument.length / 2 - i - 1) * 2 + 1] = t;
+    final TfByDocument tfByDocument = context.allStems.tfByDocument;
+    final TfByDocument.Builder reversed = TfByDocument.builder(tfByDocument.size());
+    for (int s = 0; s < tfByDocument.size(); s++) {
+      for (int j = tfByDocument.end(s) - 1; j >= tfByDocument.start(s); j--) {
+        reversed.add(tfByDocument.document(j), tfByDocument.tf(j));
       }
+      reversed.endRow();
     }
+    context.allStems.tfByDocument = reversed.build();
 
     vsmContext = new VectorSpaceModelContext(context);
     matrixBuilder.buildTermDocumentMatrix(vsmContext);
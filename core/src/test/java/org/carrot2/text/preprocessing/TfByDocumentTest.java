@@ -0,0 +1,71 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.preprocessing;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.junit.Test;
+
+/** Test cases for {@link TfByDocument}. */
+public class TfByDocumentTest extends TestBase {
+  @Test
+  public void testEmpty() {
+    TfByDocument tfByDocument = TfByDocument.builder().build();
+    Assertions.assertThat(tfByDocument.size()).isEqualTo(0);
+    Assertions.assertThat(tfByDocument).isEqualTo(TfByDocument.EMPTY);
+  }
+
+  @Test
+  public void testRows() {
+    IntIntHashMap map = new IntIntHashMap();
+    map.put(7, 3);
+
+    TfByDocument.Builder builder = TfByDocument.builder();
+    builder.addRow(new int[] {2, 15, 138, 7});
+    builder.addRow(new int[0]);
+    builder.add(4, 1).add(5, 2).endRow();
+    builder.addRow(map);
+    TfByDocument tfByDocument = builder.build();
+
+    Assertions.assertThat(tfByDocument.size()).isEqualTo(4);
+    Assertions.assertThat(tfByDocument.df(0)).isEqualTo(2);
+    Assertions.assertThat(tfByDocument.df(1)).isEqualTo(0);
+    Assertions.assertThat(tfByDocument.df(2)).isEqualTo(2);
+    Assertions.assertThat(tfByDocument.df(3)).isEqualTo(1);
+
+    Assertions.assertThat(tfByDocument.get(0)).containsExactly(2, 15, 138, 7);
+    Assertions.assertThat(tfByDocument.get(1)).isEmpty();
+    Assertions.assertThat(tfByDocument.get(2)).containsExactly(4, 1, 5, 2);
+    Assertions.assertThat(tfByDocument.get(3)).containsExactly(7, 3);
+
+    int start = tfByDocument.start(2);
+    Assertions.assertThat(tfByDocument.end(2)).isEqualTo(start + 2);
+    Assertions.assertThat(tfByDocument.document(start)).isEqualTo(4);
+    Assertions.assertThat(tfByDocument.tf(start + 1)).isEqualTo(2);
+  }
+
+  @Test
+  public void testCopyRows() {
+    TfByDocument source =
+        TfByDocument.builder().addRow(new int[] {1, 1}).addRow(new int[] {3, 2, 0, 5}).build();
+
+    TfByDocument.Builder builder = TfByDocument.builder();
+    for (int row = 0; row < source.size(); row++) {
+      builder.addRow(source, row);
+    }
+
+    TfByDocument copy = builder.build();
+    Assertions.assertThat(copy).isEqualTo(source);
+    Assertions.assertThat(copy.hashCode()).isEqualTo(source.hashCode());
+    Assertions.assertThat(copy.toString()).isEqualTo("[[1, 1], [3, 2, 0, 5]]");
+  }
+}
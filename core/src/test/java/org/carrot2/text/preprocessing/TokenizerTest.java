@@ -15,7 +15,14 @@ import static org.carrot2.text.preprocessing.PreprocessingContextAssert.assertTh
 import static org.carrot2.text.preprocessing.PreprocessingContextAssert.tokens;
 import static org.carrot2.text.preprocessing.PreprocessingContextBuilder.FieldValue.fv;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.carrot2.TestBase;
+import org.carrot2.clustering.CachedLangComponents;
+import org.carrot2.clustering.Document;
+import org.carrot2.clustering.FieldMapDocument;
+import org.carrot2.clustering.SampleDocumentData;
+import org.carrot2.language.LanguageComponents;
 import org.carrot2.language.Tokenizer;
 import org.junit.Test;
 
@@ -263,4 +270,51 @@ public class TokenizerTest extends TestBase {
         .containsExactly(
             new short[] {Tokenizer.TT_TERM, Tokenizer.TT_TERM, Tokenizer.TF_TERMINATOR});
   }
+
+  @Test
+  public void testParallelTokenizationIdenticalToSequential() {
+    LanguageComponents english = CachedLangComponents.loadCached("English");
+
+    List<Document> documents = new ArrayList<>(SampleDocumentData.DOCUMENTS_DATA_MINING);
+    // Documents with fields that first appear in later chunks, in a different order.
+    for (int i = 0; i < 20; i++) {
+      FieldMapDocument doc = new FieldMapDocument();
+      if (i % 3 == 0) {
+        doc.addField("extra" + (i % 4), "extra data mining " + i);
+      }
+      doc.addField("snippet", i % 5 == 0 ? "" : "parallel data mining " + i);
+      doc.addField("title", "title " + i);
+      documents.add(randomIntBetween(0, documents.size()), doc);
+    }
+
+    BasicPreprocessingPipeline sequential = new BasicPreprocessingPipeline();
+    BasicPreprocessingPipeline parallel = new BasicPreprocessingPipeline();
+    parallel.parallelTokenization.set(true);
+
+    for (int chunkSize : new int[] {1, randomIntBetween(2, 50), documents.size() + 1}) {
+      parallel.tokenizationChunkSize.set(chunkSize);
+      PreprocessingContext expected = sequential.preprocess(documents.stream(), null, english);
+      PreprocessingContext actual = parallel.preprocess(documents.stream(), null, english);
+
+      assertThat(actual.documentCount).isEqualTo(expected.documentCount);
+      assertThat(actual.allFields.name).containsExactly(expected.allFields.name);
+      assertThat(actual.allTokens.documentIndex).containsExactly(expected.allTokens.documentIndex);
+      assertThat(actual.allTokens.fieldIndex).containsExactly(expected.allTokens.fieldIndex);
+      assertThat(actual.allTokens.type).containsExactly(expected.allTokens.type);
+      assertThat(actual.allTokens.image).isEqualTo(expected.allTokens.image);
+    }
+  }
+
+  @Test
+  public void testParallelTokenizationNoDocuments() {
+    BasicPreprocessingPipeline parallel = new BasicPreprocessingPipeline();
+    parallel.parallelTokenization.set(true);
+    parallel.tokenizationChunkSize.set(1);
+
+    PreprocessingContext ctx =
+        parallel.preprocess(
+            new ArrayList<Document>().stream(), null, CachedLangComponents.loadCached("English"));
+
+    assertThat(ctx.allTokens.type).containsExactly(new short[] {Tokenizer.TF_TERMINATOR});
+  }
 }
@@ -0,0 +1,152 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.text.suffixtree;
+
+import static org.junit.Assert.*;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.carrot2.TestBase;
+import org.junit.Test;
+
+/** Test cases for {@link IntSuffixTree}, validated against {@link SuffixTree}. */
+public class IntSuffixTreeTest extends TestBase {
+  @Test
+  public void testSameAsSuffixTree() {
+    final IntSuffixTree stree = new IntSuffixTree();
+    for (int round = 0; round < 100; round++) {
+      final int[] input = new int[randomIntBetween(1, 500)];
+      final int alphabetSize = randomIntBetween(1, 50);
+      int separator = -1;
+      for (int i = 0; i < input.length; i++) {
+        input[i] = randomIntBetween(0, 5) == 0 ? separator-- : randomIntBetween(0, alphabetSize);
+      }
+      input[input.length - 1] = Integer.MAX_VALUE;
+
+      // The same instance is reused for all rounds.
+      stree.build(input, input.length, null, null);
+      final SuffixTree expected = SuffixTreeBuilder.from(new IntegerSequence(input)).build();
+
+      assertEquals(expected.getStatesCount(), stree.getStatesCount());
+      assertEquals(expected.getTransitionsCount(), stree.getTransitionsCount());
+      assertEquals(paths(input, expected::visit), paths(input, stree::visit));
+
+      for (int i = 0; i < input.length; i++) {
+        assertTrue(stree.containsSuffix(new IntegerSequence(input, i, input.length - i)));
+      }
+      for (int i = 1; i < input.length; i++) {
+        assertFalse(stree.containsSuffix(new IntegerSequence(input, 0, i)));
+      }
+
+      assertTrue(stree.getUsedBytes() <= stree.getAllocatedBytes());
+    }
+  }
+
+  @Test
+  public void testStatesCount() {
+    final CharacterSequence seq = new CharacterSequence("cocoa$");
+    final int[] input = new int[seq.size()];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = seq.objectAt(i);
+    }
+
+    final IntSuffixTree stree = new IntSuffixTree().build(input, input.length, null, null);
+    assertEquals(9, stree.getStatesCount());
+    assertEquals(8, stree.getTransitionsCount());
+  }
+
+  @Test
+  public void testReleaseKeepsNoInputData() throws Exception {
+    final IntSuffixTree stree = new IntSuffixTree();
+    final int[] input = new int[randomIntBetween(10, 500)];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = randomIntBetween(0, 10);
+    }
+    input[input.length - 1] = Integer.MAX_VALUE;
+
+    stree.build(input, input.length, null, null);
+    final long allocated = stree.getAllocatedBytes();
+    stree.release();
+
+    assertReleased(stree);
+    assertEquals(0, stree.getUsedBytes());
+    assertEquals(allocated, stree.getAllocatedBytes());
+
+    // A released tree can be rebuilt.
+    stree.build(input, input.length, null, null);
+    assertTrue(stree.containsSuffix(new IntegerSequence(input, 0, input.length)));
+  }
+
+  /**
+   * Asserts that a released tree holds no reference to the input and no data derived from it, only
+   * cleared arrays kept for reuse.
+   */
+  public static void assertReleased(IntSuffixTree stree) throws IllegalAccessException {
+    for (Field field : IntSuffixTree.class.getDeclaredFields()) {
+      if (Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+
+      field.setAccessible(true);
+      final Object value = field.get(stree);
+      if (value instanceof int[]) {
+        final int[] array = (int[]) value;
+        for (int i = 0; i < array.length; i++) {
+          assertEquals(field.getName() + "[" + i + "]", 0, array[i]);
+        }
+      } else if (value instanceof Integer) {
+        assertEquals(field.getName(), 0, ((Integer) value).intValue());
+      } else if (value instanceof Boolean) {
+        assertFalse(field.getName(), (Boolean) value);
+      } else {
+        assertNull(field.getName(), value);
+      }
+    }
+  }
+
+  private interface Walk {
+    void visit(SuffixTree.IVisitor visitor);
+  }
+
+  /** Collects the labels of paths from the root to all states, sorted. */
+  private static List<String> paths(int[] input, Walk walk) {
+    final List<String> paths = new ArrayList<>();
+    final IntArrayList edges = new IntArrayList();
+    walk.visit(
+        new SuffixTree.VisitorAdapter() {
+          public boolean edge(int fromState, int toState, int startIndex, int endIndex) {
+            edges.add(startIndex, endIndex);
+            return true;
+          }
+
+          public void post(int state) {
+            if (edges.isEmpty()) {
+              return;
+            }
+
+            final StringBuilder buffer = new StringBuilder();
+            for (int i = 0; i < edges.size(); i += 2) {
+              for (int j = edges.get(i); j <= edges.get(i + 1); j++) {
+                buffer.append(input[j]).append(' ');
+              }
+            }
+            paths.add(buffer.toString());
+            edges.removeRange(edges.size() - 2, edges.size());
+          }
+        });
+    Collections.sort(paths);
+    return paths;
+  }
+}
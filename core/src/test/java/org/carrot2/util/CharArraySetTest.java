@@ -0,0 +1,67 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.junit.Test;
+
+/** Test cases for {@link CharArraySet}. */
+public class CharArraySetTest extends TestBase {
+  @Test
+  public void testContains() {
+    CharArraySet set = new CharArraySet(Arrays.asList("the", "of", "a", "the", ""), false);
+    Assertions.assertThat(set.size()).isEqualTo(4);
+
+    Assertions.assertThat(set.contains("the")).isTrue();
+    Assertions.assertThat(set.contains("")).isTrue();
+    Assertions.assertThat(set.contains("The")).isFalse();
+    Assertions.assertThat(set.contains("then")).isFalse();
+    Assertions.assertThat(set.contains(new MutableCharArray("of"))).isTrue();
+
+    char[] buffer = "bathe".toCharArray();
+    Assertions.assertThat(set.contains(buffer, 2, 3)).isTrue();
+    Assertions.assertThat(set.contains(buffer, 1, 1)).isTrue();
+    Assertions.assertThat(set.contains(buffer, 1, 2)).isFalse();
+    Assertions.assertThat(set.contains(new MutableCharArray(buffer, 2, 3))).isTrue();
+  }
+
+  @Test
+  public void testIgnoreCase() {
+    CharArraySet set = new CharArraySet(Arrays.asList("The", "über"), true);
+    Assertions.assertThat(set.contains("the")).isTrue();
+    Assertions.assertThat(set.contains("THE")).isTrue();
+    Assertions.assertThat(set.contains(new MutableCharArray("ÜBER"))).isTrue();
+    Assertions.assertThat(set.contains("uber")).isFalse();
+  }
+
+  @Test
+  public void testRandomized() {
+    HashSet<String> words = new HashSet<>();
+    for (int i = randomIntBetween(0, 500); i > 0; i--) {
+      words.add(randomAsciiLettersOfLengthBetween(1, 6).toLowerCase(Locale.ROOT));
+    }
+
+    CharArraySet set = new CharArraySet(words, true);
+    Assertions.assertThat(set.size()).isEqualTo(words.size());
+    for (int i = 0; i < 1000; i++) {
+      String word = randomAsciiLettersOfLengthBetween(1, 6);
+      boolean expected = words.contains(word.toLowerCase(Locale.ROOT));
+      Assertions.assertThat(set.contains(word)).as(word).isEqualTo(expected);
+
+      char[] buffer = ("  " + word + " ").toCharArray();
+      Assertions.assertThat(set.contains(buffer, 2, word.length())).as(word).isEqualTo(expected);
+    }
+  }
+}
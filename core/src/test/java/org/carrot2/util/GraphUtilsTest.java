@@ -0,0 +1,62 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.util;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.IntArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.junit.Test;
+
+/** Test cases for {@link GraphUtils}. */
+public class GraphUtilsTest extends TestBase {
+  @Test
+  public void testOverlapArcsMatchPredicate() {
+    for (int round = 0; round < 100; round++) {
+      final int setCount = randomIntBetween(0, 30);
+      final int elementCount = randomIntBetween(1, 200);
+      final BitSet[] sets = new BitSet[setCount];
+      for (int i = 0; i < setCount; i++) {
+        sets[i] = new BitSet();
+        final int cardinality = randomIntBetween(0, elementCount / 4);
+        for (int j = 0; j < cardinality; j++) {
+          sets[i].set(randomIntBetween(0, elementCount - 1));
+        }
+      }
+
+      final double threshold = randomIntBetween(1, 20) / 20.0;
+      final GraphUtils.IOverlapPredicate predicate =
+          (cardinalityA, cardinalityB, intersection) ->
+              intersection / (double) Math.max(cardinalityA, cardinalityB) >= threshold;
+
+      final List<IntArrayList> expected =
+          GraphUtils.findCoherentSubgraphs(
+              setCount,
+              (a, b) ->
+                  predicate.isArcPresent(
+                      (int) sets[a].cardinality(),
+                      (int) sets[b].cardinality(),
+                      (int) BitSet.intersectionCount(sets[a], sets[b])),
+              true);
+
+      Assertions.assertThat(
+              GraphUtils.findCoherentSubgraphs(GraphUtils.findOverlapArcs(sets, predicate), true))
+          .isEqualTo(expected);
+
+      Assertions.assertThat(
+              GraphUtils.findOverlapArcs(
+                  sets, predicate, ForkJoinPool.commonPool(), randomIntBetween(1, 10)))
+          .isEqualTo(GraphUtils.findOverlapArcs(sets, predicate));
+    }
+  }
+}
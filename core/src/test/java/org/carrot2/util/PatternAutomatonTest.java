@@ -0,0 +1,112 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.junit.Test;
+
+/** Test cases for {@link PatternAutomaton}. */
+public class PatternAutomatonTest extends TestBase {
+  @Test
+  public void testSameAsPattern() {
+    String[][] cases = {
+      {"abc", "abc", "ab", "abcd", "ABC"},
+      {"(?i)abc", "abc", "ABC", "aBc", "ab"},
+      {"(?i)a|b", "A", "B", "c"},
+      {"((?i)a)b", "Ab", "AB", "ab"},
+      {"a(?i:b)c", "aBc", "aBC"},
+      {"(?i)(?-i)a", "a", "A"},
+      {"(?i)é", "é", "É"},
+      {"colou?rs?", "color", "colours", "colouur"},
+      {"(ab)*c", "c", "ababc", "abac"},
+      {"(ab)+c", "c", "ababc"},
+      {"a??b|(x|)*y", "b", "ab", "y", "xxy", "xx"},
+      {"x\\+y", "x+y", "xy", "xxy"},
+      {"page \\d+.*", "page 12", "page 1 of 2", "page x", "page ٣"},
+      {".*(known|a range)", "known", "well known", "a range", "rangea"},
+      {".", "a", "\n", " ", "😀"},
+      {"..", "ab", "😀"},
+      {"()", "", "a"},
+    };
+
+    for (String[] c : cases) {
+      PatternAutomaton automaton = PatternAutomaton.compile(Arrays.asList(c[0]));
+      Pattern pattern = Pattern.compile(c[0]);
+      for (int i = 1; i < c.length; i++) {
+        Assertions.assertThat(automaton.matches(c[i]))
+            .as(c[0] + " ~ " + c[i])
+            .isEqualTo(pattern.matcher(c[i]).matches());
+      }
+    }
+  }
+
+  @Test
+  public void testUnion() {
+    List<String> patterns =
+        Arrays.asList("(?i)(new|list|pages?)", "(?i)information (about|on).*", ".*copyright \\d+");
+
+    PatternAutomaton automaton = PatternAutomaton.compile(patterns);
+    Pattern union = Pattern.compile("(" + String.join(")|(", patterns) + ")");
+    for (String label :
+        Arrays.asList(
+            "New",
+            "Pages",
+            "Paged",
+            "information about us",
+            "Information",
+            "site copyright 2020",
+            "Copyright 2020",
+            "")) {
+      Assertions.assertThat(automaton.matches(label))
+          .as(label)
+          .isEqualTo(union.matcher(label).matches());
+    }
+  }
+
+  @Test
+  public void testRandomized() {
+    List<String> patterns = Arrays.asList("(?i)(ab|b)*a?", "(ba)+.*c", "a(\\d|b)+");
+    PatternAutomaton automaton = PatternAutomaton.compile(patterns);
+    Pattern union = Pattern.compile("(" + String.join(")|(", patterns) + ")");
+
+    for (int i = 0; i < 1000; i++) {
+      StringBuilder b = new StringBuilder();
+      for (int j = randomIntBetween(0, 8); j > 0; j--) {
+        b.append(randomFrom(new Character[] {'a', 'A', 'b', 'B', 'c', '1', ' '}));
+      }
+      String label = b.toString();
+      Assertions.assertThat(automaton.matches(label))
+          .as(label)
+          .isEqualTo(union.matcher(label).matches());
+    }
+  }
+
+  @Test
+  public void testUnsupported() {
+    for (String pattern :
+        Arrays.asList("a{2}", "[ab]", "\\w+", "a*+", "^a", "(?s).", "(?<g>a)", "(a", "a)", "\\1")) {
+      Assertions.assertThat(PatternAutomaton.isSupported(pattern)).as(pattern).isFalse();
+      Assertions.assertThatThrownBy(() -> PatternAutomaton.compile(Arrays.asList(pattern)))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  public void testMaxStates() {
+    Assertions.assertThatThrownBy(
+            () -> PatternAutomaton.compile(Arrays.asList(".*a.........."), 100))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.carrot2.dcs.model.ErrorResponseType;
+
+/**
+ * Limits the number of requests processed concurrently. Requests over the limit wait in a bounded
+ * queue, suspended with servlet async support so that they don't hold container threads, and are
+ * dispatched again once a permit is released. Requests that don't fit in the queue or time out
+ * waiting are rejected.
+ */
+final class AdmissionControl {
+  /** Request attribute with the admission state of a queued request. */
+  private static final String ATTR_ADMISSION = AdmissionControl.class.getName() + ".admission";
+
+  private static final String ADMITTED = "admitted";
+  private static final String TIMED_OUT = "timedOut";
+
+  private final int maxConcurrent;
+  private final int maxQueued;
+  private final long queueTimeoutMillis;
+
+  /** Permits currently held (requests in flight). */
+  private int inFlight;
+
+  /** Suspended requests waiting for a permit. */
+  private final ArrayDeque<AsyncContext> queue = new ArrayDeque<>();
+
+  AdmissionControl(int maxConcurrent, int maxQueued, long queueTimeoutMillis) {
+    if (maxConcurrent <= 0) {
+      throw new IllegalArgumentException("Concurrency limit must be positive: " + maxConcurrent);
+    }
+    if (maxQueued < 0) {
+      throw new IllegalArgumentException("Queue size must not be negative: " + maxQueued);
+    }
+    // A zero async timeout means no timeout at all, queued requests could wait forever.
+    if (queueTimeoutMillis <= 0 && maxQueued > 0) {
+      throw new IllegalArgumentException(
+          "Queue timeout must be positive if requests can be queued: " + queueTimeoutMillis);
+    }
+    this.maxConcurrent = maxConcurrent;
+    this.maxQueued = maxQueued;
+    this.queueTimeoutMillis = queueTimeoutMillis;
+  }
+
+  /**
+   * Admits the request for processing. The caller must {@link #release()} the permit once the
+   * request has been processed.
+   *
+   * @return Returns <code>true</code> if the request holds a permit and can be processed. <code>
+   *     false</code> means the request has been suspended and queued, it will be dispatched again
+   *     once admitted or when it times out.
+   * @throws TerminateRequestException If the request is rejected because of overload.
+   */
+  boolean admit(HttpServletRequest request, HttpServletResponse response)
+      throws TerminateRequestException {
+    Object admission = request.getAttribute(ATTR_ADMISSION);
+    if (admission != null) {
+      // A queued request, dispatched again.
+      request.removeAttribute(ATTR_ADMISSION);
+      if (ADMITTED.equals(admission)) {
+        return true;
+      } else {
+        throw reject(response, "Timed out waiting for admission.");
+      }
+    }
+
+    synchronized (this) {
+      if (inFlight < maxConcurrent) {
+        inFlight++;
+        return true;
+      }
+
+      if (queue.size() >= maxQueued || !request.isAsyncSupported()) {
+        throw reject(response, "Too many concurrent requests.");
+      }
+
+      AsyncContext asyncContext = request.startAsync();
+      asyncContext.setTimeout(queueTimeoutMillis);
+      asyncContext.addListener(new QueueListener(asyncContext));
+      queue.add(asyncContext);
+      return false;
+    }
+  }
+
+  /** Releases a permit, passing it to the first queued request, if any. */
+  void release() {
+    while (true) {
+      AsyncContext next;
+      synchronized (this) {
+        next = queue.poll();
+        if (next == null) {
+          inFlight--;
+          assert inFlight >= 0;
+          return;
+        }
+      }
+
+      try {
+        next.getRequest().setAttribute(ATTR_ADMISSION, ADMITTED);
+        next.dispatch();
+        return;
+      } catch (IllegalStateException e) {
+        // The request has completed or timed out in the meantime, try the next one.
+      }
+    }
+  }
+
+  private synchronized boolean dequeue(AsyncContext asyncContext) {
+    return queue.remove(asyncContext);
+  }
+
+  private TerminateRequestException reject(HttpServletResponse response, String message) {
+    // Suggest retrying after the time a queued request could wait (but at least a second).
+    long retryAfter = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMillis));
+    response.setHeader("Retry-After", Long.toString(retryAfter));
+    return new TerminateRequestException(ErrorResponseType.SERVICE_OVERLOADED, message);
+  }
+
+  /** Removes timed out or failed requests from the queue. */
+  private class QueueListener implements AsyncListener {
+    private final AsyncContext asyncContext;
+
+    QueueListener(AsyncContext asyncContext) {
+      this.asyncContext = asyncContext;
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) throws IOException {
+      if (dequeue(asyncContext)) {
+        asyncContext.getRequest().setAttribute(ATTR_ADMISSION, TIMED_OUT);
+        asyncContext.dispatch();
+      }
+    }
+
+    @Override
+    public void onError(AsyncEvent event) throws IOException {
+      dequeue(asyncContext);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) throws IOException {}
+
+    @Override
+    public void onStartAsync(AsyncEvent event) throws IOException {}
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.carrot2.clustering.ClusteringAlgorithm;
+import org.carrot2.dcs.model.ClusterRequest;
+
+/**
+ * Pools of idle algorithm instances, preconfigured with a template's parameters. Instances are
+ * pooled per algorithm and template and can be reused as long as their attributes are in the
+ * template's state.
+ */
+final class AlgorithmPool {
+  /** The maximum number of idle instances kept for each algorithm and template. */
+  private final int maxIdle;
+
+  /** Idle instances, keyed by algorithm name and template (compared by identity). */
+  private final Map<List<Object>, ArrayDeque<ClusteringAlgorithm>> idle = new HashMap<>();
+
+  AlgorithmPool(int maxIdle) {
+    this.maxIdle = maxIdle;
+  }
+
+  /**
+   * Acquires an instance of the algorithm in the template's state, reusing an idle instance if
+   * available. Otherwise a new instance is created with <code>factory</code>.
+   */
+  Lease acquire(
+      String algorithmName, ClusterRequest template, Supplier<ClusteringAlgorithm> factory) {
+    List<Object> key = List.of(algorithmName, template);
+
+    ClusteringAlgorithm algorithm;
+    synchronized (idle) {
+      ArrayDeque<ClusteringAlgorithm> instances = idle.get(key);
+      algorithm = instances == null ? null : instances.pollLast();
+    }
+
+    if (algorithm == null) {
+      algorithm = factory.get();
+    }
+
+    return new Lease(key, algorithm);
+  }
+
+  private void release(List<Object> key, ClusteringAlgorithm algorithm) {
+    synchronized (idle) {
+      ArrayDeque<ClusteringAlgorithm> instances =
+          idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+      if (instances.size() < maxIdle) {
+        instances.addLast(algorithm);
+      }
+    }
+  }
+
+  /**
+   * An acquired algorithm instance, returned to the pool when closed, but only if clustering
+   * completed normally and the instance wasn't modified. Otherwise it is discarded: an instance
+   * abandoned by an interrupted or failed request may still be running or be left in an
+   * inconsistent state.
+   */
+  final class Lease implements AutoCloseable {
+    private final List<Object> key;
+    private boolean reusable = true;
+    private boolean completed;
+
+    final ClusteringAlgorithm algorithm;
+
+    private Lease(List<Object> key, ClusteringAlgorithm algorithm) {
+      this.key = key;
+      this.algorithm = algorithm;
+    }
+
+    /**
+     * Marks the instance as modified (no longer in the template's state), so that it is discarded
+     * instead of returned to the pool.
+     */
+    void markModified() {
+      reusable = false;
+    }
+
+    /** Marks clustering with the instance as completed normally. */
+    void completed() {
+      completed = true;
+    }
+
+    @Override
+    public void close() {
+      if (reusable && completed) {
+        reusable = false;
+        release(key, algorithm);
+      }
+    }
+  }
+}
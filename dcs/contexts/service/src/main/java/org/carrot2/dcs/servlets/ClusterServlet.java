@@ -11,13 +11,36 @@
 package org.carrot2.dcs.servlets;
 
 import com.carrotsearch.hppc.cursors.IntCursor;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -39,14 +62,25 @@ import org.carrot2.language.LanguageComponents;
 public class ClusterServlet extends RestEndpoint {
   public static final String PARAM_SERVICE_INFO = "serviceInfo";
 
+  /**
+   * Parse the request with a streaming parser and hand documents over to the clustering algorithm
+   * as they are parsed, without deserializing the entire request first. In this mode documents must
+   * be the last property of the request.
+   */
+  public static final String PARAM_STREAMING = "streaming";
+
+  /** Detects virtual threads (only available in Java 21 and later). */
+  private static final Predicate<Thread> IS_VIRTUAL_THREAD = virtualThreadPredicate();
+
   private DcsContext dcsContext;
   private ClusterRequest templateDefault = new ClusterRequest();
 
+  @JsonSerialize(using = DocumentRefSerializer.class)
   private static class DocumentRef implements Document {
     int ord;
-    ClusterRequest.Document source;
+    Document source;
 
-    public DocumentRef(ClusterRequest.Document doc, int ord) {
+    public DocumentRef(Document doc, int ord) {
       this.source = doc;
       this.ord = ord;
     }
@@ -60,6 +94,35 @@ public class ClusterServlet extends RestEndpoint {
     }
   }
 
+  /** Writes documents as their ordinals in the request. */
+  private static class DocumentRefSerializer extends StdSerializer<DocumentRef> {
+    public DocumentRefSerializer() {
+      super(DocumentRef.class);
+    }
+
+    @Override
+    public void serialize(DocumentRef value, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      gen.writeNumber(value.ord);
+    }
+  }
+
+  /**
+   * Serialized the same way as {@link ClusterResponse}, so that clusters of {@link DocumentRef}s
+   * don't have to be copied into clusters of ordinals.
+   */
+  @JsonPropertyOrder({"clusters", "serviceInfo"})
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private static class DocumentRefClusterResponse {
+    @JsonProperty public List<Cluster<DocumentRef>> clusters;
+
+    @JsonProperty public ServiceInfo serviceInfo;
+
+    public DocumentRefClusterResponse(List<Cluster<DocumentRef>> clusters) {
+      this.clusters = clusters;
+    }
+  }
+
   @Override
   public void init(ServletConfig config) throws ServletException {
     super.init(config);
@@ -67,32 +130,55 @@ public class ClusterServlet extends RestEndpoint {
     dcsContext = DcsContext.load(config.getServletContext());
   }
 
+  @Override
+  public void destroy() {
+    dcsContext.destroy();
+    super.destroy();
+  }
+
   @Override
   protected void doPost(HttpServletRequest request, HttpServletResponse response)
       throws IOException {
-    // TODO: support streaming mode in which the request is not fully deserialized but parsed and
-    // processed on the fly?
+    try {
+      if (!dcsContext.admissionControl.admit(request, response)) {
+        // The request is queued and will be dispatched again once admitted or timed out.
+        return;
+      }
+    } catch (Exception e) {
+      handleException(request, response, e);
+      return;
+    }
 
     try {
       ServiceInfo serviceInfo = new ServiceInfo();
 
       Stopwatch swRequest = new Stopwatch();
       ClusterRequest template = parseTemplate(request);
-      ClusterRequest clusteringRequest = parseRequest(request);
 
-      ClusteringAlgorithm algorithm = parseAlgorithm(template, clusteringRequest);
+      List<Cluster<DocumentRef>> clusters;
+      if (isEnabled(request, PARAM_STREAMING)) {
+        // Parsing and clustering overlap in streaming mode.
+        Stopwatch swClustering = new Stopwatch();
+        clusters = parseAndRunClustering(request, template);
+        serviceInfo.clusteringTimeMillis = swClustering.elapsedMillis();
+      } else {
+        ClusterRequest clusteringRequest = parseRequest(request);
 
-      // Get language components for the designated language.
-      LanguageComponents language = getLanguage(template, clusteringRequest);
+        try (AlgorithmPool.Lease lease = parseAlgorithm(template, clusteringRequest)) {
+          // Get language components for the designated language.
+          LanguageComponents language = getLanguage(template, clusteringRequest);
 
-      // Run the clustering.
-      Stopwatch swClustering = new Stopwatch();
-      List<Cluster<DocumentRef>> clusters = runClustering(clusteringRequest, algorithm, language);
-      serviceInfo.clusteringTimeMillis = swClustering.elapsedMillis();
+          // Run the clustering.
+          Stopwatch swClustering = new Stopwatch();
+          clusters = runClustering(clusteringRequest, lease.algorithm, language);
+          lease.completed();
+          serviceInfo.clusteringTimeMillis = swClustering.elapsedMillis();
+        }
+      }
 
-      ClusterResponse clusterResponse = new ClusterResponse(adapt(clusters));
       serviceInfo.requestHandlingTimeMillis = swRequest.elapsedMillis();
 
+      DocumentRefClusterResponse clusterResponse = new DocumentRefClusterResponse(clusters);
       if (isEnabled(request, PARAM_SERVICE_INFO)) {
         clusterResponse.serviceInfo = serviceInfo;
       }
@@ -100,10 +186,17 @@ public class ClusterServlet extends RestEndpoint {
       writeJsonResponse(response, shouldIndent(request), clusterResponse);
     } catch (Exception e) {
       handleException(request, response, e);
+    } finally {
+      dcsContext.admissionControl.release();
     }
   }
 
-  private ClusteringAlgorithm parseAlgorithm(
+  /**
+   * Acquires an instance of the requested algorithm from the pool, configured with the template's
+   * and request's parameters. The lease must be marked completed once the clustering is done
+   * and then closed.
+   */
+  private AlgorithmPool.Lease parseAlgorithm(
       ClusterRequest template, ClusterRequest clusteringRequest) throws TerminateRequestException {
     String algorithmName = firstNotNull(clusteringRequest.algorithm, template.algorithm);
     if (algorithmName == null) {
@@ -117,20 +210,35 @@ public class ClusterServlet extends RestEndpoint {
     }
 
     Function<String, Object> classFromName = AliasMapper.SPI_DEFAULTS::fromName;
-    ClusteringAlgorithm algorithm = supplier.get();
 
+    AlgorithmPool.Lease lease;
     try {
-      if (template.parameters != null) {
-        Attrs.populate(algorithm, template.parameters, classFromName);
-      }
-      if (clusteringRequest.parameters != null) {
-        Attrs.populate(algorithm, clusteringRequest.parameters, classFromName);
-      }
+      lease =
+          dcsContext.algorithmPool.acquire(
+              algorithmName,
+              template,
+              () -> {
+                ClusteringAlgorithm algorithm = supplier.get();
+                if (template.parameters != null) {
+                  Attrs.populate(algorithm, template.parameters, classFromName);
+                }
+                return algorithm;
+              });
     } catch (IllegalArgumentException e) {
       throw new TerminateRequestException(ErrorResponseType.BAD_REQUEST, e.getMessage(), e);
     }
 
-    return algorithm;
+    if (clusteringRequest.parameters != null && !clusteringRequest.parameters.isEmpty()) {
+      // Request-specific parameters, the instance can't be reused for the template.
+      lease.markModified();
+      try {
+        Attrs.populate(lease.algorithm, clusteringRequest.parameters, classFromName);
+      } catch (IllegalArgumentException e) {
+        throw new TerminateRequestException(ErrorResponseType.BAD_REQUEST, e.getMessage(), e);
+      }
+    }
+
+    return lease;
   }
 
   private static String firstNotNull(String first, String... other) {
@@ -178,31 +286,238 @@ public class ClusterServlet extends RestEndpoint {
     return language;
   }
 
-  private List<Cluster<Integer>> adapt(List<Cluster<DocumentRef>> clusters) {
-    return clusters.stream()
-        .map(
-            c -> {
-              Cluster<Integer> clone = new Cluster<>();
-              clone.setScore(c.getScore());
-              c.getLabels().forEach(clone::addLabel);
-              c.getDocuments().forEach(doc -> clone.addDocument(doc.ord));
-              adapt(c.getClusters()).forEach(clone::addCluster);
-              return clone;
-            })
-        .collect(Collectors.toList());
-  }
-
   private List<Cluster<DocumentRef>> runClustering(
       ClusterRequest clusteringRequest,
       ClusteringAlgorithm algorithm,
-      LanguageComponents language) {
+      LanguageComponents language)
+      throws Exception {
     IntCursor c = new IntCursor();
     Stream<DocumentRef> stream =
         clusteringRequest.documents.stream()
             .sequential()
             .map(doc -> new DocumentRef(doc, c.value++));
 
-    return algorithm.cluster(stream, language);
+    return runOnPlatformThread(
+        dcsContext.clusteringExecutor, () -> algorithm.cluster(stream, language));
+  }
+
+  /**
+   * Runs the task on the bounded pool of platform threads if the request is handled by a virtual
+   * thread, so that CPU-bound clustering doesn't compete with request I/O. Otherwise the task is
+   * executed in the calling thread.
+   */
+  static <T> T runOnPlatformThread(ExecutorService executor, Callable<T> task) throws Exception {
+    if (!IS_VIRTUAL_THREAD.test(Thread.currentThread())) {
+      return task.call();
+    }
+
+    Future<T> future = executor.submit(task);
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw e;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw e;
+      }
+    }
+  }
+
+  private static Predicate<Thread> virtualThreadPredicate() {
+    Method isVirtual;
+    try {
+      isVirtual = Thread.class.getMethod("isVirtual");
+    } catch (NoSuchMethodException e) {
+      return thread -> false;
+    }
+
+    return thread -> {
+      try {
+        return (Boolean) isVirtual.invoke(thread);
+      } catch (ReflectiveOperationException e) {
+        throw new RuntimeException(e);
+      }
+    };
+  }
+
+  /**
+   * Parses the request with a streaming parser. Documents are parsed one by one, as the clustering
+   * algorithm consumes them, so the algorithm, language and parameters must precede them in the
+   * request.
+   */
+  private List<Cluster<DocumentRef>> parseAndRunClustering(
+      HttpServletRequest request, ClusterRequest template) throws Exception {
+    ClusterRequest clusteringRequest = new ClusterRequest();
+    try (JsonParser parser =
+        dcsContext
+            .om
+            .getFactory()
+            .createParser(new BufferedInputStream(request.getInputStream()))) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected a JSON object.");
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String property = parser.getCurrentName();
+        parser.nextToken();
+        switch (property) {
+          case "language":
+            clusteringRequest.language = parser.getValueAsString();
+            break;
+          case "algorithm":
+            clusteringRequest.algorithm = parser.getValueAsString();
+            break;
+          case "parameters":
+            clusteringRequest.parameters =
+                parser.readValueAs(new TypeReference<Map<String, Object>>() {});
+            break;
+          case "documents":
+            try (AlgorithmPool.Lease lease = parseAlgorithm(template, clusteringRequest)) {
+              LanguageComponents language = getLanguage(template, clusteringRequest);
+              // Documents are read from the request as the algorithm consumes them, in
+              // whichever thread runs the clustering.
+              Stream<DocumentRef> documents = parseDocuments(parser);
+              List<Cluster<DocumentRef>> clusters =
+                  runOnPlatformThread(
+                      dcsContext.clusteringExecutor,
+                      () -> lease.algorithm.cluster(documents, language));
+              lease.completed();
+              return clusters;
+            }
+          default:
+            throw new JsonParseException(parser, "Unrecognized property: " + property);
+        }
+      }
+
+      if (parser.currentToken() != JsonToken.END_OBJECT) {
+        throw new JsonParseException(parser, "Expected the end of a JSON object.");
+      }
+    } catch (IOException | UncheckedIOException e) {
+      throw new TerminateRequestException(
+          ErrorResponseType.BAD_REQUEST, "Could not parse request body.", e);
+    } catch (UncheckedTerminateRequestException e) {
+      throw e.getCause();
+    }
+
+    // No documents in the request.
+    try (AlgorithmPool.Lease lease = parseAlgorithm(template, clusteringRequest)) {
+      List<Cluster<DocumentRef>> clusters =
+          runClustering(
+              clusteringRequest, lease.algorithm, getLanguage(template, clusteringRequest));
+      lease.completed();
+      return clusters;
+    }
+  }
+
+  /**
+   * Returns a lazy stream of documents parsed from the current array value of the parser. Each
+   * document's fields are kept only until the document is visited. The end of the request is
+   * verified as soon as the last document has been parsed, so that clustering doesn't proceed past
+   * the input of a malformed request.
+   */
+  private static Stream<DocumentRef> parseDocuments(JsonParser parser) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+      expectEndOfRequest(parser);
+      return Stream.empty();
+    }
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      throw new JsonParseException(parser, "Expected an array of documents.");
+    }
+
+    Spliterator<DocumentRef> documents =
+        new Spliterators.AbstractSpliterator<DocumentRef>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+          int ord;
+
+          @Override
+          public boolean tryAdvance(Consumer<? super DocumentRef> action) {
+            try {
+              JsonToken token = parser.nextToken();
+              if (token == JsonToken.END_ARRAY) {
+                expectEndOfRequest(parser);
+                return false;
+              }
+              if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a document object.");
+              }
+              action.accept(new DocumentRef(parseDocument(parser), ord++));
+              return true;
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }
+        };
+    return StreamSupport.stream(documents, false);
+  }
+
+  /** Documents must be the last property of a streamed request. */
+  private static void expectEndOfRequest(JsonParser parser) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == JsonToken.FIELD_NAME) {
+      throw new UncheckedTerminateRequestException(
+          new TerminateRequestException(
+              ErrorResponseType.BAD_REQUEST,
+              "Documents must be the last property of a streamed request: "
+                  + parser.getCurrentName()));
+    }
+    if (token != JsonToken.END_OBJECT) {
+      throw new JsonParseException(parser, "Expected the end of a JSON object.");
+    }
+  }
+
+  /** Carries a {@link TerminateRequestException} out of the lazily parsed document stream. */
+  @SuppressWarnings("serial")
+  private static class UncheckedTerminateRequestException extends RuntimeException {
+    UncheckedTerminateRequestException(TerminateRequestException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized TerminateRequestException getCause() {
+      return (TerminateRequestException) super.getCause();
+    }
+  }
+
+  /**
+   * Parses a single document object. Field values can be strings or arrays of strings, as in
+   * {@link ClusterRequest.Document.FromJsonMap}.
+   */
+  private static Document parseDocument(JsonParser parser) throws IOException {
+    // Field names and values, interleaved.
+    ArrayList<String> fields = new ArrayList<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.VALUE_STRING) {
+        fields.add(field);
+        fields.add(parser.getText());
+      } else if (token == JsonToken.START_ARRAY) {
+        while ((token = parser.nextToken()) == JsonToken.VALUE_STRING) {
+          fields.add(field);
+          fields.add(parser.getText());
+        }
+        if (token != JsonToken.END_ARRAY) {
+          throw new JsonParseException(
+              parser, "Document's field values can be of type String or String[]: " + field);
+        }
+      } else {
+        throw new JsonParseException(
+            parser, "Document's field values can be of type String or String[]: " + field);
+      }
+    }
+
+    return (fieldConsumer) -> {
+      for (int i = 0; i < fields.size(); i += 2) {
+        fieldConsumer.accept(fields.get(i), fields.get(i + 1));
+      }
+    };
   }
 
   private ClusterRequest parseRequest(HttpServletRequest request) throws TerminateRequestException {
@@ -23,6 +23,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -45,6 +48,9 @@ class DcsContext {
   public static final String PARAM_RESOURCES = "resources";
   public static final String PARAM_TEMPLATES = "templates";
   public static final String PARAM_ALGORITHMS = "algorithms";
+  public static final String PARAM_MAX_CONCURRENT_REQUESTS = "maxConcurrentRequests";
+  public static final String PARAM_MAX_QUEUED_REQUESTS = "maxQueuedRequests";
+  public static final String PARAM_QUEUE_TIMEOUT_MILLIS = "queueTimeoutMillis";
 
   private static String KEY = "_dcs_";
   private static Logger console = LoggerFactory.getLogger("console");
@@ -56,6 +62,16 @@ class DcsContext {
   final LinkedHashMap<String, ClusteringAlgorithmProvider> algorithmSuppliers;
   final LinkedHashMap<String, List<String>> algorithmLanguages;
   final ClassLoader cl = this.getClass().getClassLoader();
+  final AdmissionControl admissionControl;
+
+  /**
+   * Bounded pool of platform threads for clustering requests handled by virtual threads (the pool
+   * has as many threads as there are concurrent requests permitted by {@link #admissionControl}).
+   */
+  final ExecutorService clusteringExecutor;
+
+  /** Idle algorithm instances, at most as many per template as there are concurrent requests. */
+  final AlgorithmPool algorithmPool;
 
   private DcsContext(ServletContext servletContext) throws ServletException {
     this.om = new ObjectMapper();
@@ -100,12 +116,66 @@ class DcsContext {
 
     this.algorithmLanguages = computeAlgorithmLanguagePairs(algorithmSuppliers, languages.values());
 
+    int maxConcurrent =
+        getIntParameter(
+            servletContext,
+            PARAM_MAX_CONCURRENT_REQUESTS,
+            Runtime.getRuntime().availableProcessors());
+    this.admissionControl = createAdmissionControl(servletContext, maxConcurrent);
+    this.clusteringExecutor = createClusteringExecutor(maxConcurrent);
+    this.algorithmPool = new AlgorithmPool(maxConcurrent);
+
     console.info(
         "DCS context initialized [algorithms: {}, templates: {}]",
         algorithmSuppliers.keySet(),
         templates.keySet());
   }
 
+  private static AdmissionControl createAdmissionControl(
+      ServletContext servletContext, int maxConcurrent) throws ServletException {
+    int maxQueued = getIntParameter(servletContext, PARAM_MAX_QUEUED_REQUESTS, 100);
+    int queueTimeout = getIntParameter(servletContext, PARAM_QUEUE_TIMEOUT_MILLIS, 30_000);
+
+    console.debug(
+        "Admission control [concurrent requests: {}, queued requests: {}, queue timeout: {}ms]",
+        maxConcurrent,
+        maxQueued,
+        queueTimeout);
+
+    try {
+      return new AdmissionControl(maxConcurrent, maxQueued, queueTimeout);
+    } catch (IllegalArgumentException e) {
+      throw new ServletException("Invalid admission control parameters.", e);
+    }
+  }
+
+  private static ExecutorService createClusteringExecutor(int threads) {
+    AtomicInteger tid = new AtomicInteger();
+    // Threads are only started when tasks are submitted.
+    return Executors.newFixedThreadPool(
+        threads,
+        runnable -> {
+          Thread thread = new Thread(runnable, "clustering-" + tid.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static int getIntParameter(ServletContext servletContext, String name, int defValue)
+      throws ServletException {
+    String value = servletContext.getInitParameter(name);
+    if (value == null || value.isBlank()) {
+      return defValue;
+    }
+
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new ServletException(
+          String.format(Locale.ROOT, "Init parameter %s is not an integer: %s", name, value), e);
+    }
+  }
+
   private static boolean isAlgorithmAvailable(
       ClusteringAlgorithmProvider provider, Collection<LanguageComponents> languages) {
     ClusteringAlgorithm algorithm = provider.get();
@@ -180,6 +250,11 @@ class DcsContext {
     return algorithmLanguages;
   }
 
+  /** Releases resources of this context. Clustering tasks in progress are allowed to finish. */
+  void destroy() {
+    clusteringExecutor.shutdown();
+  }
+
   public static synchronized DcsContext load(ServletContext servletContext)
       throws ServletException {
     DcsContext context = (DcsContext) servletContext.getAttribute(KEY);
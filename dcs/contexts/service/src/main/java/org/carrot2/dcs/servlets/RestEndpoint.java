@@ -10,6 +10,7 @@
  */
 package org.carrot2.dcs.servlets;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -46,6 +47,9 @@ class RestEndpoint extends HttpServlet {
   private static Logger CONSOLE = LoggerFactory.getLogger("console");
   private ObjectMapper om;
 
+  private ObjectWriter writer;
+  private ObjectWriter indentingWriter;
+
   private ArrayList<ErrorResponseHandler> errorResponseHandlers;
 
   @Override
@@ -71,6 +75,14 @@ class RestEndpoint extends HttpServlet {
         });
 
     this.om = new ObjectMapper();
+    // Leave the response writer open so that an error response can still be sent if
+    // serialization fails.
+    om.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    DefaultPrettyPrinter pp = new DefaultPrettyPrinter();
+    pp.indentArraysWith(new DefaultIndenter("  ", DefaultIndenter.SYS_LF));
+    this.writer = om.writer();
+    this.indentingWriter = writer.with(pp);
   }
 
   @Override
@@ -109,6 +121,8 @@ class RestEndpoint extends HttpServlet {
             "Request resulted in an error {}: {}", type, request.getRequestURI(), exception);
       }
 
+      // Discard any partially written output.
+      response.resetBuffer();
       response.setStatus(type.httpStatusCode);
       writeJsonResponse(response, true, errorResponse);
     }
@@ -118,14 +132,7 @@ class RestEndpoint extends HttpServlet {
       HttpServletResponse response, boolean indent, Object jsonResponse) throws IOException {
     response.setContentType(CONTENT_TYPE_JSON_UTF8);
 
-    ObjectWriter writer = om.writer();
-    if (indent) {
-      DefaultPrettyPrinter pp = new DefaultPrettyPrinter();
-      pp.indentArraysWith(new DefaultIndenter("  ", DefaultIndenter.SYS_LF));
-      writer = writer.with(pp);
-    }
-
-    writer.writeValue(response.getWriter(), jsonResponse);
+    (indent ? indentingWriter : writer).writeValue(response.getWriter(), jsonResponse);
   }
 
   protected boolean shouldIndent(HttpServletRequest request) {
@@ -0,0 +1,143 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.dcs.model.ErrorResponseType;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class AdmissionControlTest extends TestBase {
+  @Test
+  public void testAdmitsUpToLimit() throws Exception {
+    AdmissionControl ac = new AdmissionControl(2, 0, 1000);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    Assertions.assertThat(ac.admit(mockRequest(), response)).isTrue();
+    Assertions.assertThat(ac.admit(mockRequest(), response)).isTrue();
+    assertRejected(ac, mockRequest());
+
+    ac.release();
+    Assertions.assertThat(ac.admit(mockRequest(), response)).isTrue();
+  }
+
+  @Test
+  public void testQueuedRequestAdmittedOnRelease() throws Exception {
+    AdmissionControl ac = new AdmissionControl(1, 1, 1000);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    Assertions.assertThat(ac.admit(mockRequest(), response)).isTrue();
+
+    HttpServletRequest queued = mockRequest();
+    AsyncContext asyncContext = queued.startAsync();
+    Assertions.assertThat(ac.admit(queued, response)).isFalse();
+    verify(asyncContext).setTimeout(1000);
+
+    // The queue is full.
+    assertRejected(ac, mockRequest());
+
+    // Releasing the permit dispatches the queued request, which is then admitted.
+    ac.release();
+    verify(asyncContext).dispatch();
+    Assertions.assertThat(ac.admit(queued, response)).isTrue();
+
+    // The permit was handed over, not released: the next request has to wait.
+    Assertions.assertThat(ac.admit(mockRequest(), response)).isFalse();
+  }
+
+  @Test
+  public void testQueueTimeoutMustBePositive() {
+    Assertions.assertThatThrownBy(() -> new AdmissionControl(1, 1, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    // Without a queue the timeout is irrelevant.
+    new AdmissionControl(1, 0, 0);
+  }
+
+  @Test
+  public void testQueuedRequestTimeout() throws Exception {
+    AdmissionControl ac = new AdmissionControl(1, 1, 1000);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    Assertions.assertThat(ac.admit(mockRequest(), response)).isTrue();
+
+    HttpServletRequest queued = mockRequest();
+    AsyncContext asyncContext = queued.startAsync();
+    Assertions.assertThat(ac.admit(queued, response)).isFalse();
+
+    ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    verify(asyncContext).addListener(listener.capture());
+    listener.getValue().onTimeout(null);
+    verify(asyncContext).dispatch();
+    assertRejected(ac, queued);
+
+    // The timed out request left the queue, the next one can wait.
+    HttpServletRequest next = mockRequest();
+    Assertions.assertThat(ac.admit(next, response)).isFalse();
+    ac.release();
+    verify(next.startAsync()).dispatch();
+  }
+
+  @Test
+  public void testRejectsWithoutAsyncSupport() throws Exception {
+    AdmissionControl ac = new AdmissionControl(1, 10, 1000);
+    Assertions.assertThat(ac.admit(mockRequest(), mock(HttpServletResponse.class))).isTrue();
+
+    HttpServletRequest request = mockRequest();
+    when(request.isAsyncSupported()).thenReturn(false);
+    assertRejected(ac, request);
+    verify(request, never()).startAsync();
+  }
+
+  private static void assertRejected(AdmissionControl ac, HttpServletRequest request) {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    Assertions.assertThatThrownBy(() -> ac.admit(request, response))
+        .isInstanceOfSatisfying(
+            TerminateRequestException.class,
+            e -> Assertions.assertThat(e.type).isEqualTo(ErrorResponseType.SERVICE_OVERLOADED));
+    verify(response).setHeader("Retry-After", "1");
+  }
+
+  /** A mock request supporting async processing, with working attributes. */
+  private static HttpServletRequest mockRequest() {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    Map<String, Object> attributes = new HashMap<>();
+    when(request.getAttribute(anyString()))
+        .thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+    doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+        .when(request)
+        .setAttribute(anyString(), any());
+    doAnswer(invocation -> attributes.remove(invocation.<String>getArgument(0)))
+        .when(request)
+        .removeAttribute(anyString());
+
+    AsyncContext asyncContext = mock(AsyncContext.class);
+    when(asyncContext.getRequest()).thenReturn(request);
+    when(request.isAsyncSupported()).thenReturn(true);
+    when(request.startAsync()).thenReturn(asyncContext);
+    return request;
+  }
+}
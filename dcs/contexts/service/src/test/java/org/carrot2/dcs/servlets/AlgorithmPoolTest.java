@@ -0,0 +1,125 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.servlets;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.carrot2.clustering.ClusteringAlgorithm;
+import org.carrot2.dcs.model.ClusterRequest;
+import org.junit.Test;
+
+public class AlgorithmPoolTest extends TestBase {
+  private final AtomicInteger created = new AtomicInteger();
+  private final Supplier<ClusteringAlgorithm> factory =
+      () -> {
+        created.incrementAndGet();
+        return mock(ClusteringAlgorithm.class);
+      };
+
+  @Test
+  public void testInstancesReused() {
+    AlgorithmPool pool = new AlgorithmPool(2);
+    ClusterRequest template = new ClusterRequest();
+
+    ClusteringAlgorithm first;
+    try (AlgorithmPool.Lease lease = pool.acquire("A", template, factory)) {
+      first = lease.algorithm;
+      lease.completed();
+    }
+
+    try (AlgorithmPool.Lease lease = pool.acquire("A", template, factory)) {
+      Assertions.assertThat(lease.algorithm).isSameAs(first);
+    }
+    Assertions.assertThat(created.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testInstancesPooledPerAlgorithmAndTemplate() {
+    AlgorithmPool pool = new AlgorithmPool(2);
+    ClusterRequest template1 = new ClusterRequest();
+    ClusterRequest template2 = new ClusterRequest();
+
+    release(pool.acquire("A", template1, factory));
+    release(pool.acquire("B", template1, factory));
+    release(pool.acquire("A", template2, factory));
+    Assertions.assertThat(created.get()).isEqualTo(3);
+
+    release(pool.acquire("A", template1, factory));
+    release(pool.acquire("B", template1, factory));
+    release(pool.acquire("A", template2, factory));
+    Assertions.assertThat(created.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void testModifiedInstancesDiscarded() {
+    AlgorithmPool pool = new AlgorithmPool(2);
+    ClusterRequest template = new ClusterRequest();
+
+    ClusteringAlgorithm modified;
+    try (AlgorithmPool.Lease lease = pool.acquire("A", template, factory)) {
+      lease.markModified();
+      lease.completed();
+      modified = lease.algorithm;
+    }
+
+    try (AlgorithmPool.Lease lease = pool.acquire("A", template, factory)) {
+      Assertions.assertThat(lease.algorithm).isNotSameAs(modified);
+    }
+    Assertions.assertThat(created.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testIdleInstancesBounded() {
+    AlgorithmPool pool = new AlgorithmPool(2);
+    ClusterRequest template = new ClusterRequest();
+
+    AlgorithmPool.Lease lease1 = pool.acquire("A", template, factory);
+    AlgorithmPool.Lease lease2 = pool.acquire("A", template, factory);
+    AlgorithmPool.Lease lease3 = pool.acquire("A", template, factory);
+    release(lease1);
+    release(lease2);
+    release(lease3);
+    // Closing twice has no effect.
+    lease3.close();
+    Assertions.assertThat(created.get()).isEqualTo(3);
+
+    for (int i = 0; i < 3; i++) {
+      pool.acquire("A", template, factory);
+    }
+    Assertions.assertThat(created.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void testIncompleteInstancesDiscarded() {
+    AlgorithmPool pool = new AlgorithmPool(2);
+    ClusterRequest template = new ClusterRequest();
+
+    ClusteringAlgorithm abandoned;
+    try (AlgorithmPool.Lease lease = pool.acquire("A", template, factory)) {
+      // Clustering failed or was interrupted.
+      abandoned = lease.algorithm;
+    }
+
+    try (AlgorithmPool.Lease lease = pool.acquire("A", template, factory)) {
+      Assertions.assertThat(lease.algorithm).isNotSameAs(abandoned);
+    }
+    Assertions.assertThat(created.get()).isEqualTo(2);
+  }
+
+  private static void release(AlgorithmPool.Lease lease) {
+    lease.completed();
+    lease.close();
+  }
+}
@@ -12,6 +12,8 @@ package org.carrot2.dcs.servlets;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.util.DefaultIndenter;
@@ -19,12 +21,19 @@ import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.http.HttpServletResponse;
 import org.assertj.core.api.Assertions;
 import org.carrot2.dcs.model.ClusterResponse;
 import org.carrot2.dcs.model.ClusterServletParameters;
 import org.carrot2.dcs.model.ErrorResponse;
+import org.carrot2.dcs.model.ErrorResponseType;
 import org.junit.Test;
 
 public class ClusterServletTest extends AbstractServletTest {
@@ -75,6 +84,106 @@ public class ClusterServletTest extends AbstractServletTest {
         "extraUnusedAttr.response.json");
   }
 
+  @Test
+  public void testStreamingRequest() throws Exception {
+    when(request.getParameter(ClusterServlet.PARAM_STREAMING)).thenReturn("true");
+    verifyRequest("simple.request.json", "simple.response.json");
+  }
+
+  @Test
+  public void testStreamingFieldsWithMultivalues() throws Exception {
+    when(request.getParameter(ClusterServlet.PARAM_STREAMING)).thenReturn("true");
+    verifyRequest("multivalues.request.json", "multivalues.response.json");
+  }
+
+  @Test
+  public void testStreamingTemplateRequest() throws Exception {
+    setupMockTemplates("template1.json", "template2.json");
+
+    when(request.getParameter(ClusterServlet.PARAM_STREAMING)).thenReturn("true");
+    when(request.getParameter(ClusterServletParameters.PARAM_TEMPLATE)).thenReturn("template1");
+    verifyRequest("template.request.json", "template.response.json");
+  }
+
+  @Test
+  public void testStreamingAttrInRequest() throws Exception {
+    when(request.getParameter(ClusterServlet.PARAM_STREAMING)).thenReturn("true");
+    verifyRequest("attrInRequest.request.json", "attrInRequest.response.json");
+  }
+
+  @Test
+  public void testStreamingPropertyOrder() throws Exception {
+    when(request.getParameter(ClusterServlet.PARAM_STREAMING)).thenReturn("true");
+    verifyInvalidRequest(
+        HttpServletResponse.SC_BAD_REQUEST,
+        "streamingPropertyOrder.request.json",
+        "streamingPropertyOrder.response.json");
+  }
+
+  @Test
+  public void testClusteringInPlatformRequestThread() throws Exception {
+    ExecutorService executor = mock(ExecutorService.class);
+    Assertions.assertThat(ClusterServlet.runOnPlatformThread(executor, Thread::currentThread))
+        .isSameAs(Thread.currentThread());
+    verifyNoInteractions(executor);
+
+    Assertions.assertThatThrownBy(
+            () ->
+                ClusterServlet.runOnPlatformThread(
+                    executor,
+                    () -> {
+                      throw new TerminateRequestException(ErrorResponseType.BAD_REQUEST, "Error.");
+                    }))
+        .isInstanceOf(TerminateRequestException.class)
+        .hasMessage("Error.");
+  }
+
+  @Test
+  public void testClusteringInVirtualRequestThread() throws Exception {
+    Method startVirtualThread;
+    try {
+      startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+    } catch (NoSuchMethodException e) {
+      assumeTrue("Virtual threads require Java 21 or later.", false);
+      return;
+    }
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      List<Object> results = new ArrayList<>();
+      Thread thread =
+          (Thread)
+              startVirtualThread.invoke(
+                  null,
+                  (Runnable)
+                      () -> {
+                        try {
+                          results.add(
+                              ClusterServlet.runOnPlatformThread(executor, Thread::currentThread));
+                          results.add(
+                              ClusterServlet.runOnPlatformThread(
+                                  executor,
+                                  () -> {
+                                    throw new TerminateRequestException(
+                                        ErrorResponseType.BAD_REQUEST, "Error.");
+                                  }));
+                        } catch (Exception e) {
+                          results.add(e);
+                        }
+                      });
+      thread.join();
+
+      Assertions.assertThat(results).hasSize(2);
+      Assertions.assertThat(results.get(0)).isInstanceOf(Thread.class).isNotSameAs(thread);
+      Assertions.assertThat(results.get(1))
+          .isInstanceOf(TerminateRequestException.class)
+          .hasFieldOrPropertyWithValue("message", "Error.");
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
   private void verifyInvalidRequest(
       int expectedStatus, String requestResource, String responseResource) throws Exception {
     String requestData = resourceString(requestResource);
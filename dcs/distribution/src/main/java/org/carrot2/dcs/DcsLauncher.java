@@ -44,6 +44,7 @@ public class DcsLauncher extends Command<ExitCode> {
   public static final String OPT_PORT = "--port";
   public static final String OPT_HOME = "--home";
   public static final String OPT_MAX_THREADS = "--threads";
+  public static final String OPT_VIRTUAL_THREADS = "--virtual-threads";
 
   @Parameter(
       names = {"-p", OPT_PORT},
@@ -61,6 +62,15 @@ public class DcsLauncher extends Command<ExitCode> {
       hidden = true)
   public Integer maxThreads;
 
+  @Parameter(
+      names = {OPT_VIRTUAL_THREADS},
+      description =
+          "Handle requests on virtual threads (requires Java 21 or later). Clustering runs on"
+              + " a separate, bounded pool of platform threads. Request bodies are read on"
+              + " virtual threads pinned to their carriers, so slow clients should be buffered by"
+              + " a proxy or -Djdk.virtualThreadScheduler.parallelism raised.")
+  public boolean virtualThreads;
+
   @Parameter(
       names = {OPT_SHUTDOWN_TOKEN},
       description = "Shutdown service's validation token.")
@@ -75,7 +85,9 @@ public class DcsLauncher extends Command<ExitCode> {
   @Override
   public ExitCode run() {
     try {
-      JettyContainer c = new JettyContainer(port, home.resolve("web"), shutdownToken, maxThreads);
+      JettyContainer c =
+          new JettyContainer(
+              port, home.resolve("web"), shutdownToken, maxThreads, virtualThreads);
       c.start();
       c.join();
       return ExitCodes.SUCCESS;
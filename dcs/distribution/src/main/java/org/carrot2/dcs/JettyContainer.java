@@ -20,9 +20,19 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpChannelOverHttp;
+import org.eclipse.jetty.server.HttpConnection;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ContextHandler;
@@ -46,12 +56,26 @@ public class JettyContainer {
   private Server server;
   private ServerConnector connector;
   private Integer maxThreads;
+  private boolean virtualThreads;
 
   public JettyContainer(int port, Path contexts, String shutdownToken, Integer maxThreads) {
+    this(port, contexts, shutdownToken, maxThreads, false);
+  }
+
+  /**
+   * @param virtualThreads If <code>true</code>, requests are handled by virtual threads (this
+   *     requires Java 21 or later), while the connector keeps its acceptors and selectors on the
+   *     pool of platform threads. The service then runs the CPU-bound clustering on its own,
+   *     bounded pool of platform threads. See {@link DispatchingHttpConnectionFactory} for the
+   *     limits of this mode.
+   */
+  public JettyContainer(
+      int port, Path contexts, String shutdownToken, Integer maxThreads, boolean virtualThreads) {
     this.port = port;
     this.webappContexts = contexts;
     this.shutdownToken = shutdownToken;
     this.maxThreads = maxThreads;
+    this.virtualThreads = virtualThreads;
   }
 
   public void start() throws Exception {
@@ -194,10 +218,99 @@ public class JettyContainer {
     }
 
     Server server = new Server(threadPool);
-    connector = new ServerConnector(server);
+    if (virtualThreads) {
+      // Acceptors and selectors stay on the platform thread pool, only request handling is
+      // dispatched to virtual threads.
+      ExecutorService executor = createVirtualThreadExecutor();
+      connector = new ServerConnector(server, new DispatchingHttpConnectionFactory(executor));
+      server.addLifeCycleListener(
+          new AbstractLifeCycleListener() {
+            @Override
+            public void lifeCycleStopped(LifeCycle event) {
+              executor.shutdown();
+            }
+          });
+    } else {
+      connector = new ServerConnector(server);
+    }
     connector.setPort(port);
     server.addConnector(connector);
     server.addLifeCycleListener(createLifecycleLogger(server, connector));
     return server;
   }
+
+  /**
+   * Creates an executor starting a new virtual thread for each task. The API is only available in
+   * Java 21 and later, so we access it via reflection.
+   */
+  static ExecutorService createVirtualThreadExecutor() {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "V", 1L);
+      ThreadFactory threadFactory =
+          (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService)
+          Executors.class
+              .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+              .invoke(null, threadFactory);
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(
+          "Virtual threads are not available, Java 21 or later is required: "
+              + System.getProperty("java.version"),
+          e);
+    }
+  }
+
+  /**
+   * Creates HTTP connections which parse and handle requests (including asynchronous dispatches)
+   * on the given executor instead of the connector's thread pool.
+   *
+   * <p>Jetty 9.4 has no built-in support for virtual threads, so this factory overrides {@link
+   * HttpConnection#onFillable()} and {@link HttpChannelOverHttp#execute(Runnable)}, which are
+   * Jetty internals and must be revisited whenever Jetty is upgraded.
+   *
+   * <p>Note the limit of this mode: blocking reads of the request body ({@code
+   * HttpInput.blockForContent}) wait on a monitor inside a {@code synchronized} block, which pins
+   * the virtual thread to its carrier thread. The number of carrier threads defaults to the number
+   * of CPU cores, so as many clients slowly sending their request bodies stall all other virtual
+   * threads until their data arrives. If slow clients are expected, put a buffering proxy in front
+   * of the service or raise the number of carrier threads with the {@code
+   * jdk.virtualThreadScheduler.parallelism} system property.
+   */
+  static class DispatchingHttpConnectionFactory extends HttpConnectionFactory {
+    private final Executor executor;
+
+    DispatchingHttpConnectionFactory(Executor executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    public Connection newConnection(Connector connector, EndPoint endPoint) {
+      HttpConnection connection =
+          new HttpConnection(
+              getHttpConfiguration(),
+              connector,
+              endPoint,
+              getHttpCompliance(),
+              isRecordHttpComplianceViolations()) {
+            @Override
+            public void onFillable() {
+              executor.execute(super::onFillable);
+            }
+
+            @Override
+            protected HttpChannelOverHttp newHttpChannel() {
+              return new HttpChannelOverHttp(
+                  this, getConnector(), getHttpConfiguration(), getEndPoint(), this) {
+                @Override
+                public void execute(Runnable task) {
+                  executor.execute(task);
+                }
+              };
+            }
+          };
+      return configure(connection, connector, endPoint);
+    }
+  }
 }
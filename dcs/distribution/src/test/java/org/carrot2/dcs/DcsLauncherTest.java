@@ -0,0 +1,62 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs;
+
+import com.carrotsearch.console.jcommander.JCommander;
+import com.carrotsearch.console.jcommander.ParameterException;
+import com.carrotsearch.console.launcher.PathConverter;
+import java.nio.file.Paths;
+import org.assertj.core.api.Assertions;
+import org.carrot2.TestBase;
+import org.junit.Test;
+
+public class DcsLauncherTest extends TestBase {
+  @Test
+  public void testDefaults() {
+    DcsLauncher launcher = parse();
+    Assertions.assertThat(launcher.port).isEqualTo(8080);
+    Assertions.assertThat(launcher.home).isNull();
+    Assertions.assertThat(launcher.maxThreads).isNull();
+    Assertions.assertThat(launcher.virtualThreads).isFalse();
+    Assertions.assertThat(launcher.shutdownToken).isNull();
+  }
+
+  @Test
+  public void testOptions() {
+    DcsLauncher launcher =
+        parse("-p", "9090", DcsLauncher.OPT_HOME, "dcs", DcsLauncher.OPT_MAX_THREADS, "20");
+    Assertions.assertThat(launcher.port).isEqualTo(9090);
+    Assertions.assertThat(launcher.home).isEqualTo(Paths.get("dcs"));
+    Assertions.assertThat(launcher.maxThreads).isEqualTo(20);
+    Assertions.assertThat(launcher.virtualThreads).isFalse();
+
+    launcher = parse(DcsLauncher.OPT_VIRTUAL_THREADS, DcsLauncher.OPT_SHUTDOWN_TOKEN, "token");
+    Assertions.assertThat(launcher.virtualThreads).isTrue();
+    Assertions.assertThat(launcher.shutdownToken).isEqualTo("token");
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    Assertions.assertThatThrownBy(() -> parse(DcsLauncher.OPT_MAX_THREADS, "many"))
+        .isInstanceOf(ParameterException.class);
+    Assertions.assertThatThrownBy(() -> parse("--unknown"))
+        .isInstanceOf(ParameterException.class);
+  }
+
+  private static DcsLauncher parse(String... args) {
+    DcsLauncher launcher = new DcsLauncher();
+    JCommander jc = new JCommander(launcher);
+    // The launcher's converter, as used by Launcher.
+    jc.addConverterFactory(new PathConverter());
+    jc.parse(args);
+    return launcher;
+  }
+}
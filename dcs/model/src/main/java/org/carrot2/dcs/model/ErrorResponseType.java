@@ -15,7 +15,8 @@ import java.net.HttpURLConnection;
 public enum ErrorResponseType {
   BAD_REQUEST(HttpURLConnection.HTTP_BAD_REQUEST),
   LICENSING(HttpURLConnection.HTTP_INTERNAL_ERROR),
-  UNHANDLED_ERROR(HttpURLConnection.HTTP_INTERNAL_ERROR);
+  UNHANDLED_ERROR(HttpURLConnection.HTTP_INTERNAL_ERROR),
+  SERVICE_OVERLOADED(HttpURLConnection.HTTP_UNAVAILABLE);
 
   public final int httpStatusCode;
 
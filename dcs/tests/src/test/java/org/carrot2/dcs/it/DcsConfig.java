@@ -21,6 +21,8 @@ public class DcsConfig {
 
   boolean enableTestServlet;
 
+  boolean virtualThreads;
+
   public DcsConfig(Path distributionDir, String shutdownToken) {
     this.shutdownToken = Objects.requireNonNull(shutdownToken);
     this.distributionDir = distributionDir.toAbsolutePath();
@@ -35,4 +37,9 @@ public class DcsConfig {
     this.enableTestServlet = enableTestServlet;
     return this;
   }
+
+  public DcsConfig withVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+    return this;
+  }
 }
@@ -28,6 +28,10 @@ public class DcsServiceSaturationTest extends AbstractDistributionTest {
 
   // We can't configure Jetty reliably to cap maximum incoming connections. Leave this to
   // a proxy server on top of the clusterig service where this can be more reliably controlled.
+  //
+  // This test saturates container threads using the test servlet, it isn't subject to the
+  // cluster servlet's admission control (covered by AdmissionControlTest) and has no assertions,
+  // so it stays disabled.
   @Ignore
   @Test
   public void runSaturationTest() throws Exception {
@@ -0,0 +1,92 @@
+/*
+ * Carrot2 project.
+ *
+ * Copyright (C) 2002-2020, Dawid Weiss, Stanisław Osiński.
+ * All rights reserved.
+ *
+ * Refer to the full license file "carrot2.LICENSE"
+ * in the root folder of the repository checkout or at:
+ * https://www.carrot2.org/carrot2.LICENSE
+ */
+package org.carrot2.dcs.it;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.servlet.http.HttpServletResponse;
+import org.assertj.core.api.Assertions;
+import org.carrot2.HttpRequest;
+import org.carrot2.dcs.model.ClusterRequest;
+import org.carrot2.dcs.model.ClusterResponse;
+import org.junit.Test;
+
+/** Runs clustering requests against a DCS handling requests on virtual threads. */
+public class DcsVirtualThreadsTest extends AbstractDistributionTest {
+  private static final String DCS_SHUTDOWN_TOKEN = "_shutdown_";
+
+  @Test
+  public void concurrentClusteringRequests() throws Exception {
+    assumeTrue("Virtual threads require Java 21 or later.", Runtime.version().feature() >= 21);
+
+    ObjectMapper om = new ObjectMapper();
+    ClusterRequest request = new ClusterRequest();
+    request.algorithm = "Lingo";
+    request.language = "English";
+    request.documents =
+        om.readValue(
+            resourceBytes("exampleData.json"),
+            new TypeReference<List<ClusterRequest.Document>>() {});
+    String requestJson = om.writeValueAsString(request);
+
+    // Run more requests than there are container threads and carrier threads.
+    int maxThreads = 8;
+    int requests = Math.max(maxThreads, Runtime.getRuntime().availableProcessors()) * 2;
+
+    DcsConfig config =
+        new DcsConfig(createTempDistMirror.mirrorPath(), DCS_SHUTDOWN_TOKEN)
+            .withMaxThreads(maxThreads)
+            .withVirtualThreads(true);
+
+    try (DcsService service = new ForkedDcs(config)) {
+      ExecutorService executorService = Executors.newFixedThreadPool(requests);
+      try {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<String>> futures =
+            IntStream.range(0, requests)
+                .mapToObj(
+                    idx ->
+                        executorService.submit(
+                            () -> {
+                              startLatch.await();
+                              HttpRequest.HttpRequestBuilder builder =
+                                  HttpRequest.builder().bodyAsUtf8(requestJson);
+                              if ((idx & 1) != 0) {
+                                builder.queryParam("streaming", "true");
+                              }
+                              return builder
+                                  .sendPost(service.getAddress().resolve("/service/cluster"))
+                                  .assertStatus(HttpServletResponse.SC_OK)
+                                  .bodyAsUtf8();
+                            }))
+                .collect(Collectors.toList());
+        startLatch.countDown();
+
+        for (Future<String> future : futures) {
+          ClusterResponse response =
+              om.readValue(future.get(30, TimeUnit.SECONDS), ClusterResponse.class);
+          Assertions.assertThat(response.clusters).isNotEmpty();
+        }
+      } finally {
+        executorService.shutdown();
+        executorService.awaitTermination(5, TimeUnit.SECONDS);
+      }
+    }
+  }
+}
@@ -48,6 +48,9 @@ public class ForkedDcs implements DcsService {
     if (config.maxThreads != null) {
       args.addAll(Arrays.asList(DcsLauncher.OPT_MAX_THREADS, Integer.toString(config.maxThreads)));
     }
+    if (config.virtualThreads) {
+      args.add(DcsLauncher.OPT_VIRTUAL_THREADS);
+    }
 
     List<String> dcsOpts = new ArrayList<>();
     dcsOpts.add("-Xmx256m");
@@ -15,6 +15,8 @@ import com.carrotsearch.randomizedtesting.ThreadFilter;
 public class IgnoreThreads implements ThreadFilter {
   @Override
   public boolean reject(Thread t) {
-    return t.getName().startsWith("ForkJoinPool.");
+    return t.getName().startsWith("ForkJoinPool.")
+        // Carrier threads of virtual threads (Java 21 and later).
+        || t.getClass().getName().equals("jdk.internal.misc.CarrierThread");
   }
 }